@@ -0,0 +1,111 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.dto.DatiPasseggeriDTO;
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+import it.unisa.thetourist.dominio.entita.Tariffa;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.dao.PagamentoDAO;
+import it.unisa.thetourist.persistenza.dao.PasseggeroDAO;
+import it.unisa.thetourist.persistenza.dao.PrenotazioneDAOMemoria;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+import it.unisa.thetourist.persistenza.integrazione.pagamento.SimulatorePagamentoClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Prenotazione concorrente: "posti" misura solo riserva/rilascio sull'inventario,
+// "postiSincronizzati" la stessa operazione su contatori con lock come confronto,
+// "prenotazione" il flusso completo avvia → passeggero → conferma con pagamento simulato.
+// Con voli = 1 tutti i thread si contendono lo stesso volo.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PrenotazioniBenchmark {
+
+    @Param({"1", "64"})
+    public int voli;
+
+    private InventarioPosti inventario;
+    private InventarioSincronizzato[] sincronizzati;
+    private ServizioPrenotazioni servizio;
+    private RuotaTemporale ruota;
+    private String[] codici;
+    private String[] tariffe;
+
+    // Stato nuovo a ogni iterazione: le prenotazioni confermate restano nei DAO in memoria
+    @Setup(Level.Iteration)
+    public void prepara() {
+        VoloDAO voloDAO = new VoloDAO();
+        TariffaDAO tariffaDAO = new TariffaDAO();
+        codici = new String[voli];
+        tariffe = new String[voli];
+        LocalDateTime partenza = LocalDateTime.now().plusDays(30);
+        for (int i = 0; i < voli; i++) {
+            codici[i] = "AZ" + i;
+            tariffe[i] = "T" + i;
+            voloDAO.salva(new Volo(codici[i], "NAP", "FCO", partenza, partenza.plusHours(1), Integer.MAX_VALUE / 2));
+            tariffaDAO.salva(new Tariffa(tariffe[i], codici[i], "ECONOMY", new BigDecimal("99.90")));
+        }
+        inventario = new InventarioPosti(voloDAO);
+        sincronizzati = new InventarioSincronizzato[voli];
+        for (int i = 0; i < voli; i++) sincronizzati[i] = new InventarioSincronizzato(Integer.MAX_VALUE / 2);
+        ruota = new RuotaTemporale(100).avvia();
+        servizio = new ServizioPrenotazioni(tariffaDAO, new PrenotazioneDAOMemoria(), new PasseggeroDAO(), inventario,
+                new ServizioPagamentiSimulati(new SimulatorePagamentoClient(), new PagamentoDAO()),
+                ruota, Duration.ofMinutes(15));
+    }
+
+    @TearDown(Level.Iteration)
+    public void chiudi() {
+        servizio.close();
+        ruota.close();
+    }
+
+    @Benchmark
+    public Volo posti() throws Exception {
+        String codice = codici[ThreadLocalRandom.current().nextInt(voli)];
+        inventario.riserva(codice, 2);
+        return inventario.rilascia(codice, 2);
+    }
+
+    @Benchmark
+    public boolean postiSincronizzati() {
+        InventarioSincronizzato s = sincronizzati[ThreadLocalRandom.current().nextInt(voli)];
+        return s.riserva(2) && s.rilascia(2);
+    }
+
+    @Benchmark
+    public Prenotazione prenotazione() throws Exception {
+        int i = ThreadLocalRandom.current().nextInt(voli);
+        Prenotazione p = servizio.avviaPrenotazione("utente", codici[i], tariffe[i], 1);
+        servizio.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Mario", "Rossi", "AB123456"));
+        return servizio.confermaPrenotazione(p.getCodice());
+    }
+
+    // Stessa semantica di InventarioPosti con un monitor per volo
+    static final class InventarioSincronizzato {
+        private int posti;
+
+        InventarioSincronizzato(int posti) { this.posti = posti; }
+
+        synchronized boolean riserva(int n) {
+            if (posti < n) return false;
+            posti -= n;
+            return true;
+        }
+
+        synchronized boolean rilascia(int n) {
+            posti += n;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.dto.CriteriRicercaDTO;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// cercaVoli su cataloghi da 10k a 10M voli: "cache" ripete sempre la stessa ricerca,
+// "indice" sceglie tratta e giorno a caso con una cache a TTL zero, quindi passa sempre dal DAO.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RicercaVoliBenchmark {
+
+    private static final int AEROPORTI = 60;
+    private static final int GIORNI = 90;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int voli;
+
+    private ServizioRicercaVoli servizio;
+    private ServizioRicercaVoli senzaCache;
+    private CriteriRicercaDTO[] criteri;
+    private CriteriRicercaDTO ripetuta;
+
+    @Setup(Level.Trial)
+    public void prepara() {
+        VoloDAO voloDAO = new VoloDAO();
+        LocalDateTime inizio = LocalDate.now().plusDays(1).atStartOfDay();
+        ThreadLocalRandom caso = ThreadLocalRandom.current();
+        for (int i = 0; i < voli; i++) {
+            int da = caso.nextInt(AEROPORTI);
+            int a = (da + 1 + caso.nextInt(AEROPORTI - 1)) % AEROPORTI;
+            LocalDateTime partenza = inizio.plusMinutes(caso.nextLong(GIORNI * 24L * 60));
+            voloDAO.salva(new Volo("V" + i, codice(da), codice(a), partenza, partenza.plusHours(2), 180));
+        }
+        servizio = new ServizioRicercaVoli(voloDAO, null, null, null, 10_000, Duration.ofMinutes(5));
+        senzaCache = new ServizioRicercaVoli(voloDAO, null, new CacheRicerche(10_000, 0, System::nanoTime), null, null);
+
+        criteri = new CriteriRicercaDTO[4096];
+        for (int i = 0; i < criteri.length; i++) {
+            int da = caso.nextInt(AEROPORTI);
+            criteri[i] = criteri(codice(da), codice((da + 1 + caso.nextInt(AEROPORTI - 1)) % AEROPORTI),
+                    inizio.toLocalDate().plusDays(caso.nextInt(GIORNI)), 1 + caso.nextInt(4));
+        }
+        ripetuta = criteri[0];
+    }
+
+    @Benchmark
+    public List<Volo> cache() throws Exception {
+        return servizio.cercaVoli(ripetuta);
+    }
+
+    @Benchmark
+    public List<Volo> indice() throws Exception {
+        return senzaCache.cercaVoli(criteri[ThreadLocalRandom.current().nextInt(criteri.length)]);
+    }
+
+    private static String codice(int i) {
+        return "A" + (char) ('A' + i / 26) + (char) ('A' + i % 26);
+    }
+
+    private static CriteriRicercaDTO criteri(String partenza, String arrivo, LocalDate data, int passeggeri) {
+        CriteriRicercaDTO c = new CriteriRicercaDTO();
+        c.setPartenza(partenza);
+        c.setArrivo(arrivo);
+        c.setDataPartenza(data);
+        c.setNumeroPasseggeri(passeggeri);
+        return c;
+    }
+}
@@ -0,0 +1,54 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.dominio.entita.Utente;
+import it.unisa.thetourist.dominio.enumerazioni.Permesso;
+import it.unisa.thetourist.persistenza.dao.UtenteDAO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Risoluzione del token di sessione (con scadenza scorrevole) e controllo del permesso,
+// il percorso che precede ogni richiesta autenticata.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SessioniBenchmark {
+
+    @Param({"100000", "2000000"})
+    public int sessioni;
+
+    private ServizioAutenticazione autenticazione;
+    private ServizioAutorizzazione autorizzazione;
+    private String[] token;
+
+    @Setup(Level.Trial)
+    public void prepara() {
+        UtenteDAO utenteDAO = new UtenteDAO();
+        ArchivioSessioni archivio = new ArchivioSessioni(30 * 60_000L, System::currentTimeMillis);
+        token = new String[sessioni];
+        for (int i = 0; i < sessioni; i++) {
+            String id = "u" + i % 10_000;
+            if (i < 10_000) utenteDAO.salva(new Utente(id, id + "@example.com", "Nome", "Cognome", ""));
+            token[i] = archivio.crea(id).getToken();
+        }
+        autenticazione = new ServizioAutenticazione(utenteDAO, new CodificatorePassword(1), archivio, Runnable::run);
+        autorizzazione = new ServizioAutorizzazione(utenteDAO);
+    }
+
+    @Benchmark
+    public SessioneDTO verificaSessione() throws Exception {
+        return autenticazione.verificaSessione(token[ThreadLocalRandom.current().nextInt(sessioni)]);
+    }
+
+    @Benchmark
+    public boolean verificaEAutorizza() throws Exception {
+        SessioneDTO s = autenticazione.verificaSessione(token[ThreadLocalRandom.current().nextInt(sessioni)]);
+        return autorizzazione.consente(s, Permesso.PRENOTA);
+    }
+}
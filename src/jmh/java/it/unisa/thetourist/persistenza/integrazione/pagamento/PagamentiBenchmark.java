@@ -0,0 +1,48 @@
+package it.unisa.thetourist.persistenza.integrazione.pagamento;
+
+import it.unisa.thetourist.dominio.enumerazioni.EsitoPagamento;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Pagamento tramite SimulatorePagamentoClient: chiamata diretta e attraverso PipelinePagamenti
+// (limite in volo, scadenza e circuit breaker), senza latenza simulata.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class PagamentiBenchmark {
+
+    private static final BigDecimal IMPORTO = new BigDecimal("120.00");
+
+    private SimulatorePagamentoClient simulatore;
+    private PipelinePagamenti pipeline;
+
+    @Setup(Level.Trial)
+    public void prepara() {
+        simulatore = new SimulatorePagamentoClient(Duration.ZERO, 0.05, 0.0);
+        pipeline = new PipelinePagamenti(simulatore, ForkJoinPool.commonPool(), 1_024, Duration.ofSeconds(5),
+                new InterruttoreCircuito(20, Duration.ofSeconds(10)));
+    }
+
+    @TearDown(Level.Trial)
+    public void chiudi() {
+        pipeline.close();
+    }
+
+    @Benchmark
+    public EsitoPagamento diretto() {
+        return simulatore.autorizza("PNR", IMPORTO);
+    }
+
+    @Benchmark
+    public EsitoPagamento pipeline() {
+        return pipeline.autorizza("PNR", IMPORTO).join();
+    }
+}
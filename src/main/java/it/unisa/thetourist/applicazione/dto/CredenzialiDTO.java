@@ -1,5 +1,20 @@
 package it.unisa.thetourist.applicazione.dto;
 
 public class CredenzialiDTO {
+    private String email;
+    private String password;
+
+    public CredenzialiDTO() { }
+
+    public CredenzialiDTO(String email, String password) {
+        this.email = email;
+        this.password = password;
+    }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
 }
 //Test push
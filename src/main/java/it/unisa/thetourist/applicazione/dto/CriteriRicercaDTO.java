@@ -1,12 +1,24 @@
 package it.unisa.thetourist.applicazione.dto;
 
 import java.time.LocalDate;
+import java.util.Objects;
 
 public class CriteriRicercaDTO {
     private String partenza;
     private String arrivo;
     private LocalDate dataPartenza;
     private int numeroPasseggeri;
+    private int flessibilitaGiorni;
+
+    public CriteriRicercaDTO() { }
+
+    public CriteriRicercaDTO(CriteriRicercaDTO altro) {
+        this.partenza = altro.partenza;
+        this.arrivo = altro.arrivo;
+        this.dataPartenza = altro.dataPartenza;
+        this.numeroPasseggeri = altro.numeroPasseggeri;
+        this.flessibilitaGiorni = altro.flessibilitaGiorni;
+    }
 
     public String getPartenza() { return partenza; }
     public void setPartenza(String partenza) { this.partenza = partenza; }
@@ -19,4 +31,24 @@ public class CriteriRicercaDTO {
 
     public int getNumeroPasseggeri() { return numeroPasseggeri; }
     public void setNumeroPasseggeri(int numeroPasseggeri) { this.numeroPasseggeri = numeroPasseggeri; }
+
+    // Giorni di tolleranza (±) attorno a dataPartenza per la ricerca a date flessibili
+    public int getFlessibilitaGiorni() { return flessibilitaGiorni; }
+    public void setFlessibilitaGiorni(int flessibilitaGiorni) { this.flessibilitaGiorni = flessibilitaGiorni; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CriteriRicercaDTO c)) return false;
+        return numeroPasseggeri == c.numeroPasseggeri
+                && flessibilitaGiorni == c.flessibilitaGiorni
+                && Objects.equals(partenza, c.partenza)
+                && Objects.equals(arrivo, c.arrivo)
+                && Objects.equals(dataPartenza, c.dataPartenza);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(partenza, arrivo, dataPartenza, numeroPasseggeri, flessibilitaGiorni);
+    }
 }
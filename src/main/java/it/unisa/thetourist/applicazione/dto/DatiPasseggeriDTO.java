@@ -1,4 +1,24 @@
 package it.unisa.thetourist.applicazione.dto;
 
 public class DatiPasseggeriDTO {
+    private String nome;
+    private String cognome;
+    private String documento;
+
+    public DatiPasseggeriDTO() { }
+
+    public DatiPasseggeriDTO(String nome, String cognome, String documento) {
+        this.nome = nome;
+        this.cognome = cognome;
+        this.documento = documento;
+    }
+
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
+
+    public String getCognome() { return cognome; }
+    public void setCognome(String cognome) { this.cognome = cognome; }
+
+    public String getDocumento() { return documento; }
+    public void setDocumento(String documento) { this.documento = documento; }
 }
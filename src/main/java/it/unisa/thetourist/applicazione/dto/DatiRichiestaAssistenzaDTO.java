@@ -1,4 +1,16 @@
 package it.unisa.thetourist.applicazione.dto;
 
 public class DatiRichiestaAssistenzaDTO {
+    private String codicePrenotazione;
+    private String oggetto;
+    private String messaggio;
+
+    public String getCodicePrenotazione() { return codicePrenotazione; }
+    public void setCodicePrenotazione(String codicePrenotazione) { this.codicePrenotazione = codicePrenotazione; }
+
+    public String getOggetto() { return oggetto; }
+    public void setOggetto(String oggetto) { this.oggetto = oggetto; }
+
+    public String getMessaggio() { return messaggio; }
+    public void setMessaggio(String messaggio) { this.messaggio = messaggio; }
 }
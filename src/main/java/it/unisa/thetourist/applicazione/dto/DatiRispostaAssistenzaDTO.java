@@ -1,4 +1,17 @@
 package it.unisa.thetourist.applicazione.dto;
 
 public class DatiRispostaAssistenzaDTO {
+    private String codiceRichiesta;
+    private String testo;
+    private boolean chiudi;
+
+    public String getCodiceRichiesta() { return codiceRichiesta; }
+    public void setCodiceRichiesta(String codiceRichiesta) { this.codiceRichiesta = codiceRichiesta; }
+
+    public String getTesto() { return testo; }
+    public void setTesto(String testo) { this.testo = testo; }
+
+    // true se con questa risposta la richiesta è risolta
+    public boolean isChiudi() { return chiudi; }
+    public void setChiudi(boolean chiudi) { this.chiudi = chiudi; }
 }
@@ -0,0 +1,27 @@
+package it.unisa.thetourist.applicazione.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DatiTrattaGruppoDTO {
+    private String codiceVolo;
+    private String codiceTariffa;
+    private List<DatiPasseggeriDTO> passeggeri = new ArrayList<>();
+
+    public DatiTrattaGruppoDTO() { }
+
+    public DatiTrattaGruppoDTO(String codiceVolo, String codiceTariffa, List<DatiPasseggeriDTO> passeggeri) {
+        this.codiceVolo = codiceVolo;
+        this.codiceTariffa = codiceTariffa;
+        this.passeggeri = passeggeri;
+    }
+
+    public String getCodiceVolo() { return codiceVolo; }
+    public void setCodiceVolo(String codiceVolo) { this.codiceVolo = codiceVolo; }
+
+    public String getCodiceTariffa() { return codiceTariffa; }
+    public void setCodiceTariffa(String codiceTariffa) { this.codiceTariffa = codiceTariffa; }
+
+    public List<DatiPasseggeriDTO> getPasseggeri() { return passeggeri; }
+    public void setPasseggeri(List<DatiPasseggeriDTO> passeggeri) { this.passeggeri = passeggeri; }
+}
@@ -1,4 +1,30 @@
 package it.unisa.thetourist.applicazione.dto;
 
+import java.time.LocalDateTime;
+
 public class DatiVoloDTO {
+    private String codice;
+    private String partenza;
+    private String arrivo;
+    private LocalDateTime dataOraPartenza;
+    private LocalDateTime dataOraArrivo;
+    private int postiDisponibili;
+
+    public String getCodice() { return codice; }
+    public void setCodice(String codice) { this.codice = codice; }
+
+    public String getPartenza() { return partenza; }
+    public void setPartenza(String partenza) { this.partenza = partenza; }
+
+    public String getArrivo() { return arrivo; }
+    public void setArrivo(String arrivo) { this.arrivo = arrivo; }
+
+    public LocalDateTime getDataOraPartenza() { return dataOraPartenza; }
+    public void setDataOraPartenza(LocalDateTime dataOraPartenza) { this.dataOraPartenza = dataOraPartenza; }
+
+    public LocalDateTime getDataOraArrivo() { return dataOraArrivo; }
+    public void setDataOraArrivo(LocalDateTime dataOraArrivo) { this.dataOraArrivo = dataOraArrivo; }
+
+    public int getPostiDisponibili() { return postiDisponibili; }
+    public void setPostiDisponibili(int postiDisponibili) { this.postiDisponibili = postiDisponibili; }
 }
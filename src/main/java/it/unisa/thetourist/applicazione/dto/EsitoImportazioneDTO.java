@@ -0,0 +1,40 @@
+package it.unisa.thetourist.applicazione.dto;
+
+import java.util.List;
+
+// Stato di un'importazione di orari: inviato come avanzamento dopo ogni lotto e restituito alla fine
+public class EsitoImportazioneDTO {
+    private final long byteLetti;
+    private final long byteTotali;
+    private final long righe;
+    private final long voli;
+    private final long tariffe;
+    private final long scartate;
+    private final List<String> errori;
+
+    public EsitoImportazioneDTO(long byteLetti, long byteTotali, long righe, long voli, long tariffe,
+                                long scartate, List<String> errori) {
+        this.byteLetti = byteLetti;
+        this.byteTotali = byteTotali;
+        this.righe = righe;
+        this.voli = voli;
+        this.tariffe = tariffe;
+        this.scartate = scartate;
+        this.errori = List.copyOf(errori);
+    }
+
+    public long getByteLetti() { return byteLetti; }
+
+    public long getByteTotali() { return byteTotali; }
+
+    public long getRighe() { return righe; }
+
+    public long getVoli() { return voli; }
+
+    public long getTariffe() { return tariffe; }
+
+    public long getScartate() { return scartate; }
+
+    // Solo le prime segnalazioni ("riga N: motivo"); getScartate() conta tutte le righe scartate
+    public List<String> getErrori() { return errori; }
+}
@@ -0,0 +1,28 @@
+package it.unisa.thetourist.applicazione.dto;
+
+import it.unisa.thetourist.dominio.entita.Volo;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+public class ItinerarioDTO {
+    private final List<Volo> tratte;
+    private final Duration durata;
+    private final BigDecimal prezzo;
+
+    public ItinerarioDTO(List<Volo> tratte, BigDecimal prezzo) {
+        this.tratte = List.copyOf(tratte);
+        this.durata = Duration.between(tratte.get(0).getDataOraPartenza(), tratte.get(tratte.size() - 1).getDataOraArrivo());
+        this.prezzo = prezzo;
+    }
+
+    public List<Volo> getTratte() { return tratte; }
+
+    public Duration getDurata() { return durata; }
+
+    // null se almeno una tratta non ha tariffe
+    public BigDecimal getPrezzo() { return prezzo; }
+
+    public int getScali() { return tratte.size() - 1; }
+}
@@ -0,0 +1,21 @@
+package it.unisa.thetourist.applicazione.dto;
+
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+
+import java.util.List;
+
+// Una pagina dello storico prenotazioni di un utente, in ordine di data di partenza
+public class PaginaPrenotazioniDTO {
+    private final List<Prenotazione> prenotazioni;
+    private final String cursoreSuccessivo;
+
+    public PaginaPrenotazioniDTO(List<Prenotazione> prenotazioni, String cursoreSuccessivo) {
+        this.prenotazioni = List.copyOf(prenotazioni);
+        this.cursoreSuccessivo = cursoreSuccessivo;
+    }
+
+    public List<Prenotazione> getPrenotazioni() { return prenotazioni; }
+
+    // Da passare alla richiesta della pagina seguente; null se questa è l'ultima
+    public String getCursoreSuccessivo() { return cursoreSuccessivo; }
+}
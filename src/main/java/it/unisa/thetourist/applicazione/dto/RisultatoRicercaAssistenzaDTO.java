@@ -0,0 +1,30 @@
+package it.unisa.thetourist.applicazione.dto;
+
+// Un messaggio trovato dalla ricerca: l'apertura di una richiesta o una risposta successiva
+public class RisultatoRicercaAssistenzaDTO {
+    private final String codiceRichiesta;
+    private final String codiceRisposta;
+    private final String oggetto;
+    private final String testo;
+    private final double punteggio;
+
+    public RisultatoRicercaAssistenzaDTO(String codiceRichiesta, String codiceRisposta, String oggetto, String testo,
+                                         double punteggio) {
+        this.codiceRichiesta = codiceRichiesta;
+        this.codiceRisposta = codiceRisposta;
+        this.oggetto = oggetto;
+        this.testo = testo;
+        this.punteggio = punteggio;
+    }
+
+    public String getCodiceRichiesta() { return codiceRichiesta; }
+
+    // null se il messaggio è quello di apertura della richiesta
+    public String getCodiceRisposta() { return codiceRisposta; }
+
+    public String getOggetto() { return oggetto; }
+
+    public String getTesto() { return testo; }
+
+    public double getPunteggio() { return punteggio; }
+}
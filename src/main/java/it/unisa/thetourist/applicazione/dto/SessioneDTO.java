@@ -1,4 +1,26 @@
 package it.unisa.thetourist.applicazione.dto;
 
+import java.time.Instant;
+
 public class SessioneDTO {
+    private String token;
+    private String idUtente;
+    private Instant scadenza;
+
+    public SessioneDTO() { }
+
+    public SessioneDTO(String token, String idUtente, Instant scadenza) {
+        this.token = token;
+        this.idUtente = idUtente;
+        this.scadenza = scadenza;
+    }
+
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+
+    public String getIdUtente() { return idUtente; }
+    public void setIdUtente(String idUtente) { this.idUtente = idUtente; }
+
+    public Instant getScadenza() { return scadenza; }
+    public void setScadenza(Instant scadenza) { this.scadenza = scadenza; }
 }
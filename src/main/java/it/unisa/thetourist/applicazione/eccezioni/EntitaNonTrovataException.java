@@ -1,4 +1,5 @@
 package it.unisa.thetourist.applicazione.eccezioni;
 
-public class EntitaNonTrovataException {
+public class EntitaNonTrovataException extends Exception {
+    public EntitaNonTrovataException(String message) { super(message); }
 }
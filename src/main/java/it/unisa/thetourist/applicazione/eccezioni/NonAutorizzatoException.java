@@ -1,4 +1,5 @@
 package it.unisa.thetourist.applicazione.eccezioni;
 
-public class NonAutorizzatoException {
+public class NonAutorizzatoException extends Exception {
+    public NonAutorizzatoException(String message) { super(message); }
 }
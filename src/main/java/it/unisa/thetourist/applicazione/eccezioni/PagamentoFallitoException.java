@@ -1,4 +1,5 @@
 package it.unisa.thetourist.applicazione.eccezioni;
 
-public class PagamentoFallitoException {
+public class PagamentoFallitoException extends Exception {
+    public PagamentoFallitoException(String message) { super(message); }
 }
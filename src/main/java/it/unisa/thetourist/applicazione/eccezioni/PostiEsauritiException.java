@@ -1,4 +1,5 @@
 package it.unisa.thetourist.applicazione.eccezioni;
 
-public class PostiEsauritiException {
+public class PostiEsauritiException extends Exception {
+    public PostiEsauritiException(String message) { super(message); }
 }
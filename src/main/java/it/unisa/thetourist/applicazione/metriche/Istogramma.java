@@ -0,0 +1,67 @@
+package it.unisa.thetourist.applicazione.metriche;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Istogramma a bucket log-lineari in stile HDR: ogni potenza di due è divisa in SUB sotto-bucket,
+// quindi l'errore relativo di un percentile è al più 1/SUB (~3%) su tutto l'intervallo di valori.
+// registra() non alloca: calcola l'indice con due operazioni sui bit e incrementa un contatore.
+public final class Istogramma {
+
+    private static final int BIT_SUB = 5;
+    private static final int SUB = 1 << BIT_SUB;
+    private static final int BUCKET = (64 - BIT_SUB) * SUB;
+
+    private final AtomicLongArray conteggi = new AtomicLongArray(BUCKET);
+    private final LongAdder somma = new LongAdder();
+    private final LongAccumulator massimo = new LongAccumulator(Math::max, 0);
+
+    public void registra(long valore) {
+        if (valore < 0) valore = 0;
+        conteggi.incrementAndGet(indice(valore));
+        somma.add(valore);
+        massimo.accumulate(valore);
+    }
+
+    public Distribuzione distribuzione() {
+        long[] copia = new long[BUCKET];
+        long totale = 0;
+        for (int i = 0; i < BUCKET; i++) {
+            copia[i] = conteggi.get(i);
+            totale += copia[i];
+        }
+        long max = massimo.get();
+        return new Distribuzione(totale, totale == 0 ? 0 : (double) somma.sum() / totale,
+                percentile(copia, totale, 0.50, max), percentile(copia, totale, 0.90, max),
+                percentile(copia, totale, 0.99, max), percentile(copia, totale, 0.999, max), max);
+    }
+
+    static int indice(long valore) {
+        if (valore < SUB) return (int) valore;
+        int esponente = 63 - Long.numberOfLeadingZeros(valore);
+        int spostamento = esponente - BIT_SUB;
+        return (spostamento + 1) * SUB + (int) ((valore >>> spostamento) & (SUB - 1));
+    }
+
+    // Valore più alto che cade nello stesso bucket
+    static long limiteSuperiore(int indice) {
+        if (indice < SUB) return indice;
+        int gruppo = indice / SUB;
+        long base = (long) (SUB + indice % SUB) << (gruppo - 1);
+        return base + (1L << (gruppo - 1)) - 1;
+    }
+
+    private static long percentile(long[] conteggi, long totale, double quantile, long max) {
+        if (totale == 0) return 0;
+        long soglia = Math.max(1, (long) Math.ceil(quantile * totale));
+        long cumulato = 0;
+        for (int i = 0; i < conteggi.length; i++) {
+            cumulato += conteggi[i];
+            if (cumulato >= soglia) return Math.min(limiteSuperiore(i), max);
+        }
+        return max;
+    }
+
+    public record Distribuzione(long conteggio, double media, long p50, long p90, long p99, long p999, long max) { }
+}
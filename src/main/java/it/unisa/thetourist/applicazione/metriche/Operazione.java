@@ -0,0 +1,43 @@
+package it.unisa.thetourist.applicazione.metriche;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Metriche di una singola operazione: latenza, chiamate ed errori per tipo di eccezione.
+// Uso tipico, senza allocazioni:
+//   long inizio = System.nanoTime();
+//   try { ... } catch (Exception e) { op.errore(e); throw e; } finally { op.registra(inizio); }
+public final class Operazione {
+
+    private final String nome;
+    private final Istogramma latenza = new Istogramma();
+    private final LongAdder chiamate = new LongAdder();
+    private final Map<Class<?>, LongAdder> errori = new ConcurrentHashMap<>();
+
+    Operazione(String nome) {
+        this.nome = nome;
+    }
+
+    public void registra(long inizioNanos) {
+        chiamate.increment();
+        latenza.registra(System.nanoTime() - inizioNanos);
+    }
+
+    public void errore(Throwable e) {
+        errori.computeIfAbsent(e.getClass(), c -> new LongAdder()).increment();
+    }
+
+    public String getNome() { return nome; }
+
+    public long chiamate() { return chiamate.sum(); }
+
+    public Istogramma.Distribuzione latenza() { return latenza.distribuzione(); }
+
+    public Map<String, Long> errori() {
+        Map<String, Long> perTipo = new TreeMap<>();
+        errori.forEach((tipo, n) -> perTipo.put(tipo.getSimpleName(), n.sum()));
+        return perTipo;
+    }
+}
@@ -0,0 +1,94 @@
+package it.unisa.thetourist.applicazione.metriche;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Registro delle metriche di processo: operazioni (latenza, chiamate, errori), contatori e indicatori.
+// Controller e servizi risolvono le proprie metriche una volta, alla costruzione, e sul percorso
+// caldo aggiornano solo contatori. testo() e json() producono un'istantanea da leggere in locale.
+public final class RegistroMetriche {
+
+    private static final RegistroMetriche GLOBALE = new RegistroMetriche();
+
+    private final Map<String, Operazione> operazioni = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> contatori = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> indicatori = new ConcurrentHashMap<>();
+
+    public static RegistroMetriche globale() {
+        return GLOBALE;
+    }
+
+    public Operazione operazione(String nome) {
+        return operazioni.computeIfAbsent(nome, Operazione::new);
+    }
+
+    public LongAdder contatore(String nome) {
+        return contatori.computeIfAbsent(nome, n -> new LongAdder());
+    }
+
+    // Valore letto solo al momento dell'istantanea (dimensione di cache, code, sessioni...).
+    // Un nuovo indicatore con lo stesso nome sostituisce il precedente.
+    public void indicatore(String nome, LongSupplier valore) {
+        indicatori.put(nome, valore);
+    }
+
+    public String testo() {
+        StringBuilder sb = new StringBuilder();
+        for (Operazione op : operazioni.values()) {
+            Istogramma.Distribuzione d = op.latenza();
+            sb.append(String.format(Locale.ROOT, "%s chiamate=%d media=%.0fns p50=%dns p90=%dns p99=%dns p999=%dns max=%dns",
+                    op.getNome(), op.chiamate(), d.media(), d.p50(), d.p90(), d.p99(), d.p999(), d.max()));
+            op.errori().forEach((tipo, n) -> sb.append(' ').append(tipo).append('=').append(n));
+            sb.append('\n');
+        }
+        contatori.forEach((nome, n) -> sb.append(nome).append(' ').append(n.sum()).append('\n'));
+        new ConcurrentSkipListMap<>(indicatori).forEach((nome, v) -> sb.append(nome).append(' ').append(v.getAsLong()).append('\n'));
+        return sb.toString();
+    }
+
+    public String json() {
+        StringBuilder sb = new StringBuilder("{\"operazioni\":{");
+        String sep = "";
+        for (Operazione op : operazioni.values()) {
+            Istogramma.Distribuzione d = op.latenza();
+            sb.append(sep).append(stringa(op.getNome())).append(":{")
+                    .append("\"chiamate\":").append(op.chiamate())
+                    .append(",\"latenzaNs\":{")
+                    .append("\"media\":").append(String.format(Locale.ROOT, "%.1f", d.media()))
+                    .append(",\"p50\":").append(d.p50())
+                    .append(",\"p90\":").append(d.p90())
+                    .append(",\"p99\":").append(d.p99())
+                    .append(",\"p999\":").append(d.p999())
+                    .append(",\"max\":").append(d.max())
+                    .append("},\"errori\":{");
+            String sepErrori = "";
+            for (Map.Entry<String, Long> e : op.errori().entrySet()) {
+                sb.append(sepErrori).append(stringa(e.getKey())).append(':').append(e.getValue());
+                sepErrori = ",";
+            }
+            sb.append("}}");
+            sep = ",";
+        }
+        sb.append("},\"contatori\":{");
+        sep = "";
+        for (Map.Entry<String, LongAdder> e : contatori.entrySet()) {
+            sb.append(sep).append(stringa(e.getKey())).append(':').append(e.getValue().sum());
+            sep = ",";
+        }
+        sb.append("},\"indicatori\":{");
+        sep = "";
+        for (Map.Entry<String, LongSupplier> e : new ConcurrentSkipListMap<>(indicatori).entrySet()) {
+            sb.append(sep).append(stringa(e.getKey())).append(':').append(e.getValue().getAsLong());
+            sep = ",";
+        }
+        return sb.append("}}").toString();
+    }
+
+    private static String stringa(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
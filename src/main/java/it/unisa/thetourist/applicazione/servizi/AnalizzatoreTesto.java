@@ -0,0 +1,53 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Riduce un testo italiano o inglese ai termini dell'indice: minuscole senza accenti, parole vuote
+// scartate e una radice leggera che unisce singolare e plurale (volo/voli, bagaglio/bagagli, flight/flights).
+// Testi indicizzati e interrogazioni passano dalla stessa analisi.
+final class AnalizzatoreTesto {
+
+    private static final Set<String> PAROLE_VUOTE = Set.of(
+            "il", "lo", "la", "gli", "le", "un", "uno", "una", "di", "da", "in", "con", "su", "per", "tra", "fra",
+            "ma", "che", "non", "del", "dello", "della", "dei", "degli", "delle", "al", "allo", "alla", "ai", "agli",
+            "alle", "dal", "dalla", "nel", "nella", "sul", "sulla", "mi", "ti", "ci", "vi", "si", "ne", "ho", "ha",
+            "hanno", "sono", "era", "come", "anche", "se", "piu", "questo", "questa", "mio", "mia", "suo", "sua",
+            "the", "and", "or", "of", "to", "on", "for", "with", "is", "are", "was", "were", "be", "been", "it",
+            "this", "that", "an", "my", "you", "we", "at", "by", "from", "not", "have", "has", "had", "do", "does",
+            "me", "your", "our", "but", "so", "if", "as", "can", "will");
+
+    private AnalizzatoreTesto() { }
+
+    // Termini nell'ordine del testo, con ripetizioni
+    static List<String> termini(String testo) {
+        List<String> termini = new ArrayList<>();
+        if (testo == null) return termini;
+        String normalizzato = Normalizer.normalize(testo, Normalizer.Form.NFD);
+        StringBuilder parola = new StringBuilder();
+        for (int i = 0; i <= normalizzato.length(); i++) {
+            char c = i < normalizzato.length() ? normalizzato.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue; // accento separato dalla lettera
+            if (Character.isLetterOrDigit(c)) {
+                parola.append(c);
+            } else if (!parola.isEmpty()) {
+                String t = parola.toString().toLowerCase(Locale.ROOT);
+                parola.setLength(0);
+                if (t.length() >= 2 && !PAROLE_VUOTE.contains(t)) termini.add(radice(t));
+            }
+        }
+        return termini;
+    }
+
+    static String radice(String t) {
+        int n = t.length();
+        if (n > 3 && t.charAt(n - 1) == 's' && t.charAt(n - 2) != 's') t = t.substring(0, --n);
+        if (n > 3 && "aeio".indexOf(t.charAt(n - 1)) >= 0) t = t.substring(0, --n);
+        // bagaglio -> bagagli -> bagagl, come il plurale
+        if (n > 3 && t.charAt(n - 1) == 'i') t = t.substring(0, n - 1);
+        return t;
+    }
+}
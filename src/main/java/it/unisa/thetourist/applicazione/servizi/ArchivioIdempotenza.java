@@ -0,0 +1,95 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Archivio limitato chiave di idempotenza -> esito (anche in corso) della prima richiesta.
+// I duplicati concorrenti ricevono lo stesso future della prima esecuzione. Un esito negativo definitivo
+// (da scartare) libera la chiave per un nuovo tentativo; gli altri esiti restano memorizzati.
+// Se l'esecuzione fallisce con un'eccezione l'esito è incerto (la richiesta può essere arrivata a destinazione):
+// la chiave resta legata alla sua impronta e il tentativo successivo riesegue la richiesta, che deve quindi
+// essere a sua volta idempotente a valle.
+// Le chiavi escono in ordine di inserimento oltre la capacità o dopo il TTL.
+final class ArchivioIdempotenza<T> {
+
+    private record Voce<T>(String chiave, String impronta, CompletableFuture<T> esito, long inserita) { }
+
+    static final class ImprontaDiversaException extends RuntimeException {
+        ImprontaDiversaException() { super("Chiave di idempotenza già usata per una richiesta diversa"); }
+    }
+
+    private final Map<String, Voce<T>> voci = new ConcurrentHashMap<>();
+    private final Queue<Voce<T>> ordine = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger dimensione = new AtomicInteger();
+    private final int capacita;
+    private final long ttlNanos;
+    private final LongSupplier orologio;
+
+    ArchivioIdempotenza(int capacita, long ttlNanos, LongSupplier orologio) {
+        this.capacita = capacita;
+        this.ttlNanos = ttlNanos;
+        this.orologio = orologio;
+    }
+
+    // impronta: riassunto della richiesta, per rifiutare il riuso della chiave con dati diversi
+    CompletableFuture<T> esegui(String chiave, String impronta, Predicate<T> daScartare,
+                                Supplier<CompletableFuture<T>> richiesta) {
+        long adesso = orologio.getAsLong();
+        Voce<T> mia = new Voce<>(chiave, impronta, new CompletableFuture<>(), adesso);
+        while (true) {
+            Voce<T> esistente = voci.putIfAbsent(chiave, mia);
+            if (esistente == null) {
+                if (dimensione.incrementAndGet() > capacita) rimuoviPiuVecchia();
+                break;
+            }
+            if (adesso - esistente.inserita() < ttlNanos) {
+                if (!esistente.impronta().equals(impronta)) return CompletableFuture.failedFuture(new ImprontaDiversaException());
+                if (!esistente.esito().isCompletedExceptionally()) return esistente.esito();
+            }
+            if (voci.replace(chiave, esistente, mia)) break;
+        }
+        ordine.add(mia);
+
+        CompletableFuture<T> esecuzione;
+        try {
+            esecuzione = richiesta.get();
+        } catch (RuntimeException e) {
+            esecuzione = CompletableFuture.failedFuture(e);
+        }
+        esecuzione.whenComplete((valore, errore) -> {
+            if (errore == null && daScartare.test(valore)) rimuovi(mia);
+            if (errore == null) mia.esito().complete(valore); else mia.esito().completeExceptionally(errore);
+        });
+        return mia.esito();
+    }
+
+    // Dimentica la chiave: la prossima richiesta con la stessa chiave viene eseguita da capo
+    void libera(String chiave) {
+        Voce<T> v = voci.get(chiave);
+        if (v != null) rimuovi(v);
+    }
+
+    int dimensione() {
+        return dimensione.get();
+    }
+
+    private void rimuoviPiuVecchia() {
+        // la coda può contenere voci già sostituite o liberate: si scartano finché non se ne rimuove una viva
+        for (Voce<T> v; (v = ordine.poll()) != null; ) {
+            if (rimuovi(v)) return;
+        }
+    }
+
+    private boolean rimuovi(Voce<T> v) {
+        if (!voci.remove(v.chiave(), v)) return false;
+        dimensione.decrementAndGet();
+        return true;
+    }
+}
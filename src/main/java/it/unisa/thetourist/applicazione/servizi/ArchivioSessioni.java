@@ -0,0 +1,135 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Sessioni in memoria, suddivise in segmenti con un lock ciascuno.
+// Ogni segmento è in ordine di accesso e la durata è la stessa per tutte le sessioni,
+// quindi la testa del segmento è sempre la prossima a scadere: la pulizia rimuove
+// dalla testa finché trova sessioni scadute, senza mai scandire le sessioni attive.
+final class ArchivioSessioni {
+
+    // Stima per sessione: token (String + byte[22]), voce della mappa collegata, Voce, slot della tabella
+    static final int BYTE_PER_SESSIONE = 160;
+
+    private static final int SEGMENTI = 64;
+    private static final int BYTE_TOKEN = 16;
+    private static final int PULIZIA_PER_SCRITTURA = 4;
+
+    private static final class Voce {
+        final String idUtente;
+        long ultimoAccesso;
+
+        Voce(String idUtente, long ultimoAccesso) {
+            this.idUtente = idUtente;
+            this.ultimoAccesso = ultimoAccesso;
+        }
+    }
+
+    private static final class Segmento extends LinkedHashMap<String, Voce> {
+        Segmento() { super(1024, 0.75f, true); }
+    }
+
+    private final Segmento[] segmenti = new Segmento[SEGMENTI];
+    private final long durataMillis;
+    private final LongSupplier orologio;
+    private final SecureRandom casuale = new SecureRandom();
+    private final Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+    private final AtomicInteger cursore = new AtomicInteger();
+    private final LongAdder create = new LongAdder();
+    private final LongAdder scadute = new LongAdder();
+
+    ArchivioSessioni(long durataMillis, LongSupplier orologioMillis) {
+        for (int i = 0; i < SEGMENTI; i++) segmenti[i] = new Segmento();
+        this.durataMillis = durataMillis;
+        this.orologio = orologioMillis;
+    }
+
+    SessioneDTO crea(String idUtente) {
+        byte[] casuali = new byte[BYTE_TOKEN];
+        casuale.nextBytes(casuali);
+        String token = b64.encodeToString(casuali);
+        long adesso = orologio.getAsLong();
+        Segmento s = segmento(token);
+        synchronized (s) {
+            pulisci(s, adesso, PULIZIA_PER_SCRITTURA);
+            s.put(token, new Voce(idUtente, adesso));
+        }
+        create.increment();
+        return new SessioneDTO(token, idUtente, Instant.ofEpochMilli(adesso + durataMillis));
+    }
+
+    // null se il token è sconosciuto o scaduto; altrimenti la scadenza viene spostata in avanti
+    SessioneDTO tocca(String token) {
+        long adesso = orologio.getAsLong();
+        Segmento s = segmento(token);
+        String idUtente;
+        synchronized (s) {
+            Voce v = s.get(token);
+            if (v == null) return null;
+            if (adesso - v.ultimoAccesso >= durataMillis) {
+                s.remove(token);
+                scadute.increment();
+                return null;
+            }
+            v.ultimoAccesso = adesso;
+            idUtente = v.idUtente;
+        }
+        return new SessioneDTO(token, idUtente, Instant.ofEpochMilli(adesso + durataMillis));
+    }
+
+    boolean rimuovi(String token) {
+        Segmento s = segmento(token);
+        synchronized (s) {
+            return s.remove(token) != null;
+        }
+    }
+
+    // Pulizia incrementale: visita i segmenti a turno e rimuove al più massimo sessioni scadute.
+    int spazza(int massimo) {
+        long adesso = orologio.getAsLong();
+        int rimosse = 0;
+        for (int i = 0; i < SEGMENTI && rimosse < massimo; i++) {
+            Segmento s = segmenti[cursore.getAndIncrement() & (SEGMENTI - 1)];
+            synchronized (s) {
+                rimosse += pulisci(s, adesso, massimo - rimosse);
+            }
+        }
+        return rimosse;
+    }
+
+    StatisticheSessioni statistiche() {
+        int attive = 0;
+        for (Segmento s : segmenti) {
+            synchronized (s) {
+                attive += s.size();
+            }
+        }
+        return new StatisticheSessioni(attive, (long) attive * BYTE_PER_SESSIONE, create.sum(), scadute.sum());
+    }
+
+    private int pulisci(Segmento s, long adesso, int massimo) {
+        int rimosse = 0;
+        Iterator<Map.Entry<String, Voce>> it = s.entrySet().iterator();
+        while (rimosse < massimo && it.hasNext() && adesso - it.next().getValue().ultimoAccesso >= durataMillis) {
+            it.remove();
+            rimosse++;
+        }
+        scadute.add(rimosse);
+        return rimosse;
+    }
+
+    private Segmento segmento(String token) {
+        int h = token.hashCode();
+        return segmenti[(h ^ (h >>> 16)) & (SEGMENTI - 1)];
+    }
+}
@@ -0,0 +1,132 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.dto.CriteriRicercaDTO;
+import it.unisa.thetourist.dominio.entita.Volo;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Cache LRU/TTL dei risultati di ricerca, segmentata per ridurre la contesa.
+// Le voci sono raggruppate per (partenza, arrivo, giorno): un'invalidazione rimuove
+// un solo gruppo, con tutti i numeri di passeggeri richiesti per quella tratta/giorno.
+final class CacheRicerche {
+
+    private record Chiave(String partenza, String arrivo, LocalDate data) { }
+    private record Voce(List<Volo> voli, long scadenza) { }
+
+    private static final int SEGMENTI = 16;
+
+    private final Segmento[] segmenti = new Segmento[SEGMENTI];
+    private final long ttlNanos;
+    private final LongSupplier orologio;
+    private final LongAdder hit = new LongAdder();
+    private final LongAdder miss = new LongAdder();
+    private final LongAdder evizioni = new LongAdder();
+
+    private final class Segmento extends LinkedHashMap<Chiave, Map<Integer, Voce>> {
+        private final int capacita;
+        private long versione;
+
+        Segmento(int capacita) {
+            super(16, 0.75f, true);
+            this.capacita = capacita;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Chiave, Map<Integer, Voce>> piuVecchia) {
+            if (size() <= capacita) return false;
+            evizioni.add(piuVecchia.getValue().size());
+            return true;
+        }
+    }
+
+    CacheRicerche(int capacita, long ttlNanos, LongSupplier orologio) {
+        int perSegmento = Math.max(1, capacita / SEGMENTI);
+        for (int i = 0; i < SEGMENTI; i++) segmenti[i] = new Segmento(perSegmento);
+        this.ttlNanos = ttlNanos;
+        this.orologio = orologio;
+    }
+
+    List<Volo> leggi(CriteriRicercaDTO criteri) {
+        return leggi(criteri, true);
+    }
+
+    // Seconda lettura dello stesso chiamante dopo un miss: non altera hit e miss
+    List<Volo> rileggi(CriteriRicercaDTO criteri) {
+        return leggi(criteri, false);
+    }
+
+    private List<Volo> leggi(CriteriRicercaDTO criteri, boolean conta) {
+        Chiave chiave = chiave(criteri);
+        Segmento s = segmento(chiave);
+        synchronized (s) {
+            Map<Integer, Voce> gruppo = s.get(chiave);
+            Voce voce = gruppo == null ? null : gruppo.get(criteri.getNumeroPasseggeri());
+            if (voce != null && voce.scadenza() - orologio.getAsLong() <= 0) {
+                gruppo.remove(criteri.getNumeroPasseggeri());
+                if (gruppo.isEmpty()) s.remove(chiave);
+                evizioni.increment();
+                voce = null;
+            }
+            if (voce == null) {
+                if (conta) miss.increment();
+                return null;
+            }
+            if (conta) hit.increment();
+            return voce.voli();
+        }
+    }
+
+    // Versione da leggere prima di interrogare il DAO e passare a scrivi():
+    // se nel frattempo la tratta è stata invalidata il risultato non viene memorizzato.
+    long versione(CriteriRicercaDTO criteri) {
+        Segmento s = segmento(chiave(criteri));
+        synchronized (s) {
+            return s.versione;
+        }
+    }
+
+    void scrivi(CriteriRicercaDTO criteri, List<Volo> voli, long versioneLetta) {
+        Chiave chiave = chiave(criteri);
+        Segmento s = segmento(chiave);
+        Voce voce = new Voce(List.copyOf(voli), orologio.getAsLong() + ttlNanos);
+        synchronized (s) {
+            if (s.versione != versioneLetta) return;
+            s.computeIfAbsent(chiave, k -> new HashMap<>()).put(criteri.getNumeroPasseggeri(), voce);
+        }
+    }
+
+    void invalida(String partenza, String arrivo, LocalDate data) {
+        Chiave chiave = new Chiave(partenza, arrivo, data);
+        Segmento s = segmento(chiave);
+        synchronized (s) {
+            s.versione++;
+            Map<Integer, Voce> gruppo = s.remove(chiave);
+            if (gruppo != null) evizioni.add(gruppo.size());
+        }
+    }
+
+    StatisticheCache statistiche() {
+        int dimensione = 0;
+        for (Segmento s : segmenti) {
+            synchronized (s) {
+                for (Map<Integer, Voce> gruppo : s.values()) dimensione += gruppo.size();
+            }
+        }
+        return new StatisticheCache(hit.sum(), miss.sum(), evizioni.sum(), dimensione);
+    }
+
+    private static Chiave chiave(CriteriRicercaDTO c) {
+        return new Chiave(c.getPartenza(), c.getArrivo(), c.getDataPartenza());
+    }
+
+    private Segmento segmento(Chiave chiave) {
+        int h = chiave.hashCode();
+        return segmenti[(h ^ (h >>> 16)) & (SEGMENTI - 1)];
+    }
+}
@@ -0,0 +1,125 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Prezzo minimo per tratta e per giorno, mantenuto a ogni variazione invece di ricalcolarlo a ogni richiesta.
+// Per ogni giorno i voli con posti liberi stanno in un insieme ordinato per prezzo: la prima voce è il minimo,
+// e una variazione costa una rimozione e un inserimento, O(log n).
+// Una tratta viene costruita alla prima richiesta; fino ad allora le sue notifiche vengono ignorate.
+// Ogni tratta ha il proprio monitor: le variazioni su tratte diverse non si attendono a vicenda.
+public class CalendarioTariffe implements OsservatoreVoli {
+
+    private record Tratta(String partenza, String arrivo) {
+        static Tratta di(Volo v) { return new Tratta(v.getPartenza(), v.getArrivo()); }
+    }
+
+    private record Voce(String codiceVolo, LocalDate giorno, BigDecimal prezzo) { }
+
+    // Scritture sotto il monitor della tratta; i giorni si leggono senza lock
+    private static final class Giorni {
+        final ConcurrentSkipListMap<LocalDate, ConcurrentSkipListSet<Voce>> perGiorno = new ConcurrentSkipListMap<>();
+        // voce corrente di ogni volo della tratta
+        final Map<String, Voce> perVolo = new HashMap<>();
+        volatile boolean costruita;
+    }
+
+    private static final Comparator<Voce> PER_PREZZO = Comparator.comparing(Voce::prezzo).thenComparing(Voce::codiceVolo);
+
+    private final VoloDAO voloDAO;
+    private final MotorePrezzi prezzi;
+    private final Map<Tratta, Giorni> tratte = new ConcurrentHashMap<>();
+    // Tratta su cui ogni volo ha una voce: ritrova la voce vecchia di un volo spostato
+    private final Map<String, Tratta> trattaDelVolo = new ConcurrentHashMap<>();
+
+    public CalendarioTariffe(VoloDAO voloDAO, MotorePrezzi prezzi) {
+        this.voloDAO = voloDAO;
+        this.prezzi = prezzi;
+    }
+
+    // Giorni in [da, a] con almeno un volo prenotabile e il relativo prezzo minimo per un posto
+    public SortedMap<LocalDate, BigDecimal> minimi(String partenza, String arrivo, LocalDate da, LocalDate a) {
+        SortedMap<LocalDate, BigDecimal> risultato = new TreeMap<>();
+        for (Map.Entry<LocalDate, ConcurrentSkipListSet<Voce>> g : giorni(new Tratta(partenza, arrivo)).perGiorno
+                .subMap(da, true, a, true).entrySet()) {
+            // un giorno può svuotarsi mentre lo si legge
+            Iterator<Voce> voci = g.getValue().iterator();
+            if (voci.hasNext()) risultato.put(g.getKey(), voci.next().prezzo());
+        }
+        return risultato;
+    }
+
+    // Il volo notificato può essere lo stato precedente: fa fede quello attualmente in catalogo.
+    // Si riallineano la tratta notificata, quella attuale e quella dove il volo ha ancora una voce.
+    @Override
+    public void voloModificato(Volo volo) {
+        String codice = volo.getCodice();
+        Set<Tratta> coinvolte = new HashSet<>(4);
+        coinvolte.add(Tratta.di(volo));
+        voloDAO.findByCodice(codice).ifPresent(attuale -> coinvolte.add(Tratta.di(attuale)));
+        Tratta precedente = trattaDelVolo.get(codice);
+        if (precedente != null) coinvolte.add(precedente);
+        for (Tratta t : coinvolte) {
+            Giorni g = tratte.get(t);
+            if (g == null) continue;
+            synchronized (g) {
+                // non ancora costruita: la costruzione leggerà lo stato attuale del catalogo
+                if (g.costruita) riallinea(g, t, codice);
+            }
+        }
+    }
+
+    private Giorni giorni(Tratta t) {
+        Giorni g = tratte.computeIfAbsent(t, k -> new Giorni());
+        if (g.costruita) return g;
+        synchronized (g) {
+            if (!g.costruita) {
+                for (Volo v : voloDAO.findPartenze(t.partenza(), t.arrivo(), LocalDateTime.MIN, LocalDateTime.MAX, 1)) {
+                    inserisci(g, t, v);
+                }
+                g.costruita = true;
+            }
+            return g;
+        }
+    }
+
+    private void riallinea(Giorni g, Tratta t, String codiceVolo) {
+        Voce vecchia = g.perVolo.remove(codiceVolo);
+        if (vecchia != null) {
+            ConcurrentSkipListSet<Voce> voci = g.perGiorno.get(vecchia.giorno());
+            voci.remove(vecchia);
+            if (voci.isEmpty()) g.perGiorno.remove(vecchia.giorno(), voci);
+        }
+        Volo attuale = voloDAO.findByCodice(codiceVolo).orElse(null);
+        if (attuale != null && Tratta.di(attuale).equals(t)) inserisci(g, t, attuale);
+        else trattaDelVolo.remove(codiceVolo, t);
+    }
+
+    private void inserisci(Giorni g, Tratta t, Volo volo) {
+        BigDecimal prezzo = volo.getPostiDisponibili() <= 0 || volo.getDataOraPartenza() == null
+                ? null : prezzi.prezzoMinimo(volo);
+        if (prezzo == null) {
+            trattaDelVolo.remove(volo.getCodice(), t);
+            return;
+        }
+        Voce voce = new Voce(volo.getCodice(), volo.getDataOraPartenza().toLocalDate(), prezzo);
+        g.perGiorno.computeIfAbsent(voce.giorno(), k -> new ConcurrentSkipListSet<>(PER_PREZZO)).add(voce);
+        g.perVolo.put(voce.codiceVolo(), voce);
+        trattaDelVolo.put(voce.codiceVolo(), t);
+    }
+}
@@ -0,0 +1,131 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Smistamento delle richieste di assistenza agli admin senza lock globali.
+// La priorità è un istante virtuale (apertura meno un anticipo limitato): tutte le richieste invecchiano
+// allo stesso ritmo, quindi l'ordine non cambia nel tempo e nessuna richiesta viene scavalcata per sempre.
+// Le richieste sono ripartite su più code ordinate, così inserimenti e prese non si contendono un'unica testa.
+// Ogni admin ha una coda di casa scelta per hash e ruba da un'altra solo se la sua testa è più urgente;
+// pollFirst consegna ogni voce a un solo admin. Una presa non rinnovata entro la durata del lease torna in coda.
+final class CodaAssistenza {
+
+    private record Voce(long priorita, String codiceRichiesta) { }
+
+    private record Presa(String idAdmin, Voce voce, long turno, RuotaTemporale.Timer scadenza) { }
+
+    private static final Comparator<Voce> ORDINE =
+            Comparator.comparingLong(Voce::priorita).thenComparing(Voce::codiceRichiesta);
+
+    private final ConcurrentSkipListSet<Voce>[] code;
+    private final Map<String, Presa> prese = new ConcurrentHashMap<>();
+    private final RuotaTemporale ruota;
+    private final long durataPresaMillis;
+    private final AtomicInteger prossimaCoda = new AtomicInteger();
+    private final AtomicLong turni = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    CodaAssistenza(int numeroCode, RuotaTemporale ruota, long durataPresaMillis) {
+        this.code = new ConcurrentSkipListSet[numeroCode];
+        for (int i = 0; i < numeroCode; i++) code[i] = new ConcurrentSkipListSet<>(ORDINE);
+        this.ruota = ruota;
+        this.durataPresaMillis = durataPresaMillis;
+    }
+
+    // Valori di priorità più bassi vengono serviti prima
+    void accoda(String codiceRichiesta, long priorita) {
+        inserisci(new Voce(priorita, codiceRichiesta));
+    }
+
+    Optional<String> prendi(String idAdmin) {
+        int casa = Math.floorMod(idAdmin.hashCode(), code.length);
+        while (true) {
+            // la coda di casa vince a parità; le teste si leggono senza lock
+            int scelta = casa;
+            for (int i = 1; i < code.length; i++) scelta = migliore(scelta, (casa + i) % code.length);
+            if (testa(scelta) == null) return Optional.empty();
+            Voce v = code[scelta].pollFirst();
+            if (v == null) continue; // svuotata da un altro admin nel frattempo
+            prese.put(v.codiceRichiesta(), presa(idAdmin, v));
+            return Optional.of(v.codiceRichiesta());
+        }
+    }
+
+    boolean rinnova(String idAdmin, String codiceRichiesta) {
+        Presa attuale = presaDi(idAdmin, codiceRichiesta);
+        if (attuale == null) return false;
+        Presa nuova = presa(idAdmin, attuale.voce());
+        if (!prese.replace(codiceRichiesta, attuale, nuova)) {
+            nuova.scadenza().annulla();
+            return false;
+        }
+        attuale.scadenza().annulla();
+        return true;
+    }
+
+    // Lavoro concluso: la richiesta esce dalla coda
+    boolean completa(String idAdmin, String codiceRichiesta) {
+        Presa p = presaDi(idAdmin, codiceRichiesta);
+        if (p == null || !prese.remove(codiceRichiesta, p)) return false;
+        p.scadenza().annulla();
+        return true;
+    }
+
+    // Lavoro abbandonato: la richiesta torna in coda con la priorità di prima
+    boolean rilascia(String idAdmin, String codiceRichiesta) {
+        Presa p = presaDi(idAdmin, codiceRichiesta);
+        if (p == null || !prese.remove(codiceRichiesta, p)) return false;
+        p.scadenza().annulla();
+        inserisci(p.voce());
+        return true;
+    }
+
+    int inAttesa() {
+        int n = 0;
+        for (ConcurrentSkipListSet<Voce> c : code) n += c.size();
+        return n;
+    }
+
+    int inCarico() {
+        return prese.size();
+    }
+
+    private Presa presa(String idAdmin, Voce v) {
+        long turno = turni.incrementAndGet();
+        return new Presa(idAdmin, v, turno, ruota.pianifica(() -> scaduta(v.codiceRichiesta(), turno), durataPresaMillis));
+    }
+
+    // Solo la presa di quel turno: un rinnovo o un completamento nel frattempo la rendono innocua
+    private void scaduta(String codiceRichiesta, long turno) {
+        Presa p = prese.get(codiceRichiesta);
+        if (p != null && p.turno() == turno && prese.remove(codiceRichiesta, p)) inserisci(p.voce());
+    }
+
+    private Presa presaDi(String idAdmin, String codiceRichiesta) {
+        Presa p = prese.get(codiceRichiesta);
+        return p != null && p.idAdmin().equals(idAdmin) ? p : null;
+    }
+
+    private void inserisci(Voce v) {
+        code[Math.floorMod(prossimaCoda.getAndIncrement(), code.length)].add(v);
+    }
+
+    private int migliore(int a, int b) {
+        Voce ta = testa(a), tb = testa(b);
+        if (ta == null) return b;
+        if (tb == null) return a;
+        return ORDINE.compare(ta, tb) <= 0 ? a : b;
+    }
+
+    private Voce testa(int i) {
+        Iterator<Voce> it = code[i].iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+}
@@ -0,0 +1,57 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// Hash PBKDF2-HMAC-SHA256 nel formato "pbkdf2$iterazioni$sale$hash" (Base64).
+// Il costo è salvato in ogni hash: alzare le iterazioni non invalida gli hash esistenti,
+// che vengono riconosciuti da daAggiornare() e ricalcolati al login successivo.
+final class CodificatorePassword {
+
+    private static final String ALGORITMO = "PBKDF2WithHmacSHA256";
+    private static final int BYTE_SALE = 16;
+    private static final int BIT_HASH = 256;
+
+    private final int iterazioni;
+    private final SecureRandom casuale = new SecureRandom();
+
+    CodificatorePassword(int iterazioni) {
+        if (iterazioni < 1) throw new IllegalArgumentException("iterazioni < 1");
+        this.iterazioni = iterazioni;
+    }
+
+    String codifica(String password) {
+        byte[] sale = new byte[BYTE_SALE];
+        casuale.nextBytes(sale);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return "pbkdf2$" + iterazioni + "$" + b64.encodeToString(sale) + "$" + b64.encodeToString(deriva(password, sale, iterazioni));
+    }
+
+    boolean daAggiornare(String codificata) {
+        String[] parti = codificata.split("\\$");
+        return parti.length != 4 || !parti[0].equals("pbkdf2") || Integer.parseInt(parti[1]) < iterazioni;
+    }
+
+    boolean verifica(String password, String codificata) {
+        String[] parti = codificata == null ? new String[0] : codificata.split("\\$");
+        if (parti.length != 4 || !parti[0].equals("pbkdf2")) return false;
+        Base64.Decoder b64 = Base64.getDecoder();
+        byte[] atteso = b64.decode(parti[3]);
+        return MessageDigest.isEqual(atteso, deriva(password, b64.decode(parti[2]), Integer.parseInt(parti[1])));
+    }
+
+    private static byte[] deriva(String password, byte[] sale, int iterazioni) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), sale, iterazioni, BIT_HASH);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.dominio.entita.Aeroporto;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Istantanea immutabile dei collegamenti diretti tra aeroporti e dei rispettivi tempi minimi di coincidenza.
+final class GrafoAeroporti {
+
+    private final Map<String, List<String>> uscite;
+    private final Map<String, Set<String>> entrate;
+    private final Map<String, Duration> coincidenze;
+    private final Duration coincidenzaPredefinita;
+    final long versioneTratte;
+    final long versioneAeroporti;
+
+    GrafoAeroporti(Map<String, Set<String>> collegamenti, List<Aeroporto> aeroporti, Duration coincidenzaPredefinita,
+                   long versioneTratte, long versioneAeroporti) {
+        Map<String, List<String>> u = new HashMap<>();
+        Map<String, Set<String>> e = new HashMap<>();
+        collegamenti.forEach((da, destinazioni) -> {
+            u.put(da, List.copyOf(destinazioni));
+            for (String a : destinazioni) e.computeIfAbsent(a, k -> new HashSet<>()).add(da);
+        });
+        e.replaceAll((k, v) -> Set.copyOf(v));
+
+        Map<String, Duration> c = new HashMap<>();
+        for (Aeroporto a : aeroporti) {
+            if (a.getMinutiCoincidenza() > 0) c.put(a.getCodice(), Duration.ofMinutes(a.getMinutiCoincidenza()));
+        }
+
+        this.uscite = Map.copyOf(u);
+        this.entrate = Map.copyOf(e);
+        this.coincidenze = Map.copyOf(c);
+        this.coincidenzaPredefinita = coincidenzaPredefinita;
+        this.versioneTratte = versioneTratte;
+        this.versioneAeroporti = versioneAeroporti;
+    }
+
+    List<String> uscite(String aeroporto) {
+        return uscite.getOrDefault(aeroporto, List.of());
+    }
+
+    boolean collegato(String da, String a) {
+        return entrate.getOrDefault(a, Set.of()).contains(da);
+    }
+
+    Duration coincidenzaMinima(String aeroporto) {
+        return coincidenze.getOrDefault(aeroporto, coincidenzaPredefinita);
+    }
+}
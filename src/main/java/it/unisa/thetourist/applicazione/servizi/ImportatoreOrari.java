@@ -0,0 +1,310 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.dto.DatiTariffaDTO;
+import it.unisa.thetourist.applicazione.dto.DatiVoloDTO;
+import it.unisa.thetourist.applicazione.dto.EsitoImportazioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.dominio.entita.Tariffa;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.dao.AeroportoDAO;
+import it.unisa.thetourist.persistenza.dao.CompagniaAereaDAO;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+// Importazione a flusso di un orario stagionale in CSV, una riga per volo con tariffa opzionale:
+//   compagnia,codice,partenza,arrivo,dataOraPartenza,dataOraArrivo,posti[,codiceTariffa,classe,prezzo]
+// Un thread legge il file con NIO a blocchi tagliati a fine riga; i blocchi sono analizzati in parallelo
+// e ogni lotto viene scritto nei DAO nell'ordine del file, quindi a parità di codice vince l'ultima riga.
+// Coda e blocchi hanno dimensione fissa: la memoria non dipende dalla dimensione del file.
+// Le righe non valide vengono scartate e segnalate senza interrompere l'importazione.
+final class ImportatoreOrari {
+
+    static final int MAX_ERRORI = 1_000;
+    static final int DIMENSIONE_BLOCCO = 4 << 20;
+
+    private static final String INTESTAZIONE = "compagnia,";
+
+    // dati == null: riga troppo lunga per un blocco, scartata già in lettura
+    private record Blocco(long sequenza, long primaRiga, byte[] dati, long fineByte) { }
+
+    private record Lotto(long righe, List<Volo> voli, List<Tariffa> tariffe, long scartate, List<String> errori) { }
+
+    private static final Blocco FINE = new Blocco(-1, 0, null, 0);
+
+    private final VoloDAO voloDAO;
+    private final TariffaDAO tariffaDAO;
+    private final AeroportoDAO aeroportoDAO;
+    private final CompagniaAereaDAO compagniaAereaDAO;
+    private final Consumer<Volo> notifica;
+    private final int thread;
+    private final int dimensioneBlocco;
+
+    // protetti da monitor; i contatori sono aggiornati da un lotto alla volta, in ordine di sequenza
+    private final Object monitor = new Object();
+    private long prossimo;
+    private RuntimeException guasto;
+    private long byteTotali;
+    private long byteScritti;
+    private long righe;
+    private long voli;
+    private long tariffe;
+    private long scartate;
+    private final List<String> errori = new ArrayList<>();
+
+    ImportatoreOrari(VoloDAO voloDAO, TariffaDAO tariffaDAO, AeroportoDAO aeroportoDAO,
+                     CompagniaAereaDAO compagniaAereaDAO, Consumer<Volo> notifica, int thread, int dimensioneBlocco) {
+        this.voloDAO = voloDAO;
+        this.tariffaDAO = tariffaDAO;
+        this.aeroportoDAO = aeroportoDAO;
+        this.compagniaAereaDAO = compagniaAereaDAO;
+        this.notifica = notifica;
+        this.thread = thread;
+        this.dimensioneBlocco = dimensioneBlocco;
+    }
+
+    EsitoImportazioneDTO importa(Path file, Consumer<EsitoImportazioneDTO> avanzamento) throws IOException {
+        BlockingQueue<Blocco> coda = new ArrayBlockingQueue<>(thread);
+        List<Thread> lavoratori = new ArrayList<>();
+        for (int i = 0; i < thread; i++) {
+            Thread t = new Thread(() -> lavora(coda, avanzamento), "importazione-orari-" + i);
+            t.setDaemon(true);
+            t.start();
+            lavoratori.add(t);
+        }
+        try {
+            leggi(file, coda);
+        } finally {
+            termina(coda, lavoratori);
+        }
+        synchronized (monitor) {
+            if (guasto != null) throw guasto;
+            return esito();
+        }
+    }
+
+    // Un FINE per lavoratore, poi si attende che finiscano. Se chi importa viene interrotto la coda può
+    // restare senza FINE: i lavoratori vengono interrotti e si attende comunque che abbiano smesso di scrivere.
+    private void termina(BlockingQueue<Blocco> coda, List<Thread> lavoratori) throws InterruptedIOException {
+        try {
+            for (int i = 0; i < thread; i++) coda.put(FINE);
+            for (Thread t : lavoratori) t.join();
+        } catch (InterruptedException e) {
+            for (Thread t : lavoratori) t.interrupt();
+            for (Thread t : lavoratori) {
+                while (t.isAlive()) {
+                    try {
+                        t.join();
+                    } catch (InterruptedException ignorata) {
+                        // l'interruzione viene ripristinata sotto
+                    }
+                }
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Importazione interrotta");
+        }
+    }
+
+    private void leggi(Path file, BlockingQueue<Blocco> coda) throws IOException {
+        try (FileChannel canale = FileChannel.open(file, StandardOpenOption.READ)) {
+            synchronized (monitor) {
+                byteTotali = canale.size();
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(dimensioneBlocco);
+            long sequenza = 0, riga = 1, letti = 0;
+            boolean scarta = false;
+            boolean fine = false;
+            while (!fine && !fallita()) {
+                int n = canale.read(buffer);
+                fine = n < 0;
+                if (n > 0) letti += n;
+                if (!fine && buffer.hasRemaining()) continue;
+                buffer.flip();
+
+                if (scarta) {
+                    // resto di una riga troppo lunga: si salta fino al primo a capo
+                    int capo = primoCapo(buffer);
+                    if (capo < 0) {
+                        buffer.clear();
+                        continue;
+                    }
+                    buffer.position(capo + 1);
+                    riga++;
+                    scarta = false;
+                }
+
+                int taglio = fine ? buffer.limit() : ultimoCapo(buffer) + 1;
+                if (taglio > buffer.position()) {
+                    byte[] dati = Arrays.copyOfRange(buffer.array(), buffer.position(), taglio);
+                    coda.put(new Blocco(sequenza++, riga, dati, letti - (buffer.limit() - taglio)));
+                    riga += conta(dati);
+                } else if (!fine && buffer.position() == 0) {
+                    coda.put(new Blocco(sequenza++, riga, null, letti));
+                    scarta = true;
+                    taglio = buffer.limit();
+                }
+                buffer.position(taglio);
+                buffer.compact();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Importazione interrotta");
+        }
+    }
+
+    private void lavora(BlockingQueue<Blocco> coda, Consumer<EsitoImportazioneDTO> avanzamento) {
+        try {
+            for (Blocco b = coda.take(); b != FINE; b = coda.take()) {
+                Lotto lotto = null;
+                try {
+                    if (!fallita()) lotto = analizza(b);
+                    attendiTurno(b.sequenza());
+                    if (lotto != null && !fallita()) scrivi(lotto, b.fineByte(), avanzamento);
+                } catch (RuntimeException e) {
+                    synchronized (monitor) {
+                        if (guasto == null) guasto = e;
+                    }
+                } finally {
+                    // il turno passa comunque, altrimenti i lotti successivi resterebbero in attesa
+                    synchronized (monitor) {
+                        prossimo = Math.max(prossimo, b.sequenza() + 1);
+                        monitor.notifyAll();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            synchronized (monitor) {
+                if (guasto == null) guasto = new UncheckedIOException(new InterruptedIOException("Importazione interrotta"));
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    private void attendiTurno(long sequenza) throws InterruptedException {
+        synchronized (monitor) {
+            while (prossimo < sequenza) monitor.wait();
+        }
+    }
+
+    private void scrivi(Lotto lotto, long fineByte, Consumer<EsitoImportazioneDTO> avanzamento) {
+        List<Volo> precedenti = new ArrayList<>();
+        for (Volo v : lotto.voli()) voloDAO.findByCodice(v.getCodice()).ifPresent(precedenti::add);
+        voloDAO.salvaTutti(lotto.voli());
+        tariffaDAO.salvaTutti(lotto.tariffe());
+        for (Volo v : precedenti) notifica.accept(v);
+        for (Volo v : lotto.voli()) notifica.accept(v);
+
+        EsitoImportazioneDTO stato;
+        synchronized (monitor) {
+            byteScritti = fineByte;
+            righe += lotto.righe();
+            voli += lotto.voli().size();
+            tariffe += lotto.tariffe().size();
+            scartate += lotto.scartate();
+            for (String e : lotto.errori()) if (errori.size() < MAX_ERRORI) errori.add(e);
+            stato = esito();
+        }
+        if (avanzamento != null) avanzamento.accept(stato);
+    }
+
+    private Lotto analizza(Blocco b) {
+        if (b.dati() == null) {
+            return new Lotto(1, List.of(), List.of(), 1, List.of("riga " + b.primaRiga() + ": riga troppo lunga"));
+        }
+        String testo = new String(b.dati(), StandardCharsets.UTF_8);
+        List<Volo> voliLotto = new ArrayList<>();
+        List<Tariffa> tariffeLotto = new ArrayList<>();
+        List<String> erroriLotto = new ArrayList<>();
+        long righeLotto = 0, scartateLotto = 0;
+        long numero = b.primaRiga();
+        for (int inizio = 0; inizio < testo.length(); numero++) {
+            int fine = testo.indexOf('\n', inizio);
+            if (fine < 0) fine = testo.length();
+            String riga = testo.substring(inizio, fine).strip();
+            inizio = fine + 1;
+            if (riga.isEmpty() || (numero == 1 && riga.toLowerCase().startsWith(INTESTAZIONE))) continue;
+            righeLotto++;
+            try {
+                String[] campi = riga.split(",", -1);
+                if (campi.length != 7 && campi.length != 10) throw new DatiNonValidiException("Numero di campi errato: " + campi.length);
+                Volo volo = volo(campi);
+                voliLotto.add(volo);
+                if (campi.length == 10) tariffeLotto.add(tariffa(campi, volo));
+            } catch (DatiNonValidiException | DateTimeParseException | NumberFormatException e) {
+                scartateLotto++;
+                if (erroriLotto.size() < MAX_ERRORI) erroriLotto.add("riga " + numero + ": " + e.getMessage());
+            }
+        }
+        return new Lotto(righeLotto, voliLotto, tariffeLotto, scartateLotto, erroriLotto);
+    }
+
+    private Volo volo(String[] campi) throws DatiNonValidiException {
+        String compagnia = campi[0].strip();
+        if (compagniaAereaDAO.findByCodice(compagnia).isEmpty()) throw new DatiNonValidiException("Compagnia sconosciuta: " + compagnia);
+        DatiVoloDTO d = new DatiVoloDTO();
+        d.setCodice(campi[1].strip());
+        d.setPartenza(campi[2].strip());
+        d.setArrivo(campi[3].strip());
+        d.setDataOraPartenza(LocalDateTime.parse(campi[4].strip()));
+        d.setDataOraArrivo(LocalDateTime.parse(campi[5].strip()));
+        d.setPostiDisponibili(Integer.parseInt(campi[6].strip()));
+        ServizioGestioneCatalogo.valida(d);
+        if (aeroportoDAO.findByCodice(d.getPartenza()).isEmpty()) throw new DatiNonValidiException("Aeroporto sconosciuto: " + d.getPartenza());
+        if (aeroportoDAO.findByCodice(d.getArrivo()).isEmpty()) throw new DatiNonValidiException("Aeroporto sconosciuto: " + d.getArrivo());
+        return ServizioGestioneCatalogo.daDati(d);
+    }
+
+    private static Tariffa tariffa(String[] campi, Volo volo) throws DatiNonValidiException {
+        DatiTariffaDTO d = new DatiTariffaDTO();
+        d.setCodice(campi[7].strip());
+        d.setCodiceVolo(volo.getCodice());
+        d.setClasse(campi[8].strip());
+        d.setPrezzo(new BigDecimal(campi[9].strip()));
+        ServizioGestioneCatalogo.valida(d);
+        return new Tariffa(d.getCodice(), d.getCodiceVolo(), d.getClasse(), d.getPrezzo());
+    }
+
+    private boolean fallita() {
+        synchronized (monitor) {
+            return guasto != null;
+        }
+    }
+
+    private EsitoImportazioneDTO esito() {
+        return new EsitoImportazioneDTO(byteScritti, byteTotali, righe, voli, tariffe, scartate, errori);
+    }
+
+    private static int primoCapo(ByteBuffer b) {
+        for (int i = b.position(); i < b.limit(); i++) if (b.get(i) == '\n') return i;
+        return -1;
+    }
+
+    private static int ultimoCapo(ByteBuffer b) {
+        for (int i = b.limit() - 1; i >= b.position(); i--) if (b.get(i) == '\n') return i;
+        return b.position() - 1;
+    }
+
+    private static long conta(byte[] dati) {
+        long n = 0;
+        for (byte x : dati) if (x == '\n') n++;
+        return n;
+    }
+}
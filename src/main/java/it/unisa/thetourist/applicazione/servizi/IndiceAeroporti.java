@@ -0,0 +1,324 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.dominio.entita.Aeroporto;
+import it.unisa.thetourist.persistenza.dao.AeroportoDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Completamento degli aeroporti per prefisso di codice IATA, città o nome (anche di una parola interna).
+// Il trie è compresso (gli archi portano stringhe) e appiattito in array; ogni nodo conserva già i primi
+// MAX_RISULTATI aeroporti per traffico (voli in partenza o in arrivo) sotto di sé, quindi una ricerca
+// scorre solo il prefisso e non alloca nulla. Accenti, maiuscole e punteggiatura non contano.
+// Il trie non cambia mai: quando il catalogo cambia se ne costruisce uno nuovo su un thread dedicato
+// e lo si pubblica con una sola scrittura volatile.
+public class IndiceAeroporti implements AutoCloseable {
+
+    public static final int MAX_RISULTATI = 10;
+
+    private static final Operazione OP_RICOSTRUISCI = RegistroMetriche.globale().operazione("servizio.indiceAeroporti.ricostruisci");
+
+    // Carattere ripiegato per i caratteri latini; 0 = ignorato
+    private static final char[] PIEGA = new char[0x300];
+
+    static {
+        for (char c = 0; c < PIEGA.length; c++) {
+            char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+            if (Character.isLetterOrDigit(base)) PIEGA[c] = Character.toLowerCase(base);
+            else if (Character.isWhitespace(c) || c == '-' || c == '\'' || c == '/') PIEGA[c] = ' ';
+        }
+    }
+
+    private final AeroportoDAO aeroportoDAO;
+    private final VoloDAO voloDAO;
+    private final LavoroPeriodico ricostruzione = new LavoroPeriodico("indice-aeroporti", this::ricostruisci);
+    private volatile Trie trie;
+
+    public IndiceAeroporti(AeroportoDAO aeroportoDAO, VoloDAO voloDAO) {
+        this.aeroportoDAO = aeroportoDAO;
+        this.voloDAO = voloDAO;
+    }
+
+    // Riempie risultati con al più risultati.length aeroporti, in ordine di traffico; restituisce quanti.
+    // Il primo trie viene costruito alla prima ricerca.
+    public int cerca(CharSequence prefisso, Aeroporto[] risultati) {
+        Trie t = trie;
+        if (t == null) {
+            ricostruisci();
+            t = trie;
+        }
+        return t.cerca(prefisso, risultati);
+    }
+
+    // Restituisce false se aeroporti e voli non sono cambiati dall'ultima costruzione
+    public synchronized boolean ricostruisci() {
+        long inizio = System.nanoTime();
+        try {
+            // letta prima di costruire: una modifica concorrente farà ricostruire al giro successivo
+            long versione = aeroportoDAO.versione() + voloDAO.versione();
+            if (trie != null && trie.versione == versione) return false;
+            trie = costruisci(versione);
+            return true;
+        } catch (Exception e) {
+            OP_RICOSTRUISCI.errore(e);
+            throw e;
+        } finally {
+            OP_RICOSTRUISCI.registra(inizio);
+        }
+    }
+
+    public void pianifica(RuotaTemporale ruota, Duration intervallo) {
+        ricostruzione.pianifica(ruota, intervallo);
+    }
+
+    @Override
+    public void close() {
+        ricostruzione.close();
+    }
+
+    private Trie costruisci(long versione) {
+        Aeroporto[] aeroporti = aeroportoDAO.findAll().toArray(new Aeroporto[0]);
+        Map<String, Integer> traffico = new HashMap<>();
+        if (aeroporti.length > 0) {
+            voloDAO.visita(v -> {
+                traffico.merge(v.getPartenza(), 1, Integer::sum);
+                traffico.merge(v.getArrivo(), 1, Integer::sum);
+            });
+        }
+        // identificativi in ordine di traffico: il migliore di un insieme è quello con l'identificativo più basso
+        Arrays.sort(aeroporti, Comparator.<Aeroporto>comparingInt(a -> -traffico.getOrDefault(a.getCodice(), 0))
+                .thenComparing(Aeroporto::getCodice));
+
+        List<Chiave> chiavi = new ArrayList<>();
+        for (int id = 0; id < aeroporti.length; id++) {
+            Aeroporto a = aeroporti[id];
+            aggiungiChiavi(chiavi, a.getCodice(), id);
+            aggiungiChiavi(chiavi, a.getCitta(), id);
+            aggiungiChiavi(chiavi, a.getNome(), id);
+        }
+        chiavi.sort(Comparator.comparing(Chiave::testo).thenComparingInt(Chiave::id));
+        return new Costruttore(chiavi, aeroporti, versione).trie();
+    }
+
+    private record Chiave(String testo, int id) { }
+
+    // Il testo intero e ogni sua parola successiva alla prima: "Roma Fiumicino" si trova anche con "fiu"
+    private static void aggiungiChiavi(List<Chiave> chiavi, String testo, int id) {
+        if (testo == null) return;
+        String piegato = piega(testo);
+        if (piegato.isEmpty()) return;
+        chiavi.add(new Chiave(piegato, id));
+        for (int i = piegato.indexOf(' '); i >= 0; i = piegato.indexOf(' ', i + 1)) {
+            chiavi.add(new Chiave(piegato.substring(i + 1), id));
+        }
+    }
+
+    static String piega(CharSequence testo) {
+        StringBuilder sb = new StringBuilder(testo.length());
+        for (int i = 0; i < testo.length(); i++) {
+            char c = piega(testo.charAt(i));
+            if (c == 0 || (c == ' ' && (sb.isEmpty() || sb.charAt(sb.length() - 1) == ' '))) continue;
+            sb.append(c);
+        }
+        int fine = sb.length();
+        while (fine > 0 && sb.charAt(fine - 1) == ' ') fine--;
+        sb.setLength(fine);
+        return sb.toString();
+    }
+
+    private static char piega(char c) {
+        if (c < PIEGA.length) return PIEGA[c];
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : Character.isWhitespace(c) ? ' ' : 0;
+    }
+
+    // Nodi appiattiti: i figli di un nodo sono contigui e ordinati per primo carattere dell'arco.
+    // L'arco che entra nel nodo n è etichette[inizioArco[n], inizioArco[n] + lunghezzaArco[n]).
+    private static final class Trie {
+        final long versione;
+        final Aeroporto[] aeroporti;
+        final char[] etichette;
+        final int[] inizioArco;
+        final int[] lunghezzaArco;
+        final char[] primoCarattere;
+        final int[] primoFiglio;
+        final int[] numeroFigli;
+        final int[] inizioMigliori;
+        final int[] numeroMigliori;
+        final int[] migliori;
+
+        Trie(long versione, Aeroporto[] aeroporti, char[] etichette, int[] inizioArco, int[] lunghezzaArco,
+             char[] primoCarattere, int[] primoFiglio, int[] numeroFigli,
+             int[] inizioMigliori, int[] numeroMigliori, int[] migliori) {
+            this.versione = versione;
+            this.aeroporti = aeroporti;
+            this.etichette = etichette;
+            this.inizioArco = inizioArco;
+            this.lunghezzaArco = lunghezzaArco;
+            this.primoCarattere = primoCarattere;
+            this.primoFiglio = primoFiglio;
+            this.numeroFigli = numeroFigli;
+            this.inizioMigliori = inizioMigliori;
+            this.numeroMigliori = numeroMigliori;
+            this.migliori = migliori;
+        }
+
+        int cerca(CharSequence prefisso, Aeroporto[] risultati) {
+            long stato = 0; // nodo nei 32 bit alti, caratteri già confrontati del suo arco in quelli bassi
+            boolean iniziato = false;
+            boolean spazio = false;
+            for (int i = 0; i < prefisso.length(); i++) {
+                char c = piega(prefisso.charAt(i));
+                if (c == 0) continue;
+                // gli spazi contano solo se seguiti da altro: "roma " trova ancora Roma
+                if (c == ' ') {
+                    spazio = iniziato;
+                    continue;
+                }
+                iniziato = true;
+                if (spazio) {
+                    spazio = false;
+                    if ((stato = avanza(stato, ' ')) < 0) return 0;
+                }
+                if ((stato = avanza(stato, c)) < 0) return 0;
+            }
+            int nodo = (int) (stato >>> 32);
+            int n = Math.min(risultati.length, numeroMigliori[nodo]);
+            for (int i = 0; i < n; i++) risultati[i] = aeroporti[migliori[inizioMigliori[nodo] + i]];
+            return n;
+        }
+
+        private long avanza(long stato, char c) {
+            int nodo = (int) (stato >>> 32);
+            int posizione = (int) stato;
+            if (posizione < lunghezzaArco[nodo]) {
+                return etichette[inizioArco[nodo] + posizione] == c ? stato + 1 : -1;
+            }
+            int figlio = figlio(nodo, c);
+            return figlio < 0 ? -1 : ((long) figlio << 32) | 1;
+        }
+
+        private int figlio(int nodo, char c) {
+            int basso = primoFiglio[nodo], alto = basso + numeroFigli[nodo] - 1;
+            while (basso <= alto) {
+                int m = (basso + alto) >>> 1;
+                if (primoCarattere[m] < c) basso = m + 1;
+                else if (primoCarattere[m] > c) alto = m - 1;
+                else return m;
+            }
+            return -1;
+        }
+    }
+
+    // Costruzione ricorsiva sulle chiavi ordinate: un nodo è un intervallo di chiavi con lo stesso prefisso
+    private static final class Costruttore {
+        private final List<Chiave> chiavi;
+        private final Aeroporto[] aeroporti;
+        private final long versione;
+        private final StringBuilder etichette = new StringBuilder();
+        private int[] inizioArco = new int[16];
+        private int[] lunghezzaArco = new int[16];
+        private char[] primoCarattere = new char[16];
+        private int[] primoFiglio = new int[16];
+        private int[] numeroFigli = new int[16];
+        private int[] inizioMigliori = new int[16];
+        private int[] numeroMigliori = new int[16];
+        private int[] migliori = new int[64];
+        private int nodi;
+        private int usati;
+
+        Costruttore(List<Chiave> chiavi, Aeroporto[] aeroporti, long versione) {
+            this.chiavi = chiavi;
+            this.aeroporti = aeroporti;
+            this.versione = versione;
+        }
+
+        Trie trie() {
+            int radice = nuovoNodo();
+            riempi(radice, 0, chiavi.size(), 0);
+            return new Trie(versione, aeroporti, etichette.toString().toCharArray(),
+                    Arrays.copyOf(inizioArco, nodi), Arrays.copyOf(lunghezzaArco, nodi), Arrays.copyOf(primoCarattere, nodi),
+                    Arrays.copyOf(primoFiglio, nodi), Arrays.copyOf(numeroFigli, nodi),
+                    Arrays.copyOf(inizioMigliori, nodi), Arrays.copyOf(numeroMigliori, nodi),
+                    Arrays.copyOf(migliori, usati));
+        }
+
+        // chiavi[da, a) condividono i primi 'profondita' caratteri, già consumati sopra il nodo
+        private void riempi(int nodo, int da, int a, int profondita) {
+            registraMigliori(nodo, da, a);
+
+            int i = da;
+            while (i < a && chiavi.get(i).testo().length() == profondita) i++; // chiavi che finiscono qui
+            List<int[]> gruppi = new ArrayList<>();
+            while (i < a) {
+                char c = chiavi.get(i).testo().charAt(profondita);
+                int j = i + 1;
+                while (j < a && chiavi.get(j).testo().charAt(profondita) == c) j++;
+                gruppi.add(new int[]{i, j});
+                i = j;
+            }
+
+            // figli contigui: si riservano tutti prima di scendere
+            int primo = nodi;
+            for (int g = 0; g < gruppi.size(); g++) nuovoNodo();
+            primoFiglio[nodo] = primo;
+            numeroFigli[nodo] = gruppi.size();
+            for (int g = 0; g < gruppi.size(); g++) {
+                int gda = gruppi.get(g)[0], ga = gruppi.get(g)[1];
+                // nelle chiavi ordinate il prefisso comune del gruppo è quello della prima e dell'ultima
+                String prima = chiavi.get(gda).testo(), ultima = chiavi.get(ga - 1).testo();
+                int fine = profondita + 1;
+                while (fine < prima.length() && fine < ultima.length() && prima.charAt(fine) == ultima.charAt(fine)) fine++;
+                int figlio = primo + g;
+                inizioArco[figlio] = etichette.length();
+                lunghezzaArco[figlio] = fine - profondita;
+                primoCarattere[figlio] = prima.charAt(profondita);
+                etichette.append(prima, profondita, fine);
+                riempi(figlio, gda, ga, fine);
+            }
+        }
+
+        // Primi MAX_RISULTATI identificativi distinti dell'intervallo (identificativo basso = più traffico)
+        private void registraMigliori(int nodo, int da, int a) {
+            int[] scelti = new int[MAX_RISULTATI];
+            int n = 0;
+            for (int i = da; i < a; i++) {
+                int id = chiavi.get(i).id();
+                int pos = Arrays.binarySearch(scelti, 0, n, id);
+                if (pos >= 0) continue;
+                pos = -pos - 1;
+                if (pos >= MAX_RISULTATI) continue;
+                System.arraycopy(scelti, pos, scelti, pos + 1, Math.min(n, MAX_RISULTATI - 1) - pos);
+                scelti[pos] = id;
+                if (n < MAX_RISULTATI) n++;
+            }
+            if (migliori.length < usati + n) migliori = Arrays.copyOf(migliori, Math.max(migliori.length * 2, usati + n));
+            System.arraycopy(scelti, 0, migliori, usati, n);
+            inizioMigliori[nodo] = usati;
+            numeroMigliori[nodo] = n;
+            usati += n;
+        }
+
+        private int nuovoNodo() {
+            if (nodi == inizioArco.length) {
+                int capacita = nodi * 2;
+                inizioArco = Arrays.copyOf(inizioArco, capacita);
+                lunghezzaArco = Arrays.copyOf(lunghezzaArco, capacita);
+                primoCarattere = Arrays.copyOf(primoCarattere, capacita);
+                primoFiglio = Arrays.copyOf(primoFiglio, capacita);
+                numeroFigli = Arrays.copyOf(numeroFigli, capacita);
+                inizioMigliori = Arrays.copyOf(inizioMigliori, capacita);
+                numeroMigliori = Arrays.copyOf(numeroMigliori, capacita);
+            }
+            return nodi++;
+        }
+    }
+}
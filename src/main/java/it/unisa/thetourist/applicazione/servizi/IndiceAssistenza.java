@@ -0,0 +1,232 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.dominio.entita.RichiestaAssistenza;
+import it.unisa.thetourist.dominio.entita.RispostaAssistenza;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Indice invertito sui messaggi di assistenza: apertura della richiesta (oggetto e testo) e risposte.
+// Ogni termine ha una lista di documenti crescenti codificata a byte: scarto dal documento precedente
+// e frequenza, entrambi varint. Ogni BLOCCO documenti un salto registra documento e posizione, così
+// un cursore può saltare avanti senza decodificare tutto.
+// Le liste crescono solo in coda: chi scrive aggiunge byte oltre la lunghezza pubblicata e poi pubblica
+// una nuova Lista; chi legge usa la Lista che ha visto, senza lock.
+// Ordinamento BM25 con MaxScore: i termini il cui contributo massimo non basta a entrare nei primi k
+// non generano candidati, servono solo a completare il punteggio dei documenti già trovati.
+final class IndiceAssistenza {
+
+    record Risultato(RichiestaAssistenza richiesta, RispostaAssistenza risposta, double punteggio) { }
+
+    private record Documento(RichiestaAssistenza richiesta, RispostaAssistenza risposta, int lunghezza) { }
+
+    // salti: terne (documento prima del blocco, posizione in byte, postings già letti)
+    private record Lista(byte[] dati, int lunghezza, int df, int ultimoDoc, int[] salti, int numeroSalti) { }
+
+    private static final Lista VUOTA = new Lista(new byte[16], 0, 0, -1, new int[0], 0);
+    private static final int BLOCCO = 128;
+    private static final int BIT_PAGINA = 14;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, Lista> termini = new ConcurrentHashMap<>();
+    // Documenti per identificativo, a pagine: una pagina piena non viene più copiata
+    private volatile Documento[][] pagine = new Documento[0][];
+    private volatile int numeroDocumenti;
+    private volatile long lunghezzaTotale;
+
+    void aggiungi(RichiestaAssistenza richiesta) {
+        aggiungi(richiesta, null, richiesta.getOggetto() + "\n" + richiesta.getMessaggio());
+    }
+
+    void aggiungi(RichiestaAssistenza richiesta, RispostaAssistenza risposta) {
+        aggiungi(richiesta, risposta, risposta.getTesto());
+    }
+
+    int numeroDocumenti() {
+        return numeroDocumenti;
+    }
+
+    // Gli identificativi crescono con l'ordine di inserimento: un solo scrittore alla volta
+    private synchronized void aggiungi(RichiestaAssistenza richiesta, RispostaAssistenza risposta, String testo) {
+        List<String> parole = AnalizzatoreTesto.termini(testo);
+        Map<String, Integer> frequenze = new HashMap<>();
+        for (String p : parole) frequenze.merge(p, 1, Integer::sum);
+
+        int doc = numeroDocumenti;
+        int pagina = doc >>> BIT_PAGINA;
+        Documento[][] attuali = pagine;
+        if (pagina == attuali.length) {
+            attuali = Arrays.copyOf(attuali, pagina + 1);
+            attuali[pagina] = new Documento[1 << BIT_PAGINA];
+        }
+        attuali[pagina][doc & ((1 << BIT_PAGINA) - 1)] = new Documento(richiesta, risposta, parole.size());
+        pagine = attuali;
+        for (Map.Entry<String, Integer> f : frequenze.entrySet()) {
+            termini.put(f.getKey(), accoda(termini.getOrDefault(f.getKey(), VUOTA), doc, f.getValue()));
+        }
+        lunghezzaTotale += parole.size();
+        numeroDocumenti = doc + 1; // pubblica il documento a chi legge
+    }
+
+    private static Lista accoda(Lista l, int doc, int tf) {
+        int[] salti = l.salti();
+        int numeroSalti = l.numeroSalti();
+        if (l.df() > 0 && l.df() % BLOCCO == 0) {
+            if (salti.length < 3 * (numeroSalti + 1)) salti = Arrays.copyOf(salti, Math.max(12, salti.length * 2));
+            salti[3 * numeroSalti] = l.ultimoDoc();
+            salti[3 * numeroSalti + 1] = l.lunghezza();
+            salti[3 * numeroSalti + 2] = l.df();
+            numeroSalti++;
+        }
+        byte[] dati = l.dati() == VUOTA.dati() ? new byte[16] : l.dati();
+        if (dati.length < l.lunghezza() + 10) dati = Arrays.copyOf(dati, dati.length * 2);
+        int pos = scriviVarint(dati, l.lunghezza(), doc - l.ultimoDoc());
+        pos = scriviVarint(dati, pos, tf);
+        return new Lista(dati, pos, l.df() + 1, doc, salti, numeroSalti);
+    }
+
+    // Primi k messaggi per rilevanza decrescente
+    List<Risultato> cerca(String testo, int k) {
+        int n = numeroDocumenti;
+        if (n == 0) return List.of();
+        Documento[][] documenti = pagine;
+        double lunghezzaMedia = Math.max(1.0, (double) lunghezzaTotale / n);
+
+        List<Cursore> cursori = new ArrayList<>();
+        for (String t : new LinkedHashSet<>(AnalizzatoreTesto.termini(testo))) {
+            Lista l = termini.get(t);
+            if (l != null) cursori.add(new Cursore(l, n));
+        }
+        if (cursori.isEmpty()) return List.of();
+        // crescenti per contributo massimo: i primi sono i candidati a diventare non essenziali
+        cursori.sort(Comparator.comparingDouble(c -> c.massimo));
+        double[] cumulati = new double[cursori.size()];
+        for (int i = 0; i < cumulati.length; i++) cumulati[i] = cursori.get(i).massimo + (i == 0 ? 0 : cumulati[i - 1]);
+        for (Cursore c : cursori) c.avanti(n);
+
+        PriorityQueue<double[]> migliori = new PriorityQueue<>(Comparator.<double[]>comparingDouble(r -> r[0])
+                .thenComparingDouble(r -> r[1]));
+        double soglia = 0;
+        int essenziali = 0; // cursori[essenziali..] generano candidati
+        while (true) {
+            int doc = Integer.MAX_VALUE;
+            for (int i = essenziali; i < cursori.size(); i++) doc = Math.min(doc, cursori.get(i).doc);
+            if (doc >= n) break;
+
+            double lunghezza = documenti[doc >>> BIT_PAGINA][doc & ((1 << BIT_PAGINA) - 1)].lunghezza();
+            double punteggio = 0;
+            for (int i = essenziali; i < cursori.size(); i++) {
+                Cursore c = cursori.get(i);
+                if (c.doc == doc) {
+                    punteggio += c.punteggio(lunghezza, lunghezzaMedia);
+                    c.avanti(n);
+                }
+            }
+            for (int i = essenziali - 1; i >= 0 && punteggio + cumulati[i] > soglia; i--) {
+                Cursore c = cursori.get(i);
+                c.avanzaA(doc, n);
+                if (c.doc == doc) punteggio += c.punteggio(lunghezza, lunghezzaMedia);
+            }
+
+            if (migliori.size() < k || punteggio > soglia) {
+                migliori.add(new double[]{punteggio, doc});
+                if (migliori.size() > k) migliori.poll();
+                if (migliori.size() == k) {
+                    soglia = migliori.peek()[0];
+                    while (essenziali < cursori.size() && cumulati[essenziali] <= soglia) essenziali++;
+                    if (essenziali == cursori.size()) break; // nessun documento nuovo può più entrare
+                }
+            }
+        }
+
+        Risultato[] risultati = new Risultato[migliori.size()];
+        for (int i = risultati.length - 1; i >= 0; i--) {
+            double[] r = migliori.poll();
+            int doc = (int) r[1];
+            Documento d = documenti[doc >>> BIT_PAGINA][doc & ((1 << BIT_PAGINA) - 1)];
+            risultati[i] = new Risultato(d.richiesta(), d.risposta(), r[0]);
+        }
+        return List.of(risultati);
+    }
+
+    private static final class Cursore {
+        final Lista lista;
+        final double idf;
+        final double massimo;
+        int pos;
+        int letti;
+        int doc;
+        int tf;
+
+        // n: documenti visibili a questa ricerca; quelli aggiunti dopo vengono ignorati
+        Cursore(Lista lista, int n) {
+            this.lista = lista;
+            this.idf = Math.log(1 + (n - lista.df() + 0.5) / (lista.df() + 0.5));
+            this.massimo = idf * (K1 + 1);
+            this.doc = lista.df() == 0 ? Integer.MAX_VALUE : -1;
+        }
+
+        void avanti(int n) {
+            if (letti == lista.df() || doc >= n) {
+                doc = Integer.MAX_VALUE;
+                return;
+            }
+            doc += leggiVarint();
+            tf = leggiVarint();
+            letti++;
+        }
+
+        void avanzaA(int obiettivo, int n) {
+            if (doc >= obiettivo) return;
+            // ultimo salto che parte da un documento precedente all'obiettivo
+            int[] salti = lista.salti();
+            int basso = 0, alto = lista.numeroSalti() - 1, trovato = -1;
+            while (basso <= alto) {
+                int m = (basso + alto) >>> 1;
+                if (salti[3 * m] < obiettivo) {
+                    trovato = m;
+                    basso = m + 1;
+                } else {
+                    alto = m - 1;
+                }
+            }
+            if (trovato >= 0 && salti[3 * trovato + 2] > letti) {
+                doc = salti[3 * trovato];
+                pos = salti[3 * trovato + 1];
+                letti = salti[3 * trovato + 2];
+            }
+            while (doc < obiettivo) avanti(n);
+        }
+
+        double punteggio(double lunghezza, double lunghezzaMedia) {
+            return idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * lunghezza / lunghezzaMedia));
+        }
+
+        private int leggiVarint() {
+            byte[] dati = lista.dati();
+            int valore = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = dati[pos++];
+                valore |= (b & 0x7F) << shift;
+                if (b >= 0) return valore;
+            }
+        }
+    }
+
+    private static int scriviVarint(byte[] dati, int pos, int valore) {
+        while ((valore & ~0x7F) != 0) {
+            dati[pos++] = (byte) ((valore & 0x7F) | 0x80);
+            valore >>>= 7;
+        }
+        dati[pos++] = (byte) valore;
+        return pos;
+    }
+}
@@ -0,0 +1,134 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.eccezioni.EntitaNonTrovataException;
+import it.unisa.thetourist.applicazione.eccezioni.PostiEsauritiException;
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Disponibilità dei posti per volo, decrementata con CAS senza lock globali.
+// Il contatore è la fonte di verità per le prenotazioni; Volo.postiDisponibili ne è una copia
+// usata dalla ricerca, riallineata dopo ogni variazione e scritta dal VoloDAO, così i posti
+// bloccati e venduti sopravvivono al riavvio.
+public class InventarioPosti {
+
+    private static final Operazione OP_SALVA_POSTI = RegistroMetriche.globale().operazione("servizio.inventario.salvaPosti");
+
+    private record Contatore(Volo volo, AtomicInteger posti) { }
+
+    // Valore di un contatore sostituito da quello di una nuova istanza del volo: chi lo legge ricarica il contatore
+    private static final int SOSTITUITO = Integer.MIN_VALUE;
+
+    private final VoloDAO voloDAO;
+    private final Map<String, Contatore> contatori = new ConcurrentHashMap<>();
+
+    public InventarioPosti(VoloDAO voloDAO) {
+        this.voloDAO = voloDAO;
+    }
+
+    public boolean postiPersistenti() { return voloDAO.postiPersistenti(); }
+
+    public int disponibili(String codiceVolo) throws EntitaNonTrovataException {
+        int posti;
+        while ((posti = contatore(codiceVolo).posti().get()) == SOSTITUITO) Thread.onSpinWait();
+        return Math.max(0, posti);
+    }
+
+    // Decremento condizionato di n posti: tutti o nessuno. Se la scrittura fallisce i posti tornano liberi.
+    public Volo riserva(String codiceVolo, int n) throws PostiEsauritiException, EntitaNonTrovataException {
+        while (true) {
+            Contatore c = contatore(codiceVolo);
+            int attuali = c.posti().get();
+            if (attuali == SOSTITUITO) continue;
+            if (attuali < n) throw new PostiEsauritiException("Posti esauriti");
+            if (c.posti().compareAndSet(attuali, attuali - n)) {
+                allinea(c);
+                try {
+                    salva(c);
+                } catch (RuntimeException e) {
+                    aggiungi(codiceVolo, n);
+                    throw e;
+                }
+                return c.volo();
+            }
+        }
+    }
+
+    // Un rilascio non fallisce per la scrittura: i posti restano liberi e la prossima scrittura del volo
+    // riallinea il database. Così le compensazioni, che rilasciano più voli di fila, non si interrompono.
+    public Volo rilascia(String codiceVolo, int n) throws EntitaNonTrovataException {
+        Contatore c = aggiungi(codiceVolo, n);
+        try {
+            salva(c);
+        } catch (RuntimeException ignorata) {
+            // già contata nelle metriche
+        }
+        return c.volo();
+    }
+
+    private Contatore aggiungi(String codiceVolo, int n) throws EntitaNonTrovataException {
+        while (true) {
+            Contatore c = contatore(codiceVolo);
+            int attuali = c.posti().get();
+            if (attuali != SOSTITUITO && c.posti().compareAndSet(attuali, attuali + n)) {
+                allinea(c);
+                return c;
+            }
+        }
+    }
+
+    private void salva(Contatore c) {
+        long inizio = System.nanoTime();
+        try {
+            voloDAO.salvaPosti(c.volo());
+        } catch (RuntimeException e) {
+            OP_SALVA_POSTI.errore(e);
+            throw e;
+        } finally {
+            OP_SALVA_POSTI.registra(inizio);
+        }
+    }
+
+    // Se il catalogo ha sostituito il volo, i posti venduti o bloccati restano tali: al nuovo contatore
+    // si applica solo la variazione di capienza. Il vecchio viene chiuso nello stesso passo, così nessuna
+    // prenotazione concorrente va persa. Se la capienza scende sotto i posti occupati il contatore resta
+    // negativo finché i rilasci non lo riportano sopra zero.
+    private Contatore contatore(String codiceVolo) throws EntitaNonTrovataException {
+        Volo volo = voloDAO.findByCodice(codiceVolo)
+                .orElseThrow(() -> new EntitaNonTrovataException("Volo non trovato"));
+        Contatore c = contatori.get(codiceVolo);
+        if (c != null && c.volo() == volo) return c;
+        boolean sostituito = c != null;
+        c = contatori.compute(codiceVolo, (k, attuale) -> {
+            if (attuale != null && attuale.volo() == volo) return attuale;
+            if (attuale == null) return new Contatore(volo, new AtomicInteger(volo.getPostiDisponibili()));
+            int residui = attuale.posti().getAndSet(SOSTITUITO);
+            return new Contatore(volo, new AtomicInteger(residui + volo.getCapienza() - attuale.volo().getCapienza()));
+        });
+        allinea(c);
+        if (sostituito) {
+            // il salvataggio del catalogo ha scritto i posti della nuova istanza, non quelli residui
+            try {
+                salva(c);
+            } catch (RuntimeException ignorata) {
+                // già contata nelle metriche; la prossima variazione la riscrive
+            }
+        }
+        return c;
+    }
+
+    // Scrittori concorrenti possono riallineare fuori ordine: si ripete finché la copia coincide col contatore
+    private static void allinea(Contatore c) {
+        int visto;
+        do {
+            visto = c.posti().get();
+            if (visto == SOSTITUITO) return;
+            c.volo().setPostiDisponibili(Math.max(0, visto));
+        } while (visto != c.posti().get());
+    }
+}
@@ -0,0 +1,54 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+// Lavoro ripetuto a intervalli su un thread dedicato: la ruota si limita a innescarlo e non resta bloccata.
+// Il giro successivo viene pianificato solo a lavoro concluso, quindi le esecuzioni non si sovrappongono.
+// Un lavoro fallito non ferma i giri successivi: gli errori li conta il lavoro stesso nelle sue metriche.
+final class LavoroPeriodico implements AutoCloseable {
+
+    private final Callable<?> lavoro;
+    private final ExecutorService esecutore;
+    private volatile RuotaTemporale.Timer prossimo;
+    private volatile boolean chiuso;
+
+    LavoroPeriodico(String nomeThread, Callable<?> lavoro) {
+        this.lavoro = lavoro;
+        this.esecutore = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, nomeThread);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void pianifica(RuotaTemporale ruota, Duration intervallo) {
+        if (chiuso) return;
+        prossimo = ruota.pianifica(() -> {
+            if (chiuso) return;
+            try {
+                esecutore.execute(() -> {
+                    try {
+                        lavoro.call();
+                    } catch (Exception ignorata) {
+                        // si riprova al giro successivo
+                    }
+                    pianifica(ruota, intervallo);
+                });
+            } catch (RejectedExecutionException e) {
+                // chiuso nel frattempo
+            }
+        }, intervallo.toMillis());
+    }
+
+    @Override
+    public void close() {
+        chiuso = true;
+        RuotaTemporale.Timer t = prossimo;
+        if (t != null) t.annulla();
+        esecutore.shutdown();
+    }
+}
@@ -0,0 +1,242 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.dto.CriteriRicercaDTO;
+import it.unisa.thetourist.applicazione.dto.ItinerarioDTO;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.dominio.enumerazioni.CriterioOrdinamento;
+import it.unisa.thetourist.persistenza.dao.AeroportoDAO;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Ricerca di itinerari con 0, 1 o 2 scali. Ogni scalo deve rispettare il tempo minimo di coincidenza
+// dell'aeroporto e non superare l'attesa massima. Gli hub candidati vengono esplorati in parallelo
+// su fork-join; allo scadere del budget di latenza si restituiscono i migliori itinerari trovati.
+public class MotoreItinerari {
+
+    private static final Duration COINCIDENZA_PREDEFINITA = Duration.ofMinutes(45);
+    private static final Duration ATTESA_MASSIMA = Duration.ofHours(12);
+    private static final Duration BUDGET_PREDEFINITO = Duration.ofMillis(200);
+
+    private final AeroportoDAO aeroportoDAO;
+    private final VoloDAO voloDAO;
+    private final MotorePrezzi prezzi;
+    private final ForkJoinPool pool;
+    private final Duration budget;
+    private volatile GrafoAeroporti grafo;
+
+    public MotoreItinerari(AeroportoDAO aeroportoDAO, VoloDAO voloDAO, TariffaDAO tariffaDAO) {
+        this(aeroportoDAO, voloDAO, tariffaDAO, ForkJoinPool.commonPool(), BUDGET_PREDEFINITO);
+    }
+
+    public MotoreItinerari(AeroportoDAO aeroportoDAO, VoloDAO voloDAO, TariffaDAO tariffaDAO,
+                           ForkJoinPool pool, Duration budget) {
+        this(aeroportoDAO, voloDAO, new MotorePrezzi(voloDAO, tariffaDAO), pool, budget);
+    }
+
+    public MotoreItinerari(AeroportoDAO aeroportoDAO, VoloDAO voloDAO, MotorePrezzi prezzi) {
+        this(aeroportoDAO, voloDAO, prezzi, ForkJoinPool.commonPool(), BUDGET_PREDEFINITO);
+    }
+
+    public MotoreItinerari(AeroportoDAO aeroportoDAO, VoloDAO voloDAO, MotorePrezzi prezzi,
+                           ForkJoinPool pool, Duration budget) {
+        this.aeroportoDAO = aeroportoDAO;
+        this.voloDAO = voloDAO;
+        this.prezzi = prezzi;
+        this.pool = pool;
+        this.budget = budget;
+    }
+
+    MotorePrezzi prezzi() {
+        return prezzi;
+    }
+
+    public List<ItinerarioDTO> cerca(CriteriRicercaDTO criteri, int maxScali, CriterioOrdinamento ordinamento, int k) {
+        Ricerca r = new Ricerca(grafo(), criteri, maxScali, k, ordinatore(ordinamento), System.nanoTime() + budget.toNanos());
+
+        Classifica classifica = new Classifica(k, r.ordine);
+        LocalDateTime inizio = criteri.getDataPartenza().atStartOfDay();
+        for (Volo v : voloDAO.findPartenze(criteri.getPartenza(), criteri.getArrivo(), inizio, inizio.plusDays(1), r.passeggeri)) {
+            classifica.offri(r.itinerario(List.of(v)));
+        }
+        if (maxScali > 0) {
+            List<String> hub = r.grafo.uscite(criteri.getPartenza()).stream()
+                    .filter(h -> !h.equals(criteri.getArrivo()))
+                    .toList();
+            classifica.unisci(pool.invoke(new EsploraHub(r, hub, 0, hub.size())));
+        }
+        return classifica.ordinata();
+    }
+
+    private GrafoAeroporti grafo() {
+        GrafoAeroporti g = grafo;
+        if (g != null && g.versioneTratte == voloDAO.versioneTratte() && g.versioneAeroporti == aeroportoDAO.versione()) {
+            return g;
+        }
+        synchronized (this) {
+            long vt = voloDAO.versioneTratte();
+            long va = aeroportoDAO.versione();
+            g = grafo;
+            if (g == null || g.versioneTratte != vt || g.versioneAeroporti != va) {
+                g = new GrafoAeroporti(voloDAO.collegamenti(), aeroportoDAO.findAll(), COINCIDENZA_PREDEFINITA, vt, va);
+                grafo = g;
+            }
+            return g;
+        }
+    }
+
+    private static Comparator<ItinerarioDTO> ordinatore(CriterioOrdinamento ordinamento) {
+        Comparator<ItinerarioDTO> perDurata = Comparator.comparing(ItinerarioDTO::getDurata);
+        Comparator<ItinerarioDTO> perPrezzo = Comparator.comparing(ItinerarioDTO::getPrezzo,
+                Comparator.nullsLast(Comparator.naturalOrder()));
+        return ordinamento == CriterioOrdinamento.PREZZO ? perPrezzo.thenComparing(perDurata) : perDurata.thenComparing(perPrezzo);
+    }
+
+    // Parametri immutabili di una singola ricerca, condivisi dai task fork-join
+    private final class Ricerca {
+        final GrafoAeroporti grafo;
+        final String origine;
+        final String destinazione;
+        final LocalDateTime inizio;
+        final int passeggeri;
+        final int maxScali;
+        final int k;
+        final Comparator<ItinerarioDTO> ordine;
+        final long scadenza;
+
+        Ricerca(GrafoAeroporti grafo, CriteriRicercaDTO c, int maxScali, int k, Comparator<ItinerarioDTO> ordine, long scadenza) {
+            this.grafo = grafo;
+            this.origine = c.getPartenza();
+            this.destinazione = c.getArrivo();
+            this.inizio = c.getDataPartenza().atStartOfDay();
+            this.passeggeri = c.getNumeroPasseggeri();
+            this.maxScali = maxScali;
+            this.k = k;
+            this.ordine = ordine;
+            this.scadenza = scadenza;
+        }
+
+        boolean scaduta() {
+            return System.nanoTime() - scadenza > 0;
+        }
+
+        ItinerarioDTO itinerario(List<Volo> tratte) {
+            BigDecimal totale = BigDecimal.ZERO;
+            for (Volo v : tratte) {
+                BigDecimal p = prezzi.prezzoMinimo(v);
+                if (p == null) return new ItinerarioDTO(tratte, null);
+                totale = totale.add(p);
+            }
+            return new ItinerarioDTO(tratte, totale);
+        }
+
+        List<Volo> prime(String da, String a) {
+            return voloDAO.findPartenze(da, a, inizio, inizio.plusDays(1), passeggeri);
+        }
+
+        List<Volo> coincidenze(Volo arrivato, String a) {
+            String scalo = arrivato.getArrivo();
+            LocalDateTime atterraggio = arrivato.getDataOraArrivo();
+            return voloDAO.findPartenze(scalo, a, atterraggio.plus(grafo.coincidenzaMinima(scalo)),
+                    atterraggio.plus(ATTESA_MASSIMA), passeggeri);
+        }
+
+        void esploraHub(String hub, Classifica classifica) {
+            boolean diretto = grafo.collegato(hub, destinazione);
+            List<String> secondi = maxScali < 2 ? List.of() : grafo.uscite(hub).stream()
+                    .filter(h -> !h.equals(origine) && !h.equals(destinazione) && grafo.collegato(h, destinazione))
+                    .toList();
+            if (!diretto && secondi.isEmpty()) return;
+
+            for (Volo primo : prime(origine, hub)) {
+                if (scaduta()) return;
+                if (diretto) {
+                    for (Volo ultimo : coincidenze(primo, destinazione)) classifica.offri(itinerario(List.of(primo, ultimo)));
+                }
+                for (String hub2 : secondi) {
+                    for (Volo secondo : coincidenze(primo, hub2)) {
+                        if (classifica.escluso(itinerario(List.of(primo, secondo)))) continue;
+                        for (Volo ultimo : coincidenze(secondo, destinazione)) {
+                            classifica.offri(itinerario(List.of(primo, secondo, ultimo)));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class EsploraHub extends RecursiveTask<Classifica> {
+        private final Ricerca ricerca;
+        private final List<String> hub;
+        private final int da;
+        private final int a;
+
+        EsploraHub(Ricerca ricerca, List<String> hub, int da, int a) {
+            this.ricerca = ricerca;
+            this.hub = hub;
+            this.da = da;
+            this.a = a;
+        }
+
+        @Override
+        protected Classifica compute() {
+            if (a - da <= 1) {
+                Classifica c = new Classifica(ricerca.k, ricerca.ordine);
+                if (a > da && !ricerca.scaduta()) ricerca.esploraHub(hub.get(da), c);
+                return c;
+            }
+            int mezzo = (da + a) >>> 1;
+            EsploraHub sinistra = new EsploraHub(ricerca, hub, da, mezzo);
+            sinistra.fork();
+            Classifica destra = new EsploraHub(ricerca, hub, mezzo, a).compute();
+            destra.unisci(sinistra.join());
+            return destra;
+        }
+    }
+
+    // Top-K: max-heap sul criterio di ordinamento, il peggiore in testa
+    private static final class Classifica {
+        private final int k;
+        private final Comparator<ItinerarioDTO> ordine;
+        private final PriorityQueue<ItinerarioDTO> heap;
+
+        Classifica(int k, Comparator<ItinerarioDTO> ordine) {
+            this.k = k;
+            this.ordine = ordine;
+            this.heap = new PriorityQueue<>(k + 1, ordine.reversed());
+        }
+
+        void offri(ItinerarioDTO i) {
+            if (heap.size() < k) {
+                heap.add(i);
+            } else if (ordine.compare(i, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+
+        // Un itinerario parziale che non batte già il peggiore non può migliorare aggiungendo tratte
+        boolean escluso(ItinerarioDTO parziale) {
+            return heap.size() == k && ordine.compare(parziale, heap.peek()) >= 0;
+        }
+
+        void unisci(Classifica altra) {
+            for (ItinerarioDTO i : altra.heap) offri(i);
+        }
+
+        List<ItinerarioDTO> ordinata() {
+            List<ItinerarioDTO> l = new ArrayList<>(heap);
+            l.sort(ordine);
+            return l;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.dominio.entita.Tariffa;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Prezzo di vendita delle tariffe in base al riempimento del volo e alla regola della classe.
+// Per ogni volo il listino tiene una tabella precalcolata tariffa x fascia di riempimento: quando
+// cambiano i posti si sposta solo l'indice della fascia, la tabella si ricalcola solo se cambiano
+// le tariffe o il volo stesso. La lettura costa una get e tre confronti.
+// Un listino è valido per la stessa istanza di Volo, gli stessi posti e la stessa versione delle tariffe del volo,
+// quindi resta corretto anche senza notifiche; come osservatore lo aggiorna subito dopo ogni variazione.
+public class MotorePrezzi implements OsservatoreVoli {
+
+    static final int FASCE = 20;
+    private static final Duration PULIZIA = Duration.ofMinutes(1);
+
+    private record Listino(Volo volo, int posti, long versioneTariffe, Tariffa[] tariffe, BigDecimal[][] tabella,
+                           int fascia, BigDecimal minimo) { }
+
+    private final VoloDAO voloDAO;
+    private final TariffaDAO tariffaDAO;
+    private final Map<String, RegolaPrezzo> regolePerClasse;
+    private final RegolaPrezzo predefinita;
+    private final Map<String, Listino> listini = new ConcurrentHashMap<>();
+    private final AtomicLong ultimaPulizia = new AtomicLong(System.nanoTime());
+
+    public MotorePrezzi(VoloDAO voloDAO, TariffaDAO tariffaDAO) {
+        this(voloDAO, tariffaDAO, Map.of(), RegolaPrezzo.PREDEFINITA);
+    }
+
+    public MotorePrezzi(VoloDAO voloDAO, TariffaDAO tariffaDAO, Map<String, RegolaPrezzo> regolePerClasse,
+                        RegolaPrezzo predefinita) {
+        this.voloDAO = voloDAO;
+        this.tariffaDAO = tariffaDAO;
+        this.regolePerClasse = Map.copyOf(regolePerClasse);
+        this.predefinita = predefinita;
+    }
+
+    // Prezzo più basso tra le tariffe del volo; null se il volo non ha tariffe con prezzo
+    public BigDecimal prezzoMinimo(Volo volo) {
+        return listino(volo).minimo();
+    }
+
+    // Prezzo di vendita corrente di una tariffa; vuoto se il suo volo non è in catalogo
+    public Optional<BigDecimal> prezzo(Tariffa tariffa) {
+        Optional<Volo> volo = voloDAO.findByCodice(tariffa.getCodiceVolo());
+        if (volo.isEmpty()) return Optional.empty();
+        Listino l = listino(volo.get());
+        for (int i = 0; i < l.tariffe().length; i++) {
+            if (l.tariffe()[i].getCodice().equals(tariffa.getCodice())) return Optional.ofNullable(l.tabella()[i][l.fascia()]);
+        }
+        // tariffa non ancora salvata: stessa regola, calcolata al volo
+        return Optional.ofNullable(regola(tariffa).tabella(tariffa.getPrezzo(), FASCE)[l.fascia()]);
+    }
+
+    // Un volo rimosso, sostituito o già partito perde il listino. I voli che partono senza altre variazioni
+    // non vengono notificati: ogni PULIZIA al più un evento scorre i listini e scarta quelli dei voli partiti
+    @Override
+    public void voloModificato(Volo volo) {
+        LocalDateTime adesso = LocalDateTime.now();
+        long ora = System.nanoTime();
+        long ultima = ultimaPulizia.get();
+        if (ora - ultima >= PULIZIA.toNanos() && ultimaPulizia.compareAndSet(ultima, ora)) {
+            listini.values().removeIf(l -> partito(l.volo(), adesso));
+        }
+        if (partito(volo, adesso) || voloDAO.findByCodice(volo.getCodice()).orElse(null) != volo) {
+            // volo rimosso o sostituito: il listino verrà ricostruito sulla nuova istanza alla prima lettura
+            listini.computeIfPresent(volo.getCodice(), (k, l) -> l.volo() == volo ? null : l);
+            return;
+        }
+        listino(volo);
+    }
+
+    int dimensione() {
+        return listini.size();
+    }
+
+    private static boolean partito(Volo volo, LocalDateTime adesso) {
+        return volo.getDataOraPartenza() != null && !volo.getDataOraPartenza().isAfter(adesso);
+    }
+
+    private Listino listino(Volo volo) {
+        Listino l = listini.get(volo.getCodice());
+        if (l != null && valido(l, volo)) return l;
+        return listini.compute(volo.getCodice(), (k, attuale) -> aggiorna(attuale, volo));
+    }
+
+    private boolean valido(Listino l, Volo volo) {
+        return l.volo() == volo && l.posti() == volo.getPostiDisponibili() && l.versioneTariffe() == tariffaDAO.versione(volo.getCodice());
+    }
+
+    private Listino aggiorna(Listino attuale, Volo volo) {
+        if (attuale != null && valido(attuale, volo)) return attuale;
+        int posti = volo.getPostiDisponibili();
+        int fascia = fascia(volo, posti);
+        if (attuale != null && attuale.volo() == volo && attuale.versioneTariffe() == tariffaDAO.versione(volo.getCodice())) {
+            // cambiano solo i posti
+            BigDecimal minimo = attuale.fascia() == fascia ? attuale.minimo() : minimo(attuale.tabella(), fascia);
+            return new Listino(volo, posti, attuale.versioneTariffe(), attuale.tariffe(), attuale.tabella(), fascia, minimo);
+        }
+        // versione letta prima delle tariffe: una modifica concorrente invalida il listino alla prossima lettura
+        long versione = tariffaDAO.versione(volo.getCodice());
+        List<Tariffa> tariffe = tariffaDAO.findByVolo(volo.getCodice());
+        BigDecimal[][] tabella = new BigDecimal[tariffe.size()][];
+        for (int i = 0; i < tabella.length; i++) tabella[i] = regola(tariffe.get(i)).tabella(tariffe.get(i).getPrezzo(), FASCE);
+        return new Listino(volo, posti, versione, tariffe.toArray(new Tariffa[0]), tabella, fascia, minimo(tabella, fascia));
+    }
+
+    private RegolaPrezzo regola(Tariffa t) {
+        return t.getClasse() == null ? predefinita : regolePerClasse.getOrDefault(t.getClasse(), predefinita);
+    }
+
+    // Fascia di riempimento per difetto: il prezzo sale solo quando la soglia è davvero raggiunta
+    static int fascia(Volo volo, int posti) {
+        int capienza = volo.getCapienza();
+        if (capienza <= 0) return 0;
+        long occupati = Math.max(0, capienza - posti);
+        return (int) Math.min(FASCE, occupati * FASCE / capienza);
+    }
+
+    private static BigDecimal minimo(BigDecimal[][] tabella, int fascia) {
+        BigDecimal min = null;
+        for (BigDecimal[] riga : tabella) {
+            BigDecimal p = riga[fascia];
+            if (p != null && (min == null || p.compareTo(min) < 0)) min = p;
+        }
+        return min;
+    }
+}
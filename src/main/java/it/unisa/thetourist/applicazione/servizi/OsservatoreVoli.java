@@ -0,0 +1,9 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.dominio.entita.Volo;
+
+// Notificato quando cambia un volo, una sua tariffa o la sua disponibilità di posti.
+// Se un volo cambia tratta o data viene notificato sia lo stato precedente che quello nuovo.
+public interface OsservatoreVoli {
+    void voloModificato(Volo volo);
+}
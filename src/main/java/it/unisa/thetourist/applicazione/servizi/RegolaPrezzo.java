@@ -0,0 +1,52 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+// Moltiplicatore del prezzo base in funzione del riempimento del volo (0 = vuoto, 1 = pieno):
+// si applica moltiplicatori[i], con i = numero di soglie già raggiunte.
+public record RegolaPrezzo(double[] soglie, BigDecimal[] moltiplicatori) {
+
+    public static final RegolaPrezzo FISSA = new RegolaPrezzo(new double[0], new BigDecimal[]{BigDecimal.ONE});
+
+    public static final RegolaPrezzo PREDEFINITA = new RegolaPrezzo(new double[]{0.5, 0.7, 0.85, 0.95},
+            new BigDecimal[]{BigDecimal.ONE, new BigDecimal("1.10"), new BigDecimal("1.25"), new BigDecimal("1.50"), new BigDecimal("2.00")});
+
+    public RegolaPrezzo {
+        if (moltiplicatori.length != soglie.length + 1) throw new IllegalArgumentException("Serve un moltiplicatore in più delle soglie");
+        for (int i = 1; i < soglie.length; i++) {
+            if (soglie[i] <= soglie[i - 1]) throw new IllegalArgumentException("Soglie non crescenti");
+        }
+        soglie = soglie.clone();
+        moltiplicatori = moltiplicatori.clone();
+    }
+
+    public BigDecimal moltiplicatore(double riempimento) {
+        int i = 0;
+        while (i < soglie.length && riempimento >= soglie[i]) i++;
+        return moltiplicatori[i];
+    }
+
+    // Prezzo per ciascuna delle fasce + 1 soglie di riempimento 0, 1/fasce, ..., 1; null se manca il prezzo base
+    BigDecimal[] tabella(BigDecimal base, int fasce) {
+        BigDecimal[] prezzi = new BigDecimal[fasce + 1];
+        if (base == null) return prezzi;
+        for (int f = 0; f <= fasce; f++) {
+            BigDecimal m = moltiplicatore((double) f / fasce);
+            prezzi[f] = m.compareTo(BigDecimal.ONE) == 0 ? base
+                    : base.multiply(m).setScale(Math.max(2, base.scale()), RoundingMode.HALF_UP);
+        }
+        return prezzi;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RegolaPrezzo r && Arrays.equals(soglie, r.soglie) && Arrays.equals(moltiplicatori, r.moltiplicatori);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(soglie) + Arrays.hashCode(moltiplicatori);
+    }
+}
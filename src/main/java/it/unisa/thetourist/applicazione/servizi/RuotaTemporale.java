@@ -0,0 +1,144 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+// Ruota temporale gerarchica per scadenze in gran numero: inserimento e annullamento O(1),
+// nessun task pianificato per scadenza e nessuna scansione completa. Ogni livello ha SLOT posizioni;
+// uno slot del livello l copre SLOT^l tick e, quando la ruota inferiore compie un giro,
+// viene ridistribuito verso i livelli più bassi. Solo il thread che avanza la ruota tocca gli slot;
+// gli inserimenti passano da una coda concorrente.
+public class RuotaTemporale implements AutoCloseable {
+
+    public interface Timer {
+        // false se la scadenza è già scattata o era già stata annullata
+        boolean annulla();
+    }
+
+    private static final int SLOT = 256;
+    private static final int BIT_SLOT = 8;
+    private static final int LIVELLI = 4;
+
+    private static final int PIANIFICATO = 0;
+    private static final int ANNULLATO = 1;
+    private static final int SCADUTO = 2;
+
+    private static final class Voce implements Timer {
+        final long tickScadenza;
+        final Runnable azione;
+        final AtomicInteger stato = new AtomicInteger(PIANIFICATO);
+
+        Voce(long tickScadenza, Runnable azione) {
+            this.tickScadenza = tickScadenza;
+            this.azione = azione;
+        }
+
+        @Override
+        public boolean annulla() {
+            return stato.compareAndSet(PIANIFICATO, ANNULLATO);
+        }
+    }
+
+    private final long millisPerTick;
+    private final LongSupplier orologio;
+    private final Queue<Voce> nuove = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<Voce>[][] ruote;
+    private long tickCorrente;
+    private ScheduledExecutorService lancetta;
+
+    public RuotaTemporale(long millisPerTick) {
+        this(millisPerTick, System::currentTimeMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    public RuotaTemporale(long millisPerTick, LongSupplier orologioMillis) {
+        this.millisPerTick = millisPerTick;
+        this.orologio = orologioMillis;
+        this.tickCorrente = orologioMillis.getAsLong() / millisPerTick;
+        this.ruote = new ArrayDeque[LIVELLI][SLOT];
+        for (int l = 0; l < LIVELLI; l++) {
+            for (int s = 0; s < SLOT; s++) ruote[l][s] = new ArrayDeque<>();
+        }
+    }
+
+    public Timer pianifica(Runnable azione, long ritardoMillis) {
+        long scadenza = orologio.getAsLong() + Math.max(0, ritardoMillis);
+        Voce v = new Voce((scadenza + millisPerTick - 1) / millisPerTick, azione);
+        nuove.add(v);
+        return v;
+    }
+
+    // Avvia un thread daemon che fa avanzare la ruota a ogni tick
+    public synchronized RuotaTemporale avvia() {
+        if (lancetta == null) {
+            lancetta = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ruota-temporale");
+                t.setDaemon(true);
+                return t;
+            });
+            lancetta.scheduleAtFixedRate(this::avanza, millisPerTick, millisPerTick, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (lancetta != null) lancetta.shutdownNow();
+    }
+
+    // Esegue le scadenze fino all'istante corrente dell'orologio
+    public synchronized void avanza() {
+        long obiettivo = orologio.getAsLong() / millisPerTick;
+        inserisciNuove();
+        while (tickCorrente < obiettivo) {
+            tickCorrente++;
+            for (int l = LIVELLI - 1; l >= 1; l--) {
+                if ((tickCorrente & ((1L << (BIT_SLOT * l)) - 1)) == 0) ridistribuisci(l);
+            }
+            ArrayDeque<Voce> slot = ruote[0][(int) (tickCorrente & (SLOT - 1))];
+            for (Voce v; (v = slot.poll()) != null; ) scatta(v);
+        }
+    }
+
+    private void ridistribuisci(int livello) {
+        ArrayDeque<Voce> slot = ruote[livello][(int) ((tickCorrente >>> (BIT_SLOT * livello)) & (SLOT - 1))];
+        for (Voce v; (v = slot.poll()) != null; ) colloca(v);
+    }
+
+    private void inserisciNuove() {
+        for (Voce v; (v = nuove.poll()) != null; ) colloca(v);
+    }
+
+    private void colloca(Voce v) {
+        if (v.stato.get() != PIANIFICATO) return;
+        long delta = v.tickScadenza - tickCorrente;
+        if (delta <= 0) {
+            scatta(v);
+            return;
+        }
+        for (int l = 0; l < LIVELLI; l++) {
+            if (delta < 1L << (BIT_SLOT * (l + 1))) {
+                ruote[l][(int) ((v.tickScadenza >>> (BIT_SLOT * l)) & (SLOT - 1))].add(v);
+                return;
+            }
+        }
+        // Oltre l'orizzonte della ruota: ultimo slot del livello più alto, verrà ricollocata al suo turno
+        int alto = LIVELLI - 1;
+        ruote[alto][(int) (((tickCorrente >>> (BIT_SLOT * alto)) + SLOT - 1) & (SLOT - 1))].add(v);
+    }
+
+    private static void scatta(Voce v) {
+        if (!v.stato.compareAndSet(PIANIFICATO, SCADUTO)) return;
+        try {
+            v.azione.run();
+        } catch (RuntimeException ignorata) {
+            // una scadenza che fallisce non deve fermare la ruota
+        }
+    }
+}
@@ -1,4 +1,247 @@
 package it.unisa.thetourist.applicazione.servizi;
 
-public class ServizioAssistenza {
+import it.unisa.thetourist.applicazione.dto.DatiRichiestaAssistenzaDTO;
+import it.unisa.thetourist.applicazione.dto.DatiRispostaAssistenzaDTO;
+import it.unisa.thetourist.applicazione.dto.RisultatoRicercaAssistenzaDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.EntitaNonTrovataException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+import it.unisa.thetourist.dominio.entita.RichiestaAssistenza;
+import it.unisa.thetourist.dominio.entita.RispostaAssistenza;
+import it.unisa.thetourist.dominio.enumerazioni.StatoRichiesta;
+import it.unisa.thetourist.interfaccia.IAssistenza;
+import it.unisa.thetourist.persistenza.dao.PrenotazioneDAO;
+import it.unisa.thetourist.persistenza.dao.RichiestaAssistenzaDAO;
+import it.unisa.thetourist.persistenza.dao.RispostaAssistenzaDAO;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public class ServizioAssistenza implements IAssistenza {
+
+    private static final int MAX_OGGETTO = 200;
+    private static final int MAX_TESTO = 4_000;
+    private static final int MAX_RISULTATI = 100;
+    private static final int NUMERO_CODE = Math.max(4, 4 * Runtime.getRuntime().availableProcessors());
+
+    // Anticipo sulla coda: una richiesta sollecitata passa davanti a quelle aperte da meno di un'ora,
+    // ogni 100 euro di prenotazione valgono 10 minuti, fino a 4 ore
+    private static final long ANTICIPO_SOLLECITO = Duration.ofHours(1).toMillis();
+    private static final long ANTICIPO_OGNI_100_EURO = Duration.ofMinutes(10).toMillis();
+    private static final long MAX_ANTICIPO_VALORE = Duration.ofHours(4).toMillis();
+
+    private static final Operazione OP_APRI = RegistroMetriche.globale().operazione("servizio.assistenza.apriRichiesta");
+    private static final Operazione OP_SOLLECITA = RegistroMetriche.globale().operazione("servizio.assistenza.sollecita");
+    private static final Operazione OP_PRENDI = RegistroMetriche.globale().operazione("servizio.assistenza.prendiInCarico");
+    private static final Operazione OP_RINNOVA = RegistroMetriche.globale().operazione("servizio.assistenza.rinnovaPresa");
+    private static final Operazione OP_RISPONDI = RegistroMetriche.globale().operazione("servizio.assistenza.rispondi");
+    private static final Operazione OP_RILASCIA = RegistroMetriche.globale().operazione("servizio.assistenza.rilascia");
+    private static final Operazione OP_CERCA = RegistroMetriche.globale().operazione("servizio.assistenza.cercaMessaggi");
+
+    private final RichiestaAssistenzaDAO richiestaDAO;
+    private final RispostaAssistenzaDAO rispostaDAO;
+    private final PrenotazioneDAO prenotazioneDAO;
+    private final CodaAssistenza coda;
+    private final IndiceAssistenza indice = new IndiceAssistenza();
+
+    // Le richieste in attesa vengono rimesse in coda, le prese in corso non sopravvivono al riavvio;
+    // l'indice dei messaggi viene ricostruito
+    public ServizioAssistenza(RichiestaAssistenzaDAO richiestaDAO, RispostaAssistenzaDAO rispostaDAO,
+                              PrenotazioneDAO prenotazioneDAO, RuotaTemporale ruota, Duration durataPresa) {
+        this.richiestaDAO = richiestaDAO;
+        this.rispostaDAO = rispostaDAO;
+        this.prenotazioneDAO = prenotazioneDAO;
+        this.coda = new CodaAssistenza(NUMERO_CODE, ruota, durataPresa.toMillis());
+        for (RichiestaAssistenza r : richiestaDAO.findAll()) {
+            if (inAttesa(r.getStato())) coda.accoda(r.getCodice(), priorita(r));
+            indice.aggiungi(r);
+            for (RispostaAssistenza m : rispostaDAO.findByRichiesta(r.getCodice())) indice.aggiungi(r, m);
+        }
+        RegistroMetriche.globale().indicatore("servizio.assistenza.inAttesa", coda::inAttesa);
+        RegistroMetriche.globale().indicatore("servizio.assistenza.inCarico", coda::inCarico);
+        RegistroMetriche.globale().indicatore("servizio.assistenza.messaggiIndicizzati", indice::numeroDocumenti);
+    }
+
+    @Override
+    public RichiestaAssistenza apriRichiesta(String idUtente, DatiRichiestaAssistenzaDTO dati)
+            throws DatiNonValidiException, EntitaNonTrovataException {
+        long inizio = System.nanoTime();
+        try {
+            if (idUtente == null || idUtente.isBlank()) throw new DatiNonValidiException("Utente mancante");
+            if (dati == null) throw new DatiNonValidiException("Dati richiesta null");
+            if (dati.getOggetto() == null || dati.getOggetto().isBlank() || dati.getOggetto().length() > MAX_OGGETTO)
+                throw new DatiNonValidiException("Oggetto non valido");
+            validaTesto(dati.getMessaggio());
+            if (dati.getCodicePrenotazione() != null && prenotazioneDAO.findByCodice(dati.getCodicePrenotazione())
+                    .filter(p -> p.getIdUtente().equals(idUtente)).isEmpty()) {
+                throw new EntitaNonTrovataException("Prenotazione non trovata");
+            }
+
+            RichiestaAssistenza r = new RichiestaAssistenza(UUID.randomUUID().toString(), idUtente,
+                    dati.getCodicePrenotazione(), dati.getOggetto(), dati.getMessaggio(), LocalDateTime.now());
+            richiestaDAO.salva(r);
+            indice.aggiungi(r);
+            coda.accoda(r.getCodice(), priorita(r));
+            return r;
+        } catch (Exception e) {
+            OP_APRI.errore(e);
+            throw e;
+        } finally {
+            OP_APRI.registra(inizio);
+        }
+    }
+
+    // Un messaggio dopo la risposta rimette la richiesta in coda, con anticipo
+    @Override
+    public RispostaAssistenza sollecita(String idUtente, String codiceRichiesta, String testo)
+            throws DatiNonValidiException, EntitaNonTrovataException {
+        long inizio = System.nanoTime();
+        try {
+            validaTesto(testo);
+            RichiestaAssistenza r = richiestaDAO.findByCodice(codiceRichiesta)
+                    .filter(ra -> ra.getIdUtente().equals(idUtente))
+                    .orElseThrow(() -> new EntitaNonTrovataException("Richiesta non trovata"));
+            synchronized (r) {
+                if (r.getStato() == StatoRichiesta.CHIUSA) throw new DatiNonValidiException("Richiesta chiusa");
+                RispostaAssistenza messaggio = messaggio(r, idUtente, testo);
+                if (r.getStato() == StatoRichiesta.RISPOSTA) {
+                    r.setStato(StatoRichiesta.SOLLECITATA);
+                    richiestaDAO.salva(r);
+                    coda.accoda(r.getCodice(), priorita(r));
+                }
+                return messaggio;
+            }
+        } catch (Exception e) {
+            OP_SOLLECITA.errore(e);
+            throw e;
+        } finally {
+            OP_SOLLECITA.registra(inizio);
+        }
+    }
+
+    // La richiesta resta all'admin finché risponde, la rilascia o lascia scadere la presa
+    @Override
+    public Optional<RichiestaAssistenza> prendiInCarico(String idAdmin) {
+        long inizio = System.nanoTime();
+        try {
+            while (true) {
+                Optional<String> codice = coda.prendi(idAdmin);
+                if (codice.isEmpty()) return Optional.empty();
+                Optional<RichiestaAssistenza> r = richiestaDAO.findByCodice(codice.get());
+                if (r.isPresent() && inAttesa(r.get().getStato())) return r;
+                coda.completa(idAdmin, codice.get());
+            }
+        } catch (Exception e) {
+            OP_PRENDI.errore(e);
+            throw e;
+        } finally {
+            OP_PRENDI.registra(inizio);
+        }
+    }
+
+    @Override
+    public void rinnovaPresa(String idAdmin, String codiceRichiesta) throws NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            if (!coda.rinnova(idAdmin, codiceRichiesta)) throw new NonAutorizzatoException("Richiesta non in carico");
+        } catch (Exception e) {
+            OP_RINNOVA.errore(e);
+            throw e;
+        } finally {
+            OP_RINNOVA.registra(inizio);
+        }
+    }
+
+    @Override
+    public RispostaAssistenza rispondi(String idAdmin, DatiRispostaAssistenzaDTO dati)
+            throws DatiNonValidiException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            if (dati == null) throw new DatiNonValidiException("Dati risposta null");
+            validaTesto(dati.getTesto());
+            RichiestaAssistenza r = richiestaDAO.findByCodice(dati.getCodiceRichiesta())
+                    .orElseThrow(() -> new NonAutorizzatoException("Richiesta non in carico"));
+            // sotto il lock della richiesta: un sollecito concorrente vede lo stato già aggiornato
+            synchronized (r) {
+                if (!coda.completa(idAdmin, r.getCodice())) throw new NonAutorizzatoException("Richiesta non in carico");
+                RispostaAssistenza risposta = messaggio(r, idAdmin, dati.getTesto());
+                r.setStato(dati.isChiudi() ? StatoRichiesta.CHIUSA : StatoRichiesta.RISPOSTA);
+                richiestaDAO.salva(r);
+                return risposta;
+            }
+        } catch (Exception e) {
+            OP_RISPONDI.errore(e);
+            throw e;
+        } finally {
+            OP_RISPONDI.registra(inizio);
+        }
+    }
+
+    @Override
+    public void rilascia(String idAdmin, String codiceRichiesta) throws NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            if (!coda.rilascia(idAdmin, codiceRichiesta)) throw new NonAutorizzatoException("Richiesta non in carico");
+        } catch (Exception e) {
+            OP_RILASCIA.errore(e);
+            throw e;
+        } finally {
+            OP_RILASCIA.registra(inizio);
+        }
+    }
+
+    // Ricerca per parole chiave su aperture e risposte, per riusare risposte già date
+    @Override
+    public List<RisultatoRicercaAssistenzaDTO> cercaMessaggi(String testo, int k) throws DatiNonValidiException {
+        long inizio = System.nanoTime();
+        try {
+            if (testo == null || testo.isBlank()) throw new DatiNonValidiException("Testo di ricerca mancante");
+            if (k <= 0 || k > MAX_RISULTATI) throw new DatiNonValidiException("Numero di risultati non valido");
+            return indice.cerca(testo, k).stream()
+                    .map(r -> new RisultatoRicercaAssistenzaDTO(r.richiesta().getCodice(),
+                            r.risposta() == null ? null : r.risposta().getCodice(), r.richiesta().getOggetto(),
+                            r.risposta() == null ? r.richiesta().getMessaggio() : r.risposta().getTesto(), r.punteggio()))
+                    .toList();
+        } catch (Exception e) {
+            OP_CERCA.errore(e);
+            throw e;
+        } finally {
+            OP_CERCA.registra(inizio);
+        }
+    }
+
+    private RispostaAssistenza messaggio(RichiestaAssistenza r, String idAutore, String testo) {
+        RispostaAssistenza m = new RispostaAssistenza(UUID.randomUUID().toString(), r.getCodice(), idAutore, testo,
+                LocalDateTime.now());
+        rispostaDAO.salva(m);
+        indice.aggiungi(r, m);
+        return m;
+    }
+
+    private long priorita(RichiestaAssistenza r) {
+        long anticipo = r.getStato() == StatoRichiesta.SOLLECITATA ? ANTICIPO_SOLLECITO : 0;
+        BigDecimal valore = r.getCodicePrenotazione() == null ? null
+                : prenotazioneDAO.findByCodice(r.getCodicePrenotazione()).map(Prenotazione::getImporto).orElse(null);
+        if (valore != null && valore.signum() > 0) {
+            long centinaia = valore.movePointLeft(2).min(BigDecimal.valueOf(MAX_ANTICIPO_VALORE)).longValue();
+            anticipo += Math.min(MAX_ANTICIPO_VALORE, centinaia * ANTICIPO_OGNI_100_EURO);
+        }
+        return r.getDataApertura().toInstant(ZoneOffset.UTC).toEpochMilli() - anticipo;
+    }
+
+    private static boolean inAttesa(StatoRichiesta stato) {
+        return stato == StatoRichiesta.APERTA || stato == StatoRichiesta.SOLLECITATA;
+    }
+
+    private static void validaTesto(String testo) throws DatiNonValidiException {
+        if (testo == null || testo.isBlank() || testo.length() > MAX_TESTO) throw new DatiNonValidiException("Testo non valido");
+    }
 }
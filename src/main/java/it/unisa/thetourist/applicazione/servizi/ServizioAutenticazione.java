@@ -1,4 +1,204 @@
 package it.unisa.thetourist.applicazione.servizi;
 
-public class ServizioAutenticazione {
+import it.unisa.thetourist.applicazione.dto.CredenzialiDTO;
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.dominio.entita.Utente;
+import it.unisa.thetourist.interfaccia.IAutenticazione;
+import it.unisa.thetourist.persistenza.dao.UtenteDAO;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// La verifica delle password è volutamente costosa: gira su un pool dedicato con pochi thread
+// e coda limitata, così un picco di login non sottrae CPU a ricerca e prenotazioni.
+// A coda piena il login fallisce subito con RejectedExecutionException.
+public class ServizioAutenticazione implements IAutenticazione, AutoCloseable {
+
+    private static final int ITERAZIONI_HASH = 210_000;
+    private static final Duration DURATA_SESSIONE = Duration.ofMinutes(30);
+    private static final int THREAD_HASH = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+    private static final int CODA_HASH = 64;
+    private static final long MILLIS_PULIZIA = 1_000;
+    private static final int MAX_PULIZIA_PER_GIRO = 50_000;
+
+    private static final Operazione OP_LOGIN = RegistroMetriche.globale().operazione("servizio.autenticazione.login");
+    private static final Operazione OP_VERIFICA = RegistroMetriche.globale().operazione("servizio.autenticazione.verificaSessione");
+
+    private final UtenteDAO utenteDAO;
+    private final CodificatorePassword codificatore;
+    private final ArchivioSessioni sessioni;
+    private final Executor esecutoreHash;
+    // Ruota creata dal costruttore predefinito, da fermare alla close()
+    private RuotaTemporale ruotaPropria;
+    private volatile RuotaTemporale.Timer pulizia;
+    private volatile boolean chiuso;
+    // Confronto fittizio per email sconosciute: stesso costo di una password sbagliata
+    private final String hashFittizio;
+
+    public ServizioAutenticazione(UtenteDAO utenteDAO) {
+        this(utenteDAO, new RuotaTemporale(100).avvia(), true, DURATA_SESSIONE, ITERAZIONI_HASH, THREAD_HASH, CODA_HASH);
+    }
+
+    public ServizioAutenticazione(UtenteDAO utenteDAO, RuotaTemporale ruota, Duration durataSessione,
+                                  int iterazioniHash, int threadHash, int codaHash) {
+        this(utenteDAO, ruota, false, durataSessione, iterazioniHash, threadHash, codaHash);
+    }
+
+    private ServizioAutenticazione(UtenteDAO utenteDAO, RuotaTemporale ruota, boolean ruotaPropria, Duration durataSessione,
+                                   int iterazioniHash, int threadHash, int codaHash) {
+        this(utenteDAO, new CodificatorePassword(iterazioniHash),
+                new ArchivioSessioni(durataSessione.toMillis(), System::currentTimeMillis),
+                poolHash(threadHash, codaHash), ruota);
+        if (ruotaPropria) this.ruotaPropria = ruota;
+    }
+
+    ServizioAutenticazione(UtenteDAO utenteDAO, CodificatorePassword codificatore, ArchivioSessioni sessioni,
+                           Executor esecutoreHash, RuotaTemporale ruota) {
+        this(utenteDAO, codificatore, sessioni, esecutoreHash);
+        pianificaPulizia(ruota);
+    }
+
+    ServizioAutenticazione(UtenteDAO utenteDAO, CodificatorePassword codificatore, ArchivioSessioni sessioni,
+                           Executor esecutoreHash) {
+        this.utenteDAO = utenteDAO;
+        this.codificatore = codificatore;
+        this.sessioni = sessioni;
+        this.esecutoreHash = esecutoreHash;
+        this.hashFittizio = codificatore.codifica("");
+        RegistroMetriche metriche = RegistroMetriche.globale();
+        metriche.indicatore("servizio.autenticazione.sessioniAttive", () -> sessioni.statistiche().attive());
+        metriche.indicatore("servizio.autenticazione.byteSessioni", () -> sessioni.statistiche().byteStimati());
+        if (esecutoreHash instanceof ThreadPoolExecutor pool) {
+            metriche.indicatore("servizio.autenticazione.codaHash", () -> pool.getQueue().size());
+        }
+    }
+
+    @Override
+    public SessioneDTO login(CredenzialiDTO credenziali) throws DatiNonValidiException, NonAutorizzatoException {
+        try {
+            return loginAsync(credenziali).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof DatiNonValidiException d) throw d;
+            if (e.getCause() instanceof NonAutorizzatoException n) throw n;
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            throw e;
+        }
+    }
+
+    // Il future fallisce con DatiNonValidiException, NonAutorizzatoException o, a pool saturo,
+    // RejectedExecutionException
+    public CompletableFuture<SessioneDTO> loginAsync(CredenzialiDTO credenziali) {
+        long inizio = System.nanoTime();
+        return verificaCredenziali(credenziali).whenComplete((sessione, errore) -> {
+            if (errore != null) OP_LOGIN.errore(errore);
+            OP_LOGIN.registra(inizio);
+        });
+    }
+
+    private CompletableFuture<SessioneDTO> verificaCredenziali(CredenzialiDTO credenziali) {
+        if (credenziali == null || credenziali.getEmail() == null || credenziali.getEmail().isBlank()
+                || credenziali.getPassword() == null || credenziali.getPassword().isEmpty()) {
+            return CompletableFuture.failedFuture(new DatiNonValidiException("Credenziali mancanti"));
+        }
+        Utente utente = utenteDAO.findByEmail(credenziali.getEmail()).orElse(null);
+        String password = credenziali.getPassword();
+        CompletableFuture<SessioneDTO> esito = new CompletableFuture<>();
+        try {
+            esecutoreHash.execute(() -> {
+                try {
+                    esito.complete(verifica(utente, password));
+                } catch (Throwable e) {
+                    esito.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            esito.completeExceptionally(new RejectedExecutionException("Troppi login in corso"));
+        }
+        return esito;
+    }
+
+    @Override
+    public SessioneDTO verificaSessione(String token) throws NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            SessioneDTO sessione = token == null ? null : sessioni.tocca(token);
+            if (sessione == null) throw new NonAutorizzatoException("Sessione non valida o scaduta");
+            return sessione;
+        } catch (Exception e) {
+            OP_VERIFICA.errore(e);
+            throw e;
+        } finally {
+            OP_VERIFICA.registra(inizio);
+        }
+    }
+
+    @Override
+    public void logout(String token) {
+        if (token != null) sessioni.rimuovi(token);
+    }
+
+    public StatisticheSessioni getStatisticheSessioni() {
+        return sessioni.statistiche();
+    }
+
+    @Override
+    public void close() {
+        chiuso = true;
+        RuotaTemporale.Timer t = pulizia;
+        if (t != null) t.annulla();
+        if (ruotaPropria != null) ruotaPropria.close();
+        if (esecutoreHash instanceof ExecutorService es) es.shutdown();
+    }
+
+    private SessioneDTO verifica(Utente utente, String password) throws NonAutorizzatoException {
+        String hash = utente == null ? hashFittizio : utente.getHashPassword();
+        if (!codificatore.verifica(password, hash) || utente == null) {
+            throw new NonAutorizzatoException("Credenziali non valide");
+        }
+        if (codificatore.daAggiornare(hash)) aggiornaHash(utente, password);
+        return sessioni.crea(utente.getId());
+    }
+
+    // Ricalcolo trasparente con il costo corrente; se il pool è saturo si riprova al prossimo login
+    private void aggiornaHash(Utente utente, String password) {
+        try {
+            esecutoreHash.execute(() -> {
+                utente.setHashPassword(codificatore.codifica(password));
+                utenteDAO.salva(utente);
+            });
+        } catch (RejectedExecutionException ignorata) {
+        }
+    }
+
+    // Le sessioni scadute vengono rimosse a piccoli passi, una volta al secondo, fino alla close()
+    private void pianificaPulizia(RuotaTemporale ruota) {
+        if (chiuso) return;
+        pulizia = ruota.pianifica(() -> {
+            if (chiuso) return;
+            sessioni.spazza(MAX_PULIZIA_PER_GIRO);
+            pianificaPulizia(ruota);
+        }, MILLIS_PULIZIA);
+    }
+
+    private static ThreadPoolExecutor poolHash(int thread, int coda) {
+        AtomicInteger progressivo = new AtomicInteger();
+        return new ThreadPoolExecutor(thread, thread, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(coda), r -> {
+            Thread t = new Thread(r, "hash-password-" + progressivo.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
 }
@@ -1,4 +1,65 @@
 package it.unisa.thetourist.applicazione.servizi;
 
-public class ServizioAutorizzazione {
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.EntitaNonTrovataException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.dominio.entita.Utente;
+import it.unisa.thetourist.dominio.enumerazioni.Permesso;
+import it.unisa.thetourist.dominio.enumerazioni.Ruolo;
+import it.unisa.thetourist.interfaccia.IAutorizzazione;
+import it.unisa.thetourist.persistenza.dao.UtenteDAO;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Il ruolo di ogni utente è letto dal DAO una sola volta e tenuto in cache, così tutte le sue
+// sessioni condividono la decisione: un controllo è una get sulla mappa e un test di bit.
+// cambiaRuolo aggiorna utente e cache nella stessa compute, senza finestre con il ruolo vecchio.
+// Un controllo costa pochi nanosecondi: si contano esiti e non si misura la latenza.
+public class ServizioAutorizzazione implements IAutorizzazione {
+
+    private static final LongAdder CONSENTITI = RegistroMetriche.globale().contatore("servizio.autorizzazione.consentiti");
+    private static final LongAdder NEGATI = RegistroMetriche.globale().contatore("servizio.autorizzazione.negati");
+
+    private final UtenteDAO utenteDAO;
+    private final Map<String, Ruolo> ruoli = new ConcurrentHashMap<>();
+
+    public ServizioAutorizzazione(UtenteDAO utenteDAO) {
+        this.utenteDAO = utenteDAO;
+    }
+
+    @Override
+    public boolean consente(SessioneDTO sessione, Permesso permesso) {
+        if (sessione == null || sessione.getIdUtente() == null) {
+            NEGATI.increment();
+            return false;
+        }
+        Ruolo ruolo = ruoli.get(sessione.getIdUtente());
+        if (ruolo == null) ruolo = ruoli.computeIfAbsent(sessione.getIdUtente(), this::caricaRuolo);
+        boolean consentito = ruolo != null && ruolo.consente(permesso);
+        (consentito ? CONSENTITI : NEGATI).increment();
+        return consentito;
+    }
+
+    @Override
+    public void verifica(SessioneDTO sessione, Permesso permesso) throws NonAutorizzatoException {
+        if (!consente(sessione, permesso)) throw new NonAutorizzatoException("Operazione non consentita: " + permesso);
+    }
+
+    @Override
+    public void cambiaRuolo(String idUtente, Ruolo ruolo) throws EntitaNonTrovataException {
+        Utente utente = utenteDAO.findById(idUtente)
+                .orElseThrow(() -> new EntitaNonTrovataException("Utente non trovato: " + idUtente));
+        ruoli.compute(idUtente, (id, vecchio) -> {
+            utente.setRuolo(ruolo);
+            utenteDAO.salva(utente);
+            return ruolo;
+        });
+    }
+
+    private Ruolo caricaRuolo(String idUtente) {
+        return utenteDAO.findById(idUtente).map(Utente::getRuolo).orElse(null);
+    }
 }
@@ -0,0 +1,67 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.persistenza.dao.AeroportoDAO;
+import it.unisa.thetourist.persistenza.dao.CompagniaAereaDAO;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+import it.unisa.thetourist.persistenza.snapshot.FotoCatalogo;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Riscrive periodicamente la foto binaria del catalogo, solo se è cambiato dall'ultima scrittura.
+public class ServizioFotoCatalogo implements AutoCloseable {
+
+    private static final Operazione OP_SCRIVI = RegistroMetriche.globale().operazione("servizio.fotoCatalogo.scrivi");
+
+    private final Path file;
+    private final AeroportoDAO aeroportoDAO;
+    private final CompagniaAereaDAO compagniaAereaDAO;
+    private final VoloDAO voloDAO;
+    private final TariffaDAO tariffaDAO;
+    private final LavoroPeriodico scrittura = new LavoroPeriodico("foto-catalogo", this::scrivi);
+    private long ultimaVersione = -1;
+
+    public ServizioFotoCatalogo(Path file, AeroportoDAO aeroportoDAO, CompagniaAereaDAO compagniaAereaDAO,
+                                VoloDAO voloDAO, TariffaDAO tariffaDAO) {
+        this.file = file;
+        this.aeroportoDAO = aeroportoDAO;
+        this.compagniaAereaDAO = compagniaAereaDAO;
+        this.voloDAO = voloDAO;
+        this.tariffaDAO = tariffaDAO;
+    }
+
+    // Restituisce false se il catalogo non è cambiato dall'ultima foto
+    public synchronized boolean scrivi() throws IOException {
+        long inizio = System.nanoTime();
+        try {
+            // letta prima di scrivere: una modifica concorrente farà riscrivere la foto al giro successivo
+            long versione = versione();
+            if (versione == ultimaVersione) return false;
+            FotoCatalogo.scrivi(file, aeroportoDAO.findAll(), compagniaAereaDAO.findAll(), voloDAO::visita, tariffaDAO::findByVolo);
+            ultimaVersione = versione;
+            return true;
+        } catch (Exception e) {
+            OP_SCRIVI.errore(e);
+            throw e;
+        } finally {
+            OP_SCRIVI.registra(inizio);
+        }
+    }
+
+    public void pianifica(RuotaTemporale ruota, Duration intervallo) {
+        scrittura.pianifica(ruota, intervallo);
+    }
+
+    @Override
+    public void close() {
+        scrittura.close();
+    }
+
+    private long versione() {
+        return aeroportoDAO.versione() + compagniaAereaDAO.versione() + voloDAO.versione() + tariffaDAO.versione();
+    }
+}
@@ -1,4 +1,211 @@
 package it.unisa.thetourist.applicazione.servizi;
 
-public class ServizioGestioneCatalogo {
+import it.unisa.thetourist.applicazione.dto.DatiTariffaDTO;
+import it.unisa.thetourist.applicazione.dto.DatiVoloDTO;
+import it.unisa.thetourist.applicazione.dto.EsitoImportazioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.EntitaNonTrovataException;
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.dominio.entita.Tariffa;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.interfaccia.IGestioneCatalogo;
+import it.unisa.thetourist.persistenza.dao.AeroportoDAO;
+import it.unisa.thetourist.persistenza.dao.CompagniaAereaDAO;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+public class ServizioGestioneCatalogo implements IGestioneCatalogo {
+
+    private static final Operazione OP_INSERISCI_VOLO = RegistroMetriche.globale().operazione("servizio.catalogo.inserisciVolo");
+    private static final Operazione OP_MODIFICA_VOLO = RegistroMetriche.globale().operazione("servizio.catalogo.modificaVolo");
+    private static final Operazione OP_RIMUOVI_VOLO = RegistroMetriche.globale().operazione("servizio.catalogo.rimuoviVolo");
+    private static final Operazione OP_INSERISCI_TARIFFA = RegistroMetriche.globale().operazione("servizio.catalogo.inserisciTariffa");
+    private static final Operazione OP_MODIFICA_TARIFFA = RegistroMetriche.globale().operazione("servizio.catalogo.modificaTariffa");
+    private static final Operazione OP_RIMUOVI_TARIFFA = RegistroMetriche.globale().operazione("servizio.catalogo.rimuoviTariffa");
+    private static final Operazione OP_IMPORTA_ORARI = RegistroMetriche.globale().operazione("servizio.catalogo.importaOrari");
+
+    private static final int THREAD_IMPORTAZIONE = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    private final VoloDAO voloDAO;
+    private final TariffaDAO tariffaDAO;
+    private final AeroportoDAO aeroportoDAO;
+    private final CompagniaAereaDAO compagniaAereaDAO;
+    private final List<OsservatoreVoli> osservatori = new CopyOnWriteArrayList<>();
+
+    public ServizioGestioneCatalogo(VoloDAO voloDAO, TariffaDAO tariffaDAO,
+                                    AeroportoDAO aeroportoDAO, CompagniaAereaDAO compagniaAereaDAO) {
+        this.voloDAO = voloDAO;
+        this.tariffaDAO = tariffaDAO;
+        this.aeroportoDAO = aeroportoDAO;
+        this.compagniaAereaDAO = compagniaAereaDAO;
+    }
+
+    public void registraOsservatore(OsservatoreVoli osservatore) {
+        osservatori.add(osservatore);
+    }
+
+    @Override
+    public Volo inserisciVolo(DatiVoloDTO dati) throws DatiNonValidiException {
+        long inizio = System.nanoTime();
+        try {
+            valida(dati);
+            if (voloDAO.findByCodice(dati.getCodice()).isPresent()) throw new DatiNonValidiException("Volo già presente");
+            Volo volo = daDati(dati);
+            voloDAO.salva(volo);
+            notifica(volo);
+            return volo;
+        } catch (Exception e) {
+            OP_INSERISCI_VOLO.errore(e);
+            throw e;
+        } finally {
+            OP_INSERISCI_VOLO.registra(inizio);
+        }
+    }
+
+    @Override
+    public Volo modificaVolo(DatiVoloDTO dati) throws DatiNonValidiException, EntitaNonTrovataException {
+        long inizio = System.nanoTime();
+        try {
+            valida(dati);
+            Volo precedente = voloDAO.findByCodice(dati.getCodice())
+                    .orElseThrow(() -> new EntitaNonTrovataException("Volo non trovato"));
+            Volo volo = daDati(dati);
+            voloDAO.salva(volo);
+            notifica(precedente);
+            notifica(volo);
+            return volo;
+        } catch (Exception e) {
+            OP_MODIFICA_VOLO.errore(e);
+            throw e;
+        } finally {
+            OP_MODIFICA_VOLO.registra(inizio);
+        }
+    }
+
+    @Override
+    public void rimuoviVolo(String codice) throws EntitaNonTrovataException {
+        long inizio = System.nanoTime();
+        try {
+            Volo volo = voloDAO.findByCodice(codice)
+                    .orElseThrow(() -> new EntitaNonTrovataException("Volo non trovato"));
+            voloDAO.rimuovi(codice);
+            for (Tariffa t : tariffaDAO.findByVolo(codice)) tariffaDAO.rimuovi(t.getCodice());
+            notifica(volo);
+        } catch (Exception e) {
+            OP_RIMUOVI_VOLO.errore(e);
+            throw e;
+        } finally {
+            OP_RIMUOVI_VOLO.registra(inizio);
+        }
+    }
+
+    @Override
+    public Tariffa inserisciTariffa(DatiTariffaDTO dati) throws DatiNonValidiException, EntitaNonTrovataException {
+        long inizio = System.nanoTime();
+        try {
+            valida(dati);
+            if (tariffaDAO.findByCodice(dati.getCodice()).isPresent()) throw new DatiNonValidiException("Tariffa già presente");
+            return salvaTariffa(dati);
+        } catch (Exception e) {
+            OP_INSERISCI_TARIFFA.errore(e);
+            throw e;
+        } finally {
+            OP_INSERISCI_TARIFFA.registra(inizio);
+        }
+    }
+
+    @Override
+    public Tariffa modificaTariffa(DatiTariffaDTO dati) throws DatiNonValidiException, EntitaNonTrovataException {
+        long inizio = System.nanoTime();
+        try {
+            valida(dati);
+            Tariffa precedente = tariffaDAO.findByCodice(dati.getCodice())
+                    .orElseThrow(() -> new EntitaNonTrovataException("Tariffa non trovata"));
+            Tariffa tariffa = salvaTariffa(dati);
+            if (!precedente.getCodiceVolo().equals(tariffa.getCodiceVolo())) {
+                voloDAO.findByCodice(precedente.getCodiceVolo()).ifPresent(this::notifica);
+            }
+            return tariffa;
+        } catch (Exception e) {
+            OP_MODIFICA_TARIFFA.errore(e);
+            throw e;
+        } finally {
+            OP_MODIFICA_TARIFFA.registra(inizio);
+        }
+    }
+
+    @Override
+    public void rimuoviTariffa(String codice) throws EntitaNonTrovataException {
+        long inizio = System.nanoTime();
+        try {
+            Tariffa tariffa = tariffaDAO.findByCodice(codice)
+                    .orElseThrow(() -> new EntitaNonTrovataException("Tariffa non trovata"));
+            tariffaDAO.rimuovi(codice);
+            voloDAO.findByCodice(tariffa.getCodiceVolo()).ifPresent(this::notifica);
+        } catch (Exception e) {
+            OP_RIMUOVI_TARIFFA.errore(e);
+            throw e;
+        } finally {
+            OP_RIMUOVI_TARIFFA.registra(inizio);
+        }
+    }
+
+    // Le righe devono riferirsi ad aeroporti e compagnie già presenti in anagrafica
+    @Override
+    public EsitoImportazioneDTO importaOrari(Path file, Consumer<EsitoImportazioneDTO> avanzamento) throws IOException {
+        long inizio = System.nanoTime();
+        try {
+            return new ImportatoreOrari(voloDAO, tariffaDAO, aeroportoDAO, compagniaAereaDAO, this::notifica,
+                    THREAD_IMPORTAZIONE, ImportatoreOrari.DIMENSIONE_BLOCCO).importa(file, avanzamento);
+        } catch (Exception e) {
+            OP_IMPORTA_ORARI.errore(e);
+            throw e;
+        } finally {
+            OP_IMPORTA_ORARI.registra(inizio);
+        }
+    }
+
+    private Tariffa salvaTariffa(DatiTariffaDTO dati) throws EntitaNonTrovataException {
+        Volo volo = voloDAO.findByCodice(dati.getCodiceVolo())
+                .orElseThrow(() -> new EntitaNonTrovataException("Volo non trovato"));
+        Tariffa tariffa = new Tariffa(dati.getCodice(), dati.getCodiceVolo(), dati.getClasse(), dati.getPrezzo());
+        tariffaDAO.salva(tariffa);
+        notifica(volo);
+        return tariffa;
+    }
+
+    private void notifica(Volo volo) {
+        for (OsservatoreVoli o : osservatori) o.voloModificato(volo);
+    }
+
+    static Volo daDati(DatiVoloDTO d) {
+        return new Volo(d.getCodice(), d.getPartenza(), d.getArrivo(),
+                d.getDataOraPartenza(), d.getDataOraArrivo(), d.getPostiDisponibili());
+    }
+
+    static void valida(DatiVoloDTO d) throws DatiNonValidiException {
+        if (d == null) throw new DatiNonValidiException("Dati volo null");
+        if (d.getCodice() == null || d.getCodice().isBlank()) throw new DatiNonValidiException("Codice volo mancante");
+        if (d.getPartenza() == null || d.getArrivo() == null) throw new DatiNonValidiException("Aeroporti null");
+        if (d.getPartenza().equals(d.getArrivo())) throw new DatiNonValidiException("Partenza uguale ad arrivo");
+        if (d.getDataOraPartenza() == null || d.getDataOraArrivo() == null) throw new DatiNonValidiException("Orari null");
+        if (!d.getDataOraArrivo().isAfter(d.getDataOraPartenza())) throw new DatiNonValidiException("Arrivo non successivo alla partenza");
+        if (d.getPostiDisponibili() < 0) throw new DatiNonValidiException("Posti non validi");
+    }
+
+    static void valida(DatiTariffaDTO d) throws DatiNonValidiException {
+        if (d == null) throw new DatiNonValidiException("Dati tariffa null");
+        if (d.getCodice() == null || d.getCodice().isBlank()) throw new DatiNonValidiException("Codice tariffa mancante");
+        if (d.getCodiceVolo() == null) throw new DatiNonValidiException("Volo null");
+        if (d.getClasse() == null || d.getClasse().isBlank()) throw new DatiNonValidiException("Classe mancante");
+        if (d.getPrezzo() == null || d.getPrezzo().compareTo(BigDecimal.ZERO) < 0) throw new DatiNonValidiException("Prezzo non valido");
+    }
 }
@@ -1,4 +1,138 @@
 package it.unisa.thetourist.applicazione.servizi;
 
+import it.unisa.thetourist.applicazione.eccezioni.PagamentoFallitoException;
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.dominio.entita.Pagamento;
+import it.unisa.thetourist.dominio.enumerazioni.EsitoPagamento;
+import it.unisa.thetourist.persistenza.dao.PagamentoDAO;
+import it.unisa.thetourist.persistenza.integrazione.pagamento.PaymentGateway;
+import it.unisa.thetourist.persistenza.integrazione.pagamento.PipelinePagamenti;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
 public class ServizioPagamentiSimulati {
+
+    private static final int CAPACITA_IDEMPOTENZA = 100_000;
+    private static final Duration TTL_IDEMPOTENZA = Duration.ofHours(24);
+
+    private static final Operazione OP_PAGA = RegistroMetriche.globale().operazione("servizio.pagamenti.paga");
+    private static final LongAdder DA_RICONCILIARE = RegistroMetriche.globale().contatore("servizio.pagamenti.daRiconciliare");
+
+    private final PipelinePagamenti pipeline;
+    private final PagamentoDAO pagamentoDAO;
+    private final ArchivioIdempotenza<Pagamento> idempotenza;
+
+    public ServizioPagamentiSimulati(PaymentGateway gateway, PagamentoDAO pagamentoDAO) {
+        this(new PipelinePagamenti(gateway), pagamentoDAO);
+    }
+
+    public ServizioPagamentiSimulati(PipelinePagamenti pipeline, PagamentoDAO pagamentoDAO) {
+        this(pipeline, pagamentoDAO, new ArchivioIdempotenza<>(CAPACITA_IDEMPOTENZA, TTL_IDEMPOTENZA.toNanos(), System::nanoTime));
+    }
+
+    ServizioPagamentiSimulati(PipelinePagamenti pipeline, PagamentoDAO pagamentoDAO, ArchivioIdempotenza<Pagamento> idempotenza) {
+        this.pipeline = pipeline;
+        this.pagamentoDAO = pagamentoDAO;
+        this.idempotenza = idempotenza;
+        RegistroMetriche metriche = RegistroMetriche.globale();
+        metriche.indicatore("servizio.pagamenti.inVolo", pipeline::inVolo);
+        metriche.indicatore("servizio.pagamenti.chiaviIdempotenza", idempotenza::dimensione);
+    }
+
+    // La chiave di idempotenza è il codice della prenotazione: ogni nuovo tentativo di pagarla è lo stesso pagamento
+    public Pagamento paga(String codicePrenotazione, BigDecimal importo) throws PagamentoFallitoException {
+        return paga(codicePrenotazione, codicePrenotazione, importo);
+    }
+
+    // Un nuovo tentativo con la stessa chiave restituisce il pagamento autorizzato senza richiamare il gateway;
+    // se il primo tentativo è ancora in corso lo attende. Dopo un rifiuto si può ritentare; dopo un timeout
+    // o un guasto il gateway viene richiamato con lo stesso riferimento e non addebita due volte
+    public Pagamento paga(String chiaveIdempotenza, String codicePrenotazione, BigDecimal importo) throws PagamentoFallitoException {
+        try {
+            return pagaAsync(chiaveIdempotenza, codicePrenotazione, importo).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PagamentoFallitoException("Pagamento interrotto");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PagamentoFallitoException p) throw p;
+            throw new PagamentoFallitoException("Errore nel pagamento");
+        }
+    }
+
+    public CompletableFuture<Pagamento> pagaAsync(String codicePrenotazione, BigDecimal importo) {
+        return pagaAsync(codicePrenotazione, codicePrenotazione, importo);
+    }
+
+    // Completa eccezionalmente con PagamentoFallitoException se il gateway rifiuta, è lento, saturo o guasto.
+    // La chiave è anche il riferimento passato al gateway, così un ritentativo dopo un timeout resta riconoscibile.
+    public CompletableFuture<Pagamento> pagaAsync(String chiaveIdempotenza, String codicePrenotazione, BigDecimal importo) {
+        long inizio = System.nanoTime();
+        String impronta = codicePrenotazione + "|" + importo.stripTrailingZeros().toPlainString();
+        return idempotenza.esegui(chiaveIdempotenza, impronta, pagamento -> pagamento.getEsito() == EsitoPagamento.RIFIUTATO,
+                        () -> autorizza(chiaveIdempotenza, codicePrenotazione, importo))
+                .handle((pagamento, errore) -> {
+                    if (errore != null) throw new CompletionException(traduci(errore));
+                    if (pagamento.getEsito() != EsitoPagamento.AUTORIZZATO) {
+                        throw new CompletionException(new PagamentoFallitoException("Pagamento rifiutato"));
+                    }
+                    return pagamento;
+                })
+                .whenComplete((pagamento, errore) -> {
+                    if (errore != null) OP_PAGA.errore(errore.getCause() != null ? errore.getCause() : errore);
+                    OP_PAGA.registra(inizio);
+                });
+    }
+
+    // Storna un pagamento autorizzato e libera la sua chiave: la stessa chiave potrà pagare di nuovo.
+    // Se il rimborso non riesce l'addebito resta: viene registrato come da riconciliare e la chiave resta legata
+    public Pagamento rimborsa(String chiaveIdempotenza, String codicePrenotazione, BigDecimal importo)
+            throws PagamentoFallitoException {
+        try {
+            pipeline.rimborsa(chiaveIdempotenza, importo).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            daRiconciliare(codicePrenotazione, importo);
+            throw new PagamentoFallitoException("Rimborso interrotto: addebito da riconciliare");
+        } catch (ExecutionException e) {
+            daRiconciliare(codicePrenotazione, importo);
+            throw new PagamentoFallitoException("Rimborso non riuscito: addebito da riconciliare");
+        }
+        idempotenza.libera(chiaveIdempotenza);
+        Pagamento rimborso = new Pagamento(UUID.randomUUID().toString(), codicePrenotazione, importo,
+                EsitoPagamento.RIMBORSATO, LocalDateTime.now());
+        pagamentoDAO.salva(rimborso);
+        return rimborso;
+    }
+
+    private void daRiconciliare(String codicePrenotazione, BigDecimal importo) {
+        DA_RICONCILIARE.increment();
+        pagamentoDAO.salva(new Pagamento(UUID.randomUUID().toString(), codicePrenotazione, importo,
+                EsitoPagamento.DA_RICONCILIARE, LocalDateTime.now()));
+    }
+
+    private CompletableFuture<Pagamento> autorizza(String riferimento, String codicePrenotazione, BigDecimal importo) {
+        return pipeline.autorizza(riferimento, importo).thenApply(esito -> {
+            Pagamento pagamento = new Pagamento(UUID.randomUUID().toString(), codicePrenotazione, importo, esito, LocalDateTime.now());
+            pagamentoDAO.salva(pagamento);
+            return pagamento;
+        });
+    }
+
+    private static PagamentoFallitoException traduci(Throwable errore) {
+        Throwable causa = errore instanceof CompletionException && errore.getCause() != null ? errore.getCause() : errore;
+        if (causa instanceof ArchivioIdempotenza.ImprontaDiversaException) return new PagamentoFallitoException(causa.getMessage());
+        if (causa instanceof TimeoutException) return new PagamentoFallitoException("Timeout del gateway di pagamento");
+        if (causa instanceof RejectedExecutionException) return new PagamentoFallitoException("Troppi pagamenti in corso");
+        return new PagamentoFallitoException("Gateway di pagamento non disponibile");
+    }
 }
@@ -1,4 +1,537 @@
 package it.unisa.thetourist.applicazione.servizi;
 
-public class ServizioPrenotazioni {
+import it.unisa.thetourist.applicazione.dto.DatiPasseggeriDTO;
+import it.unisa.thetourist.applicazione.dto.DatiTrattaGruppoDTO;
+import it.unisa.thetourist.applicazione.dto.PaginaPrenotazioniDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.EntitaNonTrovataException;
+import it.unisa.thetourist.applicazione.eccezioni.PagamentoFallitoException;
+import it.unisa.thetourist.applicazione.eccezioni.PostiEsauritiException;
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.dominio.entita.Passeggero;
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+import it.unisa.thetourist.dominio.entita.Tariffa;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.dominio.enumerazioni.StatoPrenotazione;
+import it.unisa.thetourist.interfaccia.IPrenotazioni;
+import it.unisa.thetourist.persistenza.dao.PasseggeroDAO;
+import it.unisa.thetourist.persistenza.dao.PrenotazioneDAO;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ServizioPrenotazioni implements IPrenotazioni, AutoCloseable {
+
+    private static final Duration DURATA_BLOCCO = Duration.ofMinutes(15);
+    private static final long MILLIS_PER_TICK = 100;
+    private static final int MAX_POSTI = 9;
+    private static final int MAX_PASSEGGERI_GRUPPO = 1_000;
+    private static final int MAX_PAGINA = 100;
+    // Attesa prima di riprovare la scadenza di una bozza con il pagamento ancora in corso
+    private static final Duration RINVIO_SCADENZA = Duration.ofSeconds(5);
+
+    private static final Operazione OP_AVVIA = RegistroMetriche.globale().operazione("servizio.prenotazioni.avviaPrenotazione");
+    private static final Operazione OP_PASSEGGERO = RegistroMetriche.globale().operazione("servizio.prenotazioni.aggiungiPasseggero");
+    private static final Operazione OP_CONFERMA = RegistroMetriche.globale().operazione("servizio.prenotazioni.confermaPrenotazione");
+    private static final Operazione OP_GRUPPO = RegistroMetriche.globale().operazione("servizio.prenotazioni.prenotaGruppo");
+    private static final Operazione OP_VISUALIZZA = RegistroMetriche.globale().operazione("servizio.prenotazioni.visualizzaPrenotazioni");
+
+    private final TariffaDAO tariffaDAO;
+    private final PrenotazioneDAO prenotazioneDAO;
+    private final PasseggeroDAO passeggeroDAO;
+    private final InventarioPosti inventario;
+    private final ServizioPagamentiSimulati pagamenti;
+    private final RuotaTemporale scadenze;
+    // ruota creata da questo servizio: close() la ferma
+    private final boolean ruotaPropria;
+    // Le scadenze scrivono sul DAO fuori dal thread della ruota, che deve solo far scattare i timer
+    private final Executor esecutoreScadenze;
+    private final Duration durataBlocco;
+    // null: si applica il prezzo base della tariffa
+    private final MotorePrezzi prezzi;
+    private final List<OsservatoreVoli> osservatori = new CopyOnWriteArrayList<>();
+    // Timer di scadenza delle bozze, annullati alla conferma
+    private final Map<String, RuotaTemporale.Timer> blocchi = new ConcurrentHashMap<>();
+    // Bozze con il pagamento in volo: non accettano passeggeri, altre conferme né la scadenza
+    private final Set<String> inPagamento = ConcurrentHashMap.newKeySet();
+    // Gruppi in registrazione: una richiesta ripetuta mentre la prima è in corso viene respinta
+    private final Set<String> gruppiInCorso = ConcurrentHashMap.newKeySet();
+
+    public ServizioPrenotazioni(TariffaDAO tariffaDAO, PrenotazioneDAO prenotazioneDAO, PasseggeroDAO passeggeroDAO,
+                                InventarioPosti inventario, ServizioPagamentiSimulati pagamenti) {
+        this(tariffaDAO, prenotazioneDAO, passeggeroDAO, inventario, pagamenti,
+                new RuotaTemporale(MILLIS_PER_TICK).avvia(), true, DURATA_BLOCCO, null, nuovoEsecutoreScadenze());
+    }
+
+    public ServizioPrenotazioni(TariffaDAO tariffaDAO, PrenotazioneDAO prenotazioneDAO, PasseggeroDAO passeggeroDAO,
+                                InventarioPosti inventario, ServizioPagamentiSimulati pagamenti,
+                                RuotaTemporale scadenze, Duration durataBlocco) {
+        this(tariffaDAO, prenotazioneDAO, passeggeroDAO, inventario, pagamenti, scadenze, durataBlocco, null);
+    }
+
+    public ServizioPrenotazioni(TariffaDAO tariffaDAO, PrenotazioneDAO prenotazioneDAO, PasseggeroDAO passeggeroDAO,
+                                InventarioPosti inventario, ServizioPagamentiSimulati pagamenti,
+                                RuotaTemporale scadenze, Duration durataBlocco, MotorePrezzi prezzi) {
+        this(tariffaDAO, prenotazioneDAO, passeggeroDAO, inventario, pagamenti, scadenze, false, durataBlocco, prezzi,
+                nuovoEsecutoreScadenze());
+    }
+
+    ServizioPrenotazioni(TariffaDAO tariffaDAO, PrenotazioneDAO prenotazioneDAO, PasseggeroDAO passeggeroDAO,
+                         InventarioPosti inventario, ServizioPagamentiSimulati pagamenti,
+                         RuotaTemporale scadenze, Duration durataBlocco, MotorePrezzi prezzi, Executor esecutoreScadenze) {
+        this(tariffaDAO, prenotazioneDAO, passeggeroDAO, inventario, pagamenti, scadenze, false, durataBlocco, prezzi,
+                esecutoreScadenze);
+    }
+
+    private ServizioPrenotazioni(TariffaDAO tariffaDAO, PrenotazioneDAO prenotazioneDAO, PasseggeroDAO passeggeroDAO,
+                                 InventarioPosti inventario, ServizioPagamentiSimulati pagamenti,
+                                 RuotaTemporale scadenze, boolean ruotaPropria, Duration durataBlocco, MotorePrezzi prezzi,
+                                 Executor esecutoreScadenze) {
+        this.tariffaDAO = tariffaDAO;
+        this.prenotazioneDAO = prenotazioneDAO;
+        this.passeggeroDAO = passeggeroDAO;
+        this.inventario = inventario;
+        this.pagamenti = pagamenti;
+        this.scadenze = scadenze;
+        this.ruotaPropria = ruotaPropria;
+        this.durataBlocco = durataBlocco;
+        this.prezzi = prezzi;
+        this.esecutoreScadenze = esecutoreScadenze;
+        if (prezzi != null) registraOsservatore(prezzi);
+        ripristinaBozze();
+    }
+
+    private static ExecutorService nuovoEsecutoreScadenze() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "scadenze-prenotazioni");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void registraOsservatore(OsservatoreVoli osservatore) {
+        osservatori.add(osservatore);
+    }
+
+    @Override
+    public Prenotazione avviaPrenotazione(String idUtente, String codiceVolo, String codiceTariffa, int numeroPosti)
+            throws EntitaNonTrovataException, PostiEsauritiException, DatiNonValidiException {
+        long inizio = System.nanoTime();
+        try {
+            if (idUtente == null || idUtente.isBlank()) throw new DatiNonValidiException("Utente mancante");
+            if (numeroPosti <= 0 || numeroPosti > MAX_POSTI) throw new DatiNonValidiException("Numero posti non valido");
+            tariffaDelVolo(codiceTariffa, codiceVolo);
+
+            // La bozza blocca subito i posti: vengono restituiti alla scadenza se non si conferma in tempo
+            Volo volo = inventario.riserva(codiceVolo, numeroPosti);
+            LocalDateTime adesso = LocalDateTime.now();
+            Prenotazione p = new Prenotazione(UUID.randomUUID().toString(), idUtente, codiceVolo, codiceTariffa, adesso);
+            p.setPostiRiservati(numeroPosti);
+            p.setScadenzaBlocco(adesso.plus(durataBlocco));
+            p.setDataPartenza(volo.getDataOraPartenza());
+            try {
+                prenotazioneDAO.salva(p);
+            } catch (RuntimeException e) {
+                // la bozza non esiste: i posti già bloccati (e salvati) tornano subito disponibili
+                try {
+                    inventario.rilascia(codiceVolo, numeroPosti);
+                } catch (EntitaNonTrovataException rimosso) {
+                    e.addSuppressed(rimosso);
+                }
+                throw e;
+            }
+            pianificaScadenza(p, durataBlocco.toMillis());
+            notifica(volo);
+            return p;
+        } catch (Exception e) {
+            OP_AVVIA.errore(e);
+            throw e;
+        } finally {
+            OP_AVVIA.registra(inizio);
+        }
+    }
+
+    @Override
+    public void aggiungiPasseggero(String codicePrenotazione, DatiPasseggeriDTO dati)
+            throws EntitaNonTrovataException, DatiNonValidiException {
+        long inizio = System.nanoTime();
+        try {
+            validaPasseggero(dati);
+            Prenotazione p = bozza(codicePrenotazione);
+            Passeggero passeggero = new Passeggero(codicePrenotazione, dati.getNome(), dati.getCognome(), dati.getDocumento());
+            synchronized (p) {
+                if (p.getStato() != StatoPrenotazione.BOZZA) throw new DatiNonValidiException("Prenotazione non modificabile");
+                if (inPagamento.contains(p.getCodice())) throw new DatiNonValidiException("Pagamento in corso");
+                if (p.getImporto() != null) throw new DatiNonValidiException("Importo già fissato da un tentativo di pagamento");
+                if (p.getPasseggeri().size() >= p.getPostiRiservati()) throw new DatiNonValidiException("Posti riservati esauriti");
+                // sotto il monitor: il DAO numera i passeggeri nell'ordine della lista
+                passeggeroDAO.salva(passeggero);
+                p.getPasseggeri().add(passeggero);
+            }
+        } catch (Exception e) {
+            OP_PASSEGGERO.errore(e);
+            throw e;
+        } finally {
+            OP_PASSEGGERO.registra(inizio);
+        }
+    }
+
+    @Override
+    public Prenotazione confermaPrenotazione(String codicePrenotazione)
+            throws EntitaNonTrovataException, DatiNonValidiException, PagamentoFallitoException {
+        try {
+            return confermaPrenotazioneAsync(codicePrenotazione).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof EntitaNonTrovataException n) throw n;
+            if (e.getCause() instanceof DatiNonValidiException d) throw d;
+            if (e.getCause() instanceof PagamentoFallitoException f) throw f;
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            throw e;
+        }
+    }
+
+    // Il monitor della prenotazione copre i controlli e l'esito, non la chiamata al gateway.
+    // Il future fallisce con EntitaNonTrovataException, DatiNonValidiException o PagamentoFallitoException;
+    // se il pagamento fallisce i posti restano bloccati fino alla scadenza, per un nuovo tentativo allo stesso importo
+    public CompletableFuture<Prenotazione> confermaPrenotazioneAsync(String codicePrenotazione) {
+        long inizio = System.nanoTime();
+        CompletableFuture<Prenotazione> esito;
+        try {
+            esito = paga(bozza(codicePrenotazione));
+        } catch (EntitaNonTrovataException | DatiNonValidiException | RuntimeException e) {
+            esito = CompletableFuture.failedFuture(e);
+        }
+        return esito.whenComplete((p, errore) -> {
+            if (errore != null) OP_CONFERMA.errore(errore instanceof CompletionException && errore.getCause() != null ? errore.getCause() : errore);
+            OP_CONFERMA.registra(inizio);
+        });
+    }
+
+    private CompletableFuture<Prenotazione> paga(Prenotazione p) throws EntitaNonTrovataException, DatiNonValidiException {
+        BigDecimal importo;
+        synchronized (p) {
+            if (p.getStato() != StatoPrenotazione.BOZZA) throw new DatiNonValidiException("Prenotazione non confermabile");
+            // il timer può non essere ancora scattato: fa fede la scadenza registrata sulla bozza
+            if (p.getScadenzaBlocco() != null && !LocalDateTime.now().isBefore(p.getScadenzaBlocco())) {
+                throw new DatiNonValidiException("Blocco dei posti scaduto");
+            }
+            int posti = p.getPasseggeri().size();
+            if (posti == 0) throw new DatiNonValidiException("Nessun passeggero");
+            if (inPagamento.contains(p.getCodice())) throw new DatiNonValidiException("Pagamento in corso");
+            // l'importo si fissa al primo tentativo: un addebito rimasto incerto si ritenta con la stessa impronta,
+            // anche se nel frattempo il prezzo dinamico è cambiato
+            if (p.getImporto() == null) {
+                Tariffa tariffa = tariffaDelVolo(p.getCodiceTariffa(), p.getCodiceVolo());
+                p.setImporto(prezzoDiVendita(tariffa).multiply(BigDecimal.valueOf(posti)));
+            }
+            importo = p.getImporto();
+            inPagamento.add(p.getCodice());
+        }
+        return pagamenti.pagaAsync(p.getCodice(), importo).handle((pagamento, errore) -> {
+            if (errore == null) return conferma(p, importo);
+            inPagamento.remove(p.getCodice());
+            throw errore instanceof CompletionException c ? c : new CompletionException(errore);
+        });
+    }
+
+    private Prenotazione conferma(Prenotazione p, BigDecimal importo) {
+        synchronized (p) {
+            inPagamento.remove(p.getCodice());
+            int posti = p.getPasseggeri().size();
+            p.setImporto(importo);
+            p.setStato(StatoPrenotazione.CONFERMATA);
+            prenotazioneDAO.salva(p);
+            int nonUsati = p.getPostiRiservati() - posti;
+            p.setPostiRiservati(posti);
+            RuotaTemporale.Timer blocco = blocchi.remove(p.getCodice());
+            if (blocco != null) blocco.annulla();
+            if (nonUsati > 0) {
+                try {
+                    notifica(inventario.rilascia(p.getCodiceVolo(), nonUsati));
+                } catch (EntitaNonTrovataException e) {
+                    // volo rimosso dal catalogo: nessun posto da restituire
+                }
+            }
+            return p;
+        }
+    }
+
+    // Tutto o niente: posti su tutti i voli, un solo pagamento aggregato e una sola scrittura a lotti.
+    // Se un volo non ha posti, il pagamento fallisce o la scrittura non riesce, i posti già bloccati vengono
+    // restituiti e l'eventuale addebito stornato. I codici delle prenotazioni derivano dal codice del gruppo,
+    // così una richiesta ripetuta trova il gruppo già registrato e lo restituisce così com'è.
+    @Override
+    public List<Prenotazione> prenotaGruppo(String idUtente, String codiceGruppo, List<DatiTrattaGruppoDTO> tratte)
+            throws EntitaNonTrovataException, DatiNonValidiException, PostiEsauritiException, PagamentoFallitoException {
+        long inizio = System.nanoTime();
+        try {
+            if (idUtente == null || idUtente.isBlank()) throw new DatiNonValidiException("Utente mancante");
+            if (codiceGruppo == null || codiceGruppo.isBlank()) throw new DatiNonValidiException("Codice gruppo mancante");
+            if (tratte == null || tratte.isEmpty()) throw new DatiNonValidiException("Nessuna tratta");
+            if (!gruppiInCorso.add(codiceGruppo)) throw new DatiNonValidiException("Prenotazione di gruppo già in corso");
+            try {
+                List<Prenotazione> registrato = gruppoRegistrato(idUtente, codiceGruppo, tratte.size());
+                if (registrato != null) return registrato;
+                return registraGruppo(idUtente, codiceGruppo, tratte);
+            } finally {
+                gruppiInCorso.remove(codiceGruppo);
+            }
+        } catch (Exception e) {
+            OP_GRUPPO.errore(e);
+            throw e;
+        } finally {
+            OP_GRUPPO.registra(inizio);
+        }
+    }
+
+    private List<Prenotazione> gruppoRegistrato(String idUtente, String codiceGruppo, int tratte) throws DatiNonValidiException {
+        Prenotazione prima = prenotazioneDAO.findByCodice(codiceGruppo + "-1").orElse(null);
+        // mai registrato, o annullato da una compensazione: si riprova da capo
+        if (prima == null || prima.getStato() == StatoPrenotazione.ANNULLATA) return null;
+        List<Prenotazione> gruppo = new ArrayList<>();
+        for (int i = 1; i <= tratte; i++) {
+            Prenotazione p = prenotazioneDAO.findByCodice(codiceGruppo + "-" + i).orElse(null);
+            if (p == null || !p.getIdUtente().equals(idUtente)) throw new DatiNonValidiException("Codice gruppo già usato");
+            gruppo.add(p);
+        }
+        if (prenotazioneDAO.findByCodice(codiceGruppo + "-" + (tratte + 1)).isPresent()) {
+            throw new DatiNonValidiException("Codice gruppo già usato");
+        }
+        return gruppo;
+    }
+
+    private List<Prenotazione> registraGruppo(String idUtente, String codiceGruppo, List<DatiTrattaGruppoDTO> tratte)
+            throws EntitaNonTrovataException, DatiNonValidiException, PostiEsauritiException, PagamentoFallitoException {
+        LocalDateTime adesso = LocalDateTime.now();
+        List<Prenotazione> prenotazioni = new ArrayList<>();
+        List<Passeggero> passeggeri = new ArrayList<>();
+        List<Tariffa> tariffe = new ArrayList<>();
+        Map<String, Integer> postiPerVolo = new TreeMap<>();
+
+        for (DatiTrattaGruppoDTO t : tratte) {
+            if (t == null || t.getPasseggeri() == null || t.getPasseggeri().isEmpty()) throw new DatiNonValidiException("Tratta senza passeggeri");
+            Tariffa tariffa = tariffaDelVolo(t.getCodiceTariffa(), t.getCodiceVolo());
+            String codice = codiceGruppo + "-" + (prenotazioni.size() + 1);
+            Prenotazione p = new Prenotazione(codice, idUtente, t.getCodiceVolo(), t.getCodiceTariffa(), adesso);
+            p.setCodiceGruppo(codiceGruppo);
+            for (DatiPasseggeriDTO d : t.getPasseggeri()) {
+                validaPasseggero(d);
+                Passeggero passeggero = new Passeggero(p.getCodice(), d.getNome(), d.getCognome(), d.getDocumento());
+                p.getPasseggeri().add(passeggero);
+                passeggeri.add(passeggero);
+            }
+            int posti = t.getPasseggeri().size();
+            p.setPostiRiservati(posti);
+            p.setStato(StatoPrenotazione.CONFERMATA);
+            tariffe.add(tariffa);
+            postiPerVolo.merge(t.getCodiceVolo(), posti, Integer::sum);
+            prenotazioni.add(p);
+        }
+        if (passeggeri.size() > MAX_PASSEGGERI_GRUPPO) throw new DatiNonValidiException("Troppi passeggeri");
+
+        List<Volo> bloccati = new ArrayList<>();
+        BigDecimal totale = BigDecimal.ZERO;
+        boolean pagato = false;
+        boolean salvate = false;
+        try {
+            for (Map.Entry<String, Integer> e : postiPerVolo.entrySet()) bloccati.add(inventario.riserva(e.getKey(), e.getValue()));
+            Map<String, LocalDateTime> partenze = new HashMap<>();
+            for (Volo v : bloccati) partenze.put(v.getCodice(), v.getDataOraPartenza());
+            // come per la singola prenotazione, il prezzo di vendita si calcola a posti già bloccati
+            for (int i = 0; i < prenotazioni.size(); i++) {
+                Prenotazione p = prenotazioni.get(i);
+                p.setDataPartenza(partenze.get(p.getCodiceVolo()));
+                p.setImporto(prezzoDiVendita(tariffe.get(i)).multiply(BigDecimal.valueOf(p.getPostiRiservati())));
+                totale = totale.add(p.getImporto());
+            }
+            pagamenti.paga(codiceGruppo, codiceGruppo, totale);
+            pagato = true;
+            prenotazioneDAO.salvaTutti(prenotazioni);
+            salvate = true;
+            passeggeroDAO.salvaTutti(passeggeri);
+            return prenotazioni;
+        } catch (PostiEsauritiException | PagamentoFallitoException | EntitaNonTrovataException | RuntimeException e) {
+            if (salvate) annulla(prenotazioni, e);
+            if (pagato) storna(codiceGruppo, totale, e);
+            for (Volo v : bloccati) inventario.rilascia(v.getCodice(), postiPerVolo.get(v.getCodice()));
+            throw e;
+        } finally {
+            for (Volo v : bloccati) notifica(v);
+        }
+    }
+
+    // Compensazioni del gruppo: un loro errore resta allegato a quello che le ha rese necessarie.
+    // Un rimborso non riuscito è anche registrato dal servizio pagamenti come addebito da riconciliare
+    private void annulla(List<Prenotazione> prenotazioni, Exception causa) {
+        try {
+            for (Prenotazione p : prenotazioni) p.setStato(StatoPrenotazione.ANNULLATA);
+            prenotazioneDAO.salvaTutti(prenotazioni);
+        } catch (RuntimeException e) {
+            causa.addSuppressed(e);
+        }
+    }
+
+    private void storna(String codiceGruppo, BigDecimal totale, Exception causa) {
+        try {
+            pagamenti.rimborsa(codiceGruppo, codiceGruppo, totale);
+        } catch (PagamentoFallitoException | RuntimeException e) {
+            causa.addSuppressed(e);
+        }
+    }
+
+    // Paginazione a cursore: il cursore è la chiave (partenza, codice) dell'ultima prenotazione restituita,
+    // quindi ogni pagina riparte da lì nell'indice dell'utente senza scorrere quelle precedenti
+    @Override
+    public PaginaPrenotazioniDTO visualizzaPrenotazioni(String idUtente, Set<StatoPrenotazione> stati, String cursore,
+                                                        int dimensione) throws DatiNonValidiException {
+        long inizio = System.nanoTime();
+        try {
+            if (idUtente == null || idUtente.isBlank()) throw new DatiNonValidiException("Utente mancante");
+            if (dimensione <= 0 || dimensione > MAX_PAGINA) throw new DatiNonValidiException("Dimensione pagina non valida");
+            Set<StatoPrenotazione> filtro = stati == null || stati.isEmpty()
+                    ? EnumSet.allOf(StatoPrenotazione.class) : EnumSet.copyOf(stati);
+
+            LocalDateTime dopoPartenza = null;
+            String dopoCodice = null;
+            if (cursore != null) {
+                int separatore = cursore.indexOf('|');
+                if (separatore < 0 || separatore == cursore.length() - 1) throw new DatiNonValidiException("Cursore non valido");
+                try {
+                    if (separatore > 0) dopoPartenza = LocalDateTime.parse(cursore.substring(0, separatore));
+                } catch (DateTimeParseException e) {
+                    throw new DatiNonValidiException("Cursore non valido");
+                }
+                dopoCodice = cursore.substring(separatore + 1);
+            }
+
+            // un elemento in più dice se esiste la pagina successiva
+            List<Prenotazione> trovate = prenotazioneDAO.findByUtente(idUtente, filtro, dopoPartenza, dopoCodice, dimensione + 1);
+            if (trovate.size() <= dimensione) return new PaginaPrenotazioniDTO(trovate, null);
+            List<Prenotazione> pagina = trovate.subList(0, dimensione);
+            Prenotazione ultima = pagina.get(dimensione - 1);
+            String successivo = (ultima.getDataPartenza() == null ? "" : ultima.getDataPartenza().toString()) + "|" + ultima.getCodice();
+            return new PaginaPrenotazioniDTO(pagina, successivo);
+        } catch (Exception e) {
+            OP_VISUALIZZA.errore(e);
+            throw e;
+        } finally {
+            OP_VISUALIZZA.registra(inizio);
+        }
+    }
+
+    // Una ruota ricevuta dal chiamante resta a lui da fermare
+    @Override
+    public void close() {
+        if (ruotaPropria) scadenze.close();
+        if (esecutoreScadenze instanceof ExecutorService esecutore) esecutore.shutdown();
+    }
+
+    // Le bozze rigiocate all'avvio non hanno timer: quelle ancora nel tempo lo riprendono per il tempo residuo,
+    // le altre scadono subito. Se i posti dei voli sono persistenti i blocchi ci sono ancora e le scadute li
+    // restituiscono; altrimenti il catalogo riparte senza blocchi: le bozze vive li riprendono (o scadono se
+    // non ci sono più posti) e le scadute non hanno niente da restituire.
+    private void ripristinaBozze() {
+        boolean bloccate = inventario.postiPersistenti();
+        LocalDateTime adesso = LocalDateTime.now();
+        List<Prenotazione> scadute = new ArrayList<>();
+        for (Prenotazione p : prenotazioneDAO.findByStato(StatoPrenotazione.BOZZA)) {
+            long residuo = p.getScadenzaBlocco() == null ? 0 : Duration.between(adesso, p.getScadenzaBlocco()).toMillis();
+            if (residuo > 0 && (bloccate || riprendiBlocco(p))) {
+                pianificaScadenza(p, residuo);
+            } else {
+                p.setStato(StatoPrenotazione.SCADUTA);
+                scadute.add(p);
+            }
+        }
+        if (scadute.isEmpty()) return;
+        prenotazioneDAO.salvaTutti(scadute);
+        if (bloccate) for (Prenotazione p : scadute) restituisci(p);
+    }
+
+    private boolean riprendiBlocco(Prenotazione p) {
+        try {
+            notifica(inventario.riserva(p.getCodiceVolo(), p.getPostiRiservati()));
+            return true;
+        } catch (PostiEsauritiException | EntitaNonTrovataException e) {
+            return false;
+        }
+    }
+
+    private void pianificaScadenza(Prenotazione p, long ritardoMillis) {
+        blocchi.put(p.getCodice(), scadenze.pianifica(() -> esecutoreScadenze.execute(() -> scadi(p)), ritardoMillis));
+    }
+
+    // Il monitor copre solo il cambio di stato: dopo, una conferma concorrente trova la bozza già scaduta
+    private void scadi(Prenotazione p) {
+        blocchi.remove(p.getCodice());
+        synchronized (p) {
+            if (p.getStato() != StatoPrenotazione.BOZZA) return;
+            if (inPagamento.contains(p.getCodice())) {
+                // l'esito del pagamento decide: se fallisce la bozza scadrà al prossimo tentativo
+                pianificaScadenza(p, RINVIO_SCADENZA.toMillis());
+                return;
+            }
+            p.setStato(StatoPrenotazione.SCADUTA);
+        }
+        prenotazioneDAO.salva(p);
+        restituisci(p);
+    }
+
+    private void restituisci(Prenotazione p) {
+        Volo volo;
+        try {
+            volo = inventario.rilascia(p.getCodiceVolo(), p.getPostiRiservati());
+        } catch (EntitaNonTrovataException e) {
+            return; // volo rimosso dal catalogo: nessun posto da restituire
+        }
+        notifica(volo);
+    }
+
+    private Prenotazione bozza(String codicePrenotazione) throws EntitaNonTrovataException {
+        return prenotazioneDAO.findByCodice(codicePrenotazione)
+                .orElseThrow(() -> new EntitaNonTrovataException("Prenotazione non trovata"));
+    }
+
+    private BigDecimal prezzoDiVendita(Tariffa tariffa) throws EntitaNonTrovataException {
+        if (prezzi == null) return tariffa.getPrezzo();
+        return prezzi.prezzo(tariffa).orElseThrow(() -> new EntitaNonTrovataException("Prezzo non disponibile"));
+    }
+
+    private Tariffa tariffaDelVolo(String codiceTariffa, String codiceVolo) throws EntitaNonTrovataException {
+        Tariffa t = tariffaDAO.findByCodice(codiceTariffa)
+                .orElseThrow(() -> new EntitaNonTrovataException("Tariffa non trovata"));
+        if (!t.getCodiceVolo().equals(codiceVolo)) throw new EntitaNonTrovataException("Tariffa non trovata");
+        return t;
+    }
+
+    private void notifica(Volo volo) {
+        for (OsservatoreVoli o : osservatori) o.voloModificato(volo);
+    }
+
+    private void validaPasseggero(DatiPasseggeriDTO d) throws DatiNonValidiException {
+        if (d == null) throw new DatiNonValidiException("Passeggero nullo");
+        if (d.getNome() == null || d.getNome().isBlank()) throw new DatiNonValidiException("Nome mancante");
+        if (d.getCognome() == null || d.getCognome().isBlank()) throw new DatiNonValidiException("Cognome mancante");
+        if (d.getDocumento() == null || d.getDocumento().isBlank() || d.getDocumento().length() < 3)
+            throw new DatiNonValidiException("Documento non valido");
+    }
 }
@@ -1,24 +1,257 @@
 package it.unisa.thetourist.applicazione.servizi;
 
 import it.unisa.thetourist.applicazione.dto.CriteriRicercaDTO;
+import it.unisa.thetourist.applicazione.dto.ItinerarioDTO;
 import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.dominio.entita.Aeroporto;
 import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.dominio.enumerazioni.CriterioOrdinamento;
+import it.unisa.thetourist.interfaccia.IRicercaVoli;
+import it.unisa.thetourist.persistenza.dao.AeroportoDAO;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
 import it.unisa.thetourist.persistenza.dao.VoloDAO;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class ServizioRicercaVoli {
+public class ServizioRicercaVoli implements IRicercaVoli, OsservatoreVoli {
+
+    private static final int CAPACITA_CACHE = 10_000;
+    private static final Duration TTL_CACHE = Duration.ofSeconds(30);
+    private static final int MAX_FLESSIBILITA_GIORNI = 15;
+    private static final int MAX_SCALI = 2;
+    private static final int MAX_ITINERARI = 50;
+
+    private static final Operazione OP_CERCA_VOLI = RegistroMetriche.globale().operazione("servizio.ricercaVoli.cercaVoli");
+    private static final Operazione OP_CERCA_VOLI_PREZZI = RegistroMetriche.globale().operazione("servizio.ricercaVoli.cercaVoliConPrezzi");
+    private static final Operazione OP_CERCA_FLESSIBILI = RegistroMetriche.globale().operazione("servizio.ricercaVoli.cercaVoliFlessibili");
+    private static final Operazione OP_CERCA_ITINERARI = RegistroMetriche.globale().operazione("servizio.ricercaVoli.cercaItinerari");
+    private static final Operazione OP_CALENDARIO = RegistroMetriche.globale().operazione("servizio.ricercaVoli.cercaCalendarioTariffe");
+    private static final Operazione OP_SUGGERISCI = RegistroMetriche.globale().operazione("servizio.ricercaVoli.suggerisciAeroporti");
 
     private final VoloDAO voloDAO;
+    private final CacheRicerche cache;
+    private final MotoreItinerari motoreItinerari;
+    private final CalendarioTariffe calendario;
+    private final IndiceAeroporti aeroporti;
+    // Motore prezzi condiviso con gli itinerari: riceve da qui gli eventi del catalogo
+    private final MotorePrezzi prezzi;
+    // Ricerche in corso verso il DAO: chiamanti concorrenti con criteri uguali condividono la stessa.
+    // La chiave ha solo i campi usati dalla ricerca, come quella della cache: la flessibilità non conta
+    private record Chiave(String partenza, String arrivo, LocalDate data, int passeggeri) { }
+
+    private final Map<Chiave, CompletableFuture<List<Volo>>> inCorso = new ConcurrentHashMap<>();
+
+    // Itinerari e calendario condividono lo stesso motore prezzi, costruito sulle tariffe reali
+    public ServizioRicercaVoli(VoloDAO voloDAO, AeroportoDAO aeroportoDAO, TariffaDAO tariffaDAO) {
+        this(voloDAO, aeroportoDAO, new MotorePrezzi(voloDAO, tariffaDAO));
+    }
+
+    private ServizioRicercaVoli(VoloDAO voloDAO, AeroportoDAO aeroportoDAO, MotorePrezzi prezzi) {
+        this(voloDAO, new MotoreItinerari(aeroportoDAO, voloDAO, prezzi), new CalendarioTariffe(voloDAO, prezzi),
+                new IndiceAeroporti(aeroportoDAO, voloDAO));
+    }
+
+    public ServizioRicercaVoli(VoloDAO voloDAO, MotoreItinerari motoreItinerari, CalendarioTariffe calendario,
+                               IndiceAeroporti aeroporti) {
+        this(voloDAO, motoreItinerari, new CacheRicerche(CAPACITA_CACHE, TTL_CACHE.toNanos(), System::nanoTime),
+                calendario, aeroporti);
+    }
+
+    public ServizioRicercaVoli(VoloDAO voloDAO, MotoreItinerari motoreItinerari, CalendarioTariffe calendario,
+                               IndiceAeroporti aeroporti, int capacitaCache, Duration ttlCache) {
+        this(voloDAO, motoreItinerari, new CacheRicerche(capacitaCache, ttlCache.toNanos(), System::nanoTime),
+                calendario, aeroporti);
+    }
 
-    public ServizioRicercaVoli(VoloDAO voloDAO) {
+    ServizioRicercaVoli(VoloDAO voloDAO, MotoreItinerari motoreItinerari, CacheRicerche cache, CalendarioTariffe calendario,
+                        IndiceAeroporti aeroporti) {
         this.voloDAO = voloDAO;
+        this.motoreItinerari = motoreItinerari;
+        this.cache = cache;
+        this.calendario = calendario;
+        this.aeroporti = aeroporti;
+        this.prezzi = motoreItinerari == null ? null : motoreItinerari.prezzi();
+        RegistroMetriche metriche = RegistroMetriche.globale();
+        metriche.indicatore("servizio.ricercaVoli.cache.dimensione", () -> cache.statistiche().dimensione());
+        metriche.indicatore("servizio.ricercaVoli.cache.hit", () -> cache.statistiche().hit());
+        metriche.indicatore("servizio.ricercaVoli.cache.miss", () -> cache.statistiche().miss());
+        metriche.indicatore("servizio.ricercaVoli.cache.evizioni", () -> cache.statistiche().evizioni());
+        metriche.indicatore("servizio.ricercaVoli.ricercheInCorso", inCorso::size);
     }
 
+    @Override
     public List<Volo> cercaVoli(CriteriRicercaDTO criteri) throws DatiNonValidiException {
-        valida(criteri);
-        return voloDAO.findByCriteria(criteri);
+        long inizio = System.nanoTime();
+        try {
+            valida(criteri);
+            List<Volo> voli = cache.leggi(criteri);
+            if (voli != null) return voli;
+            return caricaCondiviso(new CriteriRicercaDTO(criteri));
+        } catch (Exception e) {
+            OP_CERCA_VOLI.errore(e);
+            throw e;
+        } finally {
+            OP_CERCA_VOLI.registra(inizio);
+        }
+    }
+
+    // La lista dei voli viene dalla cache, il prezzo dal listino precalcolato del volo al momento della lettura:
+    // la cache non trattiene prezzi vecchi e il costo per risultato è una lettura del listino
+    @Override
+    public List<ItinerarioDTO> cercaVoliConPrezzi(CriteriRicercaDTO criteri) throws DatiNonValidiException {
+        long inizio = System.nanoTime();
+        try {
+            List<Volo> voli = cercaVoli(criteri);
+            List<ItinerarioDTO> risultato = new ArrayList<>(voli.size());
+            for (Volo v : voli) risultato.add(new ItinerarioDTO(List.of(v), prezzi.prezzoMinimo(v)));
+            return risultato;
+        } catch (Exception e) {
+            OP_CERCA_VOLI_PREZZI.errore(e);
+            throw e;
+        } finally {
+            OP_CERCA_VOLI_PREZZI.registra(inizio);
+        }
+    }
+
+    @Override
+    public SortedMap<LocalDate, List<Volo>> cercaVoliFlessibili(CriteriRicercaDTO criteri) throws DatiNonValidiException {
+        long inizio = System.nanoTime();
+        try {
+            valida(criteri);
+            int n = criteri.getFlessibilitaGiorni();
+            if (n < 0 || n > MAX_FLESSIBILITA_GIORNI) throw new DatiNonValidiException("Flessibilità non valida");
+
+            LocalDate oggi = LocalDate.now();
+            LocalDate da = criteri.getDataPartenza().minusDays(n);
+            if (da.isBefore(oggi)) da = oggi;
+            return voloDAO.findByIntervallo(criteri.getPartenza(), criteri.getArrivo(),
+                    da, criteri.getDataPartenza().plusDays(n), criteri.getNumeroPasseggeri());
+        } catch (Exception e) {
+            OP_CERCA_FLESSIBILI.errore(e);
+            throw e;
+        } finally {
+            OP_CERCA_FLESSIBILI.registra(inizio);
+        }
+    }
+
+    @Override
+    public List<ItinerarioDTO> cercaItinerari(CriteriRicercaDTO criteri, int maxScali, CriterioOrdinamento ordinamento, int k)
+            throws DatiNonValidiException {
+        long inizio = System.nanoTime();
+        try {
+            valida(criteri);
+            if (maxScali < 0 || maxScali > MAX_SCALI) throw new DatiNonValidiException("Numero di scali non valido");
+            if (k <= 0 || k > MAX_ITINERARI) throw new DatiNonValidiException("Numero di risultati non valido");
+            if (ordinamento == null) throw new DatiNonValidiException("Ordinamento null");
+            return motoreItinerari.cerca(criteri, maxScali, ordinamento, k);
+        } catch (Exception e) {
+            OP_CERCA_ITINERARI.errore(e);
+            throw e;
+        } finally {
+            OP_CERCA_ITINERARI.registra(inizio);
+        }
+    }
+
+    // Un'unica lettura del calendario mantenuto per tratta; i giorni senza voli prenotabili non compaiono
+    @Override
+    public SortedMap<LocalDate, BigDecimal> cercaCalendarioTariffe(String partenza, String arrivo, YearMonth mese)
+            throws DatiNonValidiException {
+        long inizio = System.nanoTime();
+        try {
+            if (partenza == null || arrivo == null) throw new DatiNonValidiException("Aeroporti null");
+            if (partenza.equals(arrivo)) throw new DatiNonValidiException("Partenza uguale ad arrivo");
+            if (mese == null) throw new DatiNonValidiException("Mese null");
+            LocalDate oggi = LocalDate.now();
+            if (mese.isBefore(YearMonth.from(oggi))) throw new DatiNonValidiException("Mese nel passato");
+
+            LocalDate da = mese.atDay(1);
+            if (da.isBefore(oggi)) da = oggi;
+            return calendario.minimi(partenza, arrivo, da, mese.atEndOfMonth());
+        } catch (Exception e) {
+            OP_CALENDARIO.errore(e);
+            throw e;
+        } finally {
+            OP_CALENDARIO.registra(inizio);
+        }
+    }
+
+    // Servita dal trie già costruito; i cambi di catalogo arrivano con la ricostruzione successiva
+    @Override
+    public List<Aeroporto> suggerisciAeroporti(String prefisso, int k) throws DatiNonValidiException {
+        long inizio = System.nanoTime();
+        try {
+            if (prefisso == null || prefisso.isBlank()) throw new DatiNonValidiException("Prefisso mancante");
+            if (k <= 0 || k > IndiceAeroporti.MAX_RISULTATI) throw new DatiNonValidiException("Numero di risultati non valido");
+            Aeroporto[] trovati = new Aeroporto[k];
+            int n = aeroporti.cerca(prefisso, trovati);
+            return List.of(n == k ? trovati : Arrays.copyOf(trovati, n));
+        } catch (Exception e) {
+            OP_SUGGERISCI.errore(e);
+            throw e;
+        } finally {
+            OP_SUGGERISCI.registra(inizio);
+        }
+    }
+
+    @Override
+    public void voloModificato(Volo volo) {
+        cache.invalida(volo.getPartenza(), volo.getArrivo(), volo.getDataOraPartenza().toLocalDate());
+        calendario.voloModificato(volo);
+        if (prezzi != null) prezzi.voloModificato(volo);
+    }
+
+    public StatisticheCache getStatisticheCache() {
+        return cache.statistiche();
+    }
+
+    private List<Volo> caricaCondiviso(CriteriRicercaDTO criteri) {
+        Chiave chiave = new Chiave(criteri.getPartenza(), criteri.getArrivo(), criteri.getDataPartenza(),
+                criteri.getNumeroPasseggeri());
+        CompletableFuture<List<Volo>> mio = new CompletableFuture<>();
+        CompletableFuture<List<Volo>> esistente = inCorso.putIfAbsent(chiave, mio);
+        if (esistente != null) return attendi(esistente);
+
+        try {
+            // chi ci ha preceduto può aver già scritto in cache prima di liberare la chiave
+            List<Volo> voli = cache.rileggi(criteri);
+            if (voli != null) {
+                mio.complete(voli);
+                return voli;
+            }
+            long versione = cache.versione(criteri);
+            voli = List.copyOf(voloDAO.findByCriteria(criteri));
+            cache.scrivi(criteri, voli, versione);
+            mio.complete(voli);
+            return voli;
+        } catch (RuntimeException | Error e) {
+            mio.completeExceptionally(e);
+            throw e;
+        } finally {
+            inCorso.remove(chiave, mio);
+        }
+    }
+
+    private static List<Volo> attendi(CompletableFuture<List<Volo>> ricerca) {
+        try {
+            return ricerca.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
     }
 
     private void valida(CriteriRicercaDTO c) throws DatiNonValidiException {
@@ -0,0 +1,3 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+public record StatisticheCache(long hit, long miss, long evizioni, int dimensione) { }
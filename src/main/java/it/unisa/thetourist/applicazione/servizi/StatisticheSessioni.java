@@ -0,0 +1,3 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+public record StatisticheSessioni(int attive, long byteStimati, long create, long scadute) { }
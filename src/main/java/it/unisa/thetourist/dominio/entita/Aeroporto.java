@@ -1,4 +1,30 @@
 package it.unisa.thetourist.dominio.entita;
 
 public class Aeroporto {
+    private String codice;
+    private String nome;
+    private String citta;
+    // Tempo minimo di coincidenza (MCT); 0 = valore predefinito del motore di ricerca
+    private int minutiCoincidenza;
+
+    public Aeroporto() { }
+
+    public Aeroporto(String codice, String nome, String citta, int minutiCoincidenza) {
+        this.codice = codice;
+        this.nome = nome;
+        this.citta = citta;
+        this.minutiCoincidenza = minutiCoincidenza;
+    }
+
+    public String getCodice() { return codice; }
+    public void setCodice(String codice) { this.codice = codice; }
+
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
+
+    public String getCitta() { return citta; }
+    public void setCitta(String citta) { this.citta = citta; }
+
+    public int getMinutiCoincidenza() { return minutiCoincidenza; }
+    public void setMinutiCoincidenza(int minutiCoincidenza) { this.minutiCoincidenza = minutiCoincidenza; }
 }
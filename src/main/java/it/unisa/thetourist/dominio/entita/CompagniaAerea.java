@@ -1,4 +1,19 @@
 package it.unisa.thetourist.dominio.entita;
 
 public class CompagniaAerea {
+    private String codice;
+    private String nome;
+
+    public CompagniaAerea() { }
+
+    public CompagniaAerea(String codice, String nome) {
+        this.codice = codice;
+        this.nome = nome;
+    }
+
+    public String getCodice() { return codice; }
+    public void setCodice(String codice) { this.codice = codice; }
+
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
 }
@@ -1,4 +1,39 @@
 package it.unisa.thetourist.dominio.entita;
 
+import it.unisa.thetourist.dominio.enumerazioni.EsitoPagamento;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
 public class Pagamento {
+    private String codice;
+    private String codicePrenotazione;
+    private BigDecimal importo;
+    private EsitoPagamento esito;
+    private LocalDateTime dataOra;
+
+    public Pagamento() { }
+
+    public Pagamento(String codice, String codicePrenotazione, BigDecimal importo, EsitoPagamento esito, LocalDateTime dataOra) {
+        this.codice = codice;
+        this.codicePrenotazione = codicePrenotazione;
+        this.importo = importo;
+        this.esito = esito;
+        this.dataOra = dataOra;
+    }
+
+    public String getCodice() { return codice; }
+    public void setCodice(String codice) { this.codice = codice; }
+
+    public String getCodicePrenotazione() { return codicePrenotazione; }
+    public void setCodicePrenotazione(String codicePrenotazione) { this.codicePrenotazione = codicePrenotazione; }
+
+    public BigDecimal getImporto() { return importo; }
+    public void setImporto(BigDecimal importo) { this.importo = importo; }
+
+    public EsitoPagamento getEsito() { return esito; }
+    public void setEsito(EsitoPagamento esito) { this.esito = esito; }
+
+    public LocalDateTime getDataOra() { return dataOra; }
+    public void setDataOra(LocalDateTime dataOra) { this.dataOra = dataOra; }
 }
@@ -1,4 +1,29 @@
 package it.unisa.thetourist.dominio.entita;
 
 public class Passeggero {
+    private String codicePrenotazione;
+    private String nome;
+    private String cognome;
+    private String documento;
+
+    public Passeggero() { }
+
+    public Passeggero(String codicePrenotazione, String nome, String cognome, String documento) {
+        this.codicePrenotazione = codicePrenotazione;
+        this.nome = nome;
+        this.cognome = cognome;
+        this.documento = documento;
+    }
+
+    public String getCodicePrenotazione() { return codicePrenotazione; }
+    public void setCodicePrenotazione(String codicePrenotazione) { this.codicePrenotazione = codicePrenotazione; }
+
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
+
+    public String getCognome() { return cognome; }
+    public void setCognome(String cognome) { this.cognome = cognome; }
+
+    public String getDocumento() { return documento; }
+    public void setDocumento(String documento) { this.documento = documento; }
 }
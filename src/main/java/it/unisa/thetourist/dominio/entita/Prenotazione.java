@@ -1,4 +1,71 @@
 package it.unisa.thetourist.dominio.entita;
 
+import it.unisa.thetourist.dominio.enumerazioni.StatoPrenotazione;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
 public class Prenotazione {
+    private String codice;
+    private String idUtente;
+    private String codiceVolo;
+    private String codiceTariffa;
+    private String codiceGruppo;
+    private StatoPrenotazione stato;
+    private BigDecimal importo;
+    private LocalDateTime dataCreazione;
+    private LocalDateTime dataPartenza;
+    private int postiRiservati;
+    private LocalDateTime scadenzaBlocco;
+    private final List<Passeggero> passeggeri = new ArrayList<>();
+
+    public Prenotazione() { }
+
+    public Prenotazione(String codice, String idUtente, String codiceVolo, String codiceTariffa, LocalDateTime dataCreazione) {
+        this.codice = codice;
+        this.idUtente = idUtente;
+        this.codiceVolo = codiceVolo;
+        this.codiceTariffa = codiceTariffa;
+        this.dataCreazione = dataCreazione;
+        this.stato = StatoPrenotazione.BOZZA;
+    }
+
+    public String getCodice() { return codice; }
+    public void setCodice(String codice) { this.codice = codice; }
+
+    public String getIdUtente() { return idUtente; }
+    public void setIdUtente(String idUtente) { this.idUtente = idUtente; }
+
+    public String getCodiceVolo() { return codiceVolo; }
+    public void setCodiceVolo(String codiceVolo) { this.codiceVolo = codiceVolo; }
+
+    public String getCodiceTariffa() { return codiceTariffa; }
+    public void setCodiceTariffa(String codiceTariffa) { this.codiceTariffa = codiceTariffa; }
+
+    // Valorizzato per le prenotazioni di gruppo, che condividono un unico pagamento
+    public String getCodiceGruppo() { return codiceGruppo; }
+    public void setCodiceGruppo(String codiceGruppo) { this.codiceGruppo = codiceGruppo; }
+
+    public StatoPrenotazione getStato() { return stato; }
+    public void setStato(StatoPrenotazione stato) { this.stato = stato; }
+
+    public BigDecimal getImporto() { return importo; }
+    public void setImporto(BigDecimal importo) { this.importo = importo; }
+
+    public LocalDateTime getDataCreazione() { return dataCreazione; }
+    public void setDataCreazione(LocalDateTime dataCreazione) { this.dataCreazione = dataCreazione; }
+
+    // Copia della partenza del volo al momento della prenotazione: ordina lo storico dell'utente
+    public LocalDateTime getDataPartenza() { return dataPartenza; }
+    public void setDataPartenza(LocalDateTime dataPartenza) { this.dataPartenza = dataPartenza; }
+
+    public int getPostiRiservati() { return postiRiservati; }
+    public void setPostiRiservati(int postiRiservati) { this.postiRiservati = postiRiservati; }
+
+    public LocalDateTime getScadenzaBlocco() { return scadenzaBlocco; }
+    public void setScadenzaBlocco(LocalDateTime scadenzaBlocco) { this.scadenzaBlocco = scadenzaBlocco; }
+
+    public List<Passeggero> getPasseggeri() { return passeggeri; }
 }
@@ -1,4 +1,50 @@
 package it.unisa.thetourist.dominio.entita;
 
+import it.unisa.thetourist.dominio.enumerazioni.StatoRichiesta;
+
+import java.time.LocalDateTime;
+
 public class RichiestaAssistenza {
+    private String codice;
+    private String idUtente;
+    private String codicePrenotazione;
+    private String oggetto;
+    private String messaggio;
+    private StatoRichiesta stato;
+    private LocalDateTime dataApertura;
+
+    public RichiestaAssistenza() { }
+
+    public RichiestaAssistenza(String codice, String idUtente, String codicePrenotazione, String oggetto, String messaggio,
+                               LocalDateTime dataApertura) {
+        this.codice = codice;
+        this.idUtente = idUtente;
+        this.codicePrenotazione = codicePrenotazione;
+        this.oggetto = oggetto;
+        this.messaggio = messaggio;
+        this.dataApertura = dataApertura;
+        this.stato = StatoRichiesta.APERTA;
+    }
+
+    public String getCodice() { return codice; }
+    public void setCodice(String codice) { this.codice = codice; }
+
+    public String getIdUtente() { return idUtente; }
+    public void setIdUtente(String idUtente) { this.idUtente = idUtente; }
+
+    // Facoltativa: la richiesta può non riguardare una prenotazione
+    public String getCodicePrenotazione() { return codicePrenotazione; }
+    public void setCodicePrenotazione(String codicePrenotazione) { this.codicePrenotazione = codicePrenotazione; }
+
+    public String getOggetto() { return oggetto; }
+    public void setOggetto(String oggetto) { this.oggetto = oggetto; }
+
+    public String getMessaggio() { return messaggio; }
+    public void setMessaggio(String messaggio) { this.messaggio = messaggio; }
+
+    public StatoRichiesta getStato() { return stato; }
+    public void setStato(StatoRichiesta stato) { this.stato = stato; }
+
+    public LocalDateTime getDataApertura() { return dataApertura; }
+    public void setDataApertura(LocalDateTime dataApertura) { this.dataApertura = dataApertura; }
 }
@@ -1,4 +1,37 @@
 package it.unisa.thetourist.dominio.entita;
 
+import java.time.LocalDateTime;
+
+// Messaggio successivo all'apertura di una richiesta, scritto da un admin o dall'utente stesso
 public class RispostaAssistenza {
+    private String codice;
+    private String codiceRichiesta;
+    private String idAutore;
+    private String testo;
+    private LocalDateTime data;
+
+    public RispostaAssistenza() { }
+
+    public RispostaAssistenza(String codice, String codiceRichiesta, String idAutore, String testo, LocalDateTime data) {
+        this.codice = codice;
+        this.codiceRichiesta = codiceRichiesta;
+        this.idAutore = idAutore;
+        this.testo = testo;
+        this.data = data;
+    }
+
+    public String getCodice() { return codice; }
+    public void setCodice(String codice) { this.codice = codice; }
+
+    public String getCodiceRichiesta() { return codiceRichiesta; }
+    public void setCodiceRichiesta(String codiceRichiesta) { this.codiceRichiesta = codiceRichiesta; }
+
+    public String getIdAutore() { return idAutore; }
+    public void setIdAutore(String idAutore) { this.idAutore = idAutore; }
+
+    public String getTesto() { return testo; }
+    public void setTesto(String testo) { this.testo = testo; }
+
+    public LocalDateTime getData() { return data; }
+    public void setData(LocalDateTime data) { this.data = data; }
 }
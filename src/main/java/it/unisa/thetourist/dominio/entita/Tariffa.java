@@ -1,4 +1,31 @@
 package it.unisa.thetourist.dominio.entita;
 
+import java.math.BigDecimal;
+
 public class Tariffa {
+    private String codice;
+    private String codiceVolo;
+    private String classe;
+    private BigDecimal prezzo;
+
+    public Tariffa() { }
+
+    public Tariffa(String codice, String codiceVolo, String classe, BigDecimal prezzo) {
+        this.codice = codice;
+        this.codiceVolo = codiceVolo;
+        this.classe = classe;
+        this.prezzo = prezzo;
+    }
+
+    public String getCodice() { return codice; }
+    public void setCodice(String codice) { this.codice = codice; }
+
+    public String getCodiceVolo() { return codiceVolo; }
+    public void setCodiceVolo(String codiceVolo) { this.codiceVolo = codiceVolo; }
+
+    public String getClasse() { return classe; }
+    public void setClasse(String classe) { this.classe = classe; }
+
+    public BigDecimal getPrezzo() { return prezzo; }
+    public void setPrezzo(BigDecimal prezzo) { this.prezzo = prezzo; }
 }
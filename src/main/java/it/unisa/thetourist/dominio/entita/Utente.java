@@ -1,4 +1,40 @@
 package it.unisa.thetourist.dominio.entita;
 
+import it.unisa.thetourist.dominio.enumerazioni.Ruolo;
+
 public class Utente  {
+    private String id;
+    private String email;
+    private String nome;
+    private String cognome;
+    private String hashPassword;
+    private Ruolo ruolo = Ruolo.UTENTE;
+
+    public Utente() { }
+
+    public Utente(String id, String email, String nome, String cognome, String hashPassword) {
+        this.id = id;
+        this.email = email;
+        this.nome = nome;
+        this.cognome = cognome;
+        this.hashPassword = hashPassword;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
+
+    public String getCognome() { return cognome; }
+    public void setCognome(String cognome) { this.cognome = cognome; }
+
+    public String getHashPassword() { return hashPassword; }
+    public void setHashPassword(String hashPassword) { this.hashPassword = hashPassword; }
+
+    public Ruolo getRuolo() { return ruolo; }
+    public void setRuolo(Ruolo ruolo) { this.ruolo = ruolo; }
 }
@@ -1,3 +1,53 @@
 package it.unisa.thetourist.dominio.entita;
 
-public class Volo { }
+import java.time.LocalDateTime;
+
+public class Volo {
+    private String codice;
+    private String partenza;
+    private String arrivo;
+    private LocalDateTime dataOraPartenza;
+    private LocalDateTime dataOraArrivo;
+    private volatile int postiDisponibili;
+    // Posti in vendita: resta fissa mentre postiDisponibili scende con le prenotazioni
+    private int capienza;
+
+    public Volo() { }
+
+    public Volo(String codice, String partenza, String arrivo,
+                LocalDateTime dataOraPartenza, LocalDateTime dataOraArrivo, int postiDisponibili) {
+        this(codice, partenza, arrivo, dataOraPartenza, dataOraArrivo, postiDisponibili, postiDisponibili);
+    }
+
+    public Volo(String codice, String partenza, String arrivo,
+                LocalDateTime dataOraPartenza, LocalDateTime dataOraArrivo, int postiDisponibili, int capienza) {
+        this.codice = codice;
+        this.partenza = partenza;
+        this.arrivo = arrivo;
+        this.dataOraPartenza = dataOraPartenza;
+        this.dataOraArrivo = dataOraArrivo;
+        this.postiDisponibili = postiDisponibili;
+        this.capienza = capienza;
+    }
+
+    public String getCodice() { return codice; }
+    public void setCodice(String codice) { this.codice = codice; }
+
+    public String getPartenza() { return partenza; }
+    public void setPartenza(String partenza) { this.partenza = partenza; }
+
+    public String getArrivo() { return arrivo; }
+    public void setArrivo(String arrivo) { this.arrivo = arrivo; }
+
+    public LocalDateTime getDataOraPartenza() { return dataOraPartenza; }
+    public void setDataOraPartenza(LocalDateTime dataOraPartenza) { this.dataOraPartenza = dataOraPartenza; }
+
+    public LocalDateTime getDataOraArrivo() { return dataOraArrivo; }
+    public void setDataOraArrivo(LocalDateTime dataOraArrivo) { this.dataOraArrivo = dataOraArrivo; }
+
+    public int getPostiDisponibili() { return postiDisponibili; }
+    public void setPostiDisponibili(int postiDisponibili) { this.postiDisponibili = postiDisponibili; }
+
+    public int getCapienza() { return capienza; }
+    public void setCapienza(int capienza) { this.capienza = capienza; }
+}
@@ -0,0 +1,6 @@
+package it.unisa.thetourist.dominio.enumerazioni;
+
+public enum CriterioOrdinamento {
+    DURATA,
+    PREZZO
+}
@@ -1,4 +1,9 @@
 package it.unisa.thetourist.dominio.enumerazioni;
 
-public class EsitoPagamento {
+public enum EsitoPagamento {
+    AUTORIZZATO,
+    RIFIUTATO,
+    RIMBORSATO,
+    // addebito il cui rimborso non è riuscito: va stornato a mano
+    DA_RICONCILIARE
 }
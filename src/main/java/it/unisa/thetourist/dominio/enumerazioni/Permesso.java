@@ -0,0 +1,12 @@
+package it.unisa.thetourist.dominio.enumerazioni;
+
+public enum Permesso {
+    CERCA_VOLI,
+    PRENOTA,
+    PAGA,
+    VISUALIZZA_PRENOTAZIONI,
+    APRI_RICHIESTA_ASSISTENZA,
+    RISPONDI_RICHIESTA_ASSISTENZA,
+    GESTISCI_CATALOGO,
+    GESTISCI_UTENTI
+}
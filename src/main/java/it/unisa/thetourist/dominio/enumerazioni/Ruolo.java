@@ -1,4 +1,31 @@
 package it.unisa.thetourist.dominio.enumerazioni;
 
-public class Ruolo {
+import java.util.EnumSet;
+import java.util.Set;
+
+// I permessi di ogni ruolo sono compilati una volta in una maschera di bit:
+// consente() è un AND sull'ordinale, senza allocazioni né confronti di stringhe.
+public enum Ruolo {
+    UTENTE(EnumSet.of(Permesso.CERCA_VOLI, Permesso.PRENOTA, Permesso.PAGA,
+            Permesso.VISUALIZZA_PRENOTAZIONI, Permesso.APRI_RICHIESTA_ASSISTENZA)),
+    ADMIN(EnumSet.of(Permesso.CERCA_VOLI, Permesso.VISUALIZZA_PRENOTAZIONI,
+            Permesso.RISPONDI_RICHIESTA_ASSISTENZA, Permesso.GESTISCI_CATALOGO, Permesso.GESTISCI_UTENTI));
+
+    private final long maschera;
+
+    Ruolo(Set<Permesso> permessi) {
+        long m = 0;
+        for (Permesso p : permessi) m |= 1L << p.ordinal();
+        this.maschera = m;
+    }
+
+    public boolean consente(Permesso permesso) {
+        return (maschera & (1L << permesso.ordinal())) != 0;
+    }
+
+    public Set<Permesso> permessi() {
+        EnumSet<Permesso> permessi = EnumSet.noneOf(Permesso.class);
+        for (Permesso p : Permesso.values()) if (consente(p)) permessi.add(p);
+        return permessi;
+    }
 }
@@ -1,4 +1,8 @@
 package it.unisa.thetourist.dominio.enumerazioni;
 
-public class StatoPrenotazione {
+public enum StatoPrenotazione {
+    BOZZA,
+    CONFERMATA,
+    SCADUTA,
+    ANNULLATA
 }
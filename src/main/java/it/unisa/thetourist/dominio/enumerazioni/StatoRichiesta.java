@@ -1,4 +1,9 @@
 package it.unisa.thetourist.dominio.enumerazioni;
 
-public class StatoRichiesta {
+public enum StatoRichiesta {
+    APERTA,
+    // l'utente ha scritto di nuovo dopo una risposta
+    SOLLECITATA,
+    RISPOSTA,
+    CHIUSA
 }
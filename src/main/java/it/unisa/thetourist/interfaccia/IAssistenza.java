@@ -1,4 +1,32 @@
 package it.unisa.thetourist.interfaccia;
 
-public class IAssistenza {
+import it.unisa.thetourist.applicazione.dto.DatiRichiestaAssistenzaDTO;
+import it.unisa.thetourist.applicazione.dto.DatiRispostaAssistenzaDTO;
+import it.unisa.thetourist.applicazione.dto.RisultatoRicercaAssistenzaDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.EntitaNonTrovataException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.dominio.entita.RichiestaAssistenza;
+import it.unisa.thetourist.dominio.entita.RispostaAssistenza;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface IAssistenza {
+    RichiestaAssistenza apriRichiesta(String idUtente, DatiRichiestaAssistenzaDTO dati)
+            throws DatiNonValidiException, EntitaNonTrovataException;
+
+    RispostaAssistenza sollecita(String idUtente, String codiceRichiesta, String testo)
+            throws DatiNonValidiException, EntitaNonTrovataException;
+
+    Optional<RichiestaAssistenza> prendiInCarico(String idAdmin);
+
+    void rinnovaPresa(String idAdmin, String codiceRichiesta) throws NonAutorizzatoException;
+
+    RispostaAssistenza rispondi(String idAdmin, DatiRispostaAssistenzaDTO dati)
+            throws DatiNonValidiException, NonAutorizzatoException;
+
+    void rilascia(String idAdmin, String codiceRichiesta) throws NonAutorizzatoException;
+
+    List<RisultatoRicercaAssistenzaDTO> cercaMessaggi(String testo, int k) throws DatiNonValidiException;
 }
@@ -1,4 +1,16 @@
 package it.unisa.thetourist.interfaccia;
 
-public class IAutenticazione {
+import it.unisa.thetourist.applicazione.dto.CredenzialiDTO;
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+
+public interface IAutenticazione {
+
+    SessioneDTO login(CredenzialiDTO credenziali) throws DatiNonValidiException, NonAutorizzatoException;
+
+    // Risolve il token e ne prolunga la validità (scadenza scorrevole)
+    SessioneDTO verificaSessione(String token) throws NonAutorizzatoException;
+
+    void logout(String token);
 }
@@ -1,4 +1,16 @@
 package it.unisa.thetourist.interfaccia;
 
-public class IAutorizzazione {
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.EntitaNonTrovataException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.dominio.enumerazioni.Permesso;
+import it.unisa.thetourist.dominio.enumerazioni.Ruolo;
+
+public interface IAutorizzazione {
+
+    boolean consente(SessioneDTO sessione, Permesso permesso);
+
+    void verifica(SessioneDTO sessione, Permesso permesso) throws NonAutorizzatoException;
+
+    void cambiaRuolo(String idUtente, Ruolo ruolo) throws EntitaNonTrovataException;
 }
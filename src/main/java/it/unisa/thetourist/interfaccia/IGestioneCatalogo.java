@@ -1,4 +1,29 @@
 package it.unisa.thetourist.interfaccia;
 
-public class IGestioneCatalogo {
+import it.unisa.thetourist.applicazione.dto.DatiTariffaDTO;
+import it.unisa.thetourist.applicazione.dto.DatiVoloDTO;
+import it.unisa.thetourist.applicazione.dto.EsitoImportazioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.EntitaNonTrovataException;
+import it.unisa.thetourist.dominio.entita.Tariffa;
+import it.unisa.thetourist.dominio.entita.Volo;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+public interface IGestioneCatalogo {
+    Volo inserisciVolo(DatiVoloDTO dati) throws DatiNonValidiException;
+
+    Volo modificaVolo(DatiVoloDTO dati) throws DatiNonValidiException, EntitaNonTrovataException;
+
+    void rimuoviVolo(String codice) throws EntitaNonTrovataException;
+
+    Tariffa inserisciTariffa(DatiTariffaDTO dati) throws DatiNonValidiException, EntitaNonTrovataException;
+
+    Tariffa modificaTariffa(DatiTariffaDTO dati) throws DatiNonValidiException, EntitaNonTrovataException;
+
+    void rimuoviTariffa(String codice) throws EntitaNonTrovataException;
+
+    EsitoImportazioneDTO importaOrari(Path file, Consumer<EsitoImportazioneDTO> avanzamento) throws IOException;
 }
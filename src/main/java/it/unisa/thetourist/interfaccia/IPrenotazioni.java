@@ -1,4 +1,33 @@
 package it.unisa.thetourist.interfaccia;
 
-public class IPrenotazioni {
+import it.unisa.thetourist.applicazione.dto.DatiPasseggeriDTO;
+import it.unisa.thetourist.applicazione.dto.DatiTrattaGruppoDTO;
+import it.unisa.thetourist.applicazione.dto.PaginaPrenotazioniDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.EntitaNonTrovataException;
+import it.unisa.thetourist.applicazione.eccezioni.PagamentoFallitoException;
+import it.unisa.thetourist.applicazione.eccezioni.PostiEsauritiException;
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+import it.unisa.thetourist.dominio.enumerazioni.StatoPrenotazione;
+
+import java.util.List;
+import java.util.Set;
+
+public interface IPrenotazioni {
+    Prenotazione avviaPrenotazione(String idUtente, String codiceVolo, String codiceTariffa, int numeroPosti)
+            throws EntitaNonTrovataException, PostiEsauritiException, DatiNonValidiException;
+
+    void aggiungiPasseggero(String codicePrenotazione, DatiPasseggeriDTO dati)
+            throws EntitaNonTrovataException, DatiNonValidiException;
+
+    Prenotazione confermaPrenotazione(String codicePrenotazione)
+            throws EntitaNonTrovataException, DatiNonValidiException, PagamentoFallitoException;
+
+    // codiceGruppo scelto dal client: ripetere la richiesta con lo stesso codice non prenota né addebita di nuovo
+    List<Prenotazione> prenotaGruppo(String idUtente, String codiceGruppo, List<DatiTrattaGruppoDTO> tratte)
+            throws EntitaNonTrovataException, DatiNonValidiException, PostiEsauritiException, PagamentoFallitoException;
+
+    // Prenotazioni dell'utente per data di partenza; stati null o vuoto: tutti. cursore null: prima pagina
+    PaginaPrenotazioniDTO visualizzaPrenotazioni(String idUtente, Set<StatoPrenotazione> stati, String cursore, int dimensione)
+            throws DatiNonValidiException;
 }
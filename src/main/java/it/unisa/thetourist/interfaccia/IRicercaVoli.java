@@ -1,4 +1,32 @@
 package it.unisa.thetourist.interfaccia;
 
-public class IRicercaVoli {
+import it.unisa.thetourist.applicazione.dto.CriteriRicercaDTO;
+import it.unisa.thetourist.applicazione.dto.ItinerarioDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.dominio.entita.Aeroporto;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.dominio.enumerazioni.CriterioOrdinamento;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.SortedMap;
+
+public interface IRicercaVoli {
+    List<Volo> cercaVoli(CriteriRicercaDTO criteri) throws DatiNonValidiException;
+
+    // Gli stessi voli diretti, ognuno con il prezzo di vendita corrente della sua tariffa più bassa
+    List<ItinerarioDTO> cercaVoliConPrezzi(CriteriRicercaDTO criteri) throws DatiNonValidiException;
+
+    SortedMap<LocalDate, List<Volo>> cercaVoliFlessibili(CriteriRicercaDTO criteri) throws DatiNonValidiException;
+
+    List<ItinerarioDTO> cercaItinerari(CriteriRicercaDTO criteri, int maxScali, CriterioOrdinamento ordinamento, int k)
+            throws DatiNonValidiException;
+
+    SortedMap<LocalDate, BigDecimal> cercaCalendarioTariffe(String partenza, String arrivo, YearMonth mese)
+            throws DatiNonValidiException;
+
+    // Completamento per il campo di ricerca: aeroporti il cui codice, città o nome inizia con il prefisso
+    List<Aeroporto> suggerisciAeroporti(String prefisso, int k) throws DatiNonValidiException;
 }
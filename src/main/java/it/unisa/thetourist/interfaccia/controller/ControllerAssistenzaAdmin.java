@@ -1,4 +1,101 @@
 package it.unisa.thetourist.interfaccia.controller;
 
+import it.unisa.thetourist.applicazione.dto.DatiRispostaAssistenzaDTO;
+import it.unisa.thetourist.applicazione.dto.RisultatoRicercaAssistenzaDTO;
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.dominio.entita.RichiestaAssistenza;
+import it.unisa.thetourist.dominio.entita.RispostaAssistenza;
+import it.unisa.thetourist.dominio.enumerazioni.Permesso;
+import it.unisa.thetourist.interfaccia.IAssistenza;
+import it.unisa.thetourist.interfaccia.IAutorizzazione;
+
+import java.util.List;
+import java.util.Optional;
+
 public class ControllerAssistenzaAdmin {
+
+    private static final Operazione OP_PRENDI_IN_CARICO = RegistroMetriche.globale().operazione("controller.assistenzaAdmin.prendiInCarico");
+    private static final Operazione OP_RINNOVA_PRESA = RegistroMetriche.globale().operazione("controller.assistenzaAdmin.rinnovaPresa");
+    private static final Operazione OP_RISPONDI = RegistroMetriche.globale().operazione("controller.assistenzaAdmin.rispondi");
+    private static final Operazione OP_RILASCIA = RegistroMetriche.globale().operazione("controller.assistenzaAdmin.rilascia");
+    private static final Operazione OP_CERCA_MESSAGGI = RegistroMetriche.globale().operazione("controller.assistenzaAdmin.cercaMessaggi");
+
+    private final IAssistenza assistenza;
+    private final IAutorizzazione autorizzazione;
+
+    public ControllerAssistenzaAdmin(IAssistenza assistenza, IAutorizzazione autorizzazione) {
+        this.assistenza = assistenza;
+        this.autorizzazione = autorizzazione;
+    }
+
+    public Optional<RichiestaAssistenza> prendiInCarico(SessioneDTO sessione) throws NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.RISPONDI_RICHIESTA_ASSISTENZA);
+            return assistenza.prendiInCarico(sessione.getIdUtente());
+        } catch (Exception e) {
+            OP_PRENDI_IN_CARICO.errore(e);
+            throw e;
+        } finally {
+            OP_PRENDI_IN_CARICO.registra(inizio);
+        }
+    }
+
+    public void rinnovaPresa(SessioneDTO sessione, String codiceRichiesta) throws NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.RISPONDI_RICHIESTA_ASSISTENZA);
+            assistenza.rinnovaPresa(sessione.getIdUtente(), codiceRichiesta);
+        } catch (Exception e) {
+            OP_RINNOVA_PRESA.errore(e);
+            throw e;
+        } finally {
+            OP_RINNOVA_PRESA.registra(inizio);
+        }
+    }
+
+    public RispostaAssistenza rispondi(SessioneDTO sessione, DatiRispostaAssistenzaDTO dati)
+            throws DatiNonValidiException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.RISPONDI_RICHIESTA_ASSISTENZA);
+            return assistenza.rispondi(sessione.getIdUtente(), dati);
+        } catch (Exception e) {
+            OP_RISPONDI.errore(e);
+            throw e;
+        } finally {
+            OP_RISPONDI.registra(inizio);
+        }
+    }
+
+    public void rilascia(SessioneDTO sessione, String codiceRichiesta) throws NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.RISPONDI_RICHIESTA_ASSISTENZA);
+            assistenza.rilascia(sessione.getIdUtente(), codiceRichiesta);
+        } catch (Exception e) {
+            OP_RILASCIA.errore(e);
+            throw e;
+        } finally {
+            OP_RILASCIA.registra(inizio);
+        }
+    }
+
+    public List<RisultatoRicercaAssistenzaDTO> cercaMessaggi(SessioneDTO sessione, String testo, int k)
+            throws DatiNonValidiException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.RISPONDI_RICHIESTA_ASSISTENZA);
+            return assistenza.cercaMessaggi(testo, k);
+        } catch (Exception e) {
+            OP_CERCA_MESSAGGI.errore(e);
+            throw e;
+        } finally {
+            OP_CERCA_MESSAGGI.registra(inizio);
+        }
+    }
 }
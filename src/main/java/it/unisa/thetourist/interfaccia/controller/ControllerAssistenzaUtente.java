@@ -1,4 +1,56 @@
 package it.unisa.thetourist.interfaccia.controller;
 
+import it.unisa.thetourist.applicazione.dto.DatiRichiestaAssistenzaDTO;
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.EntitaNonTrovataException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.dominio.entita.RichiestaAssistenza;
+import it.unisa.thetourist.dominio.entita.RispostaAssistenza;
+import it.unisa.thetourist.dominio.enumerazioni.Permesso;
+import it.unisa.thetourist.interfaccia.IAssistenza;
+import it.unisa.thetourist.interfaccia.IAutorizzazione;
+
 public class ControllerAssistenzaUtente {
+
+    private static final Operazione OP_APRI_RICHIESTA = RegistroMetriche.globale().operazione("controller.assistenzaUtente.apriRichiesta");
+    private static final Operazione OP_SOLLECITA = RegistroMetriche.globale().operazione("controller.assistenzaUtente.sollecita");
+
+    private final IAssistenza assistenza;
+    private final IAutorizzazione autorizzazione;
+
+    public ControllerAssistenzaUtente(IAssistenza assistenza, IAutorizzazione autorizzazione) {
+        this.assistenza = assistenza;
+        this.autorizzazione = autorizzazione;
+    }
+
+    public RichiestaAssistenza apriRichiesta(SessioneDTO sessione, DatiRichiestaAssistenzaDTO dati)
+            throws DatiNonValidiException, EntitaNonTrovataException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.APRI_RICHIESTA_ASSISTENZA);
+            return assistenza.apriRichiesta(sessione.getIdUtente(), dati);
+        } catch (Exception e) {
+            OP_APRI_RICHIESTA.errore(e);
+            throw e;
+        } finally {
+            OP_APRI_RICHIESTA.registra(inizio);
+        }
+    }
+
+    public RispostaAssistenza sollecita(SessioneDTO sessione, String codiceRichiesta, String testo)
+            throws DatiNonValidiException, EntitaNonTrovataException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.APRI_RICHIESTA_ASSISTENZA);
+            return assistenza.sollecita(sessione.getIdUtente(), codiceRichiesta, testo);
+        } catch (Exception e) {
+            OP_SOLLECITA.errore(e);
+            throw e;
+        } finally {
+            OP_SOLLECITA.registra(inizio);
+        }
+    }
 }
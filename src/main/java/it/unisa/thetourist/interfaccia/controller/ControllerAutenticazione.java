@@ -1,4 +1,58 @@
 package it.unisa.thetourist.interfaccia.controller;
 
+import it.unisa.thetourist.applicazione.dto.CredenzialiDTO;
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.interfaccia.IAutenticazione;
+
 public class ControllerAutenticazione {
+
+    private static final Operazione OP_LOGIN = RegistroMetriche.globale().operazione("controller.autenticazione.login");
+    private static final Operazione OP_VERIFICA_SESSIONE = RegistroMetriche.globale().operazione("controller.autenticazione.verificaSessione");
+    private static final Operazione OP_LOGOUT = RegistroMetriche.globale().operazione("controller.autenticazione.logout");
+
+    private final IAutenticazione autenticazione;
+
+    public ControllerAutenticazione(IAutenticazione autenticazione) {
+        this.autenticazione = autenticazione;
+    }
+
+    public SessioneDTO login(CredenzialiDTO credenziali) throws DatiNonValidiException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            return autenticazione.login(credenziali);
+        } catch (Exception e) {
+            OP_LOGIN.errore(e);
+            throw e;
+        } finally {
+            OP_LOGIN.registra(inizio);
+        }
+    }
+
+    public SessioneDTO verificaSessione(String token) throws NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            return autenticazione.verificaSessione(token);
+        } catch (Exception e) {
+            OP_VERIFICA_SESSIONE.errore(e);
+            throw e;
+        } finally {
+            OP_VERIFICA_SESSIONE.registra(inizio);
+        }
+    }
+
+    public void logout(String token) {
+        long inizio = System.nanoTime();
+        try {
+            autenticazione.logout(token);
+        } catch (Exception e) {
+            OP_LOGOUT.errore(e);
+            throw e;
+        } finally {
+            OP_LOGOUT.registra(inizio);
+        }
+    }
 }
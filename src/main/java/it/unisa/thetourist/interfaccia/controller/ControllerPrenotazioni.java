@@ -1,4 +1,111 @@
 package it.unisa.thetourist.interfaccia.controller;
 
+import it.unisa.thetourist.applicazione.dto.DatiPasseggeriDTO;
+import it.unisa.thetourist.applicazione.dto.DatiTrattaGruppoDTO;
+import it.unisa.thetourist.applicazione.dto.PaginaPrenotazioniDTO;
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.EntitaNonTrovataException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.applicazione.eccezioni.PagamentoFallitoException;
+import it.unisa.thetourist.applicazione.eccezioni.PostiEsauritiException;
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+import it.unisa.thetourist.dominio.enumerazioni.Permesso;
+import it.unisa.thetourist.dominio.enumerazioni.StatoPrenotazione;
+import it.unisa.thetourist.interfaccia.IAutorizzazione;
+import it.unisa.thetourist.interfaccia.IPrenotazioni;
+
+import java.util.List;
+import java.util.Set;
+
 public class ControllerPrenotazioni {
+
+    private static final Operazione OP_AVVIA_PRENOTAZIONE = RegistroMetriche.globale().operazione("controller.prenotazioni.avviaPrenotazione");
+    private static final Operazione OP_AGGIUNGI_PASSEGGERO = RegistroMetriche.globale().operazione("controller.prenotazioni.aggiungiPasseggero");
+    private static final Operazione OP_CONFERMA_PRENOTAZIONE = RegistroMetriche.globale().operazione("controller.prenotazioni.confermaPrenotazione");
+    private static final Operazione OP_PRENOTA_GRUPPO = RegistroMetriche.globale().operazione("controller.prenotazioni.prenotaGruppo");
+    private static final Operazione OP_VISUALIZZA_PRENOTAZIONI = RegistroMetriche.globale().operazione("controller.prenotazioni.visualizzaPrenotazioni");
+
+    private final IPrenotazioni prenotazioni;
+    private final IAutorizzazione autorizzazione;
+
+    // L'utente viene sempre dalla sessione verificata, mai da un parametro del client
+    public ControllerPrenotazioni(IPrenotazioni prenotazioni, IAutorizzazione autorizzazione) {
+        this.prenotazioni = prenotazioni;
+        this.autorizzazione = autorizzazione;
+    }
+
+    public Prenotazione avviaPrenotazione(SessioneDTO sessione, String codiceVolo, String codiceTariffa, int numeroPosti)
+            throws EntitaNonTrovataException, PostiEsauritiException, DatiNonValidiException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.PRENOTA);
+            return prenotazioni.avviaPrenotazione(sessione.getIdUtente(), codiceVolo, codiceTariffa, numeroPosti);
+        } catch (Exception e) {
+            OP_AVVIA_PRENOTAZIONE.errore(e);
+            throw e;
+        } finally {
+            OP_AVVIA_PRENOTAZIONE.registra(inizio);
+        }
+    }
+
+    public void aggiungiPasseggero(SessioneDTO sessione, String codicePrenotazione, DatiPasseggeriDTO dati)
+            throws EntitaNonTrovataException, DatiNonValidiException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.PRENOTA);
+            prenotazioni.aggiungiPasseggero(codicePrenotazione, dati);
+        } catch (Exception e) {
+            OP_AGGIUNGI_PASSEGGERO.errore(e);
+            throw e;
+        } finally {
+            OP_AGGIUNGI_PASSEGGERO.registra(inizio);
+        }
+    }
+
+    public Prenotazione confermaPrenotazione(SessioneDTO sessione, String codicePrenotazione)
+            throws EntitaNonTrovataException, DatiNonValidiException, PagamentoFallitoException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.PAGA);
+            return prenotazioni.confermaPrenotazione(codicePrenotazione);
+        } catch (Exception e) {
+            OP_CONFERMA_PRENOTAZIONE.errore(e);
+            throw e;
+        } finally {
+            OP_CONFERMA_PRENOTAZIONE.registra(inizio);
+        }
+    }
+
+    public List<Prenotazione> prenotaGruppo(SessioneDTO sessione, String codiceGruppo, List<DatiTrattaGruppoDTO> tratte)
+            throws EntitaNonTrovataException, DatiNonValidiException, PostiEsauritiException, PagamentoFallitoException,
+            NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.PRENOTA);
+            autorizzazione.verifica(sessione, Permesso.PAGA);
+            return prenotazioni.prenotaGruppo(sessione.getIdUtente(), codiceGruppo, tratte);
+        } catch (Exception e) {
+            OP_PRENOTA_GRUPPO.errore(e);
+            throw e;
+        } finally {
+            OP_PRENOTA_GRUPPO.registra(inizio);
+        }
+    }
+
+    public PaginaPrenotazioniDTO visualizzaPrenotazioni(SessioneDTO sessione, Set<StatoPrenotazione> stati, String cursore,
+                                                        int dimensione) throws DatiNonValidiException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.VISUALIZZA_PRENOTAZIONI);
+            return prenotazioni.visualizzaPrenotazioni(sessione.getIdUtente(), stati, cursore, dimensione);
+        } catch (Exception e) {
+            OP_VISUALIZZA_PRENOTAZIONI.errore(e);
+            throw e;
+        } finally {
+            OP_VISUALIZZA_PRENOTAZIONI.registra(inizio);
+        }
+    }
 }
@@ -1,4 +1,107 @@
 package it.unisa.thetourist.interfaccia.controller;
 
+import it.unisa.thetourist.applicazione.dto.CriteriRicercaDTO;
+import it.unisa.thetourist.applicazione.dto.ItinerarioDTO;
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.applicazione.metriche.Operazione;
+import it.unisa.thetourist.applicazione.metriche.RegistroMetriche;
+import it.unisa.thetourist.dominio.entita.Aeroporto;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.dominio.enumerazioni.CriterioOrdinamento;
+import it.unisa.thetourist.dominio.enumerazioni.Permesso;
+import it.unisa.thetourist.interfaccia.IAutorizzazione;
+import it.unisa.thetourist.interfaccia.IRicercaVoli;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SortedMap;
+
 public class ControllerRicercaVoli {
+
+    private static final Operazione OP_CERCA_VOLI = RegistroMetriche.globale().operazione("controller.ricercaVoli.cercaVoli");
+    private static final Operazione OP_CERCA_VOLI_PREZZI = RegistroMetriche.globale().operazione("controller.ricercaVoli.cercaVoliConPrezzi");
+    private static final Operazione OP_CERCA_VOLI_FLESSIBILI = RegistroMetriche.globale().operazione("controller.ricercaVoli.cercaVoliFlessibili");
+    private static final Operazione OP_CERCA_ITINERARI = RegistroMetriche.globale().operazione("controller.ricercaVoli.cercaItinerari");
+    private static final Operazione OP_SUGGERISCI_AEROPORTI = RegistroMetriche.globale().operazione("controller.ricercaVoli.suggerisciAeroporti");
+
+    private final IRicercaVoli ricercaVoli;
+    private final IAutorizzazione autorizzazione;
+
+    public ControllerRicercaVoli(IRicercaVoli ricercaVoli, IAutorizzazione autorizzazione) {
+        this.ricercaVoli = ricercaVoli;
+        this.autorizzazione = autorizzazione;
+    }
+
+    public List<Volo> cercaVoli(SessioneDTO sessione, CriteriRicercaDTO criteri)
+            throws DatiNonValidiException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.CERCA_VOLI);
+            return ricercaVoli.cercaVoli(criteri);
+        } catch (Exception e) {
+            OP_CERCA_VOLI.errore(e);
+            throw e;
+        } finally {
+            OP_CERCA_VOLI.registra(inizio);
+        }
+    }
+
+    public List<ItinerarioDTO> cercaVoliConPrezzi(SessioneDTO sessione, CriteriRicercaDTO criteri)
+            throws DatiNonValidiException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.CERCA_VOLI);
+            return ricercaVoli.cercaVoliConPrezzi(criteri);
+        } catch (Exception e) {
+            OP_CERCA_VOLI_PREZZI.errore(e);
+            throw e;
+        } finally {
+            OP_CERCA_VOLI_PREZZI.registra(inizio);
+        }
+    }
+
+    public SortedMap<LocalDate, List<Volo>> cercaVoliFlessibili(SessioneDTO sessione, CriteriRicercaDTO criteri)
+            throws DatiNonValidiException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.CERCA_VOLI);
+            return ricercaVoli.cercaVoliFlessibili(criteri);
+        } catch (Exception e) {
+            OP_CERCA_VOLI_FLESSIBILI.errore(e);
+            throw e;
+        } finally {
+            OP_CERCA_VOLI_FLESSIBILI.registra(inizio);
+        }
+    }
+
+    public List<ItinerarioDTO> cercaItinerari(SessioneDTO sessione, CriteriRicercaDTO criteri, int maxScali,
+                                            CriterioOrdinamento ordinamento, int k)
+            throws DatiNonValidiException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.CERCA_VOLI);
+            return ricercaVoli.cercaItinerari(criteri, maxScali, ordinamento, k);
+        } catch (Exception e) {
+            OP_CERCA_ITINERARI.errore(e);
+            throw e;
+        } finally {
+            OP_CERCA_ITINERARI.registra(inizio);
+        }
+    }
+
+    public List<Aeroporto> suggerisciAeroporti(SessioneDTO sessione, String prefisso, int k)
+            throws DatiNonValidiException, NonAutorizzatoException {
+        long inizio = System.nanoTime();
+        try {
+            autorizzazione.verifica(sessione, Permesso.CERCA_VOLI);
+            return ricercaVoli.suggerisciAeroporti(prefisso, k);
+        } catch (Exception e) {
+            OP_SUGGERISCI_AEROPORTI.errore(e);
+            throw e;
+        } finally {
+            OP_SUGGERISCI_AEROPORTI.registra(inizio);
+        }
+    }
 }
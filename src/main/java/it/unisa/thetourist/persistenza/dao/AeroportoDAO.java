@@ -1,4 +1,45 @@
 package it.unisa.thetourist.persistenza.dao;
 
+import it.unisa.thetourist.dominio.entita.Aeroporto;
+import it.unisa.thetourist.persistenza.snapshot.FotoCatalogo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 public class AeroportoDAO {
+
+    private final Map<String, Aeroporto> perCodice = new ConcurrentHashMap<>();
+    private final AtomicLong versione = new AtomicLong();
+
+    public AeroportoDAO() { }
+
+    // Gli aeroporti sono pochi: vengono copiati in memoria all'avvio
+    public AeroportoDAO(FotoCatalogo foto) {
+        for (Aeroporto a : foto.aeroporti()) perCodice.put(a.getCodice(), a);
+    }
+
+    public Optional<Aeroporto> findByCodice(String codice) {
+        return Optional.ofNullable(perCodice.get(codice));
+    }
+
+    public List<Aeroporto> findAll() {
+        return List.copyOf(perCodice.values());
+    }
+
+    public void salva(Aeroporto aeroporto) {
+        perCodice.put(aeroporto.getCodice(), aeroporto);
+        versione.incrementAndGet();
+    }
+
+    public boolean rimuovi(String codice) {
+        if (perCodice.remove(codice) == null) return false;
+        versione.incrementAndGet();
+        return true;
+    }
+
+    // Cresce a ogni modifica: permette di sapere se le strutture derivate vanno ricostruite
+    public long versione() { return versione.get(); }
 }
@@ -1,4 +1,44 @@
 package it.unisa.thetourist.persistenza.dao;
 
+import it.unisa.thetourist.dominio.entita.CompagniaAerea;
+import it.unisa.thetourist.persistenza.snapshot.FotoCatalogo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 public class CompagniaAereaDAO {
+
+    private final Map<String, CompagniaAerea> perCodice = new ConcurrentHashMap<>();
+    private final AtomicLong versione = new AtomicLong();
+
+    public CompagniaAereaDAO() { }
+
+    // Le compagnie sono poche: vengono copiate in memoria all'avvio
+    public CompagniaAereaDAO(FotoCatalogo foto) {
+        for (CompagniaAerea c : foto.compagnie()) perCodice.put(c.getCodice(), c);
+    }
+
+    public Optional<CompagniaAerea> findByCodice(String codice) {
+        return Optional.ofNullable(perCodice.get(codice));
+    }
+
+    public List<CompagniaAerea> findAll() {
+        return List.copyOf(perCodice.values());
+    }
+
+    public void salva(CompagniaAerea compagnia) {
+        perCodice.put(compagnia.getCodice(), compagnia);
+        versione.incrementAndGet();
+    }
+
+    public boolean rimuovi(String codice) {
+        if (perCodice.remove(codice) == null) return false;
+        versione.incrementAndGet();
+        return true;
+    }
+
+    public long versione() { return versione.get(); }
 }
@@ -1,4 +1,107 @@
 package it.unisa.thetourist.persistenza.dao;
 
-public class PagamentoDAO {
+import it.unisa.thetourist.dominio.entita.Pagamento;
+import it.unisa.thetourist.dominio.enumerazioni.EsitoPagamento;
+import it.unisa.thetourist.persistenza.journal.Journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static it.unisa.thetourist.persistenza.journal.Codifica.*;
+
+public class PagamentoDAO implements AutoCloseable {
+
+    private static final byte SALVA = 1;
+    private static final int CAPACITA_JOURNAL = 32 << 20;
+    private static final long SOGLIA_COMPATTAZIONE = 128L << 20;
+
+    private final Map<String, Pagamento> perCodice = new ConcurrentHashMap<>();
+    // Ultimo record scritto per codice: la compattazione lo riusa senza toccare le entità
+    private final Map<String, Journal.Record> ultimiRecord = new ConcurrentHashMap<>();
+    private final Journal journal;
+
+    public PagamentoDAO() {
+        this.journal = null;
+    }
+
+    // Pagamenti persistenti: il journal viene rigiocato all'apertura e ogni salva è su disco al ritorno
+    public PagamentoDAO(Path file) throws IOException {
+        this.journal = Journal.apri(file, CAPACITA_JOURNAL, SOGLIA_COMPATTAZIONE, (tipo, dati) -> {
+            Pagamento p = decodifica(dati);
+            perCodice.put(p.getCodice(), p);
+            ultimiRecord.put(p.getCodice(), new Journal.Record(tipo, dati));
+        }, () -> List.copyOf(ultimiRecord.values()));
+    }
+
+    public Optional<Pagamento> findByCodice(String codice) {
+        return Optional.ofNullable(perCodice.get(codice));
+    }
+
+    public List<Pagamento> findByPrenotazione(String codicePrenotazione) {
+        return perCodice.values().stream().filter(p -> p.getCodicePrenotazione().equals(codicePrenotazione)).toList();
+    }
+
+    public List<Pagamento> findByEsito(EsitoPagamento esito) {
+        return perCodice.values().stream().filter(p -> p.getEsito() == esito).toList();
+    }
+
+    public void salva(Pagamento pagamento) {
+        if (journal == null) {
+            perCodice.put(pagamento.getCodice(), pagamento);
+            return;
+        }
+        Journal.Record record = new Journal.Record(SALVA, codifica(pagamento));
+        try {
+            journal.scrivi(record, () -> {
+                perCodice.put(pagamento.getCodice(), pagamento);
+                ultimiRecord.put(pagamento.getCodice(), record);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal != null) journal.close();
+    }
+
+    private static byte[] codifica(Pagamento p) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            scriviStringa(out, p.getCodice());
+            scriviStringa(out, p.getCodicePrenotazione());
+            scriviImporto(out, p.getImporto());
+            out.writeByte(p.getEsito() == null ? -1 : p.getEsito().ordinal());
+            scriviDataOra(out, p.getDataOra());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Pagamento decodifica(byte[] dati) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(dati));
+        try {
+            String codice = leggiStringa(in);
+            String codicePrenotazione = leggiStringa(in);
+            BigDecimal importo = leggiImporto(in);
+            int esito = in.readByte();
+            return new Pagamento(codice, codicePrenotazione, importo,
+                    esito < 0 ? null : EsitoPagamento.values()[esito], leggiDataOra(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
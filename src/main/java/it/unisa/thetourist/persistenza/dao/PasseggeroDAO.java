@@ -1,4 +1,97 @@
 package it.unisa.thetourist.persistenza.dao;
 
+import it.unisa.thetourist.dominio.entita.Passeggero;
+import it.unisa.thetourist.persistenza.jdbc.PersistenzaException;
+import it.unisa.thetourist.persistenza.jdbc.Schema;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
 public class PasseggeroDAO {
+
+    private static final String SELEZIONA = "SELECT codice_prenotazione, posizione, nome, cognome, documento "
+            + "FROM passeggero ORDER BY codice_prenotazione, posizione";
+    private static final String INSERISCI = "INSERT INTO passeggero (codice_prenotazione, posizione, nome, cognome, documento) "
+            + "VALUES (?, ?, ?, ?, ?)";
+
+    private final Map<String, List<Passeggero>> perPrenotazione = new ConcurrentHashMap<>();
+    // Prossima posizione libera per prenotazione: un salvataggio fallito lascia un buco, non un duplicato
+    private final Map<String, AtomicInteger> prossimaPosizione = new ConcurrentHashMap<>();
+    private final DataSource db;
+
+    public PasseggeroDAO() {
+        this.db = null;
+    }
+
+    // Passeggeri su database, letti tutti all'apertura; ogni salvataggio è scritto prima di diventare visibile.
+    // È l'unico DAO che scrive la tabella: PrenotazioneDAOJdbc li legge da qui.
+    public PasseggeroDAO(DataSource db) throws SQLException {
+        this.db = db;
+        Schema.crea(db);
+        try (Connection c = db.getConnection();
+             PreparedStatement ps = c.prepareStatement(SELEZIONA);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String codice = rs.getString(1);
+                perPrenotazione.computeIfAbsent(codice, k -> new CopyOnWriteArrayList<>())
+                        .add(new Passeggero(codice, rs.getString(3), rs.getString(4), rs.getString(5)));
+                prossimaPosizione.computeIfAbsent(codice, k -> new AtomicInteger()).set(rs.getInt(2) + 1);
+            }
+        }
+    }
+
+    public List<Passeggero> findByPrenotazione(String codicePrenotazione) {
+        List<Passeggero> passeggeri = perPrenotazione.get(codicePrenotazione);
+        return passeggeri == null ? List.of() : List.copyOf(passeggeri);
+    }
+
+    public void salva(Passeggero passeggero) {
+        salvaTutti(List.of(passeggero));
+    }
+
+    // Un solo inserimento per prenotazione invece di uno per passeggero; su database un solo batch.
+    // I passeggeri di una stessa prenotazione vanno salvati da un chiamante alla volta, che ne fissa l'ordine.
+    public void salvaTutti(Collection<Passeggero> passeggeri) {
+        Map<String, List<Passeggero>> perCodice = passeggeri.stream()
+                .collect(Collectors.groupingBy(Passeggero::getCodicePrenotazione));
+        if (db != null) scrivi(perCodice);
+        perCodice.forEach((codice, lista) -> perPrenotazione.computeIfAbsent(codice, k -> new CopyOnWriteArrayList<>()).addAll(lista));
+    }
+
+    private void scrivi(Map<String, List<Passeggero>> perCodice) {
+        try (Connection c = db.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(INSERISCI)) {
+                for (Map.Entry<String, List<Passeggero>> e : perCodice.entrySet()) {
+                    int posizione = prossimaPosizione.computeIfAbsent(e.getKey(), k -> new AtomicInteger())
+                            .getAndAdd(e.getValue().size());
+                    for (Passeggero p : e.getValue()) {
+                        ps.setString(1, p.getCodicePrenotazione());
+                        ps.setInt(2, posizione++);
+                        ps.setString(3, p.getNome());
+                        ps.setString(4, p.getCognome());
+                        ps.setString(5, p.getDocumento());
+                        ps.addBatch();
+                    }
+                }
+                ps.executeBatch();
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new PersistenzaException("Salvataggio dei passeggeri fallito", e);
+        }
+    }
 }
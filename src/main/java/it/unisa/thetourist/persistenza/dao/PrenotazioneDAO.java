@@ -1,4 +1,42 @@
 package it.unisa.thetourist.persistenza.dao;
 
-public class PrenotazioneDAO {
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+import it.unisa.thetourist.dominio.enumerazioni.StatoPrenotazione;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Prenotazioni, con tre backend: solo memoria, journal su file e database (DataSource).
+// Le letture sono sempre servite dalla memoria; un salvataggio è persistente prima di diventare visibile.
+public interface PrenotazioneDAO extends AutoCloseable {
+
+    Optional<Prenotazione> findByCodice(String codice);
+
+    default List<Prenotazione> findByUtente(String idUtente) {
+        return findByUtente(idUtente, EnumSet.allOf(StatoPrenotazione.class), null, null, Integer.MAX_VALUE);
+    }
+
+    // Fino a 'limite' prenotazioni dell'utente negli stati richiesti, in ordine di partenza e codice,
+    // successive alla prenotazione (dopoPartenza, dopoCodice); dalla prima se dopoCodice è null.
+    // Le prenotazioni senza data di partenza vengono prima di tutte le altre.
+    List<Prenotazione> findByUtente(String idUtente, Set<StatoPrenotazione> stati,
+                                    LocalDateTime dopoPartenza, String dopoCodice, int limite);
+
+    // Scansione completa: serve all'avvio, non sul percorso delle richieste
+    List<Prenotazione> findByStato(StatoPrenotazione stato);
+
+    default void salva(Prenotazione prenotazione) {
+        salvaTutti(List.of(prenotazione));
+    }
+
+    // Le prenotazioni del lotto diventano persistenti insieme
+    void salvaTutti(Collection<Prenotazione> prenotazioni);
+
+    @Override
+    default void close() throws IOException { }
 }
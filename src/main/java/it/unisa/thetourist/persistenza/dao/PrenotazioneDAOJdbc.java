@@ -0,0 +1,112 @@
+package it.unisa.thetourist.persistenza.dao;
+
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+import it.unisa.thetourist.dominio.enumerazioni.StatoPrenotazione;
+import it.unisa.thetourist.persistenza.jdbc.PersistenzaException;
+import it.unisa.thetourist.persistenza.jdbc.Schema;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static it.unisa.thetourist.persistenza.jdbc.Colonne.*;
+
+// Prenotazioni su database, lette tutte all'apertura: le ricerche restano in memoria.
+// Ogni salvataggio è una transazione a lotti e diventa visibile solo dopo il commit.
+// I passeggeri hanno la loro tabella, scritta solo da PasseggeroDAO: qui vengono solo riagganciati all'apertura.
+// Conviene passare un PoolConnessioni, che riusa connessioni e statement preparati.
+public class PrenotazioneDAOJdbc extends PrenotazioneDAOMemoria {
+
+    private static final String SELEZIONA = "SELECT codice, id_utente, codice_volo, codice_tariffa, codice_gruppo, stato, "
+            + "importo, data_creazione, data_partenza, posti_riservati, scadenza_blocco FROM prenotazione";
+    private static final String CANCELLA = "DELETE FROM prenotazione WHERE codice = ?";
+    private static final String INSERISCI = "INSERT INTO prenotazione (codice, id_utente, codice_volo, codice_tariffa, "
+            + "codice_gruppo, stato, importo, data_creazione, data_partenza, posti_riservati, scadenza_blocco) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final DataSource db;
+
+    public PrenotazioneDAOJdbc(DataSource db, PasseggeroDAO passeggeroDAO) throws SQLException {
+        this.db = db;
+        Schema.crea(db);
+        try (Connection c = db.getConnection();
+             PreparedStatement ps = c.prepareStatement(SELEZIONA);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Prenotazione p = leggi(rs);
+                p.getPasseggeri().addAll(passeggeroDAO.findByPrenotazione(p.getCodice()));
+                applica(p);
+            }
+        }
+    }
+
+    @Override
+    public void salvaTutti(Collection<Prenotazione> prenotazioni) {
+        Map<String, Prenotazione> perCodiceLotto = new LinkedHashMap<>();
+        for (Prenotazione p : prenotazioni) perCodiceLotto.put(p.getCodice(), p);
+        scrivi(perCodiceLotto.values());
+        for (Prenotazione p : perCodiceLotto.values()) applica(p);
+    }
+
+    // Due batch in una transazione: le righe vengono cancellate e reinserite,
+    // così un salvataggio è identico che la prenotazione esista già o no
+    private void scrivi(Collection<Prenotazione> lotto) {
+        try (Connection c = db.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement cancella = c.prepareStatement(CANCELLA);
+                 PreparedStatement inserisci = c.prepareStatement(INSERISCI)) {
+                for (Prenotazione p : lotto) {
+                    cancella.setString(1, p.getCodice());
+                    cancella.addBatch();
+                    synchronized (p) {
+                        imposta(inserisci, p);
+                    }
+                    inserisci.addBatch();
+                }
+                cancella.executeBatch();
+                inserisci.executeBatch();
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new PersistenzaException("Salvataggio delle prenotazioni fallito", e);
+        }
+    }
+
+    private static void imposta(PreparedStatement ps, Prenotazione p) throws SQLException {
+        ps.setString(1, p.getCodice());
+        ps.setString(2, p.getIdUtente());
+        ps.setString(3, p.getCodiceVolo());
+        ps.setString(4, p.getCodiceTariffa());
+        ps.setString(5, p.getCodiceGruppo());
+        ps.setString(6, p.getStato().name());
+        ps.setBigDecimal(7, p.getImporto());
+        impostaDataOra(ps, 8, p.getDataCreazione());
+        impostaDataOra(ps, 9, p.getDataPartenza());
+        ps.setInt(10, p.getPostiRiservati());
+        impostaDataOra(ps, 11, p.getScadenzaBlocco());
+    }
+
+    private static Prenotazione leggi(ResultSet rs) throws SQLException {
+        Prenotazione p = new Prenotazione();
+        p.setCodice(rs.getString(1));
+        p.setIdUtente(rs.getString(2));
+        p.setCodiceVolo(rs.getString(3));
+        p.setCodiceTariffa(rs.getString(4));
+        p.setCodiceGruppo(rs.getString(5));
+        p.setStato(StatoPrenotazione.valueOf(rs.getString(6)));
+        p.setImporto(rs.getBigDecimal(7));
+        p.setDataCreazione(leggiDataOra(rs, 8));
+        p.setDataPartenza(leggiDataOra(rs, 9));
+        p.setPostiRiservati(rs.getInt(10));
+        p.setScadenzaBlocco(leggiDataOra(rs, 11));
+        return p;
+    }
+}
@@ -0,0 +1,121 @@
+package it.unisa.thetourist.persistenza.dao;
+
+import it.unisa.thetourist.dominio.entita.Passeggero;
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+import it.unisa.thetourist.dominio.enumerazioni.StatoPrenotazione;
+import it.unisa.thetourist.persistenza.journal.Journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static it.unisa.thetourist.persistenza.journal.Codifica.*;
+
+// Prenotazioni persistenti: il journal viene rigiocato all'apertura e ogni salva è su disco al ritorno.
+// Il journal è l'unica copia durevole, quindi ogni record porta con sé anche i passeggeri.
+public class PrenotazioneDAOJournal extends PrenotazioneDAOMemoria {
+
+    private static final byte SALVA = 2;
+    private static final int CAPACITA_JOURNAL = 64 << 20;
+    private static final long SOGLIA_COMPATTAZIONE = 256L << 20;
+
+    // Ultimo record scritto per codice: la compattazione lo riusa senza toccare le entità
+    private final Map<String, Journal.Record> ultimiRecord = new ConcurrentHashMap<>();
+    private final Journal journal;
+
+    public PrenotazioneDAOJournal(Path file) throws IOException {
+        this.journal = Journal.apri(file, CAPACITA_JOURNAL, SOGLIA_COMPATTAZIONE, (tipo, dati) -> {
+            Prenotazione p = decodifica(tipo, dati);
+            applica(p);
+            ultimiRecord.put(p.getCodice(), new Journal.Record(tipo, dati));
+        }, () -> List.copyOf(ultimiRecord.values()));
+    }
+
+    // Le prenotazioni del lotto finiscono nello stesso commit
+    @Override
+    public void salvaTutti(Collection<Prenotazione> prenotazioni) {
+        List<Prenotazione> lotto = List.copyOf(prenotazioni);
+        List<Journal.Record> records = new ArrayList<>(lotto.size());
+        for (Prenotazione p : lotto) records.add(new Journal.Record(SALVA, codifica(p)));
+        try {
+            journal.scrivi(records, () -> {
+                for (int i = 0; i < lotto.size(); i++) {
+                    applica(lotto.get(i));
+                    ultimiRecord.put(lotto.get(i).getCodice(), records.get(i));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    private static byte[] codifica(Prenotazione p) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            // i passeggeri vengono aggiunti sotto il lock della prenotazione
+            synchronized (p) {
+                scriviStringa(out, p.getCodice());
+                scriviStringa(out, p.getIdUtente());
+                scriviStringa(out, p.getCodiceVolo());
+                scriviStringa(out, p.getCodiceTariffa());
+                scriviStringa(out, p.getCodiceGruppo());
+                out.writeByte(p.getStato().ordinal());
+                scriviImporto(out, p.getImporto());
+                scriviDataOra(out, p.getDataCreazione());
+                out.writeInt(p.getPostiRiservati());
+                scriviDataOra(out, p.getScadenzaBlocco());
+                scriviDataOra(out, p.getDataPartenza());
+                out.writeShort(p.getPasseggeri().size());
+                for (Passeggero passeggero : p.getPasseggeri()) {
+                    scriviStringa(out, passeggero.getNome());
+                    scriviStringa(out, passeggero.getCognome());
+                    scriviStringa(out, passeggero.getDocumento());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Prenotazione decodifica(byte tipo, byte[] dati) {
+        if (tipo != SALVA) throw new UncheckedIOException(new IOException("Record di prenotazione sconosciuto: " + tipo));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(dati));
+        try {
+            Prenotazione p = new Prenotazione();
+            p.setCodice(leggiStringa(in));
+            p.setIdUtente(leggiStringa(in));
+            p.setCodiceVolo(leggiStringa(in));
+            p.setCodiceTariffa(leggiStringa(in));
+            p.setCodiceGruppo(leggiStringa(in));
+            p.setStato(StatoPrenotazione.values()[in.readByte()]);
+            p.setImporto(leggiImporto(in));
+            p.setDataCreazione(leggiDataOra(in));
+            p.setPostiRiservati(in.readInt());
+            p.setScadenzaBlocco(leggiDataOra(in));
+            p.setDataPartenza(leggiDataOra(in));
+            int passeggeri = in.readShort();
+            for (int i = 0; i < passeggeri; i++) {
+                p.getPasseggeri().add(new Passeggero(p.getCodice(), leggiStringa(in), leggiStringa(in), leggiStringa(in)));
+            }
+            return p;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
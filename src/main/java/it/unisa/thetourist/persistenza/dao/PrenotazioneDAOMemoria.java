@@ -0,0 +1,114 @@
+package it.unisa.thetourist.persistenza.dao;
+
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+import it.unisa.thetourist.dominio.enumerazioni.StatoPrenotazione;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Prenotazioni in memoria. I backend persistenti la estendono: scrivono il lotto e poi lo applicano qui.
+public class PrenotazioneDAOMemoria implements PrenotazioneDAO {
+
+    private final Map<String, Prenotazione> perCodice = new ConcurrentHashMap<>();
+
+    // Indice secondario per utente: una mappa ordinata per stato, per partenza e codice.
+    // Ogni pagina parte dalla chiave dell'ultima letta e costa O(dimensione pagina) anche filtrando per stato.
+    private record Chiave(long partenza, String codice) { }
+
+    private record Posizione(String idUtente, StatoPrenotazione stato, Chiave chiave) { }
+
+    private static final Comparator<Chiave> ORDINE = Comparator.comparingLong(Chiave::partenza).thenComparing(Chiave::codice);
+    private static final int STATI = StatoPrenotazione.values().length;
+
+    private final Map<String, ConcurrentSkipListMap<Chiave, Prenotazione>[]> perUtente = new ConcurrentHashMap<>();
+    private final Map<String, Posizione> posizioni = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<Prenotazione> findByCodice(String codice) {
+        return Optional.ofNullable(perCodice.get(codice));
+    }
+
+    @Override
+    public List<Prenotazione> findByUtente(String idUtente, Set<StatoPrenotazione> stati,
+                                           LocalDateTime dopoPartenza, String dopoCodice, int limite) {
+        ConcurrentSkipListMap<Chiave, Prenotazione>[] indice = perUtente.get(idUtente);
+        if (indice == null) return List.of();
+        Chiave dopo = dopoCodice == null ? null : new Chiave(secondi(dopoPartenza), dopoCodice);
+
+        // fusione delle mappe degli stati richiesti, già ordinate
+        List<Iterator<Map.Entry<Chiave, Prenotazione>>> sorgenti = new ArrayList<>();
+        List<Map.Entry<Chiave, Prenotazione>> teste = new ArrayList<>();
+        for (StatoPrenotazione stato : stati) {
+            ConcurrentNavigableMap<Chiave, Prenotazione> m = dopo == null ? indice[stato.ordinal()]
+                    : indice[stato.ordinal()].tailMap(dopo, false);
+            Iterator<Map.Entry<Chiave, Prenotazione>> it = m.entrySet().iterator();
+            if (it.hasNext()) {
+                sorgenti.add(it);
+                teste.add(it.next());
+            }
+        }
+        List<Prenotazione> risultato = new ArrayList<>();
+        while (risultato.size() < limite && !teste.isEmpty()) {
+            int min = 0;
+            for (int i = 1; i < teste.size(); i++) {
+                if (ORDINE.compare(teste.get(i).getKey(), teste.get(min).getKey()) < 0) min = i;
+            }
+            risultato.add(teste.get(min).getValue());
+            if (sorgenti.get(min).hasNext()) {
+                teste.set(min, sorgenti.get(min).next());
+            } else {
+                teste.remove(min);
+                sorgenti.remove(min);
+            }
+        }
+        return risultato;
+    }
+
+    @Override
+    public List<Prenotazione> findByStato(StatoPrenotazione stato) {
+        return perCodice.values().stream().filter(p -> p.getStato() == stato).toList();
+    }
+
+    @Override
+    public void salvaTutti(Collection<Prenotazione> prenotazioni) {
+        for (Prenotazione p : prenotazioni) applica(p);
+    }
+
+    // Rende visibile una prenotazione già persistita dal backend
+    protected final void applica(Prenotazione p) {
+        perCodice.put(p.getCodice(), p);
+        indicizza(p);
+    }
+
+    // Le prenotazioni vengono modificate sul posto: la posizione indicizzata è quella ricordata, non quella attuale.
+    // compute serializza gli aggiornamenti della stessa prenotazione; chi legge non prende lock.
+    @SuppressWarnings("unchecked")
+    private void indicizza(Prenotazione p) {
+        posizioni.compute(p.getCodice(), (codice, vecchia) -> {
+            Posizione nuova = new Posizione(p.getIdUtente(), p.getStato(), new Chiave(secondi(p.getDataPartenza()), codice));
+            if (nuova.equals(vecchia)) return vecchia;
+            if (vecchia != null) perUtente.get(vecchia.idUtente())[vecchia.stato().ordinal()].remove(vecchia.chiave());
+            perUtente.computeIfAbsent(nuova.idUtente(), u -> {
+                ConcurrentSkipListMap<Chiave, Prenotazione>[] perStato = new ConcurrentSkipListMap[STATI];
+                for (int i = 0; i < STATI; i++) perStato[i] = new ConcurrentSkipListMap<>(ORDINE);
+                return perStato;
+            })[nuova.stato().ordinal()].put(nuova.chiave(), p);
+            return nuova;
+        });
+    }
+
+    private static long secondi(LocalDateTime t) {
+        return t == null ? Long.MIN_VALUE : t.toEpochSecond(ZoneOffset.UTC);
+    }
+}
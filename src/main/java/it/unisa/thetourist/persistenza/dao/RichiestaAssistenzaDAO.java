@@ -1,4 +1,29 @@
 package it.unisa.thetourist.persistenza.dao;
 
+import it.unisa.thetourist.dominio.entita.RichiestaAssistenza;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class RichiestaAssistenzaDAO {
+
+    private final Map<String, RichiestaAssistenza> perCodice = new ConcurrentHashMap<>();
+
+    public Optional<RichiestaAssistenza> findByCodice(String codice) {
+        return Optional.ofNullable(perCodice.get(codice));
+    }
+
+    public List<RichiestaAssistenza> findByUtente(String idUtente) {
+        return perCodice.values().stream().filter(r -> r.getIdUtente().equals(idUtente)).toList();
+    }
+
+    public List<RichiestaAssistenza> findAll() {
+        return List.copyOf(perCodice.values());
+    }
+
+    public void salva(RichiestaAssistenza richiesta) {
+        perCodice.put(richiesta.getCodice(), richiesta);
+    }
 }
@@ -1,4 +1,23 @@
 package it.unisa.thetourist.persistenza.dao;
 
+import it.unisa.thetourist.dominio.entita.RispostaAssistenza;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 public class RispostaAssistenzaDAO {
+
+    private final Map<String, List<RispostaAssistenza>> perRichiesta = new ConcurrentHashMap<>();
+
+    // In ordine di inserimento
+    public List<RispostaAssistenza> findByRichiesta(String codiceRichiesta) {
+        List<RispostaAssistenza> risposte = perRichiesta.get(codiceRichiesta);
+        return risposte == null ? List.of() : List.copyOf(risposte);
+    }
+
+    public void salva(RispostaAssistenza risposta) {
+        perRichiesta.computeIfAbsent(risposta.getCodiceRichiesta(), k -> new CopyOnWriteArrayList<>()).add(risposta);
+    }
 }
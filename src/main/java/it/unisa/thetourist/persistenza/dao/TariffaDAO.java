@@ -1,4 +1,107 @@
 package it.unisa.thetourist.persistenza.dao;
 
+import it.unisa.thetourist.dominio.entita.Tariffa;
+import it.unisa.thetourist.persistenza.snapshot.FotoCatalogo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 public class TariffaDAO {
+
+    private final Map<String, Tariffa> perCodice = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Tariffa>> perVolo = new ConcurrentHashMap<>();
+    private final AtomicLong versione = new AtomicLong();
+    // Versione dell'ultima modifica alle tariffe di ciascun volo, presa dal contatore globale
+    private final Map<String, Long> versioniPerVolo = new ConcurrentHashMap<>();
+
+    // Tariffe della foto caricata all'avvio, materializzate a ogni lettura; le modifiche successive
+    // vivono nelle mappe sopra e oscurano la riga corrispondente della foto.
+    private final FotoCatalogo foto;
+    private final Set<Integer> oscurate = ConcurrentHashMap.newKeySet();
+
+    public TariffaDAO() {
+        this(null);
+    }
+
+    public TariffaDAO(FotoCatalogo foto) {
+        this.foto = foto;
+    }
+
+    public Optional<Tariffa> findByCodice(String codice) {
+        Tariffa t = perCodice.get(codice);
+        if (t != null || foto == null) return Optional.ofNullable(t);
+        int r = foto.cercaTariffa(codice);
+        return r < 0 || oscurate.contains(r) ? Optional.empty() : Optional.of(foto.tariffa(r));
+    }
+
+    public List<Tariffa> findByVolo(String codiceVolo) {
+        Map<String, Tariffa> tariffe = perVolo.get(codiceVolo);
+        int v = foto == null ? -1 : foto.cercaVolo(codiceVolo);
+        if (v < 0) return tariffe == null ? List.of() : List.copyOf(tariffe.values());
+
+        List<Tariffa> risultato = tariffe == null ? new ArrayList<>() : new ArrayList<>(tariffe.values());
+        for (int r = foto.primaTariffa(v), fine = foto.fineTariffe(v); r < fine; r++) {
+            if (!oscurate.contains(r)) risultato.add(foto.tariffa(r));
+        }
+        return risultato;
+    }
+
+    public void salva(Tariffa tariffa) {
+        salvaTutti(List.of(tariffa));
+    }
+
+    public synchronized void salvaTutti(Collection<Tariffa> tariffe) {
+        Set<String> voli = new HashSet<>();
+        for (Tariffa tariffa : tariffe) {
+            Tariffa precedente = perCodice.put(tariffa.getCodice(), tariffa);
+            if (precedente != null) togliDaVolo(precedente);
+            else precedente = oscura(tariffa.getCodice());
+            if (precedente != null) voli.add(precedente.getCodiceVolo());
+            perVolo.computeIfAbsent(tariffa.getCodiceVolo(), k -> new ConcurrentHashMap<>())
+                    .put(tariffa.getCodice(), tariffa);
+            voli.add(tariffa.getCodiceVolo());
+        }
+        modificati(voli);
+    }
+
+    public synchronized boolean rimuovi(String codice) {
+        Tariffa t = perCodice.remove(codice);
+        if (t != null) togliDaVolo(t);
+        else if ((t = oscura(codice)) == null) return false;
+        modificati(Set.of(t.getCodiceVolo()));
+        return true;
+    }
+
+    // Cresce a ogni modifica
+    public long versione() { return versione.get(); }
+
+    // Cambia solo quando cambiano le tariffe di quel volo; 0 se non sono mai cambiate dall'avvio
+    public long versione(String codiceVolo) { return versioniPerVolo.getOrDefault(codiceVolo, 0L); }
+
+    // Le versioni sono aggiornate dopo le mappe: chi le legge prima delle tariffe non vede mai dati più vecchi
+    private void modificati(Set<String> voli) {
+        long v = versione.incrementAndGet();
+        for (String codiceVolo : voli) versioniPerVolo.put(codiceVolo, v);
+    }
+
+    // Tariffa della foto oscurata, null se non c'era o era già oscurata
+    private Tariffa oscura(String codice) {
+        if (foto == null) return null;
+        int r = foto.cercaTariffa(codice);
+        return r >= 0 && oscurate.add(r) ? foto.tariffa(r) : null;
+    }
+
+    private void togliDaVolo(Tariffa t) {
+        Map<String, Tariffa> tariffe = perVolo.get(t.getCodiceVolo());
+        if (tariffe == null) return;
+        tariffe.remove(t.getCodice());
+        if (tariffe.isEmpty()) perVolo.remove(t.getCodiceVolo());
+    }
 }
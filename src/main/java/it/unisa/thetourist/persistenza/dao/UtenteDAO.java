@@ -1,4 +1,28 @@
 package it.unisa.thetourist.persistenza.dao;
 
+import it.unisa.thetourist.dominio.entita.Utente;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class UtenteDAO {
+
+    private final Map<String, Utente> perId = new ConcurrentHashMap<>();
+    private final Map<String, Utente> perEmail = new ConcurrentHashMap<>();
+
+    public Optional<Utente> findById(String id) {
+        return Optional.ofNullable(perId.get(id));
+    }
+
+    public Optional<Utente> findByEmail(String email) {
+        return Optional.ofNullable(perEmail.get(email.toLowerCase(Locale.ROOT)));
+    }
+
+    public synchronized void salva(Utente utente) {
+        Utente precedente = perId.put(utente.getId(), utente);
+        if (precedente != null) perEmail.remove(precedente.getEmail().toLowerCase(Locale.ROOT));
+        perEmail.put(utente.getEmail().toLowerCase(Locale.ROOT), utente);
+    }
 }
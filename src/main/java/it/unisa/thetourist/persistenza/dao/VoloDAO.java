@@ -2,11 +2,408 @@ package it.unisa.thetourist.persistenza.dao;
 
 import it.unisa.thetourist.applicazione.dto.CriteriRicercaDTO;
 import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.jdbc.PersistenzaException;
+import it.unisa.thetourist.persistenza.jdbc.Schema;
+import it.unisa.thetourist.persistenza.snapshot.FotoCatalogo;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import static it.unisa.thetourist.persistenza.jdbc.Colonne.*;
 
 public class VoloDAO {
+
+    // Indice in memoria: (partenza, arrivo) -> voli ordinati per data/ora di partenza.
+    // Gli array sono copy-on-write, quindi le ricerche non prendono lock.
+    private record Tratta(String partenza, String arrivo) { }
+    private record Voce(LocalDateTime dataOra, Volo volo) { }
+    private record Posizione(Tratta tratta, Voce voce) { }
+
+    private interface Visitatore {
+        void visita(LocalDateTime dataOra, Volo volo);
+    }
+
+    private static final Voce[] VUOTO = new Voce[0];
+    private static final Volo OSCURATO = new Volo();
+    private static final Comparator<Tratta> ORDINE_TRATTE =
+            Comparator.comparing(Tratta::partenza).thenComparing(Tratta::arrivo);
+
+    private static final int RIGHE_PER_LETTURA = 1_000;
+    private static final String SELEZIONA = "SELECT codice, partenza, arrivo, data_ora_partenza, data_ora_arrivo, "
+            + "posti_disponibili, capienza, posti_versione FROM volo";
+    private static final String CANCELLA = "DELETE FROM volo WHERE codice = ?";
+    private static final String AGGIORNA_POSTI = "UPDATE volo SET posti_disponibili = ?, posti_versione = ? "
+            + "WHERE codice = ? AND posti_versione < ?";
+    private static final String INSERISCI = "INSERT INTO volo (codice, partenza, arrivo, data_ora_partenza, data_ora_arrivo, "
+            + "posti_disponibili, capienza, posti_versione) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final Map<Tratta, Voce[]> indice = new ConcurrentHashMap<>();
+    private final Map<String, Posizione> perCodice = new ConcurrentHashMap<>();
+    private final AtomicLong versioneTratte = new AtomicLong();
+    private final AtomicLong versione = new AtomicLong();
+
+    // Foto caricata all'avvio: le ricerche leggono direttamente le righe mappate e creano il Volo
+    // solo per i risultati, conservandolo in materializzati perché l'identità resti stabile.
+    // Un volo modificato o rimosso passa all'indice in memoria e la sua riga viene OSCURATA.
+    private final FotoCatalogo foto;
+    private final AtomicReferenceArray<Volo> materializzati;
+    private final Map<Tratta, Integer> tratteFoto = new HashMap<>();
+    private final Tratta[] trattePerIndice;
+    private final AtomicIntegerArray viviPerTratta;
+    private final AtomicInteger viviFoto;
+
+    // Database su cui scrivere ogni modifica del catalogo; null: solo memoria
+    private final DataSource db;
+    // Versione dei posti scritti: una scrittura più vecchia non sovrascrive una più recente.
+    // Riparte dalla massima letta all'apertura.
+    private final AtomicLong versionePosti = new AtomicLong();
+
+    public VoloDAO() {
+        this((FotoCatalogo) null);
+    }
+
+    public VoloDAO(FotoCatalogo foto) {
+        this(foto, null);
+    }
+
+    // Catalogo su database, letto all'apertura con un cursore in avanti a blocchi di RIGHE_PER_LETTURA:
+    // il driver non tiene in memoria l'intero risultato. L'indice viene costruito con un solo inserimento.
+    // I posti disponibili sono quelli scritti dall'inventario con salvaPosti a ogni variazione.
+    public VoloDAO(DataSource db) throws SQLException {
+        this(null, db);
+        Schema.crea(db);
+        Map<String, Volo> voli = new LinkedHashMap<>();
+        try (Connection c = db.getConnection()) {
+            // alcuni driver (PostgreSQL) leggono a blocchi solo fuori dall'autocommit
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(SELEZIONA, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(RIGHE_PER_LETTURA);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Volo v = new Volo(rs.getString(1), rs.getString(2), rs.getString(3),
+                                leggiDataOra(rs, 4), leggiDataOra(rs, 5), rs.getInt(6), rs.getInt(7));
+                        voli.put(v.getCodice(), v);
+                        versionePosti.accumulateAndGet(rs.getLong(8), Math::max);
+                    }
+                }
+            }
+            c.commit();
+        }
+        applica(voli);
+    }
+
+    private VoloDAO(FotoCatalogo foto, DataSource db) {
+        this.db = db;
+        this.foto = foto;
+        int tratte = foto == null ? 0 : foto.numeroTratte();
+        this.materializzati = new AtomicReferenceArray<>(foto == null ? 0 : foto.numeroVoli());
+        this.trattePerIndice = new Tratta[tratte];
+        this.viviPerTratta = new AtomicIntegerArray(tratte);
+        for (int t = 0; t < tratte; t++) {
+            trattePerIndice[t] = new Tratta(foto.partenzaTratta(t), foto.arrivoTratta(t));
+            tratteFoto.put(trattePerIndice[t], t);
+            viviPerTratta.set(t, foto.fineVoli(t) - foto.primoVolo(t));
+        }
+        this.viviFoto = new AtomicInteger(foto == null ? 0 : foto.numeroVoli());
+    }
+
     public List<Volo> findByCriteria(CriteriRicercaDTO criteri) {
-        throw new UnsupportedOperationException("TODO");
+        LocalDateTime da = criteri.getDataPartenza().atStartOfDay();
+        return findPartenze(criteri.getPartenza(), criteri.getArrivo(), da, da.plusDays(1), criteri.getNumeroPasseggeri());
+    }
+
+    // Voli della tratta con partenza in [da, a)
+    public List<Volo> findPartenze(String partenza, String arrivo, LocalDateTime da, LocalDateTime a, int numeroPasseggeri) {
+        List<Volo> risultato = new ArrayList<>();
+        scorri(new Tratta(partenza, arrivo), da, a, numeroPasseggeri, true, (dataOra, v) -> risultato.add(v));
+        return risultato;
+    }
+
+    // Un'unica scansione sull'intervallo [da, a] della tratta; ogni giorno dell'intervallo è presente,
+    // eventualmente con lista vuota, in ordine di data.
+    public SortedMap<LocalDate, List<Volo>> findByIntervallo(String partenza, String arrivo,
+                                                             LocalDate da, LocalDate a, int numeroPasseggeri) {
+        SortedMap<LocalDate, List<Volo>> perGiorno = new TreeMap<>();
+        for (LocalDate g = da; !g.isAfter(a); g = g.plusDays(1)) perGiorno.put(g, new ArrayList<>());
+        scorri(new Tratta(partenza, arrivo), da.atStartOfDay(), a.plusDays(1).atStartOfDay(), numeroPasseggeri, true,
+                (dataOra, v) -> perGiorno.get(dataOra.toLocalDate()).add(v));
+        return perGiorno;
+    }
+
+    public Optional<Volo> findByCodice(String codice) {
+        Posizione p = perCodice.get(codice);
+        if (p != null) return Optional.of(p.voce().volo());
+        int r = foto == null ? -1 : foto.cercaVolo(codice);
+        return r < 0 ? Optional.empty() : Optional.ofNullable(materializza(r));
+    }
+
+    // Tutti i voli, raggruppati per tratta e in ordine di partenza, senza trattenere quelli della foto
+    public void visita(Consumer<Volo> azione) {
+        TreeSet<Tratta> tratte = new TreeSet<>(ORDINE_TRATTE);
+        tratte.addAll(indice.keySet());
+        for (int t = 0; t < trattePerIndice.length; t++) if (viviPerTratta.get(t) > 0) tratte.add(trattePerIndice[t]);
+        for (Tratta t : tratte) scorri(t, LocalDateTime.MIN, LocalDateTime.MAX, Integer.MIN_VALUE, false, (dataOra, v) -> azione.accept(v));
+    }
+
+    public void salva(Volo volo) {
+        salvaTutti(List.of(volo));
+    }
+
+    // Inserimento a lotti: l'array di ogni tratta toccata viene copiato una sola volta, fondendo
+    // i voli nuovi (ordinati) con quelli esistenti. A parità di codice vale l'ultimo del lotto.
+    public synchronized void salvaTutti(Collection<Volo> voli) {
+        Map<String, Volo> perCodiceLotto = new LinkedHashMap<>();
+        for (Volo v : voli) perCodiceLotto.put(v.getCodice(), v);
+        if (db != null) scrivi(perCodiceLotto.values(), List.of());
+        applica(perCodiceLotto);
+    }
+
+    private void applica(Map<String, Volo> perCodiceLotto) {
+
+        Map<Tratta, Boolean> presentiPrima = new HashMap<>();
+        Map<Tratta, List<Voce>> nuove = new HashMap<>();
+        for (Volo volo : perCodiceLotto.values()) {
+            Tratta tratta = new Tratta(volo.getPartenza(), volo.getArrivo());
+            presentiPrima.computeIfAbsent(tratta, this::presente);
+            nuove.computeIfAbsent(tratta, k -> new ArrayList<>()).add(new Voce(volo.getDataOraPartenza(), volo));
+        }
+        // una tratta da cui si toglie un volo era per forza presente
+        for (String codice : perCodiceLotto.keySet()) {
+            Tratta precedente = togli(codice);
+            if (precedente != null) presentiPrima.putIfAbsent(precedente, true);
+        }
+
+        for (Map.Entry<Tratta, List<Voce>> e : nuove.entrySet()) {
+            List<Voce> aggiunte = e.getValue();
+            aggiunte.sort(Comparator.comparing(Voce::dataOra));
+            Voce[] vecchie = indice.getOrDefault(e.getKey(), VUOTO);
+            Voce[] unite = new Voce[vecchie.length + aggiunte.size()];
+            int i = 0, j = 0, k = 0;
+            while (k < unite.length) {
+                // a parità di orario le voci esistenti precedono (inserimento stabile)
+                if (j == aggiunte.size() || (i < vecchie.length && !vecchie[i].dataOra().isAfter(aggiunte.get(j).dataOra()))) {
+                    unite[k++] = vecchie[i++];
+                } else {
+                    Voce voce = aggiunte.get(j++);
+                    unite[k++] = voce;
+                    perCodice.put(voce.volo().getCodice(), new Posizione(e.getKey(), voce));
+                }
+            }
+            indice.put(e.getKey(), unite);
+        }
+
+        for (Map.Entry<Tratta, Boolean> e : presentiPrima.entrySet()) {
+            if (e.getValue() != presente(e.getKey())) {
+                versioneTratte.incrementAndGet();
+                break;
+            }
+        }
+        versione.incrementAndGet();
+    }
+
+    public synchronized boolean rimuovi(String codice) {
+        if (db != null && findByCodice(codice).isPresent()) scrivi(List.of(), List.of(codice));
+        Tratta precedente = togli(codice);
+        if (precedente == null) return false;
+        if (!presente(precedente)) versioneTratte.incrementAndGet();
+        versione.incrementAndGet();
+        return true;
+    }
+
+    // Scrive i posti disponibili della copia del volo. Valore e versione vengono letti insieme sotto il monitor
+    // del volo, la scrittura avviene fuori: se arriva dopo una più recente la condizione sulla versione la scarta.
+    public void salvaPosti(Volo volo) {
+        if (db == null) return;
+        int posti;
+        long versione;
+        synchronized (volo) {
+            posti = volo.getPostiDisponibili();
+            versione = versionePosti.incrementAndGet();
+        }
+        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(AGGIORNA_POSTI)) {
+            ps.setInt(1, posti);
+            ps.setLong(2, versione);
+            ps.setString(3, volo.getCodice());
+            ps.setLong(4, versione);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new PersistenzaException("Salvataggio dei posti fallito", e);
+        }
+    }
+
+    // Solo su database i posti scritti con salvaPosti sopravvivono al riavvio;
+    // in memoria (anche da foto) ripartono da quelli del catalogo
+    public boolean postiPersistenti() { return db != null; }
+
+    public int conta() { return perCodice.size() + viviFoto.get(); }
+
+    // Aeroporto di partenza -> aeroporti raggiungibili con almeno un volo diretto
+    public Map<String, Set<String>> collegamenti() {
+        Map<String, Set<String>> uscite = new HashMap<>();
+        for (Tratta t : indice.keySet()) uscite.computeIfAbsent(t.partenza(), k -> new HashSet<>()).add(t.arrivo());
+        for (int i = 0; i < trattePerIndice.length; i++) {
+            Tratta t = trattePerIndice[i];
+            if (viviPerTratta.get(i) > 0) uscite.computeIfAbsent(t.partenza(), k -> new HashSet<>()).add(t.arrivo());
+        }
+        return uscite;
+    }
+
+    // Cresce quando compare o scompare una tratta
+    public long versioneTratte() { return versioneTratte.get(); }
+
+    // Cresce a ogni modifica del catalogo (non per la sola variazione dei posti)
+    public long versione() { return versione.get(); }
+
+    // Una transazione con due batch: i voli salvati vengono cancellati e reinseriti insieme a quelli rimossi
+    private void scrivi(Collection<Volo> salvati, Collection<String> rimossi) {
+        try (Connection c = db.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement cancella = c.prepareStatement(CANCELLA);
+                 PreparedStatement inserisci = c.prepareStatement(INSERISCI)) {
+                for (String codice : rimossi) {
+                    cancella.setString(1, codice);
+                    cancella.addBatch();
+                }
+                for (Volo v : salvati) {
+                    cancella.setString(1, v.getCodice());
+                    cancella.addBatch();
+                    inserisci.setString(1, v.getCodice());
+                    inserisci.setString(2, v.getPartenza());
+                    inserisci.setString(3, v.getArrivo());
+                    impostaDataOra(inserisci, 4, v.getDataOraPartenza());
+                    impostaDataOra(inserisci, 5, v.getDataOraArrivo());
+                    inserisci.setInt(6, v.getPostiDisponibili());
+                    inserisci.setInt(7, v.getCapienza());
+                    inserisci.setLong(8, versionePosti.incrementAndGet());
+                    inserisci.addBatch();
+                }
+                cancella.executeBatch();
+                if (!salvati.isEmpty()) inserisci.executeBatch();
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new PersistenzaException("Salvataggio dei voli fallito", e);
+        }
+    }
+
+    // Fonde, in ordine di partenza, le righe della foto e le voci in memoria della tratta con partenza in [da, a).
+    // memorizza = false non conserva i voli della foto (usato per la scrittura di una nuova foto).
+    private void scorri(Tratta tratta, LocalDateTime da, LocalDateTime a, int numeroPasseggeri,
+                        boolean memorizza, Visitatore visitatore) {
+        Voce[] voci = indice.getOrDefault(tratta, VUOTO);
+        int i = primoNonPrecedente(voci, da);
+        Integer t = foto == null ? null : tratteFoto.get(tratta);
+        int r = t == null ? 0 : foto.primoVoloNonPrecedente(t, secondiPerEccesso(da));
+        int fine = t == null ? 0 : foto.fineVoli(t);
+        long limite = secondiPerEccesso(a);
+
+        while (true) {
+            boolean haVoce = i < voci.length && voci[i].dataOra().isBefore(a);
+            boolean haRiga = r < fine && foto.partenzaVolo(r) < limite;
+            if (haRiga && (!haVoce || foto.partenzaVolo(r) <= FotoCatalogo.secondi(voci[i].dataOra()))) {
+                Volo v = materializzati.get(r);
+                int posti = v == null ? foto.postiVolo(r) : v.getPostiDisponibili();
+                if (v != OSCURATO && posti >= numeroPasseggeri) {
+                    if (v == null) v = memorizza ? materializza(r) : foto.volo(r);
+                    if (v != null) visitatore.visita(FotoCatalogo.dataOra(foto.partenzaVolo(r)), v);
+                }
+                r++;
+            } else if (haVoce) {
+                Volo v = voci[i].volo();
+                if (v.getPostiDisponibili() >= numeroPasseggeri) visitatore.visita(voci[i].dataOra(), v);
+                i++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    // null se la riga è stata oscurata nel frattempo
+    private Volo materializza(int r) {
+        Volo v = materializzati.get(r);
+        if (v == null) {
+            Volo nuovo = foto.volo(r);
+            v = materializzati.compareAndExchange(r, null, nuovo);
+            if (v == null) v = nuovo;
+        }
+        return v == OSCURATO ? null : v;
+    }
+
+    private boolean presente(Tratta tratta) {
+        if (indice.containsKey(tratta)) return true;
+        Integer t = foto == null ? null : tratteFoto.get(tratta);
+        return t != null && viviPerTratta.get(t) > 0;
+    }
+
+    // Toglie il volo dall'indice in memoria o ne oscura la riga nella foto; restituisce la sua tratta
+    private Tratta togli(String codice) {
+        Posizione p = perCodice.remove(codice);
+        if (p != null) {
+            togliVoce(p);
+            return p.tratta();
+        }
+        int r = foto == null ? -1 : foto.cercaVolo(codice);
+        if (r < 0 || materializzati.getAndSet(r, OSCURATO) == OSCURATO) return null;
+        int t = foto.trattaDiVolo(r);
+        viviPerTratta.decrementAndGet(t);
+        viviFoto.decrementAndGet();
+        return trattePerIndice[t];
+    }
+
+    private void togliVoce(Posizione p) {
+        Voce[] vecchie = indice.getOrDefault(p.tratta(), VUOTO);
+        int pos = Arrays.asList(vecchie).indexOf(p.voce());
+        if (pos < 0) return;
+        if (vecchie.length == 1) {
+            indice.remove(p.tratta());
+            return;
+        }
+        Voce[] nuove = new Voce[vecchie.length - 1];
+        System.arraycopy(vecchie, 0, nuove, 0, pos);
+        System.arraycopy(vecchie, pos + 1, nuove, pos, vecchie.length - pos - 1);
+        indice.put(p.tratta(), nuove);
+    }
+
+    // Le righe della foto sono al secondo: t <= riga  <=>  ceil(t) <= riga
+    private static long secondiPerEccesso(LocalDateTime t) {
+        return FotoCatalogo.secondi(t) + (t.getNano() > 0 ? 1 : 0);
+    }
+
+    // primo indice con dataOra >= soglia
+    private static int primoNonPrecedente(Voce[] voci, LocalDateTime soglia) {
+        int lo = 0, hi = voci.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (voci[mid].dataOra().isBefore(soglia)) lo = mid + 1; else hi = mid;
+        }
+        return lo;
     }
 }
@@ -0,0 +1,5 @@
+package it.unisa.thetourist.persistenza.integrazione.pagamento;
+
+public class GatewayNonDisponibileException extends RuntimeException {
+    public GatewayNonDisponibileException(String message) { super(message); }
+}
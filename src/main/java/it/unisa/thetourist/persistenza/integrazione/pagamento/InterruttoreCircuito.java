@@ -0,0 +1,53 @@
+package it.unisa.thetourist.persistenza.integrazione.pagamento;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Circuit breaker: dopo N guasti consecutivi si apre e rifiuta subito le chiamate;
+// trascorso il tempo di apertura lascia passare una sola chiamata di prova.
+public class InterruttoreCircuito {
+
+    public enum Stato { CHIUSO, APERTO, SEMI_APERTO }
+
+    private final int sogliaGuasti;
+    private final long aperturaNanos;
+    private final LongSupplier orologio;
+    private final AtomicInteger guastiConsecutivi = new AtomicInteger();
+    private final AtomicLong apertoFino = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger provaInCorso = new AtomicInteger();
+
+    public InterruttoreCircuito(int sogliaGuasti, Duration apertura) {
+        this(sogliaGuasti, apertura, System::nanoTime);
+    }
+
+    InterruttoreCircuito(int sogliaGuasti, Duration apertura, LongSupplier orologio) {
+        this.sogliaGuasti = sogliaGuasti;
+        this.aperturaNanos = apertura.toNanos();
+        this.orologio = orologio;
+    }
+
+    public boolean consenti() {
+        if (guastiConsecutivi.get() < sogliaGuasti) return true;
+        if (orologio.getAsLong() - apertoFino.get() < 0) return false;
+        return provaInCorso.compareAndSet(0, 1);
+    }
+
+    public void successo() {
+        guastiConsecutivi.set(0);
+        provaInCorso.set(0);
+    }
+
+    public void guasto() {
+        if (guastiConsecutivi.incrementAndGet() >= sogliaGuasti) {
+            apertoFino.set(orologio.getAsLong() + aperturaNanos);
+            provaInCorso.set(0);
+        }
+    }
+
+    public Stato stato() {
+        if (guastiConsecutivi.get() < sogliaGuasti) return Stato.CHIUSO;
+        return orologio.getAsLong() - apertoFino.get() < 0 ? Stato.APERTO : Stato.SEMI_APERTO;
+    }
+}
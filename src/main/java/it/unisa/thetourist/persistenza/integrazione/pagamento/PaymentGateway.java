@@ -1,4 +1,22 @@
 package it.unisa.thetourist.persistenza.integrazione.pagamento;
 
-public class PaymentGateway {
+import it.unisa.thetourist.dominio.enumerazioni.EsitoPagamento;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public interface PaymentGateway {
+    // Un riferimento già autorizzato non viene addebitato di nuovo: si restituisce l'autorizzazione esistente.
+    // Su questo si appoggia il nuovo tentativo di un pagamento dall'esito incerto (timeout, guasto di rete).
+    EsitoPagamento autorizza(String riferimento, BigDecimal importo);
+
+    // Un client con API non bloccante può ridefinirlo; per default esegue autorizza() sull'executor dato
+    default CompletableFuture<EsitoPagamento> autorizzaAsync(String riferimento, BigDecimal importo, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> autorizza(riferimento, importo), executor);
+    }
+
+    // Storna l'addebito di un riferimento autorizzato; su un riferimento già stornato non ha effetto.
+    // Le compensazioni dipendono dal rimborso: ogni gateway deve implementarlo
+    void rimborsa(String riferimento, BigDecimal importo);
 }
@@ -0,0 +1,113 @@
+package it.unisa.thetourist.persistenza.integrazione.pagamento;
+
+import it.unisa.thetourist.dominio.enumerazioni.EsitoPagamento;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Autorizzazioni asincrone verso il gateway con limite di chiamate in volo, scadenza per chiamata
+// e circuit breaker. Le chiamate oltre il limite o a circuito aperto falliscono subito invece di accodarsi.
+// Allo scadere il chiamante riceve TimeoutException, ma la chiamata al gateway resta in volo e occupa
+// il suo permesso finché non termina davvero: un gateway lento non può accumulare thread oltre il limite.
+// Con JDK 21 l'executor può essere Executors.newVirtualThreadPerTaskExecutor().
+public class PipelinePagamenti implements AutoCloseable {
+
+    private static final int MAX_IN_VOLO = 256;
+    private static final Duration SCADENZA = Duration.ofSeconds(5);
+    private static final int SOGLIA_GUASTI = 20;
+    private static final Duration APERTURA = Duration.ofSeconds(10);
+
+    private final PaymentGateway gateway;
+    private final Executor executor;
+    private final int maxInVolo;
+    private final Semaphore inVolo;
+    private final Duration scadenza;
+    private final InterruttoreCircuito interruttore;
+    private final ExecutorService executorProprio;
+
+    public PipelinePagamenti(PaymentGateway gateway) {
+        this(gateway, poolPredefinito(), MAX_IN_VOLO, SCADENZA, new InterruttoreCircuito(SOGLIA_GUASTI, APERTURA));
+    }
+
+    public PipelinePagamenti(PaymentGateway gateway, Executor executor, int maxInVolo, Duration scadenza,
+                             InterruttoreCircuito interruttore) {
+        this.gateway = gateway;
+        this.executor = executor;
+        this.maxInVolo = maxInVolo;
+        this.inVolo = new Semaphore(maxInVolo);
+        this.scadenza = scadenza;
+        this.interruttore = interruttore;
+        this.executorProprio = executor instanceof ExecutorService es ? es : null;
+    }
+
+    // Il permesso si prende prima di interrogare il circuito: a circuito semiaperto consenti() assegna l'unica
+    // chiamata di prova, che non deve andare persa perché i permessi sono tutti occupati da chiamate appese
+    public CompletableFuture<EsitoPagamento> autorizza(String riferimento, BigDecimal importo) {
+        if (!inVolo.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Troppi pagamenti in corso"));
+        }
+        if (!interruttore.consenti()) {
+            inVolo.release();
+            return CompletableFuture.failedFuture(new GatewayNonDisponibileException("Circuito aperto"));
+        }
+        CompletableFuture<EsitoPagamento> chiamata;
+        try {
+            chiamata = gateway.autorizzaAsync(riferimento, importo, executor);
+        } catch (RuntimeException e) {
+            chiamata = CompletableFuture.failedFuture(e);
+        }
+        // La scadenza si applica a una copia: completare in anticipo la chiamata stessa
+        // salterebbe il rilascio, che deve seguire la fine reale della richiesta al gateway
+        CompletableFuture<EsitoPagamento> conclusa = chiamata.whenComplete((esito, errore) -> inVolo.release());
+        return conclusa.copy()
+                .orTimeout(scadenza.toNanos(), TimeUnit.NANOSECONDS)
+                .whenComplete((esito, errore) -> {
+                    if (errore == null) interruttore.successo(); else interruttore.guasto();
+                });
+    }
+
+    // Il rimborso non passa dal limite in volo né dal circuito: va tentato anche con il gateway in difficoltà
+    public CompletableFuture<Void> rimborsa(String riferimento, BigDecimal importo) {
+        CompletableFuture<Void> chiamata;
+        try {
+            chiamata = CompletableFuture.runAsync(() -> gateway.rimborsa(riferimento, importo), executor);
+        } catch (RuntimeException e) {
+            chiamata = CompletableFuture.failedFuture(e);
+        }
+        return chiamata.copy().orTimeout(scadenza.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public int inVolo() {
+        return maxInVolo - inVolo.availablePermits();
+    }
+
+    public InterruttoreCircuito.Stato statoCircuito() {
+        return interruttore.stato();
+    }
+
+    @Override
+    public void close() {
+        if (executorProprio != null) executorProprio.shutdown();
+    }
+
+    // Un thread per permesso al massimo: i permessi tengono già le chiamate entro il limite,
+    // la coda limitata è solo una rete di sicurezza
+    private static ExecutorService poolPredefinito() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_IN_VOLO, MAX_IN_VOLO, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_IN_VOLO), r -> {
+                    Thread t = new Thread(r, "pagamenti");
+                    t.setDaemon(true);
+                    return t;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -1,4 +1,64 @@
 package it.unisa.thetourist.persistenza.integrazione.pagamento;
 
-public class SimulatorePagamentoClient {
+import it.unisa.thetourist.dominio.enumerazioni.EsitoPagamento;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Gateway simulato con latenza e tassi di rifiuto/guasto configurabili, per misurare il sistema con un gateway lento.
+// Come un gateway reale ricorda i riferimenti autorizzati e non li addebita due volte.
+public class SimulatorePagamentoClient implements PaymentGateway {
+
+    private final Duration latenza;
+    private final double tassoRifiuti;
+    private final double tassoGuasti;
+    private final Map<String, EsitoPagamento> autorizzati = new ConcurrentHashMap<>();
+
+    public SimulatorePagamentoClient() {
+        this(true);
+    }
+
+    public SimulatorePagamentoClient(boolean approva) {
+        this(Duration.ZERO, approva ? 0.0 : 1.0, 0.0);
+    }
+
+    public SimulatorePagamentoClient(Duration latenza, double tassoRifiuti, double tassoGuasti) {
+        this.latenza = latenza;
+        this.tassoRifiuti = tassoRifiuti;
+        this.tassoGuasti = tassoGuasti;
+    }
+
+    @Override
+    public EsitoPagamento autorizza(String riferimento, BigDecimal importo) {
+        attendi();
+        if (ThreadLocalRandom.current().nextDouble() < tassoGuasti) throw new IllegalStateException("Gateway non disponibile");
+        // un rifiuto non resta legato al riferimento: lo stesso pagamento si può ritentare
+        EsitoPagamento esito = autorizzati.computeIfAbsent(riferimento, k ->
+                importo.signum() <= 0 || ThreadLocalRandom.current().nextDouble() < tassoRifiuti ? null : EsitoPagamento.AUTORIZZATO);
+        return esito == null ? EsitoPagamento.RIFIUTATO : esito;
+    }
+
+    @Override
+    public void rimborsa(String riferimento, BigDecimal importo) {
+        attendi();
+        autorizzati.remove(riferimento);
+    }
+
+    // Riferimenti distinti addebitati e non rimborsati
+    public int addebitati() {
+        return autorizzati.size();
+    }
+
+    private void attendi() {
+        if (latenza.isZero()) return;
+        try {
+            Thread.sleep(latenza.toMillis(), latenza.toNanosPart() % 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pagamento interrotto");
+        }
+    }
 }
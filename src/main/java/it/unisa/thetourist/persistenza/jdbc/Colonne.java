@@ -0,0 +1,23 @@
+package it.unisa.thetourist.persistenza.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+
+// Conversioni comuni tra colonne e campi delle entità, come Codifica per il journal
+public final class Colonne {
+
+    private Colonne() { }
+
+    // Alcuni driver non accettano setObject con null senza il tipo SQL
+    public static void impostaDataOra(PreparedStatement ps, int indice, LocalDateTime t) throws SQLException {
+        if (t == null) ps.setNull(indice, Types.TIMESTAMP);
+        else ps.setObject(indice, t);
+    }
+
+    public static LocalDateTime leggiDataOra(ResultSet rs, int indice) throws SQLException {
+        return rs.getObject(indice, LocalDateTime.class);
+    }
+}
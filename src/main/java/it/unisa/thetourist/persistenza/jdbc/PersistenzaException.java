@@ -0,0 +1,8 @@
+package it.unisa.thetourist.persistenza.jdbc;
+
+import java.sql.SQLException;
+
+// Scrittura su database fallita in un metodo del DAO che non dichiara eccezioni
+public class PersistenzaException extends RuntimeException {
+    public PersistenzaException(String message, SQLException cause) { super(message, cause); }
+}
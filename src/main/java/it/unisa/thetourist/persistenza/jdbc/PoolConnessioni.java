@@ -0,0 +1,262 @@
+package it.unisa.thetourist.persistenza.jdbc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+// Pool di connessioni davanti a un DataSource qualsiasi (driver, H2 in memoria nei test).
+// Al massimo 'massimo' connessioni in prestito; chi ne chiede una in più attende fino ad 'attesa'.
+// Le connessioni libere vengono riprese dall'ultima restituita: è la più probabile ancora valida
+// e con gli statement già preparati in cache.
+// Ogni connessione fisica ha una cache LRU di PreparedStatement per testo SQL: prepareStatement(sql)
+// restituisce quello già preparato e la sua close() si limita a ripulirlo.
+public class PoolConnessioni implements DataSource, AutoCloseable {
+
+    private static final Duration ATTESA_PREDEFINITA = Duration.ofSeconds(5);
+    private static final int STATEMENT_PREDEFINITI = 64;
+
+    private final DataSource origine;
+    private final Semaphore permessi;
+    private final long attesaNanos;
+    private final int statementPerConnessione;
+    private final BlockingDeque<Fisica> libere = new LinkedBlockingDeque<>();
+    private final AtomicInteger aperte = new AtomicInteger();
+    private volatile boolean chiuso;
+
+    public PoolConnessioni(DataSource origine, int massimo) {
+        this(origine, massimo, ATTESA_PREDEFINITA, STATEMENT_PREDEFINITI);
+    }
+
+    public PoolConnessioni(DataSource origine, int massimo, Duration attesa, int statementPerConnessione) {
+        this.origine = origine;
+        this.permessi = new Semaphore(massimo, true);
+        this.attesaNanos = attesa.toNanos();
+        this.statementPerConnessione = statementPerConnessione;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (chiuso) throw new SQLException("Pool chiuso");
+        try {
+            if (!permessi.tryAcquire(attesaNanos, TimeUnit.NANOSECONDS)) throw new SQLException("Pool esaurito");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attesa della connessione interrotta", e);
+        }
+        try {
+            Fisica f = libere.pollFirst();
+            while (f != null && f.connessione.isClosed()) {
+                f.chiudi();
+                f = libere.pollFirst();
+            }
+            if (f == null) f = new Fisica(origine.getConnection());
+            return f.presta();
+        } catch (SQLException | RuntimeException e) {
+            permessi.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String utente, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credenziali fissate dal DataSource di origine");
+    }
+
+    public int aperte() { return aperte.get(); }
+
+    public int libere() { return libere.size(); }
+
+    // Le connessioni in prestito vengono chiuse quando tornano
+    @Override
+    public void close() {
+        chiuso = true;
+        Fisica f;
+        while ((f = libere.pollFirst()) != null) f.chiudi();
+    }
+
+    private void restituisci(Fisica f, boolean guasta) {
+        try {
+            if (chiuso || guasta) {
+                f.chiudi();
+            } else {
+                libere.offerFirst(f);
+                // chiuso nel frattempo: close() potrebbe non averla vista
+                if (chiuso && libere.remove(f)) f.chiudi();
+            }
+        } finally {
+            permessi.release();
+        }
+    }
+
+    // Statement fisico e la vista che lo mantiene aperto alla close()
+    private record Preparato(PreparedStatement fisico, PreparedStatement vista) { }
+
+    // Connessione fisica con la sua cache di statement; prestata a un solo chiamante alla volta
+    private final class Fisica {
+        final Connection connessione;
+        final Map<String, Preparato> statement;
+        Connection prestito; // proxy del prestito in corso, restituito da Statement.getConnection()
+
+        Fisica(Connection connessione) {
+            this.connessione = connessione;
+            this.statement = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Preparato> piuVecchio) {
+                    if (size() <= statementPerConnessione) return false;
+                    chiudi(piuVecchio.getValue());
+                    return true;
+                }
+            };
+            aperte.incrementAndGet();
+        }
+
+        Connection presta() {
+            prestito = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Prestito(this));
+            return prestito;
+        }
+
+        PreparedStatement prepara(String sql) throws SQLException {
+            Preparato p = statement.get(sql);
+            if (p != null && !p.fisico().isClosed()) return p.vista();
+            PreparedStatement fisico = connessione.prepareStatement(sql);
+            PreparedStatement vista = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, metodo, argomenti) -> {
+                        switch (metodo.getName()) {
+                            case "close":
+                                // resta aperto in cache, pronto per il prossimo uso
+                                fisico.clearBatch();
+                                fisico.clearParameters();
+                                return null;
+                            case "getConnection":
+                                return prestito;
+                            default:
+                                return invoca(fisico, metodo, argomenti);
+                        }
+                    });
+            statement.put(sql, new Preparato(fisico, vista));
+            return vista;
+        }
+
+        void chiudi() {
+            for (Preparato p : statement.values()) chiudi(p);
+            statement.clear();
+            try {
+                connessione.close();
+            } catch (SQLException ignorata) {
+                // la connessione viene comunque abbandonata
+            }
+            aperte.decrementAndGet();
+        }
+
+        private void chiudi(Preparato p) {
+            try {
+                p.fisico().close();
+            } catch (SQLException ignorata) {
+                // uno statement che non si chiude non blocca gli altri
+            }
+        }
+    }
+
+    // Vista di una connessione fisica per la durata di un prestito
+    private final class Prestito implements InvocationHandler {
+        private final Fisica fisica;
+        private boolean restituita;
+        private boolean guasta;
+
+        Prestito(Fisica fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] argomenti) throws Throwable {
+            String nome = metodo.getName();
+            if (metodo.getDeclaringClass() == Object.class) {
+                if (nome.equals("equals")) return proxy == argomenti[0];
+                if (nome.equals("hashCode")) return System.identityHashCode(proxy);
+                return "Prestito[" + fisica.connessione + "]";
+            }
+            if (nome.equals("close")) {
+                if (!restituita) {
+                    restituita = true;
+                    ripristina();
+                    restituisci(fisica, guasta);
+                }
+                return null;
+            }
+            if (nome.equals("isClosed")) return restituita;
+            if (restituita) throw new SQLException("Connessione già restituita al pool");
+            if (nome.equals("prepareStatement") && argomenti.length == 1) return fisica.prepara((String) argomenti[0]);
+            if (nome.equals("unwrap") && ((Class<?>) argomenti[0]).isInstance(proxy)) return proxy;
+            try {
+                return invoca(fisica.connessione, metodo, argomenti);
+            } catch (SQLException e) {
+                // SQLState 08xxx: la connessione non è più utilizzabile
+                if (e.getSQLState() != null && e.getSQLState().startsWith("08")) guasta = true;
+                throw e;
+            }
+        }
+
+        // La prossima richiesta deve trovare la connessione come appena aperta
+        private void ripristina() {
+            try {
+                if (!fisica.connessione.getAutoCommit()) {
+                    fisica.connessione.rollback();
+                    fisica.connessione.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                guasta = true;
+            }
+        }
+    }
+
+    private static Object invoca(Object destinatario, Method metodo, Object[] argomenti) throws Throwable {
+        try {
+            return metodo.invoke(destinatario, argomenti);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException { return origine.getLogWriter(); }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException { origine.setLogWriter(out); }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException { origine.setLoginTimeout(seconds); }
+
+    @Override
+    public int getLoginTimeout() throws SQLException { return origine.getLoginTimeout(); }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException { return origine.getParentLogger(); }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        return origine.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || origine.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,34 @@
+package it.unisa.thetourist.persistenza.jdbc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Tabelle dei DAO su database. Solo tipi e sintassi comuni (H2, PostgreSQL, MySQL);
+// la creazione è idempotente e ogni DAO la ripete all'apertura.
+public final class Schema {
+
+    private static final String[] TABELLE = {
+            "CREATE TABLE IF NOT EXISTS volo ("
+                    + "codice VARCHAR(32) PRIMARY KEY, partenza VARCHAR(8) NOT NULL, arrivo VARCHAR(8) NOT NULL, "
+                    + "data_ora_partenza TIMESTAMP, data_ora_arrivo TIMESTAMP, posti_disponibili INT NOT NULL, capienza INT NOT NULL, "
+                    + "posti_versione BIGINT DEFAULT 0 NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS prenotazione ("
+                    + "codice VARCHAR(64) PRIMARY KEY, id_utente VARCHAR(64) NOT NULL, codice_volo VARCHAR(32), "
+                    + "codice_tariffa VARCHAR(64), codice_gruppo VARCHAR(64), stato VARCHAR(16) NOT NULL, importo DECIMAL(15, 2), "
+                    + "data_creazione TIMESTAMP, data_partenza TIMESTAMP, posti_riservati INT NOT NULL, scadenza_blocco TIMESTAMP)",
+            // unica tabella dei passeggeri, scritta solo da PasseggeroDAO; posizione: ordine di aggiunta nella prenotazione
+            "CREATE TABLE IF NOT EXISTS passeggero ("
+                    + "codice_prenotazione VARCHAR(64) NOT NULL, posizione INT NOT NULL, nome VARCHAR(100), "
+                    + "cognome VARCHAR(100), documento VARCHAR(64), PRIMARY KEY (codice_prenotazione, posizione))"
+    };
+
+    private Schema() { }
+
+    public static void crea(DataSource db) throws SQLException {
+        try (Connection c = db.getConnection(); Statement s = c.createStatement()) {
+            for (String ddl : TABELLE) s.execute(ddl);
+        }
+    }
+}
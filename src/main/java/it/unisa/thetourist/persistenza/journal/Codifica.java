@@ -0,0 +1,45 @@
+package it.unisa.thetourist.persistenza.journal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+// Campi opzionali nei record del journal: un byte di presenza seguito dal valore.
+public final class Codifica {
+
+    private Codifica() { }
+
+    public static void scriviStringa(DataOutput out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    public static String leggiStringa(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    public static void scriviImporto(DataOutput out, BigDecimal importo) throws IOException {
+        scriviStringa(out, importo == null ? null : importo.toPlainString());
+    }
+
+    public static BigDecimal leggiImporto(DataInput in) throws IOException {
+        String s = leggiStringa(in);
+        return s == null ? null : new BigDecimal(s);
+    }
+
+    public static void scriviDataOra(DataOutput out, LocalDateTime t) throws IOException {
+        out.writeBoolean(t != null);
+        if (t == null) return;
+        out.writeLong(t.toLocalDate().toEpochDay());
+        out.writeLong(t.toLocalTime().toNanoOfDay());
+    }
+
+    public static LocalDateTime leggiDataOra(DataInput in) throws IOException {
+        if (!in.readBoolean()) return null;
+        return LocalDateTime.of(LocalDate.ofEpochDay(in.readLong()), LocalTime.ofNanoOfDay(in.readLong()));
+    }
+}
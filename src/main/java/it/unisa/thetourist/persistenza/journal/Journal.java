@@ -0,0 +1,340 @@
+package it.unisa.thetourist.persistenza.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+// Journal append-only su file mappato in memoria. Formato di un record:
+//   [lunghezza dati + 1: int][crc32c di tipo e dati: int][tipo: byte][dati]
+// Una lunghezza 0 segna la fine; un CRC errato indica una scrittura interrotta e chiude il rigioco.
+// Commit di gruppo: gli scrittori copiano il record nella mappa e attendono; un unico thread
+// esegue il force() di tutto ciò che è stato accodato nel frattempo, quindi un solo fsync per lotto.
+// Superata la soglia il file viene riscritto con lo stato corrente (compattazione) e sostituito
+// con una rename atomica.
+public final class Journal implements AutoCloseable {
+
+    public record Record(byte tipo, byte[] dati) { }
+
+    // Lotto accodato ma non ancora applicato: fine è la sua posizione nel flusso dei byte scritti
+    private record Lotto(long fine, List<Record> records, Runnable applica) { }
+
+    public interface Rigiocatore {
+        void rigioca(byte tipo, byte[] dati);
+    }
+
+    private static final int INTESTAZIONE = 9;
+    private static final int CAPACITA_MINIMA = 1 << 20;
+    private static final int CAPACITA_MASSIMA = Integer.MAX_VALUE - 8;
+
+    private final Path file;
+    private final Supplier<? extends Collection<Record>> stato;
+    private final long sogliaCompattazione;
+    private final ReentrantLock scrittura = new ReentrantLock();
+    // Tenuto dal thread di scarico durante force() e dalla compattazione durante la sostituzione del file
+    private final ReentrantLock forzatura = new ReentrantLock();
+    private final AtomicBoolean compattando = new AtomicBoolean();
+    private final CRC32C crc = new CRC32C();
+    private final LongAdder forzature = new LongAdder();
+    private final Object monitor = new Object();
+    private final Thread scaricatore;
+
+    // protetti da scrittura
+    private FileChannel canale;
+    private MappedByteBuffer mappa;
+    private int posizione;
+    private int nonForzato;
+    private long scritti;
+    private long prossimaCompattazione;
+    private final ArrayDeque<Lotto> inSospeso = new ArrayDeque<>();
+
+    // protetti da monitor
+    private long richiesti;
+    private long durabili;
+    private IOException guasto;
+    private boolean chiuso;
+
+    private Journal(Path file, Supplier<? extends Collection<Record>> stato, long sogliaCompattazione) {
+        this.file = file;
+        this.stato = stato;
+        this.sogliaCompattazione = sogliaCompattazione;
+        this.prossimaCompattazione = sogliaCompattazione;
+        this.scaricatore = new Thread(this::scarica, "journal-" + file.getFileName());
+        this.scaricatore.setDaemon(true);
+    }
+
+    // Apre (o crea) il journal e rigioca i record validi in ordine di scrittura prima di restituirlo.
+    // stato fornisce i record che descrivono lo stato corrente, usati per la compattazione.
+    public static Journal apri(Path file, int capacitaIniziale, long sogliaCompattazione, Rigiocatore rigiocatore,
+                               Supplier<? extends Collection<Record>> stato) throws IOException {
+        Journal j = new Journal(file, stato, sogliaCompattazione);
+        j.canale = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long esistente = j.canale.size();
+        int capacita = (int) Math.min(CAPACITA_MASSIMA, Math.max(Math.max(capacitaIniziale, CAPACITA_MINIMA), esistente));
+        j.mappa = j.canale.map(FileChannel.MapMode.READ_WRITE, 0, capacita);
+        j.posizione = j.rigioca(rigiocatore);
+        j.nonForzato = j.posizione;
+        j.prossimaCompattazione = Math.max(sogliaCompattazione, 2L * j.posizione);
+        j.scaricatore.start();
+        return j;
+    }
+
+    public void scrivi(Record record, Runnable applica) throws IOException {
+        scrivi(List.of(record), applica);
+    }
+
+    // Accoda i record e torna quando sono su disco. applica viene eseguito solo a record durevoli, così
+    // nessuno vede una modifica che un crash potrebbe perdere; se il commit fallisce non viene eseguito.
+    // I lotti si applicano nell'ordine di accodamento e sotto il lock della compattazione, che scrive lo
+    // stato corrente seguito dai lotti ancora in sospeso: il file compattato non perde nulla di accodato.
+    public void scrivi(List<Record> records, Runnable applica) throws IOException {
+        long fine;
+        boolean daCompattare;
+        scrittura.lock();
+        try {
+            int necessari = 0;
+            for (Record r : records) necessari += INTESTAZIONE + r.dati().length;
+            assicuraSpazio(necessari);
+            for (Record r : records) posizione = codifica(mappa, posizione, r);
+            scritti += necessari;
+            fine = scritti;
+            inSospeso.addLast(new Lotto(fine, List.copyOf(records), applica));
+            daCompattare = posizione >= prossimaCompattazione;
+        } finally {
+            scrittura.unlock();
+        }
+        attendi(fine);
+        applicaFinoA(fine);
+        if (daCompattare) compatta();
+    }
+
+    // I lotti precedenti sono durevoli anch'essi: chi arriva prima applica anche quelli degli altri
+    private void applicaFinoA(long fine) {
+        scrittura.lock();
+        try {
+            while (!inSospeso.isEmpty() && inSospeso.peekFirst().fine() <= fine) {
+                Runnable applica = inSospeso.pollFirst().applica();
+                if (applica != null) applica.run();
+            }
+        } finally {
+            scrittura.unlock();
+        }
+    }
+
+    // Riscrive il file con i soli record dello stato corrente
+    public void compatta() throws IOException {
+        if (!compattando.compareAndSet(false, true)) return;
+        forzatura.lock();
+        scrittura.lock();
+        try {
+            List<Record> correnti = new ArrayList<>(stato.get());
+            for (Lotto l : inSospeso) correnti.addAll(l.records());
+            long byteCorrenti = 0;
+            for (Record r : correnti) byteCorrenti += INTESTAZIONE + r.dati().length;
+            int capacita = (int) Math.min(CAPACITA_MASSIMA, Math.max(mappa.capacity(), 2 * byteCorrenti + CAPACITA_MINIMA));
+
+            Path temporaneo = file.resolveSibling(file.getFileName() + ".compattazione");
+            FileChannel nuovoCanale = FileChannel.open(temporaneo, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer nuovaMappa = nuovoCanale.map(FileChannel.MapMode.READ_WRITE, 0, capacita);
+            int pos = 0;
+            for (Record r : correnti) pos = codifica(nuovaMappa, pos, r);
+            nuovaMappa.force();
+            Files.move(temporaneo, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            forzaCartella();
+
+            canale.close();
+            canale = nuovoCanale;
+            mappa = nuovaMappa;
+            posizione = pos;
+            nonForzato = pos;
+            prossimaCompattazione = Math.max(sogliaCompattazione, 2L * pos);
+            // Il nuovo file contiene tutto ciò che è stato accodato finora ed è già su disco
+            synchronized (monitor) {
+                durabili = scritti;
+                richiesti = Math.max(richiesti, scritti);
+                monitor.notifyAll();
+            }
+        } finally {
+            scrittura.unlock();
+            forzatura.unlock();
+            compattando.set(false);
+        }
+    }
+
+    public long dimensione() {
+        scrittura.lock();
+        try {
+            return posizione;
+        } finally {
+            scrittura.unlock();
+        }
+    }
+
+    // Numero di fsync eseguiti: con scrittori concorrenti è molto minore del numero di commit
+    public long forzature() {
+        return forzature.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (monitor) {
+            chiuso = true;
+            monitor.notifyAll();
+        }
+        try {
+            scaricatore.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scrittura.lock();
+        try {
+            mappa.force();
+            canale.close();
+        } finally {
+            scrittura.unlock();
+        }
+    }
+
+    private void attendi(long fine) throws IOException {
+        synchronized (monitor) {
+            if (fine > richiesti) {
+                richiesti = fine;
+                monitor.notifyAll();
+            }
+            while (durabili < fine) {
+                if (guasto != null) throw guasto;
+                if (chiuso) throw new IOException("Journal chiuso");
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Attesa del commit interrotta");
+                }
+            }
+        }
+    }
+
+    private void scarica() {
+        while (true) {
+            synchronized (monitor) {
+                while (!chiuso && richiesti <= durabili) {
+                    try {
+                        monitor.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (richiesti <= durabili) return;
+            }
+            forzatura.lock();
+            try {
+                long obiettivo;
+                int da;
+                int a;
+                MappedByteBuffer m;
+                scrittura.lock();
+                try {
+                    obiettivo = scritti;
+                    da = nonForzato;
+                    a = posizione;
+                    m = mappa;
+                    nonForzato = a;
+                } finally {
+                    scrittura.unlock();
+                }
+                if (a > da) m.force(da, a - da);
+                forzature.increment();
+                synchronized (monitor) {
+                    durabili = Math.max(durabili, obiettivo);
+                    monitor.notifyAll();
+                }
+            } catch (UncheckedIOException e) {
+                synchronized (monitor) {
+                    guasto = e.getCause();
+                    monitor.notifyAll();
+                }
+                return;
+            } finally {
+                forzatura.unlock();
+            }
+        }
+    }
+
+    private void assicuraSpazio(int necessari) throws IOException {
+        if ((long) posizione + necessari + INTESTAZIONE <= mappa.capacity()) return;
+        long nuova = Math.max(2L * mappa.capacity(), (long) posizione + necessari + INTESTAZIONE);
+        if (nuova > CAPACITA_MASSIMA) throw new IOException("Journal pieno");
+        // Il file si estende con zeri; la vecchia mappa resta valida per un force() in corso
+        mappa = canale.map(FileChannel.MapMode.READ_WRITE, 0, nuova);
+    }
+
+    private int codifica(MappedByteBuffer m, int pos, Record r) {
+        crc.reset();
+        crc.update(r.tipo());
+        crc.update(r.dati());
+        m.putInt(pos, r.dati().length + 1);
+        m.putInt(pos + 4, (int) crc.getValue());
+        m.put(pos + 8, r.tipo());
+        m.put(pos + INTESTAZIONE, r.dati());
+        return pos + INTESTAZIONE + r.dati().length;
+    }
+
+    private int rigioca(Rigiocatore rigiocatore) {
+        int pos = 0;
+        int capacita = mappa.capacity();
+        while (pos + INTESTAZIONE <= capacita) {
+            int n = mappa.getInt(pos) - 1;
+            if (n < 0 || (long) pos + INTESTAZIONE + n > capacita) break;
+            byte tipo = mappa.get(pos + 8);
+            byte[] dati = new byte[n];
+            mappa.get(pos + INTESTAZIONE, dati);
+            crc.reset();
+            crc.update(tipo);
+            crc.update(dati);
+            if ((int) crc.getValue() != mappa.getInt(pos + 4)) break;
+            rigiocatore.rigioca(tipo, dati);
+            pos += INTESTAZIONE + n;
+        }
+        // Dopo un arresto brusco oltre l'ultimo record valido possono restare pagine scritte a metà:
+        // vanno azzerate, altrimenti un record futuro potrebbe concatenarsi a dati mai confermati.
+        boolean sporco = false;
+        int i = pos;
+        for (; i + 8 <= capacita; i += 8) {
+            if (mappa.getLong(i) != 0) {
+                mappa.putLong(i, 0);
+                sporco = true;
+            }
+        }
+        for (; i < capacita; i++) {
+            if (mappa.get(i) != 0) {
+                mappa.put(i, (byte) 0);
+                sporco = true;
+            }
+        }
+        if (sporco) mappa.force();
+        return pos;
+    }
+
+    private void forzaCartella() {
+        Path cartella = file.toAbsolutePath().getParent();
+        try (FileChannel c = FileChannel.open(cartella, StandardOpenOption.READ)) {
+            c.force(true);
+        } catch (IOException | UnsupportedOperationException ignorata) {
+            // non tutti i sistemi permettono di aprire una cartella (es. Windows)
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package it.unisa.thetourist.persistenza.snapshot;
+
+import it.unisa.thetourist.dominio.entita.Aeroporto;
+import it.unisa.thetourist.dominio.entita.CompagniaAerea;
+import it.unisa.thetourist.dominio.entita.Tariffa;
+import it.unisa.thetourist.dominio.entita.Volo;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Foto binaria del catalogo, letta tramite mmap senza deserializzare nulla all'apertura.
+// Formato: [magia: int][versione: int] seguiti da (inizio: long, lunghezza: long) per ogni sezione.
+// Le righe sono a larghezza fissa e le stringhe sono indici nella tabella delle stringhe (-1 = null):
+//   aeroporto (codice, nome, città, minuti coincidenza)   compagnia (codice, nome)
+//   tratta (partenza, arrivo, primo volo, numero voli)
+//   volo (codice, partenza s, arrivo s, posti, capienza, prima tariffa), raggruppati per tratta e ordinati per partenza
+//   tariffa (codice, volo, classe, prezzo non scalato: long, scala: int), nell'ordine dei voli
+// Due tabelle hash ad indirizzamento aperto (riga + 1, 0 = vuoto) risolvono voli e tariffe per codice.
+// Gli orari sono memorizzati al secondo.
+public final class FotoCatalogo {
+
+    public static final int VERSIONE = 2;
+
+    private static final int MAGIA = 0x54544643; // "TTFC"
+
+    private static final int STRINGHE_INDICE = 0;
+    private static final int STRINGHE = 1;
+    private static final int AEROPORTI = 2;
+    private static final int COMPAGNIE = 3;
+    private static final int TRATTE = 4;
+    private static final int VOLI = 5;
+    private static final int TARIFFE = 6;
+    private static final int HASH_VOLI = 7;
+    private static final int HASH_TARIFFE = 8;
+    private static final int SEZIONI = 9;
+    private static final int INTESTAZIONE = 8 + SEZIONI * 16;
+
+    private static final int RIGA_AEROPORTO = 16;
+    private static final int RIGA_COMPAGNIA = 8;
+    private static final int RIGA_TRATTA = 16;
+    private static final int RIGA_VOLO = 32;
+    private static final int RIGA_TARIFFA = 24;
+    private static final int[] RIGHE = {4, 1, RIGA_AEROPORTO, RIGA_COMPAGNIA, RIGA_TRATTA, RIGA_VOLO, RIGA_TARIFFA, 4, 4};
+
+    private static final int NESSUN_PREZZO = Integer.MIN_VALUE;
+
+    private final ByteBuffer indiceStringhe;
+    private final ByteBuffer stringhe;
+    private final ByteBuffer aeroporti;
+    private final ByteBuffer compagnie;
+    private final ByteBuffer tratte;
+    private final ByteBuffer voli;
+    private final ByteBuffer tariffe;
+    private final ByteBuffer hashVoli;
+    private final ByteBuffer hashTariffe;
+    private final int numeroVoli;
+    private final int numeroTariffe;
+
+    private FotoCatalogo(ByteBuffer[] s) {
+        this.indiceStringhe = s[STRINGHE_INDICE];
+        this.stringhe = s[STRINGHE];
+        this.aeroporti = s[AEROPORTI];
+        this.compagnie = s[COMPAGNIE];
+        this.tratte = s[TRATTE];
+        this.voli = s[VOLI];
+        this.tariffe = s[TARIFFE];
+        this.hashVoli = s[HASH_VOLI];
+        this.hashTariffe = s[HASH_TARIFFE];
+        this.numeroVoli = voli.capacity() / RIGA_VOLO;
+        this.numeroTariffe = tariffe.capacity() / RIGA_TARIFFA;
+    }
+
+    // Mappa il file in sola lettura; la mappatura resta valida anche se il file viene poi sostituito
+    public static FotoCatalogo apri(Path file) throws IOException {
+        try (FileChannel c = FileChannel.open(file, StandardOpenOption.READ)) {
+            long dimensione = c.size();
+            if (dimensione < INTESTAZIONE) throw new IOException("Foto del catalogo troncata: " + file);
+            ByteBuffer t = ByteBuffer.allocate(INTESTAZIONE);
+            while (t.hasRemaining()) {
+                if (c.read(t, t.position()) < 0) throw new IOException("Foto del catalogo troncata: " + file);
+            }
+            t.flip();
+            if (t.getInt() != MAGIA) throw new IOException("Non è una foto del catalogo: " + file);
+            int versione = t.getInt();
+            if (versione != VERSIONE) throw new IOException("Versione della foto non supportata: " + versione);
+
+            ByteBuffer[] sezioni = new ByteBuffer[SEZIONI];
+            for (int i = 0; i < SEZIONI; i++) {
+                long inizio = t.getLong();
+                long lunghezza = t.getLong();
+                if (inizio < INTESTAZIONE || lunghezza < 0 || lunghezza > Integer.MAX_VALUE
+                        || inizio + lunghezza > dimensione || lunghezza % RIGHE[i] != 0) {
+                    throw new IOException("Sezione " + i + " non valida: " + file);
+                }
+                sezioni[i] = c.map(FileChannel.MapMode.READ_ONLY, inizio, lunghezza);
+            }
+            FotoCatalogo foto = new FotoCatalogo(sezioni);
+            if (!tabellaValida(foto.hashVoli, foto.numeroVoli) || !tabellaValida(foto.hashTariffe, foto.numeroTariffe)) {
+                throw new IOException("Tabelle hash non valide: " + file);
+            }
+            return foto;
+        }
+    }
+
+    public List<Aeroporto> aeroporti() {
+        List<Aeroporto> risultato = new ArrayList<>();
+        for (int p = 0; p < aeroporti.capacity(); p += RIGA_AEROPORTO) {
+            risultato.add(new Aeroporto(stringa(aeroporti.getInt(p)), stringa(aeroporti.getInt(p + 4)),
+                    stringa(aeroporti.getInt(p + 8)), aeroporti.getInt(p + 12)));
+        }
+        return risultato;
+    }
+
+    public List<CompagniaAerea> compagnie() {
+        List<CompagniaAerea> risultato = new ArrayList<>();
+        for (int p = 0; p < compagnie.capacity(); p += RIGA_COMPAGNIA) {
+            risultato.add(new CompagniaAerea(stringa(compagnie.getInt(p)), stringa(compagnie.getInt(p + 4))));
+        }
+        return risultato;
+    }
+
+    // --- tratte
+
+    public int numeroTratte() { return tratte.capacity() / RIGA_TRATTA; }
+
+    public String partenzaTratta(int t) { return stringa(tratte.getInt(t * RIGA_TRATTA)); }
+
+    public String arrivoTratta(int t) { return stringa(tratte.getInt(t * RIGA_TRATTA + 4)); }
+
+    public int primoVolo(int t) { return tratte.getInt(t * RIGA_TRATTA + 8); }
+
+    // Indice successivo all'ultimo volo della tratta
+    public int fineVoli(int t) { return primoVolo(t) + tratte.getInt(t * RIGA_TRATTA + 12); }
+
+    // primo volo della tratta con partenza >= secondi
+    public int primoVoloNonPrecedente(int t, long secondi) {
+        int lo = primoVolo(t), hi = fineVoli(t);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (partenzaVolo(mid) < secondi) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // --- voli
+
+    public int numeroVoli() { return numeroVoli; }
+
+    public String codiceVolo(int r) { return stringa(voli.getInt(r * RIGA_VOLO)); }
+
+    public long partenzaVolo(int r) { return voli.getLong(r * RIGA_VOLO + 4); }
+
+    public int postiVolo(int r) { return voli.getInt(r * RIGA_VOLO + 20); }
+
+    public int capienzaVolo(int r) { return voli.getInt(r * RIGA_VOLO + 24); }
+
+    // ultimo campo della riga in entrambe le versioni
+    public int primaTariffa(int r) { return voli.getInt(r * RIGA_VOLO + RIGA_VOLO - 4); }
+
+    public int fineTariffe(int r) { return r + 1 < numeroVoli ? primaTariffa(r + 1) : numeroTariffe; }
+
+    // Le tratte sono scritte nello stesso ordine dei voli: ricerca binaria sul primo volo
+    public int trattaDiVolo(int r) {
+        int lo = 0, hi = numeroTratte() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (primoVolo(mid) <= r) lo = mid; else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    public Volo volo(int r) {
+        int t = trattaDiVolo(r);
+        int p = r * RIGA_VOLO;
+        return new Volo(stringa(voli.getInt(p)), partenzaTratta(t), arrivoTratta(t),
+                dataOra(voli.getLong(p + 4)), dataOra(voli.getLong(p + 12)), voli.getInt(p + 20), capienzaVolo(r));
+    }
+
+    // Riga del volo con il codice dato, -1 se assente
+    public int cercaVolo(String codice) { return cerca(hashVoli, voli, RIGA_VOLO, codice); }
+
+    // --- tariffe
+
+    public int numeroTariffe() { return numeroTariffe; }
+
+    public Tariffa tariffa(int r) {
+        int p = r * RIGA_TARIFFA;
+        int scala = tariffe.getInt(p + 20);
+        BigDecimal prezzo = scala == NESSUN_PREZZO ? null : BigDecimal.valueOf(tariffe.getLong(p + 12), scala);
+        return new Tariffa(stringa(tariffe.getInt(p)), codiceVolo(tariffe.getInt(p + 4)), stringa(tariffe.getInt(p + 8)), prezzo);
+    }
+
+    public int cercaTariffa(String codice) { return cerca(hashTariffe, tariffe, RIGA_TARIFFA, codice); }
+
+    // --- orari
+
+    public static long secondi(LocalDateTime t) { return t.toEpochSecond(ZoneOffset.UTC); }
+
+    public static LocalDateTime dataOra(long secondi) { return LocalDateTime.ofEpochSecond(secondi, 0, ZoneOffset.UTC); }
+
+    private String stringa(int id) {
+        if (id < 0) return null;
+        int da = indiceStringhe.getInt(id * 4);
+        byte[] b = new byte[indiceStringhe.getInt(id * 4 + 4) - da];
+        stringhe.get(da, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private boolean uguale(int id, byte[] chiave) {
+        if (id < 0) return false;
+        int da = indiceStringhe.getInt(id * 4);
+        if (indiceStringhe.getInt(id * 4 + 4) - da != chiave.length) return false;
+        for (int i = 0; i < chiave.length; i++) {
+            if (stringhe.get(da + i) != chiave[i]) return false;
+        }
+        return true;
+    }
+
+    // Il codice è il primo campo sia delle righe dei voli sia di quelle delle tariffe
+    private int cerca(ByteBuffer tabella, ByteBuffer righe, int dimensioneRiga, String codice) {
+        if (codice == null) return -1;
+        byte[] chiave = codice.getBytes(StandardCharsets.UTF_8);
+        int maschera = tabella.capacity() / 4 - 1;
+        for (int s = mescola(codice.hashCode()) & maschera; ; s = (s + 1) & maschera) {
+            int v = tabella.getInt(s * 4);
+            if (v == 0) return -1;
+            if (uguale(righe.getInt((v - 1) * dimensioneRiga), chiave)) return v - 1;
+        }
+    }
+
+    // Capacità potenza di due e almeno doppia delle righe: la scansione lineare trova sempre uno slot vuoto
+    private static boolean tabellaValida(ByteBuffer tabella, int righe) {
+        int capacita = tabella.capacity() / 4;
+        return Integer.bitCount(capacita) == 1 && capacita >= 2L * righe;
+    }
+
+    private static int mescola(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static void forzaCartella(Path file) {
+        Path cartella = file.toAbsolutePath().getParent();
+        try (FileChannel c = FileChannel.open(cartella, StandardOpenOption.READ)) {
+            c.force(true);
+        } catch (IOException | UnsupportedOperationException ignorata) {
+            // non tutti i sistemi permettono di aprire una cartella (es. Windows)
+        }
+    }
+
+    // Scrive la foto su un file temporaneo e lo sostituisce con una rename atomica.
+    // voli deve visitare i voli raggruppati per tratta e, dentro la tratta, in ordine di partenza.
+    public static void scrivi(Path file, Collection<Aeroporto> aeroporti, Collection<CompagniaAerea> compagnie,
+                              Consumer<Consumer<Volo>> voli, Function<String, List<Tariffa>> tariffePerVolo) throws IOException {
+        Path temporaneo = file.resolveSibling(file.getFileName() + ".scrittura");
+        Path fileTariffe = file.resolveSibling(file.getFileName() + ".tariffe");
+        Path fileStringhe = file.resolveSibling(file.getFileName() + ".stringhe");
+        try (Scrittore s = new Scrittore(temporaneo, fileTariffe, fileStringhe)) {
+            for (Aeroporto a : aeroporti) s.aeroporto(a);
+            for (CompagniaAerea c : compagnie) s.compagnia(c);
+            try {
+                voli.accept(v -> {
+                    try {
+                        s.volo(v, tariffePerVolo.apply(v.getCodice()));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            s.completa();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaneo);
+            throw e;
+        } finally {
+            Files.deleteIfExists(fileTariffe);
+            Files.deleteIfExists(fileStringhe);
+        }
+        Files.move(temporaneo, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forzaCartella(file);
+    }
+
+    // Voli in coda al file principale, tariffe e stringhe su file di appoggio copiati in chiusura;
+    // aeroporti, compagnie, tratte e le sole stringhe ripetute (aeroporti, classi) restano in memoria.
+    private static final class Scrittore implements AutoCloseable {
+
+        private final FileChannel canale;
+        private final DataOutputStream principale;
+        private final DataOutputStream tariffe;
+        private final DataOutputStream stringhe;
+        private final Path fileTariffe;
+        private final Path fileStringhe;
+
+        private final Map<String, Integer> condivise = new HashMap<>();
+        private final Righe aeroporti = new Righe();
+        private final Righe compagnie = new Righe();
+        private final List<int[]> tratte = new ArrayList<>();
+        private final Set<List<String>> tratteViste = new HashSet<>();
+
+        private int[] finiStringhe = new int[1024];
+        private int numeroStringhe;
+        private long byteStringhe;
+        private int[] hashVoli = new int[1024];
+        private int numeroVoli;
+        private int[] hashTariffe = new int[1024];
+        private int numeroTariffe;
+        private String partenzaCorrente;
+        private String arrivoCorrente;
+        private long ultimaPartenza;
+
+        Scrittore(Path file, Path fileTariffe, Path fileStringhe) throws IOException {
+            this.fileTariffe = fileTariffe;
+            this.fileStringhe = fileStringhe;
+            this.canale = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            canale.position(INTESTAZIONE);
+            this.principale = flusso(canale);
+            this.tariffe = flusso(FileChannel.open(fileTariffe, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+            this.stringhe = flusso(FileChannel.open(fileStringhe, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+        }
+
+        void aeroporto(Aeroporto a) throws IOException {
+            aeroporti.scrivi(stringa(a.getCodice(), true), stringa(a.getNome(), true),
+                    stringa(a.getCitta(), true), a.getMinutiCoincidenza());
+        }
+
+        void compagnia(CompagniaAerea c) throws IOException {
+            compagnie.scrivi(stringa(c.getCodice(), true), stringa(c.getNome(), true));
+        }
+
+        void volo(Volo v, List<Tariffa> tariffeVolo) throws IOException {
+            long partenza = secondi(v.getDataOraPartenza());
+            if (!v.getPartenza().equals(partenzaCorrente) || !v.getArrivo().equals(arrivoCorrente)) {
+                if (!tratteViste.add(List.of(v.getPartenza(), v.getArrivo()))) {
+                    throw new IllegalStateException("Voli non raggruppati per tratta: " + v.getCodice());
+                }
+                partenzaCorrente = v.getPartenza();
+                arrivoCorrente = v.getArrivo();
+                tratte.add(new int[]{stringa(partenzaCorrente, true), stringa(arrivoCorrente, true), numeroVoli, 0});
+            } else if (partenza < ultimaPartenza) {
+                throw new IllegalStateException("Voli non ordinati per partenza: " + v.getCodice());
+            }
+            ultimaPartenza = partenza;
+            tratte.get(tratte.size() - 1)[3]++;
+
+            principale.writeInt(stringa(v.getCodice(), false));
+            principale.writeLong(partenza);
+            principale.writeLong(secondi(v.getDataOraArrivo()));
+            principale.writeInt(v.getPostiDisponibili());
+            principale.writeInt(v.getCapienza());
+            principale.writeInt(numeroTariffe);
+            hashVoli = aggiungi(hashVoli, numeroVoli, v.getCodice().hashCode());
+            int riga = numeroVoli++;
+
+            for (Tariffa t : tariffeVolo) {
+                tariffe.writeInt(stringa(t.getCodice(), false));
+                tariffe.writeInt(riga);
+                tariffe.writeInt(stringa(t.getClasse(), true));
+                BigDecimal prezzo = t.getPrezzo();
+                if (prezzo == null) {
+                    tariffe.writeLong(0);
+                    tariffe.writeInt(NESSUN_PREZZO);
+                } else {
+                    BigInteger nonScalato = prezzo.unscaledValue();
+                    if (nonScalato.bitLength() > 63) throw new IOException("Prezzo fuori scala: " + prezzo);
+                    tariffe.writeLong(nonScalato.longValue());
+                    tariffe.writeInt(prezzo.scale());
+                }
+                hashTariffe = aggiungi(hashTariffe, numeroTariffe++, t.getCodice().hashCode());
+            }
+        }
+
+        void completa() throws IOException {
+            tariffe.close();
+            stringhe.close();
+            long[] sezioni = new long[SEZIONI * 2];
+            long posizione = INTESTAZIONE;
+            posizione = sezione(sezioni, VOLI, posizione, (long) numeroVoli * RIGA_VOLO);
+
+            posizione = sezione(sezioni, TARIFFE, posizione, (long) numeroTariffe * RIGA_TARIFFA);
+            Files.copy(fileTariffe, principale);
+
+            posizione = sezione(sezioni, TRATTE, posizione, (long) tratte.size() * RIGA_TRATTA);
+            for (int[] t : tratte) for (int campo : t) principale.writeInt(campo);
+
+            posizione = sezione(sezioni, AEROPORTI, posizione, aeroporti.size());
+            aeroporti.writeTo(principale);
+            posizione = sezione(sezioni, COMPAGNIE, posizione, compagnie.size());
+            compagnie.writeTo(principale);
+
+            posizione = sezione(sezioni, STRINGHE_INDICE, posizione, (numeroStringhe + 1L) * 4);
+            principale.writeInt(0);
+            for (int i = 0; i < numeroStringhe; i++) principale.writeInt(finiStringhe[i]);
+            posizione = sezione(sezioni, STRINGHE, posizione, byteStringhe);
+            Files.copy(fileStringhe, principale);
+
+            int[] tabellaVoli = tabella(hashVoli, numeroVoli);
+            posizione = sezione(sezioni, HASH_VOLI, posizione, tabellaVoli.length * 4L);
+            for (int v : tabellaVoli) principale.writeInt(v);
+            int[] tabellaTariffe = tabella(hashTariffe, numeroTariffe);
+            sezione(sezioni, HASH_TARIFFE, posizione, tabellaTariffe.length * 4L);
+            for (int v : tabellaTariffe) principale.writeInt(v);
+            principale.flush();
+
+            // L'intestazione va scritta per ultima: un file senza intestazione valida non viene aperto
+            ByteBuffer intestazione = ByteBuffer.allocate(INTESTAZIONE).putInt(MAGIA).putInt(VERSIONE);
+            for (long v : sezioni) intestazione.putLong(v);
+            intestazione.flip();
+            while (intestazione.hasRemaining()) canale.write(intestazione, intestazione.position());
+            canale.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (principale; tariffe; stringhe) {
+                // i flussi già chiusi da completa() ignorano la seconda chiusura
+            }
+        }
+
+        private int stringa(String s, boolean condivisa) throws IOException {
+            if (s == null) return -1;
+            if (condivisa) {
+                Integer id = condivise.get(s);
+                if (id != null) return id;
+            }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            if (byteStringhe + b.length > Integer.MAX_VALUE) throw new IOException("Tabella delle stringhe troppo grande");
+            stringhe.write(b);
+            byteStringhe += b.length;
+            if (numeroStringhe == finiStringhe.length) finiStringhe = Arrays.copyOf(finiStringhe, numeroStringhe * 2);
+            finiStringhe[numeroStringhe] = (int) byteStringhe;
+            int id = numeroStringhe++;
+            if (condivisa) condivise.put(s, id);
+            return id;
+        }
+
+        private static long sezione(long[] sezioni, int i, long inizio, long lunghezza) throws IOException {
+            if (lunghezza > Integer.MAX_VALUE) throw new IOException("Sezione " + i + " troppo grande");
+            sezioni[i * 2] = inizio;
+            sezioni[i * 2 + 1] = lunghezza;
+            return inizio + lunghezza;
+        }
+
+        private static int[] aggiungi(int[] a, int n, int hash) {
+            if (n == a.length) a = Arrays.copyOf(a, n * 2);
+            a[n] = mescola(hash);
+            return a;
+        }
+
+        private static int[] tabella(int[] hash, int n) {
+            int[] t = new int[Integer.highestOneBit(Math.max(1, 2 * n - 1)) << 1];
+            int maschera = t.length - 1;
+            for (int i = 0; i < n; i++) {
+                int s = hash[i] & maschera;
+                while (t[s] != 0) s = (s + 1) & maschera;
+                t[s] = i + 1;
+            }
+            return t;
+        }
+
+        private static DataOutputStream flusso(FileChannel c) {
+            return new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(c), 1 << 16));
+        }
+    }
+
+    // Righe piccole accumulate in memoria prima di conoscere la loro posizione nel file
+    private static final class Righe extends ByteArrayOutputStream {
+        void scrivi(int... campi) {
+            for (int c : campi) {
+                write(c >>> 24);
+                write(c >>> 16);
+                write(c >>> 8);
+                write(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package it.unisa.thetourist.applicazione.metriche;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IstogrammaTest {
+
+    @Test
+    void bucketBounds_containValueWithin3Percent() {
+        Random caso = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long v = (caso.nextLong() >>> 1) >>> caso.nextInt(63);
+            long limite = Istogramma.limiteSuperiore(Istogramma.indice(v));
+            assertTrue(limite >= v, "limite sotto il valore " + v);
+            assertTrue(limite - v <= Math.max(0, v / 32), "bucket troppo largo per " + v);
+        }
+        assertEquals(Long.MAX_VALUE, Istogramma.limiteSuperiore(Istogramma.indice(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void percentiles_uniformDistribution() {
+        Istogramma h = new Istogramma();
+        for (long v = 1; v <= 100_000; v++) h.registra(v);
+
+        Istogramma.Distribuzione d = h.distribuzione();
+
+        assertEquals(100_000, d.conteggio());
+        assertEquals(50_000.5, d.media(), 0.01);
+        assertEquals(50_000, d.p50(), 50_000 * 0.04);
+        assertEquals(99_000, d.p99(), 99_000 * 0.04);
+        assertEquals(100_000, d.max());
+        assertTrue(d.p999() <= d.max());
+    }
+
+    @Test
+    void emptyHistogram_allZero() {
+        Istogramma.Distribuzione d = new Istogramma().distribuzione();
+        assertEquals(0, d.conteggio());
+        assertEquals(0, d.p99());
+    }
+}
@@ -0,0 +1,67 @@
+package it.unisa.thetourist.applicazione.metriche;
+
+import it.unisa.thetourist.applicazione.dto.CriteriRicercaDTO;
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.interfaccia.IAutorizzazione;
+import it.unisa.thetourist.interfaccia.IRicercaVoli;
+import it.unisa.thetourist.interfaccia.controller.ControllerRicercaVoli;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RegistroMetricheTest {
+
+    @Test
+    void operation_recordsLatencyAndErrorsByType() {
+        RegistroMetriche registro = new RegistroMetriche();
+        Operazione op = registro.operazione("test.op");
+
+        op.registra(System.nanoTime() - 1_000);
+        op.errore(new DatiNonValidiException("x"));
+        op.errore(new DatiNonValidiException("y"));
+        op.errore(new IllegalStateException());
+
+        assertSame(op, registro.operazione("test.op"));
+        assertEquals(1, op.chiamate());
+        assertTrue(op.latenza().max() >= 1_000);
+        assertEquals(2L, op.errori().get("DatiNonValidiException"));
+        assertEquals(1L, op.errori().get("IllegalStateException"));
+    }
+
+    @Test
+    void snapshots_includeOperationsCountersAndGauges() {
+        RegistroMetriche registro = new RegistroMetriche();
+        registro.operazione("ricerca \"voli\"").registra(System.nanoTime());
+        registro.contatore("richieste").add(3);
+        registro.indicatore("coda", () -> 7);
+
+        String json = registro.json();
+        String testo = registro.testo();
+
+        assertTrue(json.startsWith("{\"operazioni\":{\"ricerca \\\"voli\\\"\":{\"chiamate\":1,"), json);
+        assertTrue(json.contains("\"contatori\":{\"richieste\":3}"), json);
+        assertTrue(json.endsWith("\"indicatori\":{\"coda\":7}}"), json);
+        assertTrue(testo.contains("richieste 3\n"));
+        assertTrue(testo.contains("coda 7\n"));
+    }
+
+    @Test
+    void controller_recordsIntoGlobalRegistry() throws Exception {
+        Operazione op = RegistroMetriche.globale().operazione("controller.ricercaVoli.cercaVoli");
+        long chiamate = op.chiamate();
+        long errori = op.errori().getOrDefault("DatiNonValidiException", 0L);
+        IRicercaVoli servizio = mock(IRicercaVoli.class);
+        when(servizio.cercaVoli(any())).thenReturn(List.of()).thenThrow(new DatiNonValidiException("no"));
+        ControllerRicercaVoli controller = new ControllerRicercaVoli(servizio, mock(IAutorizzazione.class));
+
+        controller.cercaVoli(new SessioneDTO(), new CriteriRicercaDTO());
+        assertThrows(DatiNonValidiException.class, () -> controller.cercaVoli(new SessioneDTO(), new CriteriRicercaDTO()));
+
+        assertEquals(chiamate + 2, op.chiamate());
+        assertEquals(errori + 1, op.errori().get("DatiNonValidiException"));
+    }
+}
@@ -0,0 +1,114 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.dominio.entita.Tariffa;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CalendarioTariffeTest {
+
+    private static final LocalDate GIORNO = LocalDate.now().plusDays(10);
+
+    private final VoloDAO voloDAO = new VoloDAO();
+    private final TariffaDAO tariffaDAO = new TariffaDAO();
+    private final InventarioPosti inventario = new InventarioPosti(voloDAO);
+    private final CalendarioTariffe calendario = new CalendarioTariffe(voloDAO, new MotorePrezzi(voloDAO, tariffaDAO,
+            Map.of(), RegolaPrezzo.FISSA));
+
+    private void volo(String codice, String arrivo, LocalDate giorno, int posti, String prezzo) {
+        voloDAO.salva(new Volo(codice, "NAP", arrivo, giorno.atTime(8, 0), giorno.atTime(9, 0), posti));
+        tariffaDAO.salva(new Tariffa("T" + codice, codice, "ECONOMY", new BigDecimal(prezzo)));
+    }
+
+    private Map<LocalDate, BigDecimal> minimi() {
+        return calendario.minimi("NAP", "FCO", GIORNO, GIORNO.plusDays(2));
+    }
+
+    @BeforeEach
+    void setUp() {
+        volo("AZ1", "FCO", GIORNO, 2, "120");
+        volo("AZ2", "FCO", GIORNO, 5, "90");
+        volo("AZ3", "FCO", GIORNO.plusDays(2), 5, "70");
+        volo("AZ4", "FCO", GIORNO.plusDays(2), 0, "10");
+        volo("AZ5", "LIN", GIORNO.plusDays(1), 5, "50");
+    }
+
+    @Test
+    void minimumPerDay_skipsSoldOutAndOtherRoutes() {
+        assertEquals(Map.of(GIORNO, new BigDecimal("90"), GIORNO.plusDays(2), new BigDecimal("70")), minimi());
+        assertTrue(calendario.minimi("NAP", "FCO", GIORNO.plusDays(3), GIORNO.plusDays(30)).isEmpty());
+    }
+
+    @Test
+    void notifiedChanges_updateTheDayMinimum() throws Exception {
+        minimi();
+
+        calendario.voloModificato(inventario.riserva("AZ2", 5));
+        assertEquals(new BigDecimal("120"), minimi().get(GIORNO), "AZ2 esaurito");
+
+        tariffaDAO.salva(new Tariffa("TAZ1", "AZ1", "ECONOMY", new BigDecimal("60")));
+        calendario.voloModificato(voloDAO.findByCodice("AZ1").orElseThrow());
+        assertEquals(new BigDecimal("60"), minimi().get(GIORNO));
+
+        calendario.voloModificato(inventario.riserva("AZ1", 2));
+        assertFalse(minimi().containsKey(GIORNO), "nessun volo prenotabile");
+
+        calendario.voloModificato(inventario.rilascia("AZ2", 1));
+        assertEquals(new BigDecimal("90"), minimi().get(GIORNO));
+    }
+
+    @Test
+    void slowUpdateOnOneRoute_doesNotBlockAnotherRoute() throws Exception {
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch sblocca = new CountDownLatch(1);
+        MotorePrezzi prezzi = spy(new MotorePrezzi(voloDAO, tariffaDAO, Map.of(), RegolaPrezzo.FISSA));
+        CalendarioTariffe sut = new CalendarioTariffe(voloDAO, prezzi);
+        sut.minimi("NAP", "FCO", GIORNO, GIORNO.plusDays(2));
+        sut.minimi("NAP", "LIN", GIORNO, GIORNO.plusDays(2));
+        Volo az1 = voloDAO.findByCodice("AZ1").orElseThrow();
+        doAnswer(inv -> {
+            dentro.countDown();
+            sblocca.await();
+            return inv.callRealMethod();
+        }).when(prezzi).prezzoMinimo(az1);
+
+        Thread lento = new Thread(() -> sut.voloModificato(az1));
+        lento.start();
+        try {
+            assertTrue(dentro.await(5, TimeUnit.SECONDS));
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> sut.voloModificato(inventario.riserva("AZ5", 5)));
+            assertTrue(sut.minimi("NAP", "LIN", GIORNO, GIORNO.plusDays(2)).isEmpty());
+        } finally {
+            sblocca.countDown();
+            lento.join();
+        }
+    }
+
+    @Test
+    void movedOrRemovedFlights_leaveTheirOldDay() {
+        minimi();
+        calendario.minimi("NAP", "LIN", GIORNO, GIORNO.plusDays(2));
+
+        Volo vecchio = voloDAO.findByCodice("AZ5").orElseThrow();
+        voloDAO.salva(new Volo("AZ5", "NAP", "FCO", GIORNO.plusDays(1).atTime(10, 0), GIORNO.plusDays(1).atTime(11, 0), 5));
+        calendario.voloModificato(vecchio);
+        assertTrue(calendario.minimi("NAP", "LIN", GIORNO, GIORNO.plusDays(2)).isEmpty());
+        assertEquals(new BigDecimal("50"), minimi().get(GIORNO.plusDays(1)));
+
+        voloDAO.rimuovi("AZ3");
+        calendario.voloModificato(new Volo("AZ3", "NAP", "FCO", null, null, 0));
+        assertFalse(minimi().containsKey(GIORNO.plusDays(2)));
+    }
+}
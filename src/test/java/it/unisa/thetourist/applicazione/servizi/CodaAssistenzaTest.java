@@ -0,0 +1,96 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodaAssistenzaTest {
+
+    private final AtomicLong adesso = new AtomicLong(1_000_000);
+    private final RuotaTemporale ruota = new RuotaTemporale(10, adesso::get);
+
+    private void avanzaDi(long millis) {
+        adesso.addAndGet(millis);
+        ruota.avanza();
+    }
+
+    @Test
+    void claimsFollowPriorityAcrossQueues() {
+        CodaAssistenza coda = new CodaAssistenza(8, ruota, 1_000);
+        for (int i = 0; i < 100; i++) coda.accoda("R" + i, 1_000 - i);
+
+        List<String> prese = new ArrayList<>();
+        for (int i = 0; i < 100; i++) prese.add(coda.prendi("admin" + (i % 3)).orElseThrow());
+
+        assertEquals("R99", prese.get(0));
+        assertEquals("R0", prese.get(99));
+        assertEquals(100, Set.copyOf(prese).size());
+        assertTrue(coda.prendi("admin0").isEmpty());
+        assertEquals(100, coda.inCarico());
+    }
+
+    @Test
+    void abandonedClaim_isReclaimedAfterLease_unlessRenewed() {
+        CodaAssistenza coda = new CodaAssistenza(4, ruota, 1_000);
+        coda.accoda("R1", 1);
+        coda.accoda("R2", 2);
+        assertEquals(Optional.of("R1"), coda.prendi("a"));
+        assertEquals(Optional.of("R2"), coda.prendi("b"));
+
+        avanzaDi(600);
+        assertTrue(coda.rinnova("b", "R2"));
+        assertFalse(coda.rinnova("a", "R2"), "solo chi ha la presa può rinnovarla");
+        avanzaDi(600);
+
+        assertEquals(Optional.of("R1"), coda.prendi("c"), "presa di a scaduta");
+        assertFalse(coda.completa("a", "R1"));
+        assertTrue(coda.completa("c", "R1"));
+        assertTrue(coda.rilascia("b", "R2"));
+        assertEquals(Optional.of("R2"), coda.prendi("c"));
+        avanzaDi(5_000);
+        assertFalse(coda.completa("c", "R2"));
+        assertEquals(1, coda.inAttesa());
+    }
+
+    @Test
+    void concurrentAdmins_neverClaimTheSameTicketTwice() throws Exception {
+        CodaAssistenza coda = new CodaAssistenza(16, ruota, 60_000);
+        int richieste = 20_000;
+        for (int i = 0; i < richieste; i++) coda.accoda("R" + i, i % 997);
+        Set<String> viste = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch via = new CountDownLatch(1);
+        List<Future<Integer>> esiti = new ArrayList<>();
+        for (int a = 0; a < 200; a++) {
+            String admin = "admin" + a;
+            esiti.add(pool.submit(() -> {
+                via.await();
+                int doppie = 0;
+                for (Optional<String> r = coda.prendi(admin); r.isPresent(); r = coda.prendi(admin)) {
+                    if (!viste.add(r.get())) doppie++;
+                    if (!coda.completa(admin, r.get())) doppie++;
+                }
+                return doppie;
+            }));
+        }
+        via.countDown();
+        int doppie = 0;
+        for (Future<Integer> f : esiti) doppie += f.get();
+        pool.shutdown();
+
+        assertEquals(0, doppie);
+        assertEquals(richieste, viste.size());
+        assertEquals(0, coda.inAttesa() + coda.inCarico());
+    }
+}
@@ -0,0 +1,125 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.dto.EsitoImportazioneDTO;
+import it.unisa.thetourist.dominio.entita.Aeroporto;
+import it.unisa.thetourist.dominio.entita.CompagniaAerea;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.dao.AeroportoDAO;
+import it.unisa.thetourist.persistenza.dao.CompagniaAereaDAO;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ImportatoreOrariTest {
+
+    private static final LocalDate GIORNO = LocalDate.of(2030, 6, 1);
+
+    @TempDir
+    Path cartella;
+
+    private final VoloDAO voloDAO = new VoloDAO();
+    private final TariffaDAO tariffaDAO = new TariffaDAO();
+    private final AeroportoDAO aeroportoDAO = new AeroportoDAO();
+    private final CompagniaAereaDAO compagniaAereaDAO = new CompagniaAereaDAO();
+
+    @BeforeEach
+    void setUp() {
+        aeroportoDAO.salva(new Aeroporto("NAP", "Capodichino", "Napoli", 0));
+        aeroportoDAO.salva(new Aeroporto("FCO", "Fiumicino", "Roma", 0));
+        compagniaAereaDAO.salva(new CompagniaAerea("AZ", "ITA Airways"));
+    }
+
+    private static String riga(String codice, int ora, String tariffa) {
+        return "AZ," + codice + ",NAP,FCO," + GIORNO.atTime(ora % 24, 0) + "," + GIORNO.atTime(ora % 24, 0).plusHours(1)
+                + ",100" + (tariffa == null ? "" : "," + tariffa + ",ECONOMY,49.90") + "\n";
+    }
+
+    @Test
+    void import_savesValidRowsAndReportsInvalidOnes() throws Exception {
+        Path file = cartella.resolve("orari.csv");
+        Files.writeString(file, "compagnia,codice,partenza,arrivo,dataOraPartenza,dataOraArrivo,posti\n"
+                + riga("AZ1", 8, "T1")
+                + riga("AZ2", 9, null)
+                + "XX,AZ3,NAP,FCO,2030-06-01T10:00,2030-06-01T11:00,100\n"
+                + "AZ,AZ4,NAP,BGY,2030-06-01T10:00,2030-06-01T11:00,100\n"
+                + "AZ,AZ5,NAP,FCO,ieri,2030-06-01T11:00,100\n"
+                + "\n"
+                + "AZ,AZ6,NAP,FCO\r\n"
+                + riga("AZ7", 12, "T7").strip());
+        ServizioGestioneCatalogo servizio = new ServizioGestioneCatalogo(voloDAO, tariffaDAO, aeroportoDAO, compagniaAereaDAO);
+        OsservatoreVoli osservatore = mock(OsservatoreVoli.class);
+        servizio.registraOsservatore(osservatore);
+        List<EsitoImportazioneDTO> avanzamenti = new ArrayList<>();
+
+        EsitoImportazioneDTO esito = servizio.importaOrari(file, avanzamenti::add);
+
+        assertEquals(7, esito.getRighe());
+        assertEquals(3, esito.getVoli());
+        assertEquals(2, esito.getTariffe());
+        assertEquals(4, esito.getScartate());
+        assertEquals(List.of(4, 5, 6, 8), esito.getErrori().stream()
+                .map(e -> Integer.parseInt(e.substring(5, e.indexOf(':')))).toList());
+        assertEquals(Files.size(file), esito.getByteLetti());
+        assertEquals(esito.getByteLetti(), avanzamenti.get(avanzamenti.size() - 1).getByteLetti());
+        assertEquals(new BigDecimal("49.90"), tariffaDAO.findByCodice("T7").orElseThrow().getPrezzo());
+        assertEquals(3, voloDAO.conta());
+        verify(osservatore, times(3)).voloModificato(any(Volo.class));
+    }
+
+    @Test
+    void interruptedImport_stopsWorkers() throws Exception {
+        Path file = cartella.resolve("orari.csv");
+        Files.writeString(file, riga("AZ1", 8, null));
+        ImportatoreOrari importatore = new ImportatoreOrari(voloDAO, tariffaDAO, aeroportoDAO, compagniaAereaDAO,
+                v -> { }, 2, 64);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(IOException.class, () -> importatore.importa(file, null));
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(t -> t.getName().startsWith("importazione-orari-") && t.isAlive()));
+    }
+
+    @Test
+    void smallBlocks_parallelWorkers_keepFileOrderAndRowNumbers() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) csv.append(riga("V" + (i % 1_500), i, "T" + i));
+        csv.append("AZ,").append("X".repeat(300)).append("\n");
+        csv.append("AZ,V0,NAP,BGY,2030-06-01T10:00,2030-06-01T11:00,100\n");
+        csv.append(riga("V1", 5, null));
+        Path file = cartella.resolve("orari.csv");
+        Files.writeString(file, csv);
+        List<Long> letti = new ArrayList<>();
+
+        EsitoImportazioneDTO esito = new ImportatoreOrari(voloDAO, tariffaDAO, aeroportoDAO, compagniaAereaDAO, v -> { },
+                4, 256).importa(file, e -> letti.add(e.getByteLetti()));
+
+        assertEquals(2_003, esito.getRighe());
+        assertEquals(2, esito.getScartate());
+        assertEquals(List.of("riga 2001: riga troppo lunga", "riga 2002: Aeroporto sconosciuto: BGY"), esito.getErrori());
+        assertEquals(1_500, voloDAO.conta());
+        assertEquals(2_000, esito.getTariffe());
+        assertEquals("V499", tariffaDAO.findByCodice("T1999").orElseThrow().getCodiceVolo());
+        assertEquals(GIORNO.atTime(5, 0), voloDAO.findByCodice("V1").orElseThrow().getDataOraPartenza(), "vince l'ultima riga");
+        assertEquals(GIORNO.atTime(1_500 % 24, 0), voloDAO.findByCodice("V0").orElseThrow().getDataOraPartenza());
+        for (int i = 1; i < letti.size(); i++) assertTrue(letti.get(i) > letti.get(i - 1));
+        assertEquals(Files.size(file), esito.getByteLetti());
+    }
+}
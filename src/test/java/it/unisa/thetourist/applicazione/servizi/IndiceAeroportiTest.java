@@ -0,0 +1,86 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.dominio.entita.Aeroporto;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.dao.AeroportoDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceAeroportiTest {
+
+    private static final LocalDateTime PARTENZA = LocalDateTime.of(2030, 5, 1, 8, 0);
+
+    private final AeroportoDAO aeroportoDAO = new AeroportoDAO();
+    private final VoloDAO voloDAO = new VoloDAO();
+    private int voli;
+
+    @BeforeEach
+    void catalogo() {
+        aeroportoDAO.salva(new Aeroporto("FCO", "Leonardo da Vinci Fiumicino", "Roma", 0));
+        aeroportoDAO.salva(new Aeroporto("CIA", "Ciampino", "Roma", 0));
+        aeroportoDAO.salva(new Aeroporto("NAP", "Capodichino", "Napoli", 0));
+        aeroportoDAO.salva(new Aeroporto("FLR", "Peretola", "Firenze", 0));
+        aeroportoDAO.salva(new Aeroporto("ZRH", "Zürich Flughafen", "Zürich", 0));
+        // traffico: FCO 3, NAP 2, CIA 1
+        volo("FCO", "NAP");
+        volo("FCO", "NAP");
+        volo("CIA", "FCO");
+    }
+
+    private void volo(String partenza, String arrivo) {
+        voloDAO.salva(new Volo("AZ" + voli++, partenza, arrivo, PARTENZA, PARTENZA.plusHours(1), 10));
+    }
+
+    private static List<String> codici(IndiceAeroporti indice, String prefisso, int k) {
+        Aeroporto[] risultati = new Aeroporto[k];
+        int n = indice.cerca(prefisso, risultati);
+        return Arrays.stream(risultati, 0, n).map(Aeroporto::getCodice).toList();
+    }
+
+    @Test
+    void prefix_matchesCodeCityAndNameWords_rankedByTraffic() {
+        IndiceAeroporti indice = new IndiceAeroporti(aeroportoDAO, voloDAO);
+
+        assertEquals(List.of("FCO", "CIA"), codici(indice, "rom", 5));
+        assertEquals(List.of("FCO"), codici(indice, "fiu", 5), "parola interna del nome");
+        assertEquals(List.of("FCO"), codici(indice, "LEONARDO  da v", 5));
+        assertEquals(List.of("FLR", "ZRH"), codici(indice, "fl", 5));
+        assertEquals(List.of("FLR"), codici(indice, "fire", 5));
+        assertEquals(List.of("FCO", "FLR", "ZRH"), codici(indice, "f", 5));
+        assertEquals(List.of("ZRH"), codici(indice, "zuri", 5), "accenti ignorati");
+        assertEquals(List.of("ZRH"), codici(indice, "ZÜR", 5));
+        assertEquals(List.of("NAP"), codici(indice, "napoli ", 5), "spazio finale ignorato");
+    }
+
+    @Test
+    void results_limitedToK_andEmptyWhenNoMatch() {
+        IndiceAeroporti indice = new IndiceAeroporti(aeroportoDAO, voloDAO);
+
+        assertEquals(List.of("FCO"), codici(indice, "r", 1));
+        assertTrue(codici(indice, "romx", 5).isEmpty());
+        assertTrue(codici(indice, "milano", 5).isEmpty());
+        assertEquals(List.of("FCO", "NAP", "CIA", "FLR", "ZRH"), codici(indice, "", 10));
+    }
+
+    @Test
+    void catalogChange_servedAfterRebuild() {
+        IndiceAeroporti indice = new IndiceAeroporti(aeroportoDAO, voloDAO);
+        assertTrue(indice.ricostruisci());
+        assertFalse(indice.ricostruisci(), "catalogo invariato");
+
+        aeroportoDAO.salva(new Aeroporto("RMX", "Roma Nord", "Roma", 0));
+        for (int i = 0; i < 5; i++) volo("RMX", "NAP");
+        assertEquals(List.of("FCO", "CIA"), codici(indice, "rom", 5), "il trie pubblicato non cambia");
+
+        assertTrue(indice.ricostruisci());
+        assertEquals(List.of("RMX", "FCO", "CIA"), codici(indice, "rom", 5));
+        indice.close();
+    }
+}
@@ -0,0 +1,66 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.dominio.entita.RichiestaAssistenza;
+import it.unisa.thetourist.dominio.entita.RispostaAssistenza;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceAssistenzaTest {
+
+    private final IndiceAssistenza indice = new IndiceAssistenza();
+
+    private static RichiestaAssistenza richiesta(String codice, String oggetto, String messaggio) {
+        return new RichiestaAssistenza(codice, "user1", null, oggetto, messaggio, LocalDateTime.now());
+    }
+
+    @Test
+    void analyzer_foldsAccentsStopwordsAndPlurals() {
+        assertEquals(List.of("bagagl", "perch", "arrivat"), AnalizzatoreTesto.termini("Il BAGAGLIO... perché non è arrivato?"));
+        assertEquals(AnalizzatoreTesto.termini("voli bagagli flights"), AnalizzatoreTesto.termini("volo, bagaglio, flight"));
+        assertEquals(List.of("az123", "l'aere".substring(2)), AnalizzatoreTesto.termini("AZ123 l'aereo"));
+    }
+
+    @Test
+    void search_ranksRequestsAndAnswers() {
+        RichiestaAssistenza bagaglio = richiesta("R1", "Bagaglio smarrito", "Il mio bagaglio non è arrivato a Roma");
+        RichiestaAssistenza rimborso = richiesta("R2", "Rimborso", "Volo cancellato, chiedo il rimborso");
+        indice.aggiungi(bagaglio);
+        indice.aggiungi(rimborso);
+        indice.aggiungi(bagaglio, new RispostaAssistenza("M1", "R1", "admin", "Lost luggage: compili il modulo PIR", LocalDateTime.now()));
+
+        List<IndiceAssistenza.Risultato> risultati = indice.cerca("bagagli smarriti", 10);
+
+        assertEquals(1, risultati.size());
+        assertSame(bagaglio, risultati.get(0).richiesta());
+        assertNull(risultati.get(0).risposta());
+        assertEquals("M1", indice.cerca("luggage PIR", 10).get(0).risposta().getCodice());
+        assertEquals(List.of("R2"), indice.cerca("rimborsi voli", 10).stream().map(r -> r.richiesta().getCodice()).toList());
+        assertTrue(indice.cerca("il di la", 10).isEmpty());
+    }
+
+    @Test
+    void prunedTopK_matchesExhaustiveRanking() {
+        Random caso = new Random(42);
+        String[] parole = {"volo", "ritardo", "bagaglio", "rimborso", "posto", "check", "gate", "cancellato", "pasto", "Roma"};
+        for (int i = 0; i < 5_000; i++) {
+            StringBuilder testo = new StringBuilder();
+            int n = 1 + caso.nextInt(12);
+            for (int j = 0; j < n; j++) testo.append(parole[(int) Math.abs(caso.nextGaussian() * 3) % parole.length]).append(' ');
+            indice.aggiungi(richiesta("R" + i, "x", testo.toString()));
+        }
+
+        for (String q : List.of("volo ritardo", "bagaglio rimborso pasto", "roma gate check posto", "cancellato")) {
+            List<Double> tutti = indice.cerca(q, Integer.MAX_VALUE).stream().map(IndiceAssistenza.Risultato::punteggio)
+                    .sorted(Comparator.reverseOrder()).limit(20).toList();
+            List<Double> primi = indice.cerca(q, 20).stream().map(IndiceAssistenza.Risultato::punteggio).toList();
+            assertEquals(20, primi.size());
+            for (int i = 0; i < 20; i++) assertEquals(tutti.get(i), primi.get(i), 1e-9, q);
+        }
+    }
+}
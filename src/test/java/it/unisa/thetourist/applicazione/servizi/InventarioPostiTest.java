@@ -0,0 +1,141 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.eccezioni.PostiEsauritiException;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+import it.unisa.thetourist.persistenza.jdbc.PersistenzaException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InventarioPostiTest {
+
+    private static final int THREAD = 16;
+
+    private VoloDAO voloDAO;
+    private InventarioPosti inventario;
+
+    @BeforeEach
+    void setUp() {
+        voloDAO = new VoloDAO();
+        inventario = new InventarioPosti(voloDAO);
+    }
+
+    private void volo(String codice, int posti) {
+        LocalDateTime partenza = LocalDateTime.now().plusDays(3);
+        voloDAO.salva(new Volo(codice, "NAP", "FCO", partenza, partenza.plusHours(1), posti));
+    }
+
+    interface Riserva { boolean prova(int n); }
+
+    // Ogni thread tenta prenotazioni da 1-3 posti finché il volo non è esaurito; restituisce i posti venduti
+    private static long svuota(Riserva riserva) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREAD);
+        CountDownLatch via = new CountDownLatch(1);
+        try {
+            List<Future<Long>> venduti = new ArrayList<>();
+            for (int t = 0; t < THREAD; t++) {
+                venduti.add(pool.submit((Callable<Long>) () -> {
+                    via.await();
+                    long totale = 0;
+                    int falliti = 0;
+                    while (falliti < 3) {
+                        int n = ThreadLocalRandom.current().nextInt(1, 4);
+                        if (riserva.prova(n)) totale += n; else falliti++;
+                    }
+                    return totale;
+                }));
+            }
+            via.countDown();
+            long totale = 0;
+            for (Future<Long> f : venduti) totale += f.get();
+            return totale;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Riserva suInventario(String codice) {
+        return n -> {
+            try {
+                inventario.riserva(codice, n);
+                return true;
+            } catch (PostiEsauritiException e) {
+                return false;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    @Test
+    void concurrentReservations_neverOversell() throws Exception {
+        int capienza = 50_000;
+        volo("AZ1", capienza);
+
+        long venduti = svuota(suInventario("AZ1"));
+
+        assertTrue(venduti <= capienza, "overselling: " + venduti);
+        assertTrue(inventario.disponibili("AZ1") < 3);
+        assertEquals(capienza, venduti + inventario.disponibili("AZ1"));
+        assertEquals(inventario.disponibili("AZ1"), voloDAO.findByCodice("AZ1").orElseThrow().getPostiDisponibili());
+    }
+
+    @Test
+    void insufficientSeats_leavesCounterUntouched() throws Exception {
+        volo("AZ1", 2);
+
+        assertThrows(PostiEsauritiException.class, () -> inventario.riserva("AZ1", 3));
+        inventario.riserva("AZ1", 2);
+        inventario.rilascia("AZ1", 1);
+
+        assertEquals(1, inventario.disponibili("AZ1"));
+    }
+
+    @Test
+    void replacedFlight_keepsSoldSeatsAndAppliesCapacityChange() throws Exception {
+        volo("AZ1", 10);
+        inventario.riserva("AZ1", 4);
+
+        volo("AZ1", 100);
+        assertEquals(96, inventario.disponibili("AZ1"));
+        assertEquals(96, voloDAO.findByCodice("AZ1").orElseThrow().getPostiDisponibili());
+
+        volo("AZ1", 3);
+        assertEquals(0, inventario.disponibili("AZ1"));
+        assertThrows(PostiEsauritiException.class, () -> inventario.riserva("AZ1", 1));
+        inventario.rilascia("AZ1", 4);
+        assertEquals(3, inventario.disponibili("AZ1"));
+    }
+
+    @Test
+    void seatChanges_writtenThroughTheDao_andFailedReservationGivesSeatsBack() throws Exception {
+        voloDAO = spy(new VoloDAO());
+        inventario = new InventarioPosti(voloDAO);
+        volo("AZ1", 10);
+
+        Volo volo = inventario.riserva("AZ1", 3);
+        verify(voloDAO).salvaPosti(volo);
+        assertEquals(7, volo.getPostiDisponibili());
+
+        doThrow(new PersistenzaException("Salvataggio dei posti fallito", new SQLException("giù"))).when(voloDAO).salvaPosti(volo);
+        assertThrows(PersistenzaException.class, () -> inventario.riserva("AZ1", 2));
+        assertEquals(7, inventario.disponibili("AZ1"));
+        // il rilascio resta valido in memoria anche se la scrittura fallisce
+        inventario.rilascia("AZ1", 3);
+        assertEquals(10, inventario.disponibili("AZ1"));
+    }
+}
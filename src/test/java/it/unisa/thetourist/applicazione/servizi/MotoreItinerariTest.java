@@ -0,0 +1,99 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.dto.CriteriRicercaDTO;
+import it.unisa.thetourist.applicazione.dto.ItinerarioDTO;
+import it.unisa.thetourist.dominio.entita.Aeroporto;
+import it.unisa.thetourist.dominio.entita.Tariffa;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.dominio.enumerazioni.CriterioOrdinamento;
+import it.unisa.thetourist.persistenza.dao.AeroportoDAO;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MotoreItinerariTest {
+
+    private static final LocalDate GIORNO = LocalDate.now().plusDays(5);
+
+    private AeroportoDAO aeroportoDAO;
+    private VoloDAO voloDAO;
+    private TariffaDAO tariffaDAO;
+    private MotoreItinerari motore;
+
+    @BeforeEach
+    void setUp() {
+        aeroportoDAO = new AeroportoDAO();
+        voloDAO = new VoloDAO();
+        tariffaDAO = new TariffaDAO();
+        motore = new MotoreItinerari(aeroportoDAO, voloDAO, tariffaDAO);
+
+        volo("AZ1", "NAP", "FCO", 8, 0, 9, 0, "300");
+        volo("AZ2", "NAP", "MXP", 7, 0, 8, 15, "40");
+        volo("AZ3", "MXP", "FCO", 8, 30, 9, 30, "40");   // coincidenza di 15': sotto il minimo
+        volo("AZ4", "MXP", "FCO", 9, 30, 10, 30, "50");
+        volo("AZ5", "NAP", "BLQ", 6, 0, 7, 0, "20");
+        volo("AZ6", "BLQ", "MXP", 8, 0, 9, 0, "20");
+        volo("AZ7", "MXP", "FCO", 11, 0, 12, 0, "30");
+    }
+
+    private void volo(String codice, String da, String a, int hp, int mp, int ha, int ma, String prezzo) {
+        voloDAO.salva(new Volo(codice, da, a, GIORNO.atTime(hp, mp), GIORNO.atTime(ha, ma), 10));
+        tariffaDAO.salva(new Tariffa("T-" + codice, codice, "ECONOMY", new BigDecimal(prezzo)));
+    }
+
+    private static CriteriRicercaDTO criteri() {
+        CriteriRicercaDTO c = new CriteriRicercaDTO();
+        c.setPartenza("NAP");
+        c.setArrivo("FCO");
+        c.setDataPartenza(GIORNO);
+        c.setNumeroPasseggeri(1);
+        return c;
+    }
+
+    private static List<String> codici(ItinerarioDTO i) {
+        return i.getTratte().stream().map(Volo::getCodice).toList();
+    }
+
+    @Test
+    void byDuration_directFirst_thenValidConnections() {
+        List<ItinerarioDTO> res = motore.cerca(criteri(), 2, CriterioOrdinamento.DURATA, 10);
+
+        assertEquals(List.of("AZ1"), codici(res.get(0)));
+        assertEquals(List.of("AZ2", "AZ4"), codici(res.get(1)));
+        assertTrue(res.stream().noneMatch(i -> codici(i).contains("AZ3")), "MCT non rispettato");
+        assertTrue(res.stream().anyMatch(i -> codici(i).equals(List.of("AZ5", "AZ6", "AZ7"))));
+    }
+
+    @Test
+    void byPrice_cheapestFirst_limitedToK() {
+        List<ItinerarioDTO> res = motore.cerca(criteri(), 2, CriterioOrdinamento.PREZZO, 2);
+
+        assertEquals(2, res.size());
+        assertEquals(List.of("AZ2", "AZ7"), codici(res.get(0)));
+        assertEquals(new BigDecimal("70"), res.get(0).getPrezzo());
+        assertEquals(List.of("AZ5", "AZ6", "AZ7"), codici(res.get(1)));
+    }
+
+    @Test
+    void maxStops_limitsItineraries() {
+        assertEquals(List.of(List.of("AZ1")),
+                motore.cerca(criteri(), 0, CriterioOrdinamento.DURATA, 10).stream().map(MotoreItinerariTest::codici).toList());
+        assertTrue(motore.cerca(criteri(), 1, CriterioOrdinamento.DURATA, 10).stream().allMatch(i -> i.getScali() <= 1));
+    }
+
+    @Test
+    void airportConnectionTime_overridesDefault() {
+        aeroportoDAO.salva(new Aeroporto("MXP", "Malpensa", "Milano", 10));
+
+        List<ItinerarioDTO> res = motore.cerca(criteri(), 1, CriterioOrdinamento.DURATA, 10);
+
+        assertTrue(res.stream().anyMatch(i -> codici(i).equals(List.of("AZ2", "AZ3"))));
+    }
+}
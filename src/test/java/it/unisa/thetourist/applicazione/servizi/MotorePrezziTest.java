@@ -0,0 +1,113 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.dominio.entita.Tariffa;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MotorePrezziTest {
+
+    private final VoloDAO voloDAO = new VoloDAO();
+    private final TariffaDAO tariffaDAO = new TariffaDAO();
+    private final InventarioPosti inventario = new InventarioPosti(voloDAO);
+    private MotorePrezzi motore;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime partenza = LocalDateTime.now().plusDays(5);
+        voloDAO.salva(new Volo("AZ1", "NAP", "FCO", partenza, partenza.plusHours(1), 100));
+        voloDAO.salva(new Volo("AZ2", "NAP", "FCO", partenza, partenza.plusHours(1), 100));
+        tariffaDAO.salva(new Tariffa("E1", "AZ1", "ECONOMY", new BigDecimal("100")));
+        tariffaDAO.salva(new Tariffa("B1", "AZ1", "BUSINESS", new BigDecimal("300")));
+        tariffaDAO.salva(new Tariffa("E2", "AZ2", "ECONOMY", new BigDecimal("80")));
+        RegolaPrezzo business = new RegolaPrezzo(new double[]{0.5}, new BigDecimal[]{BigDecimal.ONE, new BigDecimal("1.2")});
+        motore = new MotorePrezzi(voloDAO, tariffaDAO, Map.of("BUSINESS", business), RegolaPrezzo.PREDEFINITA);
+    }
+
+    private Volo volo(String codice) {
+        return voloDAO.findByCodice(codice).orElseThrow();
+    }
+
+    private BigDecimal prezzo(String codiceTariffa) {
+        return motore.prezzo(tariffaDAO.findByCodice(codiceTariffa).orElseThrow()).orElseThrow();
+    }
+
+    @Test
+    void removedOrDepartedFlights_dropTheirListino() throws Exception {
+        motore.prezzoMinimo(volo("AZ1"));
+        Volo az2 = volo("AZ2");
+        motore.prezzoMinimo(az2);
+        assertEquals(2, motore.dimensione());
+
+        Volo az1 = volo("AZ1");
+        voloDAO.rimuovi("AZ1");
+        motore.voloModificato(az1);
+        assertEquals(1, motore.dimensione());
+
+        az2.setDataOraPartenza(LocalDateTime.now().minusMinutes(1));
+        motore.voloModificato(az2);
+        assertEquals(0, motore.dimensione());
+    }
+
+    @Test
+    void priceFollowsLoadFactorThresholds() throws Exception {
+        assertEquals(new BigDecimal("100"), motore.prezzoMinimo(volo("AZ1")));
+
+        motore.voloModificato(inventario.riserva("AZ1", 49));
+        assertEquals(new BigDecimal("100"), prezzo("E1"));
+        motore.voloModificato(inventario.riserva("AZ1", 1));
+        assertEquals(new BigDecimal("110.00"), prezzo("E1"));
+        assertEquals(new BigDecimal("360.00"), prezzo("B1"), "regola della classe BUSINESS");
+
+        motore.voloModificato(inventario.riserva("AZ1", 45));
+        assertEquals(new BigDecimal("200.00"), motore.prezzoMinimo(volo("AZ1")));
+
+        motore.voloModificato(inventario.rilascia("AZ1", 95));
+        assertEquals(new BigDecimal("100"), motore.prezzoMinimo(volo("AZ1")));
+    }
+
+    @Test
+    void seatChangeOnOneFlight_leavesOtherListinoUntouched() throws Exception {
+        BigDecimal az2 = motore.prezzoMinimo(volo("AZ2"));
+
+        motore.voloModificato(inventario.riserva("AZ1", 60));
+
+        assertSame(az2, motore.prezzoMinimo(volo("AZ2")));
+        assertEquals(new BigDecimal("110.00"), motore.prezzoMinimo(volo("AZ1")));
+    }
+
+    @Test
+    void fareChangeOnOneFlight_leavesOtherListinoUntouched() {
+        BigDecimal az2 = motore.prezzoMinimo(volo("AZ2"));
+
+        tariffaDAO.salva(new Tariffa("E1", "AZ1", "ECONOMY", new BigDecimal("90")));
+        assertSame(az2, motore.prezzoMinimo(volo("AZ2")));
+        assertEquals(new BigDecimal("90"), motore.prezzoMinimo(volo("AZ1")));
+
+        tariffaDAO.salva(new Tariffa("E1", "AZ2", "ECONOMY", new BigDecimal("70")));
+        assertEquals(new BigDecimal("70"), motore.prezzoMinimo(volo("AZ2")));
+        assertEquals(new BigDecimal("300"), motore.prezzoMinimo(volo("AZ1")), "la tariffa spostata lascia il volo di prima");
+    }
+
+    @Test
+    void withoutNotifications_staleListinoIsDetected() throws Exception {
+        assertEquals(new BigDecimal("100"), motore.prezzoMinimo(volo("AZ1")));
+
+        inventario.riserva("AZ1", 90);
+        assertEquals(new BigDecimal("150.00"), motore.prezzoMinimo(volo("AZ1")));
+
+        tariffaDAO.salva(new Tariffa("E1", "AZ1", "ECONOMY", new BigDecimal("50")));
+        assertEquals(new BigDecimal("75.00"), motore.prezzoMinimo(volo("AZ1")));
+
+        voloDAO.salva(new Volo("AZ1", "NAP", "FCO", LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(5).plusHours(1), 100));
+        assertEquals(new BigDecimal("50"), motore.prezzoMinimo(volo("AZ1")), "nuovo volo, nuova capienza");
+    }
+}
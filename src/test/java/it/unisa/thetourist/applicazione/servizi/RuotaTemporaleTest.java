@@ -0,0 +1,92 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuotaTemporaleTest {
+
+    private AtomicLong adesso;
+    private RuotaTemporale ruota;
+
+    @BeforeEach
+    void setUp() {
+        adesso = new AtomicLong(1_000_000);
+        ruota = new RuotaTemporale(10, adesso::get);
+    }
+
+    private void avanzaDi(long millis) {
+        adesso.addAndGet(millis);
+        ruota.avanza();
+    }
+
+    @Test
+    void firesOnlyOnceDeadlineReached() {
+        AtomicInteger scattati = new AtomicInteger();
+        ruota.pianifica(scattati::incrementAndGet, 95);
+
+        avanzaDi(90);
+        assertEquals(0, scattati.get());
+        avanzaDi(10);
+        assertEquals(1, scattati.get());
+        avanzaDi(1_000);
+        assertEquals(1, scattati.get());
+    }
+
+    @Test
+    void cancelledTimer_neverFires() {
+        AtomicInteger scattati = new AtomicInteger();
+        RuotaTemporale.Timer t = ruota.pianifica(scattati::incrementAndGet, 50);
+
+        assertTrue(t.annulla());
+        avanzaDi(100);
+
+        assertEquals(0, scattati.get());
+        assertFalse(t.annulla());
+    }
+
+    @Test
+    void longDelays_cascadeThroughLevels_inOrder() {
+        List<Long> ordine = new ArrayList<>();
+        long[] ritardi = {5_000, 70_000, 3_000_000, 900_000_000L, 30, 2_570};
+        for (long r : ritardi) ruota.pianifica(() -> ordine.add(r), r);
+
+        long passo = 1_000;
+        for (long t = 0; t <= 900_000_000L + passo; t += passo) {
+            long prima = ordine.size();
+            avanzaDi(passo);
+            // ogni scadenza scatta entro un passo dal suo istante
+            for (int i = (int) prima; i < ordine.size(); i++) assertTrue(ordine.get(i) > t - 10 && ordine.get(i) <= t + passo);
+        }
+
+        assertEquals(List.of(30L, 2_570L, 5_000L, 70_000L, 3_000_000L, 900_000_000L), ordine);
+    }
+
+    @Test
+    void manyConcurrentTimers_allFireOnce() throws Exception {
+        int n = 200_000;
+        AtomicInteger scattati = new AtomicInteger();
+        Thread[] produttori = new Thread[4];
+        for (int p = 0; p < produttori.length; p++) {
+            int seme = p;
+            produttori[p] = new Thread(() -> {
+                for (int i = seme; i < n; i += produttori.length) ruota.pianifica(scattati::incrementAndGet, 1 + 3L * i);
+            });
+            produttori[p].start();
+        }
+        for (Thread t : produttori) t.join();
+
+        avanzaDi(300_000);
+        int aMeta = scattati.get();
+        avanzaDi(400_000);
+
+        assertTrue(aMeta > 0 && aMeta < n, "scattati a metà: " + aMeta);
+        assertEquals(n, scattati.get());
+    }
+}
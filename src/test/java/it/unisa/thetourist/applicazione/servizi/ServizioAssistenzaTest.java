@@ -0,0 +1,105 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.dto.DatiRichiestaAssistenzaDTO;
+import it.unisa.thetourist.applicazione.dto.DatiRispostaAssistenzaDTO;
+import it.unisa.thetourist.applicazione.dto.RisultatoRicercaAssistenzaDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.EntitaNonTrovataException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+import it.unisa.thetourist.dominio.entita.RichiestaAssistenza;
+import it.unisa.thetourist.dominio.enumerazioni.StatoRichiesta;
+import it.unisa.thetourist.persistenza.dao.PrenotazioneDAO;
+import it.unisa.thetourist.persistenza.dao.PrenotazioneDAOMemoria;
+import it.unisa.thetourist.persistenza.dao.RichiestaAssistenzaDAO;
+import it.unisa.thetourist.persistenza.dao.RispostaAssistenzaDAO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServizioAssistenzaTest {
+
+    private final RichiestaAssistenzaDAO richiestaDAO = new RichiestaAssistenzaDAO();
+    private final RispostaAssistenzaDAO rispostaDAO = new RispostaAssistenzaDAO();
+    private final PrenotazioneDAO prenotazioneDAO = new PrenotazioneDAOMemoria();
+    private final ServizioAssistenza servizio = new ServizioAssistenza(richiestaDAO, rispostaDAO, prenotazioneDAO,
+            new RuotaTemporale(10), Duration.ofMinutes(10));
+
+    private static DatiRichiestaAssistenzaDTO dati(String codicePrenotazione) {
+        DatiRichiestaAssistenzaDTO d = new DatiRichiestaAssistenzaDTO();
+        d.setCodicePrenotazione(codicePrenotazione);
+        d.setOggetto("Bagaglio");
+        d.setMessaggio("Il bagaglio non è arrivato");
+        return d;
+    }
+
+    private static DatiRispostaAssistenzaDTO risposta(String codiceRichiesta, boolean chiudi) {
+        DatiRispostaAssistenzaDTO d = new DatiRispostaAssistenzaDTO();
+        d.setCodiceRichiesta(codiceRichiesta);
+        d.setTesto("Lo stiamo cercando");
+        d.setChiudi(chiudi);
+        return d;
+    }
+
+    @Test
+    void bookingValue_movesTicketAhead() throws Exception {
+        Prenotazione p = new Prenotazione("P1", "user1", "AZ1", "T1", LocalDateTime.now());
+        p.setImporto(new BigDecimal("900"));
+        prenotazioneDAO.salva(p);
+        RichiestaAssistenza senzaPrenotazione = servizio.apriRichiesta("user2", dati(null));
+        RichiestaAssistenza costosa = servizio.apriRichiesta("user1", dati("P1"));
+
+        assertEquals(costosa.getCodice(), servizio.prendiInCarico("admin").orElseThrow().getCodice());
+        assertEquals(senzaPrenotazione.getCodice(), servizio.prendiInCarico("admin").orElseThrow().getCodice());
+        assertTrue(servizio.prendiInCarico("admin").isEmpty());
+        assertThrows(EntitaNonTrovataException.class, () -> servizio.apriRichiesta("user2", dati("P1")));
+    }
+
+    @Test
+    void onlyClaimHolderAnswers_andFollowUpRequeues() throws Exception {
+        RichiestaAssistenza r = servizio.apriRichiesta("user1", dati(null));
+        servizio.prendiInCarico("admin1").orElseThrow();
+
+        assertThrows(NonAutorizzatoException.class, () -> servizio.rispondi("admin2", risposta(r.getCodice(), false)));
+        servizio.rispondi("admin1", risposta(r.getCodice(), false));
+        assertEquals(StatoRichiesta.RISPOSTA, r.getStato());
+        assertThrows(NonAutorizzatoException.class, () -> servizio.rispondi("admin1", risposta(r.getCodice(), false)));
+        assertTrue(servizio.prendiInCarico("admin2").isEmpty());
+
+        servizio.sollecita("user1", r.getCodice(), "Novità?");
+        assertEquals(StatoRichiesta.SOLLECITATA, r.getStato());
+        assertEquals(r.getCodice(), servizio.prendiInCarico("admin2").orElseThrow().getCodice());
+        servizio.rispondi("admin2", risposta(r.getCodice(), true));
+
+        assertEquals(StatoRichiesta.CHIUSA, r.getStato());
+        assertEquals(3, rispostaDAO.findByRichiesta(r.getCodice()).size());
+        assertThrows(DatiNonValidiException.class, () -> servizio.sollecita("user1", r.getCodice(), "Ancora?"));
+    }
+
+    @Test
+    void search_findsAnswersStoredThroughTheService() throws Exception {
+        RichiestaAssistenza r = servizio.apriRichiesta("user1", dati(null));
+        servizio.prendiInCarico("admin").orElseThrow();
+        servizio.rispondi("admin", risposta(r.getCodice(), true));
+        servizio.apriRichiesta("user2", altro());
+
+        List<RisultatoRicercaAssistenzaDTO> trovati = servizio.cercaMessaggi("bagagli", 5);
+
+        assertEquals(1, trovati.size());
+        assertEquals(r.getCodice(), trovati.get(0).getCodiceRichiesta());
+        assertEquals("Lo stiamo cercando", servizio.cercaMessaggi("cercando", 5).get(0).getTesto());
+        assertThrows(DatiNonValidiException.class, () -> servizio.cercaMessaggi(" ", 5));
+    }
+
+    private static DatiRichiestaAssistenzaDTO altro() {
+        DatiRichiestaAssistenzaDTO d = new DatiRichiestaAssistenzaDTO();
+        d.setOggetto("Fattura");
+        d.setMessaggio("Mi serve la fattura del volo");
+        return d;
+    }
+}
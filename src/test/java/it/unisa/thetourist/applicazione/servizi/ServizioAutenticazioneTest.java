@@ -0,0 +1,160 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.dto.CredenzialiDTO;
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.dominio.entita.Utente;
+import it.unisa.thetourist.persistenza.dao.UtenteDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServizioAutenticazioneTest {
+
+    private static final long DURATA = Duration.ofMinutes(30).toMillis();
+
+    private final AtomicLong adesso = new AtomicLong(1_000_000);
+    private final CodificatorePassword codificatore = new CodificatorePassword(1_000);
+    private final ArchivioSessioni archivio = new ArchivioSessioni(DURATA, adesso::get);
+    private final UtenteDAO utenteDAO = new UtenteDAO();
+    private ServizioAutenticazione sut;
+
+    @BeforeEach
+    void setUp() {
+        utenteDAO.salva(new Utente("u1", "mario@example.com", "Mario", "Rossi", codificatore.codifica("segreta")));
+        sut = new ServizioAutenticazione(utenteDAO, codificatore, archivio, Runnable::run);
+    }
+
+    @Test
+    void login_validCredentials_returnsResolvableSession() throws Exception {
+        SessioneDTO sessione = sut.login(new CredenzialiDTO("Mario@Example.com", "segreta"));
+
+        assertEquals(22, sessione.getToken().length());
+        assertEquals("u1", sut.verificaSessione(sessione.getToken()).getIdUtente());
+    }
+
+    @Test
+    void login_wrongPasswordOrUnknownUser_rejected() {
+        assertThrows(NonAutorizzatoException.class, () -> sut.login(new CredenzialiDTO("mario@example.com", "sbagliata")));
+        assertThrows(NonAutorizzatoException.class, () -> sut.login(new CredenzialiDTO("anna@example.com", "segreta")));
+        assertThrows(DatiNonValidiException.class, () -> sut.login(new CredenzialiDTO("", "segreta")));
+    }
+
+    @Test
+    void session_slidingExpiry() throws Exception {
+        String token = sut.login(new CredenzialiDTO("mario@example.com", "segreta")).getToken();
+
+        adesso.addAndGet(DURATA - 1);
+        assertNotNull(sut.verificaSessione(token), "l'accesso prolunga la sessione");
+        adesso.addAndGet(DURATA - 1);
+        assertNotNull(sut.verificaSessione(token));
+        adesso.addAndGet(DURATA);
+
+        assertThrows(NonAutorizzatoException.class, () -> sut.verificaSessione(token));
+    }
+
+    @Test
+    void logout_invalidatesToken() throws Exception {
+        String token = sut.login(new CredenzialiDTO("mario@example.com", "segreta")).getToken();
+        sut.logout(token);
+
+        assertThrows(NonAutorizzatoException.class, () -> sut.verificaSessione(token));
+    }
+
+    @Test
+    void sweep_removesOnlyExpiredSessions_inBoundedSteps() {
+        Set<String> vecchie = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) vecchie.add(archivio.crea("u" + i).getToken());
+        adesso.addAndGet(DURATA / 2);
+        for (int i = 0; i < 1_000; i++) archivio.crea("n" + i);
+        adesso.addAndGet(DURATA / 2);
+
+        assertEquals(11_000, archivio.statistiche().attive());
+        assertTrue(archivio.spazza(500) <= 500);
+        int rimosse = 500;
+        int passo;
+        while ((passo = archivio.spazza(500)) > 0) rimosse += passo;
+
+        StatisticheSessioni stat = archivio.statistiche();
+        assertEquals(10_000, rimosse);
+        assertEquals(1_000, stat.attive());
+        assertEquals(1_000L * ArchivioSessioni.BYTE_PER_SESSIONE, stat.byteStimati());
+        assertEquals(11_000, stat.create());
+        assertEquals(10_000, stat.scadute());
+        assertTrue(vecchie.stream().allMatch(t -> archivio.tocca(t) == null));
+    }
+
+    @Test
+    void login_rehashesWhenCostWasRaised() throws Exception {
+        CodificatorePassword piuCostoso = new CodificatorePassword(2_000);
+        ServizioAutenticazione aggiornato = new ServizioAutenticazione(utenteDAO, piuCostoso, archivio, Runnable::run);
+        String vecchio = utenteDAO.findById("u1").orElseThrow().getHashPassword();
+
+        aggiornato.login(new CredenzialiDTO("mario@example.com", "segreta"));
+
+        String nuovo = utenteDAO.findById("u1").orElseThrow().getHashPassword();
+        assertTrue(vecchio.startsWith("pbkdf2$1000$"));
+        assertTrue(nuovo.startsWith("pbkdf2$2000$"));
+        assertFalse(piuCostoso.daAggiornare(nuovo));
+        assertNotNull(aggiornato.login(new CredenzialiDTO("mario@example.com", "segreta")));
+    }
+
+    @Test
+    void login_saturatedHashPool_rejectedImmediately() throws Exception {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        CountDownLatch sblocca = new CountDownLatch(1);
+        try {
+            pool.execute(() -> {
+                try { sblocca.await(); } catch (InterruptedException ignorata) { }
+            });
+            ServizioAutenticazione saturo = new ServizioAutenticazione(utenteDAO, codificatore, archivio, pool);
+            CredenzialiDTO credenziali = new CredenzialiDTO("mario@example.com", "segreta");
+
+            CompletableFuture<SessioneDTO> inCoda = saturo.loginAsync(credenziali);
+            assertThrows(RejectedExecutionException.class, () -> saturo.login(credenziali));
+
+            sblocca.countDown();
+            assertEquals("u1", inCoda.get(5, TimeUnit.SECONDS).getIdUtente());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void close_stopsSweepRescheduling() {
+        RuotaTemporale ruota = new RuotaTemporale(100, adesso::get);
+        ServizioAutenticazione conPulizia = new ServizioAutenticazione(utenteDAO, codificatore, archivio, Runnable::run, ruota);
+        archivio.crea("u1");
+
+        adesso.addAndGet(DURATA + 1_000);
+        ruota.avanza();
+        assertEquals(0, archivio.statistiche().attive());
+
+        conPulizia.close();
+        archivio.crea("u1");
+        adesso.addAndGet(DURATA + 10_000);
+        ruota.avanza();
+        assertEquals(1, archivio.statistiche().attive());
+    }
+
+    @Test
+    void loginAsync_wrongPassword_failsWithNonAutorizzato() {
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> sut.loginAsync(new CredenzialiDTO("mario@example.com", "sbagliata")).get());
+        assertInstanceOf(NonAutorizzatoException.class, e.getCause());
+    }
+}
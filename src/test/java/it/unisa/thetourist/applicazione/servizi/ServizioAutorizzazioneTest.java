@@ -0,0 +1,71 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.EntitaNonTrovataException;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.dominio.entita.Utente;
+import it.unisa.thetourist.dominio.enumerazioni.Permesso;
+import it.unisa.thetourist.dominio.enumerazioni.Ruolo;
+import it.unisa.thetourist.persistenza.dao.UtenteDAO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ServizioAutorizzazioneTest {
+
+    private final UtenteDAO utenteDAO = spy(new UtenteDAO());
+    private final ServizioAutorizzazione sut = new ServizioAutorizzazione(utenteDAO);
+    private final SessioneDTO sessione = new SessioneDTO("tok", "u1", Instant.now());
+
+    private void utente(Ruolo ruolo) {
+        Utente u = new Utente("u1", "mario@example.com", "Mario", "Rossi", "x");
+        u.setRuolo(ruolo);
+        utenteDAO.salva(u);
+    }
+
+    @Test
+    void roleMasks_matchDeclaredPermissions() {
+        assertTrue(Ruolo.UTENTE.consente(Permesso.PRENOTA));
+        assertFalse(Ruolo.UTENTE.consente(Permesso.GESTISCI_CATALOGO));
+        assertTrue(Ruolo.ADMIN.consente(Permesso.GESTISCI_CATALOGO));
+        assertFalse(Ruolo.ADMIN.consente(Permesso.PAGA));
+        assertEquals(EnumSet.of(Permesso.CERCA_VOLI, Permesso.PRENOTA, Permesso.PAGA,
+                Permesso.VISUALIZZA_PRENOTAZIONI, Permesso.APRI_RICHIESTA_ASSISTENZA), Ruolo.UTENTE.permessi());
+    }
+
+    @Test
+    void verifica_deniedPermission_throws() throws Exception {
+        utente(Ruolo.UTENTE);
+
+        sut.verifica(sessione, Permesso.PRENOTA);
+        assertThrows(NonAutorizzatoException.class, () -> sut.verifica(sessione, Permesso.GESTISCI_CATALOGO));
+        assertFalse(sut.consente(new SessioneDTO("tok2", "sconosciuto", Instant.now()), Permesso.CERCA_VOLI));
+        assertFalse(sut.consente(null, Permesso.CERCA_VOLI));
+    }
+
+    @Test
+    void roleIsLoadedOnce_thenCached() {
+        utente(Ruolo.UTENTE);
+
+        for (int i = 0; i < 1_000; i++) assertTrue(sut.consente(sessione, Permesso.CERCA_VOLI));
+
+        verify(utenteDAO, times(1)).findById("u1");
+    }
+
+    @Test
+    void cambiaRuolo_invalidatesCachedDecision() throws Exception {
+        utente(Ruolo.UTENTE);
+        assertFalse(sut.consente(sessione, Permesso.GESTISCI_CATALOGO));
+
+        sut.cambiaRuolo("u1", Ruolo.ADMIN);
+
+        assertTrue(sut.consente(sessione, Permesso.GESTISCI_CATALOGO));
+        assertFalse(sut.consente(sessione, Permesso.PAGA));
+        assertEquals(Ruolo.ADMIN, utenteDAO.findById("u1").orElseThrow().getRuolo());
+        assertThrows(EntitaNonTrovataException.class, () -> sut.cambiaRuolo("nessuno", Ruolo.ADMIN));
+    }
+}
@@ -0,0 +1,209 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.eccezioni.PagamentoFallitoException;
+import it.unisa.thetourist.dominio.entita.Pagamento;
+import it.unisa.thetourist.dominio.enumerazioni.EsitoPagamento;
+import it.unisa.thetourist.persistenza.dao.PagamentoDAO;
+import it.unisa.thetourist.persistenza.integrazione.pagamento.InterruttoreCircuito;
+import it.unisa.thetourist.persistenza.integrazione.pagamento.PaymentGateway;
+import it.unisa.thetourist.persistenza.integrazione.pagamento.PipelinePagamenti;
+import it.unisa.thetourist.persistenza.integrazione.pagamento.SimulatorePagamentoClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServizioPagamentiSimulatiTest {
+
+    private static final BigDecimal IMPORTO = new BigDecimal("100.00");
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger chiamateGateway = new AtomicInteger();
+    private final AtomicLong adesso = new AtomicLong();
+    private ArchivioIdempotenza<Pagamento> archivio = new ArchivioIdempotenza<>(1_000, 1_000, adesso::get);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private ServizioPagamentiSimulati servizio(BiFunction<String, BigDecimal, EsitoPagamento> autorizza) {
+        PaymentGateway contato = gateway((rif, importo) -> {
+            chiamateGateway.incrementAndGet();
+            return autorizza.apply(rif, importo);
+        });
+        PipelinePagamenti pipeline = new PipelinePagamenti(contato, executor, 100, Duration.ofSeconds(5),
+                new InterruttoreCircuito(100, Duration.ofSeconds(1)));
+        return new ServizioPagamentiSimulati(pipeline, new PagamentoDAO(), archivio);
+    }
+
+    // Gateway di prova: il rimborso riesce sempre
+    private static PaymentGateway gateway(BiFunction<String, BigDecimal, EsitoPagamento> autorizza) {
+        return new PaymentGateway() {
+            @Override
+            public EsitoPagamento autorizza(String riferimento, BigDecimal importo) {
+                return autorizza.apply(riferimento, importo);
+            }
+
+            @Override
+            public void rimborsa(String riferimento, BigDecimal importo) { }
+        };
+    }
+
+    @Test
+    void retryWithSameKey_returnsStoredOutcomeWithoutGateway() throws Exception {
+        ServizioPagamentiSimulati sut = servizio((rif, importo) -> EsitoPagamento.AUTORIZZATO);
+
+        Pagamento primo = sut.paga("K1", "PRN1", IMPORTO);
+        Pagamento ritentato = sut.paga("K1", "PRN1", new BigDecimal("100"));
+
+        assertSame(primo, ritentato);
+        assertEquals(1, chiamateGateway.get());
+    }
+
+    @Test
+    void rejection_freesKeyForRetry() throws Exception {
+        boolean[] rifiuta = {true};
+        ServizioPagamentiSimulati sut = servizio((rif, importo) -> rifiuta[0] ? EsitoPagamento.RIFIUTATO : EsitoPagamento.AUTORIZZATO);
+
+        assertThrows(PagamentoFallitoException.class, () -> sut.paga("K1", "PRN1", IMPORTO));
+        rifiuta[0] = false;
+
+        assertEquals(EsitoPagamento.AUTORIZZATO, sut.paga("K1", "PRN1", IMPORTO).getEsito());
+        assertEquals(2, chiamateGateway.get());
+    }
+
+    @Test
+    void technicalFailure_keepsKeyInDoubtAndRetriesSameReference() throws Exception {
+        boolean[] guasto = {true};
+        List<String> riferimenti = new ArrayList<>();
+        ServizioPagamentiSimulati sut = servizio((rif, importo) -> {
+            riferimenti.add(rif);
+            if (guasto[0]) throw new IllegalStateException("Gateway non disponibile");
+            return EsitoPagamento.AUTORIZZATO;
+        });
+
+        assertThrows(PagamentoFallitoException.class, () -> sut.paga("K1", "PRN1", IMPORTO));
+        guasto[0] = false;
+
+        assertThrows(PagamentoFallitoException.class, () -> sut.paga("K1", "PRN1", new BigDecimal("999")),
+                "una chiave incerta resta legata al suo importo");
+        assertEquals(EsitoPagamento.AUTORIZZATO, sut.paga("K1", "PRN1", IMPORTO).getEsito());
+        assertEquals(List.of("K1", "K1"), riferimenti);
+    }
+
+    @Test
+    void timeoutThenRetry_chargedOnce() throws Exception {
+        SimulatorePagamentoClient simulatore = new SimulatorePagamentoClient();
+        CountDownLatch sblocca = new CountDownLatch(1);
+        AtomicInteger chiamate = new AtomicInteger();
+        PaymentGateway primaLenta = gateway((rif, importo) -> {
+            if (chiamate.getAndIncrement() == 0) {
+                try {
+                    sblocca.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return simulatore.autorizza(rif, importo);
+        });
+        PipelinePagamenti pipeline = new PipelinePagamenti(primaLenta, executor, 100, Duration.ofMillis(50),
+                new InterruttoreCircuito(100, Duration.ofSeconds(1)));
+        ServizioPagamentiSimulati sut = new ServizioPagamentiSimulati(pipeline, new PagamentoDAO(), archivio);
+
+        assertThrows(PagamentoFallitoException.class, () -> sut.paga("PRN1", IMPORTO));
+        sblocca.countDown();
+
+        assertEquals(EsitoPagamento.AUTORIZZATO, sut.paga("PRN1", IMPORTO).getEsito());
+        assertEquals(1, simulatore.addebitati());
+    }
+
+    @Test
+    void refundFailure_keepsKeyAndRecordsChargeForReconciliation() throws Exception {
+        PaymentGateway gateway = new PaymentGateway() {
+            @Override
+            public EsitoPagamento autorizza(String riferimento, BigDecimal importo) {
+                chiamateGateway.incrementAndGet();
+                return EsitoPagamento.AUTORIZZATO;
+            }
+
+            @Override
+            public void rimborsa(String riferimento, BigDecimal importo) {
+                throw new IllegalStateException("Gateway non disponibile");
+            }
+        };
+        PagamentoDAO pagamentoDAO = new PagamentoDAO();
+        ServizioPagamentiSimulati sut = new ServizioPagamentiSimulati(new PipelinePagamenti(gateway, executor, 100,
+                Duration.ofSeconds(5), new InterruttoreCircuito(100, Duration.ofSeconds(1))), pagamentoDAO, archivio);
+        Pagamento pagato = sut.paga("K1", "PRN1", IMPORTO);
+
+        assertThrows(PagamentoFallitoException.class, () -> sut.rimborsa("K1", "PRN1", IMPORTO));
+
+        assertEquals(1, pagamentoDAO.findByEsito(EsitoPagamento.DA_RICONCILIARE).size());
+        assertSame(pagato, sut.paga("K1", "PRN1", IMPORTO), "l'addebito non stornato resta legato alla chiave");
+        assertEquals(1, chiamateGateway.get());
+    }
+
+    @Test
+    void sameKeyDifferentRequest_rejected() throws Exception {
+        ServizioPagamentiSimulati sut = servizio((rif, importo) -> EsitoPagamento.AUTORIZZATO);
+        sut.paga("K1", "PRN1", IMPORTO);
+
+        assertThrows(PagamentoFallitoException.class, () -> sut.paga("K1", "PRN1", new BigDecimal("999")));
+        assertEquals(1, chiamateGateway.get());
+    }
+
+    @Test
+    void concurrentDuplicates_waitOnFirstAttempt() throws Exception {
+        CountDownLatch sblocca = new CountDownLatch(1);
+        ServizioPagamentiSimulati sut = servizio((rif, importo) -> {
+            try {
+                sblocca.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return EsitoPagamento.AUTORIZZATO;
+        });
+
+        ExecutorService client = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Pagamento>> tentativi = new ArrayList<>();
+            for (int i = 0; i < 16; i++) tentativi.add(client.submit(() -> sut.paga("K1", "PRN1", IMPORTO)));
+            Thread.sleep(100);
+            sblocca.countDown();
+
+            Pagamento primo = tentativi.get(0).get();
+            for (Future<Pagamento> f : tentativi) assertSame(primo, f.get());
+        } finally {
+            client.shutdownNow();
+        }
+        assertEquals(1, chiamateGateway.get());
+    }
+
+    @Test
+    void store_isBoundedAndExpires() throws Exception {
+        archivio = new ArchivioIdempotenza<>(3, 1_000, adesso::get);
+        ServizioPagamentiSimulati sut = servizio((rif, importo) -> EsitoPagamento.AUTORIZZATO);
+
+        for (int i = 0; i < 10; i++) sut.paga("K" + i, "PRN" + i, IMPORTO);
+        assertEquals(3, archivio.dimensione());
+
+        sut.paga("K9", "PRN9", IMPORTO);
+        assertEquals(10, chiamateGateway.get());
+        adesso.addAndGet(1_000);
+        sut.paga("K9", "PRN9", IMPORTO);
+        assertEquals(11, chiamateGateway.get());
+    }
+}
@@ -0,0 +1,461 @@
+package it.unisa.thetourist.applicazione.servizi;
+
+import it.unisa.thetourist.applicazione.dto.DatiPasseggeriDTO;
+import it.unisa.thetourist.applicazione.dto.DatiTrattaGruppoDTO;
+import it.unisa.thetourist.applicazione.dto.PaginaPrenotazioniDTO;
+import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.applicazione.eccezioni.PagamentoFallitoException;
+import it.unisa.thetourist.applicazione.eccezioni.PostiEsauritiException;
+import it.unisa.thetourist.dominio.entita.Pagamento;
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+import it.unisa.thetourist.dominio.entita.Tariffa;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.dominio.enumerazioni.EsitoPagamento;
+import it.unisa.thetourist.dominio.enumerazioni.StatoPrenotazione;
+import it.unisa.thetourist.persistenza.dao.PagamentoDAO;
+import it.unisa.thetourist.persistenza.dao.PasseggeroDAO;
+import it.unisa.thetourist.persistenza.dao.PrenotazioneDAO;
+import it.unisa.thetourist.persistenza.dao.PrenotazioneDAOJournal;
+import it.unisa.thetourist.persistenza.dao.PrenotazioneDAOMemoria;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+import it.unisa.thetourist.persistenza.integrazione.pagamento.PaymentGateway;
+import it.unisa.thetourist.persistenza.integrazione.pagamento.SimulatorePagamentoClient;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ServizioPrenotazioniTest {
+
+    private final VoloDAO voloDAO = new VoloDAO();
+    private final TariffaDAO tariffaDAO = new TariffaDAO();
+    private final PrenotazioneDAO prenotazioneDAO = new PrenotazioneDAOMemoria();
+    private final InventarioPosti inventario = new InventarioPosti(voloDAO);
+    private final AtomicLong adesso = new AtomicLong();
+    private final RuotaTemporale ruota = new RuotaTemporale(100, adesso::get);
+
+    @TempDir
+    Path cartella;
+
+    private ServizioPrenotazioni servizio(boolean pagamentoOk, int posti) {
+        LocalDateTime partenza = LocalDateTime.now().plusDays(3);
+        voloDAO.salva(new Volo("AZ1", "NAP", "FCO", partenza, partenza.plusHours(1), posti));
+        tariffaDAO.salva(new Tariffa("T1", "AZ1", "ECONOMY", new BigDecimal("100")));
+        ServizioPagamentiSimulati pagamenti = new ServizioPagamentiSimulati(new SimulatorePagamentoClient(pagamentoOk), new PagamentoDAO());
+        return new ServizioPrenotazioni(tariffaDAO, prenotazioneDAO, new PasseggeroDAO(), inventario, pagamenti,
+                ruota, Duration.ofMinutes(15), null, Runnable::run);
+    }
+
+    private void trascorrono(Duration d) {
+        adesso.addAndGet(d.toMillis());
+        ruota.avanza();
+    }
+
+    @Test
+    void confirm_consumesSeatsAndNotifiesObservers() throws Exception {
+        ServizioPrenotazioni sut = servizio(true, 10);
+        OsservatoreVoli osservatore = mock(OsservatoreVoli.class);
+        sut.registraOsservatore(osservatore);
+
+        Prenotazione p = sut.avviaPrenotazione("user1", "AZ1", "T1", 3);
+        sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Mario", "Rossi", "ID123"));
+        sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Anna", "Rossi", "ID456"));
+        Prenotazione confermata = sut.confermaPrenotazione(p.getCodice());
+
+        assertEquals(StatoPrenotazione.CONFERMATA, confermata.getStato());
+        assertEquals(new BigDecimal("200"), confermata.getImporto());
+        assertEquals(8, inventario.disponibili("AZ1"), "il posto bloccato e non usato torna disponibile");
+        verify(osservatore, times(2)).voloModificato(any(Volo.class));
+    }
+
+    @Test
+    void draft_holdsSeatsUntilExpiry() throws Exception {
+        ServizioPrenotazioni sut = servizio(true, 10);
+
+        Prenotazione p = sut.avviaPrenotazione("user1", "AZ1", "T1", 4);
+        assertEquals(6, inventario.disponibili("AZ1"));
+
+        trascorrono(Duration.ofMinutes(14));
+        assertEquals(StatoPrenotazione.BOZZA, p.getStato());
+        trascorrono(Duration.ofMinutes(1));
+
+        assertEquals(StatoPrenotazione.SCADUTA, p.getStato());
+        assertEquals(10, inventario.disponibili("AZ1"));
+        assertThrows(DatiNonValidiException.class, () -> sut.confermaPrenotazione(p.getCodice()));
+    }
+
+    @Test
+    void confirmedBooking_notReleasedOnExpiry() throws Exception {
+        ServizioPrenotazioni sut = servizio(true, 10);
+        Prenotazione p = sut.avviaPrenotazione("user1", "AZ1", "T1", 1);
+        sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Mario", "Rossi", "ID123"));
+        sut.confermaPrenotazione(p.getCodice());
+
+        trascorrono(Duration.ofHours(1));
+
+        assertEquals(StatoPrenotazione.CONFERMATA, p.getStato());
+        assertEquals(9, inventario.disponibili("AZ1"));
+    }
+
+    @Test
+    void expiry_writesOffTheWheelThread() throws Exception {
+        servizio(true, 10);
+        List<Runnable> inCoda = new ArrayList<>();
+        ServizioPrenotazioni sut = new ServizioPrenotazioni(tariffaDAO, prenotazioneDAO, new PasseggeroDAO(), inventario,
+                new ServizioPagamentiSimulati(new SimulatorePagamentoClient(true), new PagamentoDAO()),
+                ruota, Duration.ofMinutes(15), null, inCoda::add);
+        Prenotazione p = sut.avviaPrenotazione("user1", "AZ1", "T1", 2);
+
+        trascorrono(Duration.ofMinutes(15));
+        assertEquals(StatoPrenotazione.BOZZA, p.getStato());
+        assertEquals(1, inCoda.size());
+
+        inCoda.get(0).run();
+        assertEquals(StatoPrenotazione.SCADUTA, p.getStato());
+        assertEquals(StatoPrenotazione.SCADUTA, prenotazioneDAO.findByCodice(p.getCodice()).orElseThrow().getStato());
+        assertEquals(10, inventario.disponibili("AZ1"));
+    }
+
+    @Test
+    void confirm_cancelsExpiryTimer() throws Exception {
+        servizio(true, 10);
+        RuotaTemporale finta = mock(RuotaTemporale.class);
+        RuotaTemporale.Timer timer = mock(RuotaTemporale.Timer.class);
+        when(finta.pianifica(any(), anyLong())).thenReturn(timer);
+        ServizioPrenotazioni sut = new ServizioPrenotazioni(tariffaDAO, prenotazioneDAO, new PasseggeroDAO(), inventario,
+                new ServizioPagamentiSimulati(new SimulatorePagamentoClient(true), new PagamentoDAO()),
+                finta, Duration.ofMinutes(15), null, Runnable::run);
+
+        Prenotazione p = sut.avviaPrenotazione("user1", "AZ1", "T1", 1);
+        sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Mario", "Rossi", "ID123"));
+        verify(timer, never()).annulla();
+        sut.confermaPrenotazione(p.getCodice());
+
+        verify(timer).annulla();
+    }
+
+    @Test
+    void asyncConfirm_doesNotHoldBookingDuringPayment() throws Exception {
+        servizio(true, 10);
+        CountDownLatch sblocca = new CountDownLatch(1);
+        PaymentGateway gateway = mock(PaymentGateway.class, CALLS_REAL_METHODS);
+        when(gateway.autorizza(any(), any())).thenAnswer(inv -> {
+            sblocca.await();
+            return EsitoPagamento.AUTORIZZATO;
+        });
+        ServizioPagamentiSimulati lento = new ServizioPagamentiSimulati(gateway, new PagamentoDAO());
+        ServizioPrenotazioni sut = new ServizioPrenotazioni(tariffaDAO, prenotazioneDAO, new PasseggeroDAO(), inventario,
+                lento, ruota, Duration.ofMinutes(15), null, Runnable::run);
+        Prenotazione p = sut.avviaPrenotazione("user1", "AZ1", "T1", 2);
+        sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Mario", "Rossi", "ID123"));
+
+        CompletableFuture<Prenotazione> conferma = sut.confermaPrenotazioneAsync(p.getCodice());
+        assertFalse(conferma.isDone());
+        assertThrows(DatiNonValidiException.class,
+                () -> sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Anna", "Rossi", "ID456")));
+        trascorrono(Duration.ofMinutes(15));
+        assertEquals(StatoPrenotazione.BOZZA, p.getStato(), "la scadenza attende l'esito del pagamento");
+
+        sblocca.countDown();
+        assertEquals(StatoPrenotazione.CONFERMATA, conferma.get().getStato());
+        assertEquals(9, inventario.disponibili("AZ1"));
+        trascorrono(Duration.ofMinutes(1));
+        assertEquals(StatoPrenotazione.CONFERMATA, p.getStato());
+    }
+
+    @Test
+    void confirmAfterHoldDeadline_rejectedEvenBeforeTimerFires() throws Exception {
+        ServizioPrenotazioni sut = servizio(true, 10);
+        Prenotazione p = sut.avviaPrenotazione("user1", "AZ1", "T1", 1);
+        sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Mario", "Rossi", "ID123"));
+        p.setScadenzaBlocco(LocalDateTime.now().minusSeconds(1));
+
+        assertThrows(DatiNonValidiException.class, () -> sut.confermaPrenotazione(p.getCodice()));
+        assertEquals(StatoPrenotazione.BOZZA, p.getStato());
+    }
+
+    // Due bozze da 2 e 3 posti su un volo da 10; la prima scade mentre il servizio è fermo.
+    // Dopo il riavvio la scaduta non tiene posti e la viva sì, finché non scade anche lei.
+    private void riavvioConBozze(Callable<VoloDAO> catalogo) throws Exception {
+        Path file = cartella.resolve("prenotazioni.journal");
+        tariffaDAO.salva(new Tariffa("T1", "AZ1", "ECONOMY", new BigDecimal("100")));
+        String codiceScaduta;
+        try (PrenotazioneDAO prenotazioni = new PrenotazioneDAOJournal(file)) {
+            InventarioPosti inv = new InventarioPosti(catalogo.call());
+            ServizioPrenotazioni sut = servizio(prenotazioni, inv, new RuotaTemporale(100, adesso::get));
+            Prenotazione scaduta = sut.avviaPrenotazione("user1", "AZ1", "T1", 2);
+            sut.avviaPrenotazione("user1", "AZ1", "T1", 3);
+            assertEquals(5, inv.disponibili("AZ1"));
+            scaduta.setScadenzaBlocco(LocalDateTime.now().minusMinutes(1));
+            prenotazioni.salva(scaduta);
+            codiceScaduta = scaduta.getCodice();
+        }
+
+        try (PrenotazioneDAO prenotazioni = new PrenotazioneDAOJournal(file)) {
+            InventarioPosti inv = new InventarioPosti(catalogo.call());
+            servizio(prenotazioni, inv, ruota);
+
+            assertEquals(StatoPrenotazione.SCADUTA, prenotazioni.findByCodice(codiceScaduta).orElseThrow().getStato());
+            assertEquals(7, inv.disponibili("AZ1"));
+            trascorrono(Duration.ofMinutes(15));
+            assertEquals(10, inv.disponibili("AZ1"));
+        }
+    }
+
+    private ServizioPrenotazioni servizio(PrenotazioneDAO prenotazioni, InventarioPosti inv, RuotaTemporale r) {
+        return new ServizioPrenotazioni(tariffaDAO, prenotazioni, new PasseggeroDAO(), inv,
+                new ServizioPagamentiSimulati(new SimulatorePagamentoClient(true), new PagamentoDAO()),
+                r, Duration.ofMinutes(15), null, Runnable::run);
+    }
+
+    private static Volo voloDaDieci() {
+        LocalDateTime partenza = LocalDateTime.now().plusDays(3);
+        return new Volo("AZ1", "NAP", "FCO", partenza, partenza.plusHours(1), 10);
+    }
+
+    @Test
+    void restart_withInMemoryCatalog_liveDraftsTakeTheirSeatsAgain() throws Exception {
+        // il catalogo riparte dai posti originali: i blocchi del giro precedente non ci sono
+        riavvioConBozze(() -> {
+            VoloDAO voli = new VoloDAO();
+            voli.salva(voloDaDieci());
+            return voli;
+        });
+    }
+
+    @Test
+    void restart_withPersistedSeats_expiredDraftsGiveTheirSeatsBack() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new VoloDAO(h2).salva(voloDaDieci());
+        riavvioConBozze(() -> new VoloDAO(h2));
+    }
+
+    @Test
+    void draftPersistenceFailure_releasesHeldSeats() throws Exception {
+        servizio(true, 10);
+        PrenotazioneDAO guasto = mock(PrenotazioneDAO.class);
+        doThrow(new IllegalStateException("Disco pieno")).when(guasto).salva(any());
+        ServizioPrenotazioni sut = new ServizioPrenotazioni(tariffaDAO, guasto, new PasseggeroDAO(), inventario,
+                new ServizioPagamentiSimulati(new SimulatorePagamentoClient(true), new PagamentoDAO()),
+                ruota, Duration.ofMinutes(15), null, Runnable::run);
+
+        assertThrows(IllegalStateException.class, () -> sut.avviaPrenotazione("user1", "AZ1", "T1", 3));
+
+        assertEquals(10, inventario.disponibili("AZ1"));
+    }
+
+    @Test
+    void paymentRejected_keepsHoldForRetry() throws Exception {
+        ServizioPrenotazioni sut = servizio(false, 10);
+
+        Prenotazione p = sut.avviaPrenotazione("user1", "AZ1", "T1", 1);
+        sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Mario", "Rossi", "ID123"));
+
+        assertThrows(PagamentoFallitoException.class, () -> sut.confermaPrenotazione(p.getCodice()));
+        assertEquals(9, inventario.disponibili("AZ1"));
+        assertEquals(StatoPrenotazione.BOZZA, p.getStato());
+    }
+
+    @Test
+    void retryAfterUncertainPayment_keepsFirstAmountWhenPriceMoves() throws Exception {
+        servizio(true, 10);
+        PaymentGateway gateway = mock(PaymentGateway.class, CALLS_REAL_METHODS);
+        when(gateway.autorizza(any(), any())).thenThrow(new IllegalStateException("rete")).thenReturn(EsitoPagamento.AUTORIZZATO);
+        ServizioPagamentiSimulati pagamenti = new ServizioPagamentiSimulati(gateway, new PagamentoDAO());
+        ServizioPrenotazioni sut = new ServizioPrenotazioni(tariffaDAO, prenotazioneDAO, new PasseggeroDAO(), inventario,
+                pagamenti, ruota, Duration.ofMinutes(15), new MotorePrezzi(voloDAO, tariffaDAO), Runnable::run);
+        Prenotazione p = sut.avviaPrenotazione("user1", "AZ1", "T1", 2);
+        sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Mario", "Rossi", "ID123"));
+
+        // il gateway cade: l'addebito è incerto
+        assertThrows(PagamentoFallitoException.class, () -> sut.confermaPrenotazione(p.getCodice()));
+        BigDecimal primo = p.getImporto();
+        // il riempimento sale e con lui il prezzo dinamico
+        sut.avviaPrenotazione("user2", "AZ1", "T1", 6);
+        assertThrows(DatiNonValidiException.class,
+                () -> sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Anna", "Rossi", "ID456")));
+
+        assertEquals(primo, sut.confermaPrenotazione(p.getCodice()).getImporto());
+        verify(gateway, times(2)).autorizza(p.getCodice(), primo);
+    }
+
+    @Test
+    void notEnoughSeats_cannotStartBooking() {
+        ServizioPrenotazioni sut = servizio(true, 2);
+
+        assertThrows(PostiEsauritiException.class, () -> sut.avviaPrenotazione("user1", "AZ1", "T1", 3));
+    }
+
+    @Test
+    void invalidPassenger_rejected() throws Exception {
+        ServizioPrenotazioni sut = servizio(true, 10);
+        Prenotazione p = sut.avviaPrenotazione("user1", "AZ1", "T1", 1);
+
+        assertThrows(DatiNonValidiException.class,
+                () -> sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("", "Rossi", "ID123")));
+        assertThrows(DatiNonValidiException.class, () -> sut.confermaPrenotazione(p.getCodice()));
+    }
+
+    @Test
+    void morePassengersThanHeldSeats_rejected() throws Exception {
+        ServizioPrenotazioni sut = servizio(true, 10);
+        Prenotazione p = sut.avviaPrenotazione("user1", "AZ1", "T1", 1);
+        sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Mario", "Rossi", "ID123"));
+
+        assertThrows(DatiNonValidiException.class,
+                () -> sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Anna", "Rossi", "ID456")));
+    }
+
+    private List<DatiTrattaGruppoDTO> gruppoAndataRitorno(int persone) {
+        LocalDateTime ritorno = LocalDateTime.now().plusDays(6);
+        voloDAO.salva(new Volo("AZ2", "FCO", "NAP", ritorno, ritorno.plusHours(1), 4));
+        tariffaDAO.salva(new Tariffa("T2", "AZ2", "ECONOMY", new BigDecimal("80")));
+        List<DatiPasseggeriDTO> passeggeri = new ArrayList<>();
+        for (int i = 0; i < persone; i++) passeggeri.add(new DatiPasseggeriDTO("Nome" + i, "Rossi", "ID" + i));
+        return List.of(new DatiTrattaGruppoDTO("AZ1", "T1", passeggeri), new DatiTrattaGruppoDTO("AZ2", "T2", passeggeri));
+    }
+
+    @Test
+    void groupBooking_confirmsAllLegsWithOnePayment() throws Exception {
+        ServizioPrenotazioni sut = servizio(true, 10);
+
+        List<Prenotazione> gruppo = sut.prenotaGruppo("user1", "G1", gruppoAndataRitorno(3));
+
+        assertEquals(2, gruppo.size());
+        assertEquals(gruppo.get(0).getCodiceGruppo(), gruppo.get(1).getCodiceGruppo());
+        assertTrue(gruppo.stream().allMatch(p -> p.getStato() == StatoPrenotazione.CONFERMATA));
+        assertEquals(new BigDecimal("300"), gruppo.get(0).getImporto());
+        assertEquals(new BigDecimal("240"), gruppo.get(1).getImporto());
+        assertEquals(7, inventario.disponibili("AZ1"));
+        assertEquals(1, inventario.disponibili("AZ2"));
+        assertEquals(2, prenotazioneDAO.findByUtente("user1").size());
+    }
+
+    @Test
+    void groupBooking_seatsExhaustedOnOneLeg_releasesAll() throws Exception {
+        ServizioPrenotazioni sut = servizio(true, 10);
+        List<DatiTrattaGruppoDTO> tratte = gruppoAndataRitorno(5);
+
+        assertThrows(PostiEsauritiException.class, () -> sut.prenotaGruppo("user1", "G1", tratte));
+        assertEquals(10, inventario.disponibili("AZ1"));
+        assertEquals(4, inventario.disponibili("AZ2"));
+        assertTrue(prenotazioneDAO.findByUtente("user1").isEmpty());
+    }
+
+    @Test
+    void groupBooking_paymentRejected_releasesAll() throws Exception {
+        ServizioPrenotazioni sut = servizio(false, 10);
+        List<DatiTrattaGruppoDTO> tratte = gruppoAndataRitorno(2);
+
+        assertThrows(PagamentoFallitoException.class, () -> sut.prenotaGruppo("user1", "G1", tratte));
+        assertEquals(10, inventario.disponibili("AZ1"));
+        assertEquals(4, inventario.disponibili("AZ2"));
+        assertTrue(prenotazioneDAO.findByUtente("user1").isEmpty());
+    }
+
+    @Test
+    void groupBooking_retryWithSameKey_returnsSameBookingsWithoutNewCharge() throws Exception {
+        servizio(true, 10);
+        SimulatorePagamentoClient gateway = new SimulatorePagamentoClient();
+        ServizioPrenotazioni sut = new ServizioPrenotazioni(tariffaDAO, prenotazioneDAO, new PasseggeroDAO(), inventario,
+                new ServizioPagamentiSimulati(gateway, new PagamentoDAO()), ruota, Duration.ofMinutes(15), null, Runnable::run);
+        List<DatiTrattaGruppoDTO> tratte = gruppoAndataRitorno(2);
+
+        List<Prenotazione> primo = sut.prenotaGruppo("user1", "G1", tratte);
+        List<Prenotazione> ripetuto = sut.prenotaGruppo("user1", "G1", tratte);
+
+        assertEquals(primo, ripetuto);
+        assertEquals(1, gateway.addebitati());
+        assertEquals(8, inventario.disponibili("AZ1"));
+        assertThrows(DatiNonValidiException.class, () -> sut.prenotaGruppo("user2", "G1", tratte));
+    }
+
+    @Test
+    void groupBooking_persistenceFailure_refundsAndReleasesAll() throws Exception {
+        servizio(true, 10);
+        SimulatorePagamentoClient gateway = new SimulatorePagamentoClient();
+        PasseggeroDAO guasto = mock(PasseggeroDAO.class);
+        doThrow(new IllegalStateException("Disco pieno")).when(guasto).salvaTutti(any());
+        ServizioPrenotazioni sut = new ServizioPrenotazioni(tariffaDAO, prenotazioneDAO, guasto, inventario,
+                new ServizioPagamentiSimulati(gateway, new PagamentoDAO()), ruota, Duration.ofMinutes(15), null, Runnable::run);
+        List<DatiTrattaGruppoDTO> tratte = gruppoAndataRitorno(2);
+
+        assertThrows(IllegalStateException.class, () -> sut.prenotaGruppo("user1", "G1", tratte));
+
+        assertEquals(0, gateway.addebitati());
+        assertEquals(10, inventario.disponibili("AZ1"));
+        assertEquals(4, inventario.disponibili("AZ2"));
+        assertTrue(prenotazioneDAO.findByUtente("user1").stream().allMatch(p -> p.getStato() == StatoPrenotazione.ANNULLATA));
+    }
+
+    @Test
+    void groupBooking_refundFailure_recordsChargeForReconciliation() throws Exception {
+        servizio(true, 10);
+        PaymentGateway gateway = mock(PaymentGateway.class, CALLS_REAL_METHODS);
+        when(gateway.autorizza(any(), any())).thenReturn(EsitoPagamento.AUTORIZZATO);
+        doThrow(new IllegalStateException("Gateway non disponibile")).when(gateway).rimborsa(any(), any());
+        PasseggeroDAO guasto = mock(PasseggeroDAO.class);
+        doThrow(new IllegalStateException("Disco pieno")).when(guasto).salvaTutti(any());
+        PagamentoDAO pagamentoDAO = new PagamentoDAO();
+        ServizioPrenotazioni sut = new ServizioPrenotazioni(tariffaDAO, prenotazioneDAO, guasto, inventario,
+                new ServizioPagamentiSimulati(gateway, pagamentoDAO), ruota, Duration.ofMinutes(15), null, Runnable::run);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> sut.prenotaGruppo("user1", "G1", gruppoAndataRitorno(2)));
+
+        assertTrue(Arrays.stream(e.getSuppressed()).anyMatch(s -> s instanceof PagamentoFallitoException));
+        List<Pagamento> daRiconciliare = pagamentoDAO.findByEsito(EsitoPagamento.DA_RICONCILIARE);
+        assertEquals(1, daRiconciliare.size());
+        assertEquals("G1", daRiconciliare.get(0).getCodicePrenotazione());
+    }
+
+    @Test
+    void bookingHistory_pagesByDepartureWithCursor() throws Exception {
+        ServizioPrenotazioni sut = servizio(true, 10);
+        List<Prenotazione> gruppo = sut.prenotaGruppo("user1", "G1", gruppoAndataRitorno(1));
+        Prenotazione bozza = sut.avviaPrenotazione("user1", "AZ1", "T1", 1);
+        assertEquals(voloDAO.findByCodice("AZ1").orElseThrow().getDataOraPartenza(), bozza.getDataPartenza());
+
+        PaginaPrenotazioniDTO prima = sut.visualizzaPrenotazioni("user1", null, null, 2);
+        assertEquals(2, prima.getPrenotazioni().size());
+        assertTrue(prima.getPrenotazioni().stream().allMatch(p -> p.getCodiceVolo().equals("AZ1")));
+        PaginaPrenotazioniDTO seconda = sut.visualizzaPrenotazioni("user1", null, prima.getCursoreSuccessivo(), 2);
+        assertEquals(List.of(gruppo.get(1)), seconda.getPrenotazioni());
+        assertNull(seconda.getCursoreSuccessivo());
+
+        assertEquals(List.of(bozza), sut.visualizzaPrenotazioni("user1", Set.of(StatoPrenotazione.BOZZA), null, 10).getPrenotazioni());
+        assertThrows(DatiNonValidiException.class, () -> sut.visualizzaPrenotazioni("user1", null, "xx", 10));
+        assertThrows(DatiNonValidiException.class, () -> sut.visualizzaPrenotazioni("user1", null, null, 0));
+    }
+
+    @Test
+    void withPricingEngine_chargesLoadFactorPrice() throws Exception {
+        servizio(true, 10);
+        ServizioPagamentiSimulati pagamenti = new ServizioPagamentiSimulati(new SimulatorePagamentoClient(true), new PagamentoDAO());
+        ServizioPrenotazioni sut = new ServizioPrenotazioni(tariffaDAO, prenotazioneDAO, new PasseggeroDAO(), inventario,
+                pagamenti, ruota, Duration.ofMinutes(15), new MotorePrezzi(voloDAO, tariffaDAO), Runnable::run);
+
+        Prenotazione p = sut.avviaPrenotazione("user1", "AZ1", "T1", 6);
+        for (int i = 0; i < 6; i++) sut.aggiungiPasseggero(p.getCodice(), new DatiPasseggeriDTO("Nome" + i, "Rossi", "ID" + i));
+
+        assertEquals(new BigDecimal("660.00"), sut.confermaPrenotazione(p.getCodice()).getImporto());
+    }
+}
@@ -1,27 +1,51 @@
 package it.unisa.thetourist.applicazione.servizi;
 
 import it.unisa.thetourist.applicazione.dto.CriteriRicercaDTO;
+import it.unisa.thetourist.applicazione.dto.DatiTariffaDTO;
+import it.unisa.thetourist.applicazione.dto.DatiVoloDTO;
 import it.unisa.thetourist.applicazione.eccezioni.DatiNonValidiException;
+import it.unisa.thetourist.dominio.entita.Aeroporto;
+import it.unisa.thetourist.dominio.entita.Tariffa;
 import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.dao.AeroportoDAO;
+import it.unisa.thetourist.persistenza.dao.CompagniaAereaDAO;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
 import it.unisa.thetourist.persistenza.dao.VoloDAO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class ServizioRicercaVoliTest {
 
+    private static final long TTL = 1_000;
+
     private VoloDAO voloDAO;
+    private AtomicLong orologio;
     private ServizioRicercaVoli servizio;
 
     @BeforeEach
     void setUp() {
         voloDAO = mock(VoloDAO.class);
-        servizio = new ServizioRicercaVoli(voloDAO);
+        orologio = new AtomicLong();
+        servizio = new ServizioRicercaVoli(voloDAO, mock(MotoreItinerari.class), new CacheRicerche(1_000, TTL, orologio::get),
+                mock(CalendarioTariffe.class), mock(IndiceAeroporti.class));
     }
 
     private CriteriRicercaDTO criteriValidi() {
@@ -61,4 +85,247 @@ class ServizioRicercaVoliTest {
         assertThrows(DatiNonValidiException.class, () -> servizio.cercaVoli(c));
         verifyNoInteractions(voloDAO);
     }
+
+    @Test
+    void repeatedSearch_servedFromCache() throws Exception {
+        when(voloDAO.findByCriteria(any())).thenReturn(List.of(new Volo()));
+
+        servizio.cercaVoli(criteriValidi());
+        List<Volo> res = servizio.cercaVoli(criteriValidi());
+
+        assertEquals(1, res.size());
+        verify(voloDAO, times(1)).findByCriteria(any());
+        StatisticheCache stat = servizio.getStatisticheCache();
+        assertEquals(1, stat.hit());
+        assertEquals(1, stat.miss());
+        assertEquals(1, stat.dimensione());
+    }
+
+    @Test
+    void expiredEntry_isReloaded() throws Exception {
+        when(voloDAO.findByCriteria(any())).thenReturn(List.of());
+
+        servizio.cercaVoli(criteriValidi());
+        orologio.addAndGet(TTL);
+        servizio.cercaVoli(criteriValidi());
+
+        verify(voloDAO, times(2)).findByCriteria(any());
+        assertEquals(1, servizio.getStatisticheCache().evizioni());
+    }
+
+    @Test
+    void flightChange_evictsOnlyItsRouteAndDay() throws Exception {
+        when(voloDAO.findByCriteria(any())).thenReturn(List.of());
+        CriteriRicercaDTO stessaTratta = criteriValidi();
+        CriteriRicercaDTO altroGiorno = criteriValidi();
+        altroGiorno.setDataPartenza(stessaTratta.getDataPartenza().plusDays(1));
+        servizio.cercaVoli(stessaTratta);
+        servizio.cercaVoli(altroGiorno);
+
+        Volo modificato = new Volo("AZ1", "NAP", "FCO", stessaTratta.getDataPartenza().atTime(10, 0),
+                stessaTratta.getDataPartenza().atTime(11, 0), 5);
+        servizio.voloModificato(modificato);
+        servizio.cercaVoli(stessaTratta);
+        servizio.cercaVoli(altroGiorno);
+
+        verify(voloDAO, times(2)).findByCriteria(stessaTratta);
+        verify(voloDAO, times(1)).findByCriteria(altroGiorno);
+    }
+
+    @Test
+    void catalogChange_invalidatesSearchCache() throws Exception {
+        VoloDAO dao = new VoloDAO();
+        TariffaDAO tariffaDAO = new TariffaDAO();
+        ServizioRicercaVoli ricerca = new ServizioRicercaVoli(dao, new AeroportoDAO(), tariffaDAO);
+        ServizioGestioneCatalogo catalogo = new ServizioGestioneCatalogo(dao, tariffaDAO, new AeroportoDAO(), new CompagniaAereaDAO());
+        catalogo.registraOsservatore(ricerca);
+        assertTrue(ricerca.cercaVoli(criteriValidi()).isEmpty());
+
+        LocalDateTime partenza = criteriValidi().getDataPartenza().atTime(9, 0);
+        DatiVoloDTO dati = new DatiVoloDTO();
+        dati.setCodice("AZ1");
+        dati.setPartenza("NAP");
+        dati.setArrivo("FCO");
+        dati.setDataOraPartenza(partenza);
+        dati.setDataOraArrivo(partenza.plusHours(1));
+        dati.setPostiDisponibili(10);
+        catalogo.inserisciVolo(dati);
+
+        assertEquals(1, ricerca.cercaVoli(criteriValidi()).size());
+    }
+
+    @Test
+    void searchWithPrices_followsLoadFactorWhileResultsAreCached() throws Exception {
+        VoloDAO dao = new VoloDAO();
+        TariffaDAO tariffaDAO = new TariffaDAO();
+        ServizioRicercaVoli ricerca = new ServizioRicercaVoli(dao, new AeroportoDAO(), tariffaDAO);
+        LocalDateTime partenza = criteriValidi().getDataPartenza().atTime(9, 0);
+        dao.salva(new Volo("AZ1", "NAP", "FCO", partenza, partenza.plusHours(1), 10));
+        tariffaDAO.salva(new Tariffa("T1", "AZ1", "ECONOMY", new BigDecimal("100")));
+
+        assertEquals(new BigDecimal("100"), ricerca.cercaVoliConPrezzi(criteriValidi()).get(0).getPrezzo());
+        new InventarioPosti(dao).riserva("AZ1", 5);
+
+        assertEquals(new BigDecimal("110.00"), ricerca.cercaVoliConPrezzi(criteriValidi()).get(0).getPrezzo());
+        assertEquals(1, ricerca.getStatisticheCache().miss());
+    }
+
+    @Test
+    void fareCalendar_wholeMonthInOneCall_followsCatalogChanges() throws Exception {
+        VoloDAO dao = new VoloDAO();
+        TariffaDAO tariffaDAO = new TariffaDAO();
+        ServizioRicercaVoli ricerca = new ServizioRicercaVoli(dao, new AeroportoDAO(), tariffaDAO);
+        ServizioGestioneCatalogo catalogo = new ServizioGestioneCatalogo(dao, tariffaDAO, new AeroportoDAO(), new CompagniaAereaDAO());
+        catalogo.registraOsservatore(ricerca);
+        LocalDate giorno = LocalDate.now().plusMonths(1).withDayOfMonth(12);
+        YearMonth mese = YearMonth.from(giorno);
+        assertTrue(ricerca.cercaCalendarioTariffe("NAP", "FCO", mese).isEmpty());
+
+        DatiVoloDTO dati = new DatiVoloDTO();
+        dati.setCodice("AZ1");
+        dati.setPartenza("NAP");
+        dati.setArrivo("FCO");
+        dati.setDataOraPartenza(giorno.atTime(9, 0));
+        dati.setDataOraArrivo(giorno.atTime(10, 0));
+        dati.setPostiDisponibili(10);
+        catalogo.inserisciVolo(dati);
+        DatiTariffaDTO tariffa = new DatiTariffaDTO();
+        tariffa.setCodice("T1");
+        tariffa.setCodiceVolo("AZ1");
+        tariffa.setClasse("ECONOMY");
+        tariffa.setPrezzo(new BigDecimal("79.90"));
+        catalogo.inserisciTariffa(tariffa);
+
+        assertEquals(Map.of(giorno, new BigDecimal("79.90")), ricerca.cercaCalendarioTariffe("NAP", "FCO", mese));
+        assertThrows(DatiNonValidiException.class, () -> ricerca.cercaCalendarioTariffe("NAP", "FCO", mese.minusMonths(2)));
+        assertThrows(DatiNonValidiException.class, () -> ricerca.cercaCalendarioTariffe("NAP", "NAP", mese));
+    }
+
+    // Il DAO resta bloccato finché tutti i chiamanti della raffica non sono partiti
+    private List<Future<List<Volo>>> raffica(ExecutorService pool, int chiamanti, CountDownLatch pronti) {
+        List<Future<List<Volo>>> esiti = new ArrayList<>();
+        for (int i = 0; i < chiamanti; i++) {
+            esiti.add(pool.submit(() -> {
+                pronti.countDown();
+                return servizio.cercaVoli(criteriValidi());
+            }));
+        }
+        return esiti;
+    }
+
+    @Test
+    void concurrentIdenticalSearches_hitDaoOncePerBurst() throws Exception {
+        int chiamanti = 64, raffiche = 5;
+        AtomicInteger chiamateDao = new AtomicInteger();
+        CountDownLatch[] pronti = new CountDownLatch[1];
+        when(voloDAO.findByCriteria(any())).thenAnswer(inv -> {
+            chiamateDao.incrementAndGet();
+            pronti[0].await();
+            Thread.sleep(100);
+            return List.of(new Volo());
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(chiamanti);
+        try {
+            for (int r = 0; r < raffiche; r++) {
+                pronti[0] = new CountDownLatch(chiamanti);
+                List<Future<List<Volo>>> esiti = raffica(pool, chiamanti, pronti[0]);
+                List<Volo> primo = esiti.get(0).get();
+                for (Future<List<Volo>> f : esiti) assertSame(primo, f.get());
+                orologio.addAndGet(TTL);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(raffiche, chiamateDao.get());
+    }
+
+    @Test
+    void concurrentSearches_differingOnlyInFlexibility_hitDaoOnce() throws Exception {
+        int chiamanti = 16;
+        CountDownLatch pronti = new CountDownLatch(chiamanti);
+        when(voloDAO.findByCriteria(any())).thenAnswer(inv -> {
+            pronti.await();
+            Thread.sleep(100);
+            return List.of(new Volo());
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(chiamanti);
+        try {
+            List<Future<List<Volo>>> esiti = new ArrayList<>();
+            for (int i = 0; i < chiamanti; i++) {
+                CriteriRicercaDTO c = criteriValidi();
+                c.setFlessibilitaGiorni(i % 4);
+                esiti.add(pool.submit(() -> {
+                    pronti.countDown();
+                    return servizio.cercaVoli(c);
+                }));
+            }
+            List<Volo> primo = esiti.get(0).get();
+            for (Future<List<Volo>> f : esiti) assertSame(primo, f.get());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(voloDAO, times(1)).findByCriteria(any());
+    }
+
+    @Test
+    void concurrentIdenticalSearches_shareDaoFailure() throws Exception {
+        int chiamanti = 32;
+        CountDownLatch pronti = new CountDownLatch(chiamanti);
+        when(voloDAO.findByCriteria(any())).thenAnswer(inv -> {
+            pronti.await();
+            Thread.sleep(100);
+            throw new IllegalStateException("DAO non disponibile");
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(chiamanti);
+        try {
+            for (Future<List<Volo>> f : raffica(pool, chiamanti, pronti)) {
+                ExecutionException e = assertThrows(ExecutionException.class, f::get);
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(voloDAO, times(1)).findByCriteria(any());
+        assertEquals(0, servizio.getStatisticheCache().dimensione());
+    }
+
+    @Test
+    void airportSuggestions_servedFromIndex() throws Exception {
+        AeroportoDAO aeroportoDAO = new AeroportoDAO();
+        aeroportoDAO.salva(new Aeroporto("NAP", "Capodichino", "Napoli", 0));
+        VoloDAO dao = new VoloDAO();
+        ServizioRicercaVoli ricerca = new ServizioRicercaVoli(dao, null, null, new IndiceAeroporti(aeroportoDAO, dao));
+
+        assertEquals("NAP", ricerca.suggerisciAeroporti("capo", 5).get(0).getCodice());
+        assertTrue(ricerca.suggerisciAeroporti("xyz", 5).isEmpty());
+        assertThrows(DatiNonValidiException.class, () -> ricerca.suggerisciAeroporti(" ", 5));
+        assertThrows(DatiNonValidiException.class, () -> ricerca.suggerisciAeroporti("na", IndiceAeroporti.MAX_RISULTATI + 1));
+    }
+
+    @Test
+    void flexibleSearch_scansWindowClampedToToday() throws Exception {
+        CriteriRicercaDTO c = criteriValidi();
+        c.setDataPartenza(LocalDate.now().plusDays(1));
+        c.setFlessibilitaGiorni(3);
+
+        servizio.cercaVoliFlessibili(c);
+
+        verify(voloDAO).findByIntervallo("NAP", "FCO", LocalDate.now(), LocalDate.now().plusDays(4), 1);
+        verify(voloDAO, never()).findByCriteria(any());
+    }
+
+    @Test
+    void flexibleSearch_windowTooWide_throws() {
+        CriteriRicercaDTO c = criteriValidi();
+        c.setFlessibilitaGiorni(30);
+
+        assertThrows(DatiNonValidiException.class, () -> servizio.cercaVoliFlessibili(c));
+        verifyNoInteractions(voloDAO);
+    }
 }
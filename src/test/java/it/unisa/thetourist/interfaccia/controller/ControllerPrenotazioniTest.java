@@ -0,0 +1,48 @@
+package it.unisa.thetourist.interfaccia.controller;
+
+import it.unisa.thetourist.applicazione.dto.SessioneDTO;
+import it.unisa.thetourist.applicazione.eccezioni.NonAutorizzatoException;
+import it.unisa.thetourist.applicazione.servizi.ServizioAutorizzazione;
+import it.unisa.thetourist.dominio.entita.Utente;
+import it.unisa.thetourist.dominio.enumerazioni.Ruolo;
+import it.unisa.thetourist.interfaccia.IPrenotazioni;
+import it.unisa.thetourist.persistenza.dao.UtenteDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ControllerPrenotazioniTest {
+
+    private final UtenteDAO utenteDAO = new UtenteDAO();
+    private final IPrenotazioni prenotazioni = mock(IPrenotazioni.class);
+    private final ControllerPrenotazioni sut = new ControllerPrenotazioni(prenotazioni, new ServizioAutorizzazione(utenteDAO));
+
+    @BeforeEach
+    void setUp() {
+        utenteDAO.salva(new Utente("u1", "mario@example.com", "Mario", "Rossi", "x"));
+        Utente admin = new Utente("a1", "anna@example.com", "Anna", "Bianchi", "x");
+        admin.setRuolo(Ruolo.ADMIN);
+        utenteDAO.salva(admin);
+    }
+
+    @Test
+    void history_readsUserFromSession() throws Exception {
+        sut.visualizzaPrenotazioni(new SessioneDTO("tok", "u1", Instant.now()), null, null, 10);
+
+        verify(prenotazioni).visualizzaPrenotazioni("u1", null, null, 10);
+    }
+
+    @Test
+    void missingPermissionOrSession_rejectedBeforeService() {
+        SessioneDTO admin = new SessioneDTO("tok", "a1", Instant.now());
+
+        assertThrows(NonAutorizzatoException.class, () -> sut.avviaPrenotazione(admin, "AZ1", "ECO", 1));
+        assertThrows(NonAutorizzatoException.class, () -> sut.confermaPrenotazione(admin, "P1"));
+        assertThrows(NonAutorizzatoException.class, () -> sut.visualizzaPrenotazioni(null, null, null, 10));
+        verifyNoInteractions(prenotazioni);
+    }
+}
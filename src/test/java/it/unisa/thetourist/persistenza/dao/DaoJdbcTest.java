@@ -0,0 +1,128 @@
+package it.unisa.thetourist.persistenza.dao;
+
+import it.unisa.thetourist.dominio.entita.Passeggero;
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.dominio.enumerazioni.StatoPrenotazione;
+import it.unisa.thetourist.persistenza.jdbc.PoolConnessioni;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DaoJdbcTest {
+
+    private static final LocalDateTime GIORNO = LocalDateTime.of(2030, 5, 1, 8, 0);
+
+    private PoolConnessioni pool;
+
+    @BeforeEach
+    void apri() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        pool = new PoolConnessioni(h2, 4);
+    }
+
+    @AfterEach
+    void chiudi() {
+        pool.close();
+    }
+
+    @Test
+    void bookings_batchedAndReloadedWithTheirPassengers() throws Exception {
+        PasseggeroDAO passeggeri = new PasseggeroDAO(pool);
+        PrenotazioneDAO dao = new PrenotazioneDAOJdbc(pool, passeggeri);
+        Prenotazione p = new Prenotazione("P1", "u1", "AZ1", "T1", GIORNO);
+        p.setPostiRiservati(2);
+        p.setDataPartenza(GIORNO.plusDays(3));
+        dao.salva(p);
+        for (Passeggero passeggero : List.of(new Passeggero("P1", "Mario", "Rossi", "ID1"), new Passeggero("P1", "Anna", "Bianchi", "ID2"))) {
+            passeggeri.salva(passeggero);
+            p.getPasseggeri().add(passeggero);
+        }
+        p.setStato(StatoPrenotazione.CONFERMATA);
+        p.setImporto(new BigDecimal("199.90"));
+        dao.salva(p);
+        Prenotazione g = new Prenotazione("P2", "u1", "AZ2", "T2", GIORNO);
+        g.setCodiceGruppo("G1");
+        dao.salvaTutti(List.of(g));
+
+        PrenotazioneDAO riaperto = new PrenotazioneDAOJdbc(pool, new PasseggeroDAO(pool));
+        Prenotazione letta = riaperto.findByCodice("P1").orElseThrow();
+        assertEquals(StatoPrenotazione.CONFERMATA, letta.getStato());
+        assertEquals(0, new BigDecimal("199.90").compareTo(letta.getImporto()));
+        assertEquals(GIORNO, letta.getDataCreazione());
+        assertEquals(GIORNO.plusDays(3), letta.getDataPartenza());
+        assertNull(letta.getScadenzaBlocco());
+        assertEquals(List.of("Rossi", "Bianchi"), letta.getPasseggeri().stream().map(Passeggero::getCognome).toList());
+        assertEquals("G1", riaperto.findByCodice("P2").orElseThrow().getCodiceGruppo());
+        assertEquals(List.of("P2"), riaperto.findByUtente("u1", EnumSet.of(StatoPrenotazione.BOZZA), null, null, 10)
+                .stream().map(Prenotazione::getCodice).toList());
+    }
+
+    @Test
+    void passengers_batchedAndReloaded() throws Exception {
+        PasseggeroDAO dao = new PasseggeroDAO(pool);
+        List<Passeggero> passeggeri = new ArrayList<>();
+        for (int i = 0; i < 50; i++) passeggeri.add(new Passeggero(i % 2 == 0 ? "P1" : "P2", "Nome" + i, "Rossi", "ID" + i));
+        dao.salvaTutti(passeggeri);
+        dao.salva(new Passeggero("P3", "Luca", "Verdi", "ID99"));
+        dao.salva(new Passeggero("P1", "Ultimo", "Neri", "ID100"));
+
+        PasseggeroDAO riaperto = new PasseggeroDAO(pool);
+        assertEquals(26, riaperto.findByPrenotazione("P1").size());
+        assertEquals("Nome0", riaperto.findByPrenotazione("P1").get(0).getNome());
+        assertEquals("Neri", riaperto.findByPrenotazione("P1").get(25).getCognome());
+        riaperto.salva(new Passeggero("P1", "Dopo", "Gialli", "ID101"));
+        assertEquals(27, new PasseggeroDAO(pool).findByPrenotazione("P1").size(), "la numerazione riprende dopo la riapertura");
+        assertEquals("Verdi", riaperto.findByPrenotazione("P3").get(0).getCognome());
+        assertEquals(1, pool.aperte(), "una sola connessione riusata");
+    }
+
+    @Test
+    void flights_streamedIntoIndexOnOpen() throws Exception {
+        VoloDAO dao = new VoloDAO(pool);
+        List<Volo> voli = new ArrayList<>();
+        for (int i = 0; i < 2_500; i++) voli.add(new Volo("AZ" + i, "NAP", "FCO", GIORNO.plusMinutes(i), GIORNO.plusMinutes(i + 60), 10, 12));
+        dao.salvaTutti(voli);
+        dao.salva(new Volo("AZ0", "NAP", "MXP", GIORNO, GIORNO.plusHours(1), 5));
+        assertTrue(dao.rimuovi("AZ1"));
+
+        VoloDAO riaperto = new VoloDAO(pool);
+        assertEquals(2_499, riaperto.conta());
+        assertEquals("MXP", riaperto.findByCodice("AZ0").orElseThrow().getArrivo());
+        assertTrue(riaperto.findByCodice("AZ1").isEmpty());
+        Volo az2 = riaperto.findByCodice("AZ2").orElseThrow();
+        assertEquals(GIORNO.plusMinutes(62), az2.getDataOraArrivo());
+        assertEquals(12, az2.getCapienza());
+        assertEquals(58, riaperto.findPartenze("NAP", "FCO", GIORNO, GIORNO.plusHours(1), 1).size());
+    }
+
+    @Test
+    void seatCounts_writtenBackAndReloaded() throws Exception {
+        VoloDAO dao = new VoloDAO(pool);
+        dao.salva(new Volo("AZ1", "NAP", "FCO", GIORNO, GIORNO.plusHours(1), 10));
+        Volo volo = dao.findByCodice("AZ1").orElseThrow();
+        volo.setPostiDisponibili(7);
+        dao.salvaPosti(volo);
+
+        VoloDAO riaperto = new VoloDAO(pool);
+        Volo riletto = riaperto.findByCodice("AZ1").orElseThrow();
+        assertEquals(7, riletto.getPostiDisponibili());
+        assertEquals(10, riletto.getCapienza());
+
+        // le versioni ripartono da quelle salvate: le scritture dopo la riapertura non vengono scartate
+        riletto.setPostiDisponibili(4);
+        riaperto.salvaPosti(riletto);
+        assertEquals(4, new VoloDAO(pool).findByCodice("AZ1").orElseThrow().getPostiDisponibili());
+    }
+}
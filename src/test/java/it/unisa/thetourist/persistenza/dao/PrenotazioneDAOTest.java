@@ -0,0 +1,110 @@
+package it.unisa.thetourist.persistenza.dao;
+
+import it.unisa.thetourist.dominio.entita.Pagamento;
+import it.unisa.thetourist.dominio.entita.Passeggero;
+import it.unisa.thetourist.dominio.entita.Prenotazione;
+import it.unisa.thetourist.dominio.enumerazioni.EsitoPagamento;
+import it.unisa.thetourist.dominio.enumerazioni.StatoPrenotazione;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrenotazioneDAOTest {
+
+    @TempDir
+    Path cartella;
+
+    @Test
+    void journaledBookings_surviveRestart() throws Exception {
+        Path file = cartella.resolve("prenotazioni.journal");
+        LocalDateTime creazione = LocalDateTime.of(2026, 5, 1, 10, 30, 15, 123_000_000);
+        try (PrenotazioneDAO dao = new PrenotazioneDAOJournal(file)) {
+            Prenotazione p = new Prenotazione("P1", "u1", "AZ1", "T1", creazione);
+            p.setPostiRiservati(2);
+            dao.salva(p);
+            p.getPasseggeri().add(new Passeggero("P1", "Mario", "Rossi", "ID1"));
+            p.setStato(StatoPrenotazione.CONFERMATA);
+            p.setImporto(new BigDecimal("199.90"));
+            p.setPostiRiservati(1);
+            dao.salva(p);
+            Prenotazione g = new Prenotazione("P2", "u1", "AZ2", "T2", creazione);
+            g.setCodiceGruppo("G1");
+            g.setDataPartenza(creazione.plusDays(3));
+            dao.salvaTutti(List.of(g));
+        }
+
+        try (PrenotazioneDAO dao = new PrenotazioneDAOJournal(file)) {
+            Prenotazione p = dao.findByCodice("P1").orElseThrow();
+            assertEquals(StatoPrenotazione.CONFERMATA, p.getStato());
+            assertEquals(new BigDecimal("199.90"), p.getImporto());
+            assertEquals(creazione, p.getDataCreazione());
+            assertEquals(1, p.getPostiRiservati());
+            assertNull(p.getScadenzaBlocco());
+            assertEquals("Rossi", p.getPasseggeri().get(0).getCognome());
+            assertEquals("G1", dao.findByCodice("P2").orElseThrow().getCodiceGruppo());
+            assertEquals(creazione.plusDays(3), dao.findByCodice("P2").orElseThrow().getDataPartenza());
+            assertEquals(List.of("P1", "P2"), codici(dao.findByUtente("u1")));
+            assertEquals(List.of("P2"), codici(dao.findByUtente("u1", EnumSet.of(StatoPrenotazione.BOZZA), null, null, 10)));
+        }
+    }
+
+    @Test
+    void findByUtente_pagesByDepartureAndFollowsStateChanges() {
+        PrenotazioneDAO dao = new PrenotazioneDAOMemoria();
+        LocalDateTime giorno = LocalDateTime.of(2030, 1, 1, 8, 0);
+        for (int i = 0; i < 6; i++) {
+            Prenotazione p = new Prenotazione("P" + i, "u1", "AZ1", "T1", giorno);
+            // partenze in ordine inverso rispetto ai codici; P4 e P5 partono insieme
+            p.setDataPartenza(giorno.plusDays(Math.max(1, 5 - i)));
+            if (i % 2 == 0) p.setStato(StatoPrenotazione.CONFERMATA);
+            dao.salva(p);
+        }
+        dao.salva(new Prenotazione("X", "u2", "AZ1", "T1", giorno));
+        Set<StatoPrenotazione> tutti = EnumSet.allOf(StatoPrenotazione.class);
+
+        List<Prenotazione> prima = dao.findByUtente("u1", tutti, null, null, 3);
+        assertEquals(List.of("P4", "P5", "P3"), codici(prima));
+        Prenotazione ultima = prima.get(2);
+        assertEquals(List.of("P2", "P1", "P0"), codici(dao.findByUtente("u1", tutti, ultima.getDataPartenza(), ultima.getCodice(), 3)));
+        assertEquals(List.of("P5", "P3", "P1"), codici(dao.findByUtente("u1", EnumSet.of(StatoPrenotazione.BOZZA), null, null, 10)));
+
+        // modificata sul posto e salvata: cambia stato e posizione
+        Prenotazione p5 = dao.findByCodice("P5").orElseThrow();
+        p5.setStato(StatoPrenotazione.SCADUTA);
+        p5.setDataPartenza(giorno.plusDays(10));
+        dao.salva(p5);
+        assertEquals(List.of("P3", "P1"), codici(dao.findByUtente("u1", EnumSet.of(StatoPrenotazione.BOZZA), null, null, 10)));
+        assertEquals(List.of("P4", "P3", "P2", "P1", "P0", "P5"), codici(dao.findByUtente("u1")));
+        assertTrue(dao.findByUtente("u3").isEmpty());
+    }
+
+    @Test
+    void journaledPayments_surviveRestart() throws Exception {
+        Path file = cartella.resolve("pagamenti.journal");
+        LocalDateTime ora = LocalDateTime.of(2026, 5, 1, 11, 0);
+        try (PagamentoDAO dao = new PagamentoDAO(file)) {
+            dao.salva(new Pagamento("PG1", "P1", new BigDecimal("50.00"), EsitoPagamento.AUTORIZZATO, ora));
+            dao.salva(new Pagamento("PG2", "P1", new BigDecimal("10"), EsitoPagamento.RIFIUTATO, ora));
+        }
+
+        try (PagamentoDAO dao = new PagamentoDAO(file)) {
+            assertEquals(2, dao.findByPrenotazione("P1").size());
+            Pagamento pg = dao.findByCodice("PG1").orElseThrow();
+            assertEquals(new BigDecimal("50.00"), pg.getImporto());
+            assertEquals(EsitoPagamento.AUTORIZZATO, pg.getEsito());
+            assertEquals(ora, pg.getDataOra());
+        }
+    }
+
+    private static List<String> codici(List<Prenotazione> prenotazioni) {
+        return prenotazioni.stream().map(Prenotazione::getCodice).toList();
+    }
+}
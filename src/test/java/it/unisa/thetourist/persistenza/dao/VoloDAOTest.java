@@ -0,0 +1,126 @@
+package it.unisa.thetourist.persistenza.dao;
+
+import it.unisa.thetourist.applicazione.dto.CriteriRicercaDTO;
+import it.unisa.thetourist.dominio.entita.Volo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VoloDAOTest {
+
+    private static final LocalDate GIORNO = LocalDate.now().plusDays(10);
+
+    private VoloDAO dao;
+
+    @BeforeEach
+    void setUp() {
+        dao = new VoloDAO();
+    }
+
+    private static Volo volo(String codice, String da, String a, LocalDateTime partenza, int posti) {
+        return new Volo(codice, da, a, partenza, partenza.plusHours(1), posti);
+    }
+
+    private static CriteriRicercaDTO criteri(String da, String a, LocalDate data, int passeggeri) {
+        CriteriRicercaDTO c = new CriteriRicercaDTO();
+        c.setPartenza(da);
+        c.setArrivo(a);
+        c.setDataPartenza(data);
+        c.setNumeroPasseggeri(passeggeri);
+        return c;
+    }
+
+    private static List<String> codici(List<Volo> voli) {
+        return voli.stream().map(Volo::getCodice).toList();
+    }
+
+    @Test
+    void returnsOnlyFlightsOfRouteAndDay_sortedByDeparture() {
+        dao.salva(volo("AZ3", "NAP", "FCO", GIORNO.atTime(18, 0), 10));
+        dao.salva(volo("AZ1", "NAP", "FCO", GIORNO.atTime(6, 30), 10));
+        dao.salva(volo("AZ2", "NAP", "FCO", GIORNO.atTime(12, 0), 10));
+        dao.salva(volo("AZ0", "NAP", "FCO", GIORNO.minusDays(1).atTime(23, 59), 10));
+        dao.salva(volo("AZ4", "NAP", "FCO", GIORNO.plusDays(1).atStartOfDay(), 10));
+        dao.salva(volo("FR1", "NAP", "MXP", GIORNO.atTime(9, 0), 10));
+
+        assertEquals(List.of("AZ1", "AZ2", "AZ3"), codici(dao.findByCriteria(criteri("NAP", "FCO", GIORNO, 1))));
+    }
+
+    @Test
+    void filtersByRemainingSeats() {
+        dao.salva(volo("AZ1", "NAP", "FCO", GIORNO.atTime(8, 0), 1));
+        dao.salva(volo("AZ2", "NAP", "FCO", GIORNO.atTime(9, 0), 4));
+
+        assertEquals(List.of("AZ2"), codici(dao.findByCriteria(criteri("NAP", "FCO", GIORNO, 3))));
+    }
+
+    @Test
+    void unknownRoute_returnsEmpty() {
+        assertTrue(dao.findByCriteria(criteri("NAP", "JFK", GIORNO, 1)).isEmpty());
+    }
+
+    @Test
+    void resave_reindexesRouteAndDate() {
+        Volo v = volo("AZ1", "NAP", "FCO", GIORNO.atTime(8, 0), 5);
+        dao.salva(v);
+
+        Volo spostato = volo("AZ1", "NAP", "MXP", GIORNO.plusDays(2).atTime(8, 0), 5);
+        dao.salva(spostato);
+
+        assertTrue(dao.findByCriteria(criteri("NAP", "FCO", GIORNO, 1)).isEmpty());
+        assertEquals(List.of("AZ1"), codici(dao.findByCriteria(criteri("NAP", "MXP", GIORNO.plusDays(2), 1))));
+        assertEquals(1, dao.conta());
+    }
+
+    @Test
+    void remove_dropsFlightFromIndex() {
+        dao.salva(volo("AZ1", "NAP", "FCO", GIORNO.atTime(8, 0), 5));
+
+        assertTrue(dao.rimuovi("AZ1"));
+        assertFalse(dao.rimuovi("AZ1"));
+        assertTrue(dao.findByCriteria(criteri("NAP", "FCO", GIORNO, 1)).isEmpty());
+        assertTrue(dao.findByCodice("AZ1").isEmpty());
+    }
+
+    @Test
+    void dateRange_groupsByDayIncludingEmptyDays() {
+        dao.salva(volo("AZ1", "NAP", "FCO", GIORNO.minusDays(2).atTime(8, 0), 10));
+        dao.salva(volo("AZ2", "NAP", "FCO", GIORNO.atTime(7, 0), 10));
+        dao.salva(volo("AZ3", "NAP", "FCO", GIORNO.atTime(20, 0), 10));
+        dao.salva(volo("AZ4", "NAP", "FCO", GIORNO.plusDays(1).atTime(9, 0), 1));
+        dao.salva(volo("AZ5", "NAP", "FCO", GIORNO.plusDays(3).atTime(9, 0), 10));
+
+        SortedMap<LocalDate, List<Volo>> res = dao.findByIntervallo("NAP", "FCO", GIORNO.minusDays(1), GIORNO.plusDays(1), 2);
+
+        assertEquals(List.of(GIORNO.minusDays(1), GIORNO, GIORNO.plusDays(1)), List.copyOf(res.keySet()));
+        assertTrue(res.get(GIORNO.minusDays(1)).isEmpty());
+        assertEquals(List.of("AZ2", "AZ3"), codici(res.get(GIORNO)));
+        assertTrue(res.get(GIORNO.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void batchSave_mergesIntoSortedIndexAndReplacesByCode() {
+        dao.salva(volo("AZ1", "NAP", "FCO", GIORNO.atTime(8, 0), 10));
+        dao.salva(volo("AZ2", "NAP", "FCO", GIORNO.atTime(12, 0), 10));
+        long versioneTratte = dao.versioneTratte();
+
+        dao.salvaTutti(List.of(
+                volo("AZ3", "NAP", "FCO", GIORNO.atTime(10, 0), 10),
+                volo("AZ2", "NAP", "FCO", GIORNO.atTime(6, 0), 10),
+                volo("AZ4", "NAP", "FCO", GIORNO.atTime(8, 0), 10),
+                volo("AZ3", "NAP", "FCO", GIORNO.atTime(20, 0), 10)));
+
+        assertEquals(List.of("AZ2", "AZ1", "AZ4", "AZ3"), codici(dao.findByCriteria(criteri("NAP", "FCO", GIORNO, 1))));
+        assertEquals(4, dao.conta());
+        assertEquals(versioneTratte, dao.versioneTratte());
+
+        dao.salvaTutti(List.of(volo("AZ1", "NAP", "MXP", GIORNO.atTime(8, 0), 10)));
+        assertTrue(dao.versioneTratte() > versioneTratte, "nuova tratta");
+    }
+}
@@ -0,0 +1,188 @@
+package it.unisa.thetourist.persistenza.integrazione.pagamento;
+
+import it.unisa.thetourist.dominio.enumerazioni.EsitoPagamento;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelinePagamentiTest {
+
+    private static final BigDecimal IMPORTO = new BigDecimal("100");
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private PipelinePagamenti pipeline(PaymentGateway gateway, int maxInVolo, Duration scadenza, InterruttoreCircuito i) {
+        return new PipelinePagamenti(gateway, executor, maxInVolo, scadenza, i);
+    }
+
+    private static Throwable causa(CompletableFuture<?> f) {
+        return assertThrows(ExecutionException.class, f::get).getCause();
+    }
+
+    private static PaymentGateway gateway(BiFunction<String, BigDecimal, EsitoPagamento> autorizza) {
+        return new PaymentGateway() {
+            @Override
+            public EsitoPagamento autorizza(String riferimento, BigDecimal importo) {
+                return autorizza.apply(riferimento, importo);
+            }
+
+            @Override
+            public void rimborsa(String riferimento, BigDecimal importo) { }
+        };
+    }
+
+    @Test
+    void callsBeyondInFlightLimit_rejectedImmediately() throws Exception {
+        CountDownLatch sblocca = new CountDownLatch(1);
+        PaymentGateway lento = gateway((rif, importo) -> {
+            try {
+                sblocca.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return EsitoPagamento.AUTORIZZATO;
+        });
+        PipelinePagamenti p = pipeline(lento, 2, Duration.ofSeconds(5), new InterruttoreCircuito(5, Duration.ofSeconds(1)));
+
+        CompletableFuture<EsitoPagamento> a = p.autorizza("P1", IMPORTO);
+        CompletableFuture<EsitoPagamento> b = p.autorizza("P2", IMPORTO);
+        CompletableFuture<EsitoPagamento> c = p.autorizza("P3", IMPORTO);
+
+        assertInstanceOf(RejectedExecutionException.class, causa(c));
+        assertEquals(2, p.inVolo());
+        sblocca.countDown();
+        assertEquals(EsitoPagamento.AUTORIZZATO, a.get());
+        assertEquals(EsitoPagamento.AUTORIZZATO, b.get());
+        assertEquals(EsitoPagamento.AUTORIZZATO, p.autorizza("P4", IMPORTO).get());
+    }
+
+    @Test
+    void slowGateway_failsAtDeadline() {
+        PaymentGateway lento = new SimulatorePagamentoClient(Duration.ofMillis(500), 0, 0);
+        PipelinePagamenti p = pipeline(lento, 10, Duration.ofMillis(50), new InterruttoreCircuito(5, Duration.ofSeconds(1)));
+
+        long t0 = System.nanoTime();
+        assertInstanceOf(TimeoutException.class, causa(p.autorizza("P1", IMPORTO)));
+        assertTrue(System.nanoTime() - t0 < Duration.ofMillis(400).toNanos());
+    }
+
+    @Test
+    void timedOutCall_keepsPermitUntilGatewayReturns() throws Exception {
+        CountDownLatch sblocca = new CountDownLatch(1);
+        CountDownLatch terminata = new CountDownLatch(1);
+        PaymentGateway bloccato = gateway((rif, importo) -> {
+            try {
+                sblocca.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            terminata.countDown();
+            return EsitoPagamento.AUTORIZZATO;
+        });
+        PipelinePagamenti p = pipeline(bloccato, 1, Duration.ofMillis(20), new InterruttoreCircuito(5, Duration.ofSeconds(1)));
+
+        assertInstanceOf(TimeoutException.class, causa(p.autorizza("P1", IMPORTO)));
+        assertEquals(1, p.inVolo());
+        assertInstanceOf(RejectedExecutionException.class, causa(p.autorizza("P2", IMPORTO)));
+
+        sblocca.countDown();
+        terminata.await();
+        long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (p.inVolo() > 0 && System.nanoTime() < limite) Thread.onSpinWait();
+        assertEquals(0, p.inVolo());
+    }
+
+    @Test
+    void repeatedFailures_openCircuit_thenProbeCloses() throws Exception {
+        AtomicLong adesso = new AtomicLong();
+        AtomicInteger chiamate = new AtomicInteger();
+        boolean[] guasto = {true};
+        PaymentGateway gateway = gateway((rif, importo) -> {
+            chiamate.incrementAndGet();
+            if (guasto[0]) throw new IllegalStateException("Gateway non disponibile");
+            return EsitoPagamento.AUTORIZZATO;
+        });
+        InterruttoreCircuito interruttore = new InterruttoreCircuito(3, Duration.ofSeconds(10), adesso::get);
+        PipelinePagamenti p = pipeline(gateway, 10, Duration.ofSeconds(5), interruttore);
+
+        for (int i = 0; i < 3; i++) assertInstanceOf(IllegalStateException.class, causa(p.autorizza("P" + i, IMPORTO)));
+        assertEquals(InterruttoreCircuito.Stato.APERTO, p.statoCircuito());
+        assertInstanceOf(GatewayNonDisponibileException.class, causa(p.autorizza("P9", IMPORTO)));
+        assertEquals(3, chiamate.get(), "a circuito aperto il gateway non viene chiamato");
+
+        adesso.addAndGet(Duration.ofSeconds(10).toNanos());
+        guasto[0] = false;
+        assertEquals(InterruttoreCircuito.Stato.SEMI_APERTO, p.statoCircuito());
+        assertEquals(EsitoPagamento.AUTORIZZATO, p.autorizza("P10", IMPORTO).get());
+        assertEquals(InterruttoreCircuito.Stato.CHIUSO, p.statoCircuito());
+    }
+
+    @Test
+    void probeWithAllPermitsHeld_doesNotLeaveCircuitStuckOpen() throws Exception {
+        AtomicLong adesso = new AtomicLong();
+        CountDownLatch sblocca = new CountDownLatch(1);
+        PaymentGateway appeso = gateway((rif, importo) -> {
+            if (rif.equals("P1")) {
+                try {
+                    sblocca.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return EsitoPagamento.AUTORIZZATO;
+        });
+        InterruttoreCircuito interruttore = new InterruttoreCircuito(1, Duration.ofSeconds(10), adesso::get);
+        PipelinePagamenti p = pipeline(appeso, 1, Duration.ofMillis(20), interruttore);
+
+        assertInstanceOf(TimeoutException.class, causa(p.autorizza("P1", IMPORTO)));
+        adesso.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertEquals(InterruttoreCircuito.Stato.SEMI_APERTO, p.statoCircuito());
+        // l'unico permesso è ancora della chiamata appesa: la prova viene respinta senza consumarsi
+        assertInstanceOf(RejectedExecutionException.class, causa(p.autorizza("P2", IMPORTO)));
+
+        sblocca.countDown();
+        long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (p.inVolo() > 0 && System.nanoTime() < limite) Thread.onSpinWait();
+        assertEquals(EsitoPagamento.AUTORIZZATO, p.autorizza("P3", IMPORTO).get());
+        assertEquals(InterruttoreCircuito.Stato.CHIUSO, p.statoCircuito());
+    }
+
+    @Test
+    void simulator_injectsConfiguredRejectionRate() {
+        SimulatorePagamentoClient sim = new SimulatorePagamentoClient(Duration.ZERO, 0.5, 0);
+        int rifiutati = 0;
+        for (int i = 0; i < 10_000; i++) if (sim.autorizza("P" + i, IMPORTO) == EsitoPagamento.RIFIUTATO) rifiutati++;
+
+        assertTrue(rifiutati > 4_000 && rifiutati < 6_000, "rifiutati: " + rifiutati);
+        assertEquals(10_000 - rifiutati, sim.addebitati());
+    }
+
+    @Test
+    void simulator_chargesReferenceOnce() {
+        SimulatorePagamentoClient sim = new SimulatorePagamentoClient();
+
+        assertEquals(EsitoPagamento.AUTORIZZATO, sim.autorizza("P1", IMPORTO));
+        assertEquals(EsitoPagamento.AUTORIZZATO, sim.autorizza("P1", IMPORTO));
+
+        assertEquals(1, sim.addebitati());
+    }
+}
@@ -0,0 +1,92 @@
+package it.unisa.thetourist.persistenza.jdbc;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PoolConnessioniTest {
+
+    private PoolConnessioni pool;
+
+    @BeforeEach
+    void apri() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        pool = new PoolConnessioni(h2, 2, Duration.ofMillis(100), 2);
+        try (Connection c = pool.getConnection(); Statement s = c.createStatement()) {
+            s.execute("CREATE TABLE t (id INT PRIMARY KEY)");
+        }
+    }
+
+    @AfterEach
+    void chiudi() {
+        pool.close();
+    }
+
+    @Test
+    void returnedConnection_isReusedWithItsStatements() throws Exception {
+        PreparedStatement primo;
+        try (Connection c = pool.getConnection(); PreparedStatement ps = c.prepareStatement("SELECT COUNT(*) FROM t")) {
+            primo = ps;
+            assertSame(c, ps.getConnection());
+        }
+        try (Connection c = pool.getConnection(); PreparedStatement ps = c.prepareStatement("SELECT COUNT(*) FROM t")) {
+            assertSame(primo, ps, "statement già preparato sulla stessa connessione fisica");
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+            }
+        }
+        assertEquals(1, pool.aperte());
+        assertEquals(1, pool.libere());
+    }
+
+    @Test
+    void exhaustedPool_waitsThenFails_andUncommittedWorkIsRolledBack() throws Exception {
+        Connection a = pool.getConnection();
+        Connection b = pool.getConnection();
+        assertThrows(SQLException.class, () -> pool.getConnection());
+
+        a.setAutoCommit(false);
+        try (PreparedStatement ps = a.prepareStatement("INSERT INTO t VALUES (1)")) {
+            ps.executeUpdate();
+        }
+        a.close();
+        assertTrue(a.isClosed());
+        assertThrows(SQLException.class, a::createStatement);
+
+        try (Connection c = pool.getConnection(); PreparedStatement ps = c.prepareStatement("SELECT COUNT(*) FROM t");
+             ResultSet rs = ps.executeQuery()) {
+            assertTrue(c.getAutoCommit());
+            rs.next();
+            assertEquals(0, rs.getInt(1), "inserimento non confermato annullato alla restituzione");
+        }
+        b.close();
+    }
+
+    @Test
+    void statementCache_evictsLeastRecentlyUsed() throws Exception {
+        try (Connection c = pool.getConnection()) {
+            PreparedStatement uno = c.prepareStatement("SELECT 1");
+            c.prepareStatement("SELECT 2").close();
+            assertSame(uno, c.prepareStatement("SELECT 1"));
+            c.prepareStatement("SELECT 3").close(); // esce SELECT 2, il meno usato di recente
+            assertSame(uno, c.prepareStatement("SELECT 1"));
+            PreparedStatement due = c.prepareStatement("SELECT 2");
+            try (ResultSet rs = due.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(2, rs.getInt(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package it.unisa.thetourist.persistenza.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    @TempDir
+    Path cartella;
+
+    private Journal apri(Path file, List<String> rigiocati) throws IOException {
+        return Journal.apri(file, 0, Long.MAX_VALUE,
+                (tipo, dati) -> rigiocati.add(tipo + ":" + new String(dati, StandardCharsets.UTF_8)), List::of);
+    }
+
+    private static Journal.Record record(String s) {
+        return new Journal.Record((byte) 1, s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void reopen_replaysRecordsInOrder() throws Exception {
+        Path file = cartella.resolve("j.log");
+        try (Journal j = apri(file, new ArrayList<>())) {
+            j.scrivi(record("a"), null);
+            j.scrivi(List.of(record("b"), record("")), null);
+        }
+
+        List<String> rigiocati = new ArrayList<>();
+        try (Journal j = apri(file, rigiocati)) {
+            j.scrivi(record("c"), null);
+        }
+        assertEquals(List.of("1:a", "1:b", "1:"), rigiocati);
+
+        rigiocati.clear();
+        apri(file, rigiocati).close();
+        assertEquals(List.of("1:a", "1:b", "1:", "1:c"), rigiocati);
+    }
+
+    @Test
+    void apply_runsOnlyOnceTheRecordIsDurable() throws Exception {
+        Path file = cartella.resolve("j.log");
+        try (Journal j = apri(file, new ArrayList<>())) {
+            long[] forzatureAllApplica = {-1};
+            j.scrivi(record("a"), () -> forzatureAllApplica[0] = j.forzature());
+            assertTrue(forzatureAllApplica[0] >= 1, "applicato prima del force()");
+        }
+    }
+
+    @Test
+    void tornTail_isDiscardedAndOverwritten() throws Exception {
+        Path file = cartella.resolve("j.log");
+        try (Journal j = apri(file, new ArrayList<>())) {
+            j.scrivi(record("primo"), null);
+            j.scrivi(record("secondo"), null);
+        }
+        // corrompe l'ultimo byte del secondo record (9 byte di intestazione + dati)
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(9 + 5 + 9 + 6);
+            raf.write('X');
+        }
+
+        List<String> rigiocati = new ArrayList<>();
+        try (Journal j = apri(file, rigiocati)) {
+            assertEquals(List.of("1:primo"), rigiocati);
+            assertEquals(9 + 5, j.dimensione());
+            j.scrivi(record("terzo"), null);
+        }
+
+        rigiocati.clear();
+        apri(file, rigiocati).close();
+        assertEquals(List.of("1:primo", "1:terzo"), rigiocati);
+    }
+
+    @Test
+    void concurrentWriters_areGroupCommitted() throws Exception {
+        Path file = cartella.resolve("j.log");
+        int thread = 16;
+        int perThread = 300;
+        ExecutorService pool = Executors.newFixedThreadPool(thread);
+        try (Journal j = apri(file, new ArrayList<>())) {
+            List<Future<?>> lavori = new ArrayList<>();
+            for (int t = 0; t < thread; t++) {
+                int id = t;
+                lavori.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) j.scrivi(record(id + "-" + i), null);
+                    return null;
+                }));
+            }
+            for (Future<?> f : lavori) f.get();
+            assertTrue(j.forzature() < thread * perThread, "forzature: " + j.forzature());
+        } finally {
+            pool.shutdown();
+        }
+
+        List<String> rigiocati = new ArrayList<>();
+        apri(file, rigiocati).close();
+        assertEquals(thread * perThread, rigiocati.size());
+        assertTrue(rigiocati.contains("1:15-299"));
+    }
+
+    @Test
+    void compaction_keepsOnlyCurrentState() throws Exception {
+        Path file = cartella.resolve("j.log");
+        Map<String, Journal.Record> stato = new ConcurrentHashMap<>();
+        try (Journal j = Journal.apri(file, 0, 64 * 1024, (t, d) -> { }, () -> List.copyOf(stato.values()))) {
+            for (int i = 0; i < 20_000; i++) {
+                String chiave = "k" + (i % 10);
+                Journal.Record r = record(chiave + "=" + i);
+                j.scrivi(r, () -> stato.put(chiave, r));
+            }
+            assertTrue(j.dimensione() < 128 * 1024, "dimensione: " + j.dimensione());
+        }
+        assertFalse(Files.exists(cartella.resolve("j.log.compattazione")));
+
+        List<String> rigiocati = new ArrayList<>();
+        apri(file, rigiocati).close();
+        Collections.sort(rigiocati);
+        assertTrue(rigiocati.size() >= 10);
+        for (int k = 0; k < 10; k++) assertTrue(rigiocati.contains("1:k" + k + "=" + (19_990 + k)), "manca k" + k);
+    }
+}
@@ -0,0 +1,139 @@
+package it.unisa.thetourist.persistenza.snapshot;
+
+import it.unisa.thetourist.applicazione.servizi.ServizioFotoCatalogo;
+import it.unisa.thetourist.dominio.entita.Aeroporto;
+import it.unisa.thetourist.dominio.entita.CompagniaAerea;
+import it.unisa.thetourist.dominio.entita.Tariffa;
+import it.unisa.thetourist.dominio.entita.Volo;
+import it.unisa.thetourist.persistenza.dao.AeroportoDAO;
+import it.unisa.thetourist.persistenza.dao.CompagniaAereaDAO;
+import it.unisa.thetourist.persistenza.dao.TariffaDAO;
+import it.unisa.thetourist.persistenza.dao.VoloDAO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FotoCatalogoTest {
+
+    private static final LocalDateTime GIORNO = LocalDate.of(2030, 5, 1).atStartOfDay();
+
+    @TempDir
+    Path cartella;
+
+    private final AeroportoDAO aeroporti = new AeroportoDAO();
+    private final CompagniaAereaDAO compagnie = new CompagniaAereaDAO();
+    private final VoloDAO voli = new VoloDAO();
+    private final TariffaDAO tariffe = new TariffaDAO();
+
+    private Path catalogo() throws IOException {
+        aeroporti.salva(new Aeroporto("NAP", "Capodichino", "Napoli", 40));
+        aeroporti.salva(new Aeroporto("FCO", "Fiumicino", "Roma", 0));
+        compagnie.salva(new CompagniaAerea("AZ", "ITA Airways"));
+        voli.salva(new Volo("AZ1", "NAP", "FCO", GIORNO.plusHours(8), GIORNO.plusHours(9), 10));
+        voli.salva(new Volo("AZ2", "NAP", "FCO", GIORNO.plusHours(14), GIORNO.plusHours(15), 0));
+        voli.salva(new Volo("AZ3", "FCO", "NAP", GIORNO.plusDays(1).plusHours(7), GIORNO.plusDays(1).plusHours(8), 5));
+        tariffe.salva(new Tariffa("T1", "AZ1", "ECONOMY", new BigDecimal("99.90")));
+        tariffe.salva(new Tariffa("T2", "AZ1", "BUSINESS", new BigDecimal("250")));
+        tariffe.salva(new Tariffa("T3", "AZ3", "ECONOMY", null));
+
+        Path file = cartella.resolve("catalogo.foto");
+        try (ServizioFotoCatalogo servizio = new ServizioFotoCatalogo(file, aeroporti, compagnie, voli, tariffe)) {
+            assertTrue(servizio.scrivi());
+            assertFalse(servizio.scrivi(), "catalogo invariato: nessuna nuova foto");
+        }
+        return file;
+    }
+
+    @Test
+    void reopen_servesCatalogFromMappedFile() throws Exception {
+        FotoCatalogo foto = FotoCatalogo.apri(catalogo());
+        VoloDAO dao = new VoloDAO(foto);
+        TariffaDAO tariffaDAO = new TariffaDAO(foto);
+
+        assertEquals(3, dao.conta());
+        assertEquals("Napoli", new AeroportoDAO(foto).findByCodice("NAP").orElseThrow().getCitta());
+        assertEquals("ITA Airways", new CompagniaAereaDAO(foto).findByCodice("AZ").orElseThrow().getNome());
+        assertEquals(List.of("AZ1"), codici(dao.findPartenze("NAP", "FCO", GIORNO, GIORNO.plusDays(1), 1)));
+        assertEquals(List.of("AZ1", "AZ2"), codici(dao.findPartenze("NAP", "FCO", GIORNO, GIORNO.plusDays(1), 0)));
+        assertEquals(1, dao.findByIntervallo("FCO", "NAP", GIORNO.toLocalDate(), GIORNO.toLocalDate().plusDays(1), 1)
+                .get(GIORNO.toLocalDate().plusDays(1)).size());
+        assertEquals(Set.of("FCO"), dao.collegamenti().get("NAP"));
+
+        Volo az1 = dao.findByCodice("AZ1").orElseThrow();
+        assertEquals(GIORNO.plusHours(9), az1.getDataOraArrivo());
+        assertEquals(10, az1.getCapienza());
+        assertSame(az1, dao.findPartenze("NAP", "FCO", GIORNO, GIORNO.plusDays(1), 1).get(0),
+                "il volo materializzato resta lo stesso oggetto");
+        az1.setPostiDisponibili(0);
+        assertTrue(dao.findPartenze("NAP", "FCO", GIORNO, GIORNO.plusDays(1), 1).isEmpty());
+
+        assertEquals(new BigDecimal("99.90"), tariffaDAO.findByCodice("T1").orElseThrow().getPrezzo());
+        assertEquals(2, tariffaDAO.findByVolo("AZ1").size());
+        assertNull(tariffaDAO.findByVolo("AZ3").get(0).getPrezzo());
+        assertTrue(dao.findByCodice("XX").isEmpty());
+    }
+
+    @Test
+    void changesAfterLoad_shadowMappedRows() throws Exception {
+        FotoCatalogo foto = FotoCatalogo.apri(catalogo());
+        VoloDAO dao = new VoloDAO(foto);
+        TariffaDAO tariffaDAO = new TariffaDAO(foto);
+        long versioneTratte = dao.versioneTratte();
+
+        dao.salva(new Volo("AZ2", "NAP", "FCO", GIORNO.plusHours(6), GIORNO.plusHours(7), 3));
+        dao.salva(new Volo("AZ4", "NAP", "FCO", GIORNO.plusHours(8), GIORNO.plusHours(9), 3));
+        assertEquals(List.of("AZ2", "AZ1", "AZ4"), codici(dao.findPartenze("NAP", "FCO", GIORNO, GIORNO.plusDays(1), 1)));
+        assertEquals(4, dao.conta());
+        assertEquals(versioneTratte, dao.versioneTratte());
+
+        assertTrue(dao.rimuovi("AZ3"));
+        assertFalse(dao.rimuovi("AZ3"));
+        assertTrue(dao.findByCodice("AZ3").isEmpty());
+        assertNull(dao.collegamenti().get("FCO"));
+        assertTrue(dao.versioneTratte() > versioneTratte, "l'ultima riga della tratta scompare");
+
+        tariffaDAO.salva(new Tariffa("T1", "AZ1", "ECONOMY", new BigDecimal("120")));
+        assertTrue(tariffaDAO.rimuovi("T2"));
+        assertEquals(List.of(new BigDecimal("120")), tariffaDAO.findByVolo("AZ1").stream().map(Tariffa::getPrezzo).toList());
+        assertTrue(tariffaDAO.findByCodice("T2").isEmpty());
+    }
+
+    @Test
+    void rewriteFromLoadedCatalog_roundTrips() throws Exception {
+        FotoCatalogo foto = FotoCatalogo.apri(catalogo());
+        VoloDAO dao = new VoloDAO(foto);
+        TariffaDAO tariffaDAO = new TariffaDAO(foto);
+        dao.salva(new Volo("AZ5", "NAP", "FCO", GIORNO.plusHours(10), GIORNO.plusHours(11), 7));
+        dao.rimuovi("AZ2");
+
+        Path file = cartella.resolve("catalogo.foto");
+        new ServizioFotoCatalogo(file, new AeroportoDAO(foto), new CompagniaAereaDAO(foto), dao, tariffaDAO).scrivi();
+        VoloDAO riaperto = new VoloDAO(FotoCatalogo.apri(file));
+
+        assertEquals(List.of("AZ1", "AZ5"), codici(riaperto.findPartenze("NAP", "FCO", GIORNO, GIORNO.plusDays(1), 0)));
+        assertEquals(3, riaperto.conta());
+        assertEquals(2, new TariffaDAO(FotoCatalogo.apri(file)).findByVolo("AZ1").size());
+    }
+
+    @Test
+    void invalidFile_rejected() throws Exception {
+        Path file = cartella.resolve("altro.foto");
+        Files.write(file, new byte[200]);
+
+        assertThrows(IOException.class, () -> FotoCatalogo.apri(file));
+    }
+
+    private static List<String> codici(List<Volo> voli) {
+        return voli.stream().map(Volo::getCodice).toList();
+    }
+}